@@ -7,6 +7,7 @@
     const val AUTO_VALUE = "1.7"
     const val JUNIT = "5.6.1"
     const val MOCKITO = "3.3.3"
+    const val JMH = "1.25"
     const val LOGBACK = "1.2.3"
     const val FAST_UTIL = "8.2.1"
     const val GUAVA = "21.0"
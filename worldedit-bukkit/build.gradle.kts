@@ -35,6 +35,22 @@
     "testImplementation"("org.mockito:mockito-core:1.9.0-rc1")
 }
 
+// JMH benchmarks, run with `./gradlew :worldedit-bukkit:jmh -Pjmh.include=<regex>`
+val jmhSourceSet = sourceSets.create("jmh") {
+    compileClasspath += sourceSets["main"].output + sourceSets["main"].compileClasspath
+    runtimeClasspath += sourceSets["main"].output + sourceSets["main"].runtimeClasspath
+}
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:${Versions.JMH}")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${Versions.JMH}")
+}
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks."
+    classpath = jmhSourceSet.runtimeClasspath
+    main = "org.openjdk.jmh.Main"
+    args(project.findProperty("jmh.include")?.toString() ?: ".*")
+}
+
 tasks.named<Copy>("processResources") {
     filesMatching("plugin.yml") {
         expand("internalVersion" to project.ext["internalVersion"])
@@ -0,0 +1,120 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.bukkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the caches that {@link BukkitAdapter} converts block states
+ * through: filling the dense table in ID order, as
+ * {@link BukkitAdapter#precomputeBlockStates()} does, and the cached lookups
+ * by internal ID, against the lookups by block data string that are used
+ * when the adapter has no internal IDs.
+ *
+ * <p>Creating the Bukkit block data itself needs a running server, so it is
+ * not measured here.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BukkitAdapterCacheBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    @Param({"20000"})
+    public int stateCount;
+
+    private Object[] states;
+    private DenseCache<Object> denseCache;
+    private Map<String, Object> stringCache;
+    private int[] sampleIds;
+    private String[] sampleStrings;
+
+    @Setup
+    public void setUp() {
+        states = new Object[stateCount];
+        String[] strings = new String[stateCount];
+        denseCache = new DenseCache<>();
+        stringCache = new ConcurrentHashMap<>();
+        for (int i = 0; i < stateCount; i++) {
+            states[i] = new Object();
+            strings[i] = "minecraft:benchmark_" + (i / 16) + "[facing=north,level=" + (i % 16) + "]";
+            denseCache.put(i, states[i]);
+            stringCache.put(strings[i], states[i]);
+        }
+
+        // Worlds are read in whatever order their blocks are in, so sample at random
+        Random random = new Random(42);
+        sampleIds = new int[SAMPLES];
+        sampleStrings = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sampleIds[i] = random.nextInt(stateCount);
+            // Block data builds a new string for every call
+            sampleStrings[i] = new String(strings[sampleIds[i]]);
+        }
+    }
+
+    @Benchmark
+    public DenseCache<Object> precompute() {
+        DenseCache<Object> cache = new DenseCache<>();
+        for (int i = 0; i < stateCount; i++) {
+            cache.put(i, states[i]);
+        }
+        return cache;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void adaptByInternalId(Blackhole blackhole) {
+        for (int id : sampleIds) {
+            blackhole.consume(denseCache.get(id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void adaptByString(Blackhole blackhole) {
+        for (String string : sampleStrings) {
+            blackhole.consume(stringCache.get(string));
+        }
+    }
+
+}
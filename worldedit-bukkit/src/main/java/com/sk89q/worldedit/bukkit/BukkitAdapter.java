@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseItemStack;
+import com.sk89q.worldedit.bukkit.adapter.BukkitImplAdapter;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extension.input.InputParseException;
 import com.sk89q.worldedit.extension.input.ParserContext;
@@ -45,8 +46,6 @@
 import com.sk89q.worldedit.world.gamemode.GameModes;
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Biome;
@@ -56,11 +55,12 @@
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -404,8 +404,8 @@ public static org.bukkit.entity.EntityType adapt(EntityType entityType) {
         return org.bukkit.entity.EntityType.fromName(entityType.getId().substring(10));
     }
 
-    private static final EnumMap<Material, BlockType> materialBlockTypeCache = new EnumMap<>(Material.class);
-    private static final EnumMap<Material, ItemType> materialItemTypeCache = new EnumMap<>(Material.class);
+    private static final DenseCache<Optional<BlockType>> materialBlockTypeCache = new DenseCache<>();
+    private static final DenseCache<Optional<ItemType>> materialItemTypeCache = new DenseCache<>();
 
     /**
      * Converts a Material to a BlockType.
@@ -416,7 +416,8 @@ public static org.bukkit.entity.EntityType adapt(EntityType entityType) {
     @Nullable
     public static BlockType asBlockType(Material material) {
         checkNotNull(material);
-        return materialBlockTypeCache.computeIfAbsent(material, input -> BlockTypes.get(material.getKey().toString()));
+        return materialBlockTypeCache.computeIfAbsent(material.ordinal(),
+            input -> Optional.ofNullable(BlockTypes.get(material.getKey().toString()))).orElse(null);
     }
 
     /**
@@ -428,11 +429,12 @@ public static BlockType asBlockType(Material material) {
     @Nullable
     public static ItemType asItemType(Material material) {
         checkNotNull(material);
-        return materialItemTypeCache.computeIfAbsent(material, input -> ItemTypes.get(material.getKey().toString()));
+        return materialItemTypeCache.computeIfAbsent(material.ordinal(),
+            input -> Optional.ofNullable(ItemTypes.get(material.getKey().toString()))).orElse(null);
     }
 
-    private static final Int2ObjectMap<BlockState> blockStateCache = new Int2ObjectOpenHashMap<>();
-    private static final Map<String, BlockState> blockStateStringCache = new HashMap<>();
+    private static final DenseCache<BlockState> blockStateCache = new DenseCache<>();
+    private static final Map<String, BlockState> blockStateStringCache = new ConcurrentHashMap<>();
 
     /**
      * Create a WorldEdit BlockState from a Bukkit BlockData.
@@ -443,32 +445,38 @@ public static ItemType asItemType(Material material) {
     public static BlockState adapt(BlockData blockData) {
         checkNotNull(blockData);
 
-        if (WorldEditPlugin.getInstance().getBukkitImplAdapter() == null) {
-            return blockStateStringCache.computeIfAbsent(blockData.getAsString(), input -> {
-                try {
-                    return WorldEdit.getInstance().getBlockFactory().parseFromInput(input, TO_BLOCK_CONTEXT).toImmutableState();
-                } catch (InputParseException e) {
-                    e.printStackTrace();
-                    return null;
-                }
-            });
-        } else {
-            return blockStateCache.computeIfAbsent(
-                WorldEditPlugin.getInstance().getBukkitImplAdapter().getInternalBlockStateId(blockData).orElseGet(
-                    () -> blockData.getAsString().hashCode()
-                ),
-                input -> {
-                    try {
-                        return WorldEdit.getInstance().getBlockFactory().parseFromInput(blockData.getAsString(), TO_BLOCK_CONTEXT).toImmutableState();
-                    } catch (InputParseException e) {
-                        e.printStackTrace();
-                        return null;
-                    }
-                });
+        BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
+        OptionalInt internalId = adapter == null ? OptionalInt.empty() : adapter.getInternalBlockStateId(blockData);
+        if (internalId.isPresent()) {
+            return blockStateCache.computeIfAbsent(internalId.getAsInt(), input -> parseBlockState(blockData.getAsString()));
         }
+        return blockStateStringCache.computeIfAbsent(blockData.getAsString(), BukkitAdapter::parseBlockState);
     }
 
-    private static final Int2ObjectMap<BlockData> blockDataCache = new Int2ObjectOpenHashMap<>();
+    @Nullable
+    private static BlockState parseBlockState(String input) {
+        try {
+            return WorldEdit.getInstance().getBlockFactory().parseFromInput(input, TO_BLOCK_CONTEXT).toImmutableState();
+        } catch (InputParseException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Get the WorldEdit BlockState for an internal block state ID of the
+     * implementation adapter, if it has been adapted before.
+     *
+     * @param internalId the internal ID, as returned by {@link BukkitImplAdapter#getInternalBlockStateId(BlockData)}
+     * @return the WorldEdit BlockState, or {@code null} if not yet known
+     */
+    @Nullable
+    public static BlockState getBlockStateByInternalId(int internalId) {
+        return blockStateCache.get(internalId);
+    }
+
+    private static final DenseCache<BlockData> blockDataCache = new DenseCache<>();
+    private static final Map<BlockState, BlockData> blockDataFallbackCache = new ConcurrentHashMap<>();
 
     /**
      * Create a Bukkit BlockData from a WorldEdit BlockStateHolder.
@@ -478,12 +486,50 @@ public static BlockState adapt(BlockData blockData) {
      */
     public static <B extends BlockStateHolder<B>> BlockData adapt(B block) {
         checkNotNull(block);
+        BlockState state = block.toImmutableState();
         // Should never not have an ID for this BlockState.
-        int cacheKey = BlockStateIdAccess.getBlockStateId(block.toImmutableState());
+        int cacheKey = BlockStateIdAccess.getBlockStateId(state);
         if (cacheKey == BlockStateIdAccess.invalidId()) {
-            cacheKey = block.hashCode();
+            return blockDataFallbackCache.computeIfAbsent(state, input -> Bukkit.createBlockData(input.getAsString())).clone();
+        }
+        return blockDataCache.computeIfAbsent(cacheKey, input -> Bukkit.createBlockData(state.getAsString())).clone();
+    }
+
+    /**
+     * Fill the block state conversion caches for every known block state,
+     * so that later conversions in either direction are only array reads.
+     *
+     * <p>This may be called from any thread. Conversions that happen in the
+     * meantime fill the caches themselves.</p>
+     *
+     * @return the number of block states cached
+     */
+    public static int precomputeBlockStates() {
+        BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
+        int count = 0;
+        for (BlockType blockType : BlockType.REGISTRY.values()) {
+            for (BlockState state : blockType.getAllStates()) {
+                int id = BlockStateIdAccess.getBlockStateId(state);
+                if (id == BlockStateIdAccess.invalidId()) {
+                    continue;
+                }
+                BlockData blockData;
+                try {
+                    blockData = Bukkit.createBlockData(state.getAsString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                blockDataCache.put(id, blockData);
+                if (adapter != null) {
+                    OptionalInt internalId = adapter.getInternalBlockStateId(blockData);
+                    if (internalId.isPresent()) {
+                        blockStateCache.put(internalId.getAsInt(), state);
+                    }
+                }
+                count++;
+            }
         }
-        return blockDataCache.computeIfAbsent(cacheKey, input -> Bukkit.createBlockData(block.getAsString())).clone();
+        return count;
     }
 
     /**
@@ -20,6 +20,7 @@
 package com.sk89q.worldedit.bukkit;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.WorldEdit;
@@ -28,6 +29,7 @@
 import com.sk89q.worldedit.bukkit.adapter.BukkitImplAdapter;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.internal.util.ChunkHoldCounter;
 import com.sk89q.worldedit.internal.wna.WorldNativeAccess;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -44,7 +46,9 @@
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.weather.WeatherType;
 import com.sk89q.worldedit.world.weather.WeatherTypes;
+import io.papermc.lib.PaperLib;
 import org.bukkit.Effect;
+import org.bukkit.HeightMap;
 import org.bukkit.TreeType;
 import org.bukkit.World;
 import org.bukkit.block.Block;
@@ -54,17 +58,20 @@
 import org.bukkit.inventory.DoubleChestInventory;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.plugin.Plugin;
 import org.slf4j.Logger;
 
 import java.lang.ref.WeakReference;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -77,6 +84,9 @@ public class BukkitWorld extends AbstractWorld {
 
     private static final Map<Integer, Effect> effects = new HashMap<>();
 
+    // Plugin chunk tickets aren't counted, so holds are counted here, by world
+    private static final Map<World, ChunkHoldCounter> chunkHolds = new MapMaker().weakKeys().makeMap();
+
     static {
         for (Effect effect : Effect.values()) {
             @SuppressWarnings("deprecation")
@@ -316,6 +326,46 @@ public void checkLoadedChunk(BlockVector3 pt) {
         world.getChunkAt(pt.getBlockX() >> 4, pt.getBlockZ() >> 4);
     }
 
+    private static ChunkHoldCounter getChunkHolds(World world) {
+        return chunkHolds.computeIfAbsent(world, w -> new ChunkHoldCounter());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> loadChunksAsync(Collection<BlockVector2> chunks, boolean hold) {
+        World world = getWorld();
+        Plugin plugin = WorldEditPlugin.getInstance();
+        ChunkHoldCounter holds = getChunkHolds(world);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        int i = 0;
+        for (BlockVector2 chunk : chunks) {
+            int chunkX = chunk.getBlockX();
+            int chunkZ = chunk.getBlockZ();
+            if (hold) {
+                holds.hold(chunkX, chunkZ);
+            }
+            futures[i++] = PaperLib.getChunkAtAsync(world, chunkX, chunkZ).whenComplete((loaded, error) -> {
+                // Adding a ticket loads the chunk, so wait for it to load, and
+                // skip chunks that were released in the meantime
+                if (hold && error == null && holds.isHeld(chunkX, chunkZ)) {
+                    world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+                }
+            });
+        }
+        return CompletableFuture.allOf(futures).handle((ignored, error) -> hold && error == null);
+    }
+
+    @Override
+    public void releaseChunks(Collection<BlockVector2> chunks) {
+        World world = getWorld();
+        Plugin plugin = WorldEditPlugin.getInstance();
+        ChunkHoldCounter holds = getChunkHolds(world);
+        for (BlockVector2 chunk : chunks) {
+            if (holds.release(chunk.getBlockX(), chunk.getBlockZ())) {
+                world.removePluginChunkTicket(chunk.getBlockX(), chunk.getBlockZ(), plugin);
+            }
+        }
+    }
+
     @Override
     public boolean equals(Object other) {
         final World ref = worldRef.get();
@@ -343,6 +393,11 @@ public int getMaxY() {
         return getWorld().getMaxHeight() - 1;
     }
 
+    @Override
+    public int getHighestBlockYBound(int x, int z) {
+        return getWorld().getHighestBlockYAt(x, z, HeightMap.WORLD_SURFACE);
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     public void fixAfterFastMode(Iterable<BlockVector2> chunks) {
@@ -425,10 +480,15 @@ public void simulateBlockMine(BlockVector3 pt) {
 
     @Override
     public com.sk89q.worldedit.world.block.BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public com.sk89q.worldedit.world.block.BlockState getBlock(int x, int y, int z) {
         BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
         if (adapter != null) {
             try {
-                return adapter.getBlock(BukkitAdapter.adapt(getWorld(), position)).toImmutableState();
+                return adapter.getBlockState(getWorld(), x, y, z);
             } catch (Exception e) {
                 if (!hasWarnedImplError) {
                     hasWarnedImplError = true;
@@ -436,7 +496,7 @@ public com.sk89q.worldedit.world.block.BlockState getBlock(BlockVector3 position
                 }
             }
         }
-        Block bukkitBlock = getWorld().getBlockAt(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        Block bukkitBlock = getWorld().getBlockAt(x, y, z);
         return BukkitAdapter.adapt(bukkitBlock.getBlockData());
     }
 
@@ -484,6 +544,14 @@ public Set<SideEffect> applySideEffects(BlockVector3 position, com.sk89q.worlded
         return ImmutableSet.of();
     }
 
+    @Override
+    public void applySideEffects(BlockVector2 chunk, Map<BlockVector3, com.sk89q.worldedit.world.block.BlockState> changes,
+            SideEffectSet sideEffectSet) {
+        if (worldNativeAccess != null) {
+            worldNativeAccess.applySideEffects(chunk.getBlockX(), chunk.getBlockZ(), changes, sideEffectSet);
+        }
+    }
+
     @Override
     public boolean useItem(BlockVector3 position, BaseItem item, Direction face) {
         BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
@@ -0,0 +1,70 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.bukkit;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import javax.annotation.Nullable;
+
+/**
+ * A cache for values with small, dense integer keys, such as internal
+ * block state IDs or enum ordinals.
+ *
+ * <p>Reads never lock. Missing values are computed by the thread that
+ * first asks for them, and may occasionally be computed twice.</p>
+ */
+final class DenseCache<V> {
+
+    private volatile AtomicReferenceArray<V> values = new AtomicReferenceArray<>(0);
+
+    @Nullable
+    V get(int id) {
+        AtomicReferenceArray<V> values = this.values;
+        return id >= 0 && id < values.length() ? values.get(id) : null;
+    }
+
+    @Nullable
+    V computeIfAbsent(int id, IntFunction<V> function) {
+        V value = get(id);
+        if (value == null && id >= 0) {
+            value = function.apply(id);
+            if (value != null) {
+                put(id, value);
+            }
+        }
+        return value;
+    }
+
+    synchronized void put(int id, V value) {
+        AtomicReferenceArray<V> values = this.values;
+        if (id >= values.length()) {
+            AtomicReferenceArray<V> grown = new AtomicReferenceArray<>(Math.max(id + 1, values.length() * 2));
+            for (int i = 0; i < values.length(); i++) {
+                grown.set(i, values.get(i));
+            }
+            grown.set(id, value);
+            this.values = grown;
+        } else {
+            values.set(id, value);
+        }
+    }
+
+}
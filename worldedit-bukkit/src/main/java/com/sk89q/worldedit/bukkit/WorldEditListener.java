@@ -36,6 +36,7 @@
 import org.bukkit.event.player.PlayerCommandSendEvent;
 import org.bukkit.event.player.PlayerGameModeChangeEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.enginehub.piston.CommandManager;
 import org.enginehub.piston.inject.InjectedValueStore;
@@ -70,6 +71,12 @@ public void onGamemode(PlayerGameModeChangeEvent event) {
         WorldEdit.getInstance().getSessionManager().get(plugin.wrapPlayer(event.getPlayer()));
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // load the session off the main thread before the player needs it
+        WorldEdit.getInstance().getSessionManager().prefetch(plugin.wrapPlayer(event.getPlayer()));
+    }
+
     @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
     public void onPlayerCommandSend(PlayerCommandSendEvent event) {
         InjectedValueStore store = MapBackedValueStore.create();
@@ -86,6 +86,7 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
 
@@ -192,6 +193,13 @@ private void setupWorldData() {
         setupTags(); // datapacks aren't loaded until just before the world is, and bukkit has no event for this
         // so the earliest we can do this is in WorldInit
         WorldEdit.getInstance().getEventBus().post(new PlatformReadyEvent());
+        // The caches are also filled as states are converted, so don't hold up startup for this
+        getServer().getScheduler().runTaskAsynchronously(this, () -> {
+            long start = System.nanoTime();
+            int cachedStates = BukkitAdapter.precomputeBlockStates();
+            getLogger().log(Level.FINE, "Cached " + cachedStates + " block states in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        });
     }
 
     @SuppressWarnings({ "deprecation", "unchecked" })
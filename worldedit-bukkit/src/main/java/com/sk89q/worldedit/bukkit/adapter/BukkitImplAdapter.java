@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.blocks.BaseItem;
 import com.sk89q.worldedit.blocks.BaseItemStack;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.internal.wna.WorldNativeAccess;
@@ -38,14 +39,18 @@
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.item.ItemType;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -93,6 +98,92 @@ default void tickWatchdog() {
      */
     BaseBlock getBlock(Location location);
 
+    /**
+     * Get the state of the block at the given position, without reading
+     * its block entity.
+     *
+     * @param world the world
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block state
+     */
+    default BlockState getBlockState(World world, int x, int y, int z) {
+        OptionalInt internalId = getInternalBlockStateId(world, x, y, z);
+        if (internalId.isPresent()) {
+            BlockState state = BukkitAdapter.getBlockStateByInternalId(internalId.getAsInt());
+            if (state != null) {
+                return state;
+            }
+        }
+        return BukkitAdapter.adapt(world.getBlockAt(x, y, z).getBlockData());
+    }
+
+    /**
+     * Get the internal ID of the state of the block at the given position,
+     * as {@link #getInternalBlockStateId(BlockData)} returns for its block
+     * data.
+     *
+     * <p>Adapters should look the ID up in the palette of the chunk section,
+     * without creating any block data.</p>
+     *
+     * @param world the world
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the internal ID of the state
+     */
+    default OptionalInt getInternalBlockStateId(World world, int x, int y, int z) {
+        return getInternalBlockStateId(world.getBlockAt(x, y, z).getBlockData());
+    }
+
+    /**
+     * Get the internal IDs of the states of every block in a 16x16x16 chunk
+     * section, as {@link #getInternalBlockStateId(World, int, int, int)}
+     * returns for each of them.
+     *
+     * <p>IDs are indexed by {@code (y << 8) | (z << 4) | x}, using
+     * coordinates relative to the section. Adapters should copy them from
+     * the section's palette. By default, they are read from a snapshot of
+     * the whole chunk.</p>
+     *
+     * @param world the world
+     * @param chunkX the chunk X coordinate
+     * @param sectionY the section Y coordinate, which is the block Y coordinate divided by 16
+     * @param chunkZ the chunk Z coordinate
+     * @return the internal IDs, or empty if this adapter has no internal IDs
+     */
+    default Optional<int[]> getSectionInternalBlockStateIds(World world, int chunkX, int sectionY, int chunkZ) {
+        ChunkSnapshot snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+        int[] ids = new int[16 * 16 * 16];
+        if (snapshot.isSectionEmpty(sectionY)) {
+            OptionalInt air = getInternalBlockStateId(Material.AIR.createBlockData());
+            if (!air.isPresent()) {
+                return Optional.empty();
+            }
+            Arrays.fill(ids, air.getAsInt());
+            return Optional.of(ids);
+        }
+
+        // Neighbouring blocks usually share data, so only look up the ID when it changes
+        BlockData lastData = null;
+        int lastId = 0;
+        int minY = sectionY << 4;
+        for (int i = 0; i < ids.length; i++) {
+            BlockData data = snapshot.getBlockData(i & 15, minY + (i >> 8), (i >> 4) & 15);
+            if (!data.equals(lastData)) {
+                OptionalInt id = getInternalBlockStateId(data);
+                if (!id.isPresent()) {
+                    return Optional.empty();
+                }
+                lastData = data;
+                lastId = id.getAsInt();
+            }
+            ids[i] = lastId;
+        }
+        return Optional.of(ids);
+    }
+
     /**
      * Create a {@link WorldNativeAccess} for the given world reference.
      *
@@ -205,6 +296,12 @@ default boolean simulateItemUse(World world, BlockVector3 position, BaseItem ite
      */
     Set<SideEffect> getSupportedSideEffects();
 
+    /**
+     * Retrieve the internal ID for the given block data, if possible.
+     *
+     * @param data The block data
+     * @return the internal ID of the block data
+     */
     default OptionalInt getInternalBlockStateId(BlockData data) {
         return OptionalInt.empty();
     }
@@ -93,6 +93,25 @@
     }
 }
 
+// JMH benchmarks, run with `./gradlew :worldedit-core:jmh -Pjmh.include=<regex>`
+val jmhSourceSet = sourceSets.create("jmh") {
+    compileClasspath += sourceSets["main"].output
+    runtimeClasspath += sourceSets["main"].output
+}
+configurations.named("jmhImplementation") {
+    extendsFrom(configurations["implementation"])
+}
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:${Versions.JMH}")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${Versions.JMH}")
+}
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks."
+    classpath = jmhSourceSet.runtimeClasspath
+    main = "org.openjdk.jmh.Main"
+    args(project.findProperty("jmh.include")?.toString() ?: ".*")
+}
+
 val i18nSource = file("src/main/resources/lang/strings.json")
 val processResources = tasks.named<Copy>("processResources")
 
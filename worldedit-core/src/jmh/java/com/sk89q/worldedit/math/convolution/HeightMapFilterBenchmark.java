@@ -0,0 +1,101 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.math.convolution;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one smoothing pass over a height map, with the Gaussian kernel
+ * that {@code //smooth} uses and with a disk kernel of the same size that
+ * can't be split into a row and a column pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeightMapFilterBenchmark {
+
+    // 256 is the first size at or above the parallel threshold
+    @Param({"64", "256", "512"})
+    public int size;
+
+    private int[] data;
+    private int[] out;
+    private HeightMapFilter gaussian;
+    private HeightMapFilter nonSeparable;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        data = new int[size * size];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 60 + random.nextInt(20);
+        }
+        out = new int[data.length];
+
+        gaussian = new HeightMapFilter(new GaussianKernel(5, 1.0));
+
+        // An averaging disk of the same size, which can't be split
+        int diameter = 11;
+        float[] matrix = new float[diameter * diameter];
+        int count = 0;
+        for (int y = 0; y < diameter; y++) {
+            for (int x = 0; x < diameter; x++) {
+                if ((x - 5) * (x - 5) + (y - 5) * (y - 5) <= 25) {
+                    matrix[y * diameter + x] = 1;
+                    count++;
+                }
+            }
+        }
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] /= count;
+        }
+        nonSeparable = new HeightMapFilter(new Kernel(diameter, diameter, matrix));
+    }
+
+    @Benchmark
+    public int[] separable() {
+        gaussian.filter(data, out, size, size);
+        return out;
+    }
+
+    @Benchmark
+    public int[] full() {
+        nonSeparable.filter(data, out, size, size);
+        return out;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.eventbus;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.event.extent.EditSessionEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures posting an {@link EditSessionEvent}, which happens three times
+ * for every edit session that is created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+
+    public static class Subscriber {
+
+        private int count;
+
+        @Subscribe
+        public void onEditSession(EditSessionEvent event) {
+            count++;
+        }
+
+    }
+
+    @Param({"1", "4", "16"})
+    public int subscriberCount;
+
+    private EventBus eventBus;
+    private EditSessionEvent event;
+
+    @Setup
+    public void setUp() {
+        eventBus = new EventBus();
+        for (int i = 0; i < subscriberCount; i++) {
+            eventBus.register(new Subscriber());
+        }
+        event = new EditSessionEvent(null, null, -1, EditSession.Stage.BEFORE_CHANGE);
+    }
+
+    @Benchmark
+    public void post() {
+        eventBus.post(event);
+    }
+
+}
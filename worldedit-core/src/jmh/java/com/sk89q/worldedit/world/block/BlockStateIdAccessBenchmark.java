@@ -0,0 +1,193 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.block;
+
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.math.BlockVector3;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the ID lookups that platform adapters perform for every block
+ * read and write, on their own and as part of a whole block read.
+ *
+ * <p>This lives in the block package because block states cannot be created
+ * through the public API without a platform.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockStateIdAccessBenchmark {
+
+    private static final int SAMPLES = 4096;
+    private static final int SIZE = 32;
+
+    @Param({"20000"})
+    public int stateCount;
+
+    private BlockState[] states;
+    private int[] sampleIds;
+    private BlockState[] sampleStates;
+    private Int2ObjectOpenHashMap<BlockState> hashMap;
+    private Extent adapter;
+    private Extent hashMapAdapter;
+
+    @Setup
+    public void setUp() {
+        states = new BlockState[stateCount];
+        hashMap = new Int2ObjectOpenHashMap<>(stateCount);
+        for (int i = 0; i < stateCount; i++) {
+            BlockState state = new BlockState(new BlockType("worldedit:benchmark_" + i));
+            BlockStateIdAccess.register(state, i);
+            hashMap.put(i, state);
+            states[i] = state;
+        }
+
+        // Adapters read whatever the world contains, so sample IDs at random
+        Random random = new Random(42);
+        sampleIds = new int[SAMPLES];
+        sampleStates = new BlockState[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sampleIds[i] = random.nextInt(stateCount);
+            sampleStates[i] = states[sampleIds[i]];
+        }
+
+        int[][] sections = new int[(SIZE >> 4) * (SIZE >> 4) * (SIZE >> 4)][4096];
+        for (int[] section : sections) {
+            for (int i = 0; i < section.length; i++) {
+                section[i] = random.nextInt(stateCount);
+            }
+        }
+        adapter = new AdapterExtent(sections, BlockStateIdAccess::getBlockStateById);
+        hashMapAdapter = new AdapterExtent(sections, hashMap::get);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BlockStateIdAccess.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void getBlockStateById(Blackhole blackhole) {
+        for (int id : sampleIds) {
+            blackhole.consume(BlockStateIdAccess.getBlockStateById(id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void getBlockStateId(Blackhole blackhole) {
+        for (BlockState state : sampleStates) {
+            blackhole.consume(BlockStateIdAccess.getBlockStateId(state));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void hashMapBaseline(Blackhole blackhole) {
+        for (int id : sampleIds) {
+            blackhole.consume(hashMap.get(id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE * SIZE)
+    public void adapterGetBlock(Blackhole blackhole) {
+        readAll(adapter, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE * SIZE)
+    public void adapterGetFullBlock(Blackhole blackhole) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    blackhole.consume(adapter.getFullBlock(BlockVector3.at(x, y, z)));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE * SIZE)
+    public void adapterHashMapBaseline(Blackhole blackhole) {
+        readAll(hashMapAdapter, blackhole);
+    }
+
+    private static void readAll(Extent extent, Blackhole blackhole) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    blackhole.consume(extent.getBlock(BlockVector3.at(x, y, z)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads blocks the way the Fabric and Forge adapters do: the native ID
+     * is fetched from a chunk section and translated to a block state.
+     */
+    private static final class AdapterExtent extends NullExtent {
+
+        private final int[][] sections;
+        private final IntFunction<BlockState> lookup;
+
+        AdapterExtent(int[][] sections, IntFunction<BlockState> lookup) {
+            this.sections = sections;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            int x = position.getBlockX();
+            int y = position.getBlockY();
+            int z = position.getBlockZ();
+            int perAxis = SIZE >> 4;
+            int[] section = sections[((y >> 4) * perAxis + (z >> 4)) * perAxis + (x >> 4)];
+            return lookup.apply(section[(y & 15) << 8 | (z & 15) << 4 | (x & 15)]);
+        }
+
+    }
+
+}
@@ -28,7 +28,9 @@
 import com.sk89q.worldedit.extension.platform.Watchdog;
 import com.sk89q.worldedit.extent.ChangeSetExtent;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.ExtentProfiler;
 import com.sk89q.worldedit.extent.MaskingExtent;
+import com.sk89q.worldedit.extent.ProfilingExtent;
 import com.sk89q.worldedit.extent.NullExtent;
 import com.sk89q.worldedit.extent.TracingExtent;
 import com.sk89q.worldedit.extent.buffer.ForgetfulExtentBuffer;
@@ -69,6 +71,7 @@
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.OperationQueue;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.function.pattern.WaterloggedRemover;
@@ -103,6 +106,7 @@
 import com.sk89q.worldedit.regions.shape.ArbitraryBiomeShape;
 import com.sk89q.worldedit.regions.shape.ArbitraryShape;
 import com.sk89q.worldedit.regions.shape.RegionShape;
+import com.sk89q.worldedit.regions.shape.Stencil;
 import com.sk89q.worldedit.regions.shape.WorldEditExpressionEnvironment;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.util.Direction;
@@ -122,6 +126,7 @@
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
 import com.sk89q.worldedit.world.registry.LegacyMapper;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -129,11 +134,14 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -156,6 +164,9 @@ public class EditSession implements Extent, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(EditSession.class);
 
+    // Number of extents listed after a profiled edit
+    private static final int PROFILE_REPORT_SIZE = 5;
+
     /**
      * Used by {@link EditSession#setBlock(BlockVector3, BlockStateHolder, Stage)} to
      * determine which {@link Extent}s should be bypassed.
@@ -191,6 +202,93 @@ public String getDisplayName() {
         }
     }
 
+    /**
+     * The time spent in one stage of the extent chain of an EditSession.
+     *
+     * @see EditSession#getStageTimings()
+     */
+    public static final class StageTiming {
+
+        private final String name;
+        private final long operationCount;
+        private final long blockCount;
+        private final long timeSpent;
+
+        StageTiming(String name, long operationCount, long blockCount, long timeSpent) {
+            this.name = name;
+            this.operationCount = operationCount;
+            this.blockCount = blockCount;
+            this.timeSpent = timeSpent;
+        }
+
+        /**
+         * Get the name of the stage.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the number of operations that passed through the stage.
+         *
+         * @return the number of operations
+         */
+        public long getOperationCount() {
+            return operationCount;
+        }
+
+        /**
+         * Get the number of block changes that passed through the stage.
+         *
+         * @return the number of block changes
+         */
+        public long getBlockCount() {
+            return blockCount;
+        }
+
+        /**
+         * Get the time spent in the stage.
+         *
+         * @return the time spent, in nanoseconds
+         */
+        public long getTimeSpent() {
+            return timeSpent;
+        }
+
+        /**
+         * Get the number of operations that passed through the stage per
+         * second spent in it.
+         *
+         * @return the operations per second, or 0 if no time was spent
+         */
+        public long getOperationsPerSecond() {
+            return perSecond(operationCount);
+        }
+
+        /**
+         * Get the number of block changes that passed through the stage per
+         * second spent in it.
+         *
+         * @return the block changes per second, or 0 if no time was spent
+         */
+        public long getBlocksPerSecond() {
+            return perSecond(blockCount);
+        }
+
+        private long perSecond(long count) {
+            return timeSpent == 0 ? 0 : (long) (count * (double) TimeUnit.SECONDS.toNanos(1) / timeSpent);
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + operationCount + " operations (" + blockCount + " block changes) in "
+                + TimeUnit.NANOSECONDS.toMillis(timeSpent) + " ms, "
+                + getBlocksPerSecond() + " blocks/s";
+        }
+    }
+
     @SuppressWarnings("ProtectedField")
     protected final World world;
     private final @Nullable Actor actor;
@@ -199,17 +297,23 @@ public String getDisplayName() {
     private @Nullable SideEffectExtent sideEffectExtent;
     private final SurvivalModeExtent survivalExtent;
     private @Nullable ChunkBatchingExtent chunkBatchingExtent;
+    private @Nullable ChunkLoadingExtent chunkLoadingExtent;
+    private @Nullable ChangeSetExtent changeSetExtent;
     private final BlockBagExtent blockBagExtent;
     private final MultiStageReorder reorderExtent;
     private final MaskingExtent maskingExtent;
     private final BlockChangeLimiter changeLimiter;
-    private final List<WatchdogTickingExtent> watchdogExtents = new ArrayList<>(2);
+    private final Map<String, WatchdogTickingExtent> watchdogExtents = new LinkedHashMap<>(2);
 
     private final Extent bypassReorderHistory;
     private final Extent bypassHistory;
     private final Extent bypassNone;
 
     private final @Nullable List<TracingExtent> tracingExtents;
+    private final @Nullable ExtentProfiler profiler;
+    private volatile @Nullable OperationScheduler.ScheduledOperation pendingClose;
+    private final Long2IntOpenHashMap columnHeights = new Long2IntOpenHashMap();
+    private int maxChangedY = Integer.MIN_VALUE;
 
     private ReorderMode reorderMode = ReorderMode.MULTI_STAGE;
 
@@ -224,10 +328,11 @@ public String getDisplayName() {
      * @param blockBag an optional {@link BlockBag} to use, otherwise null
      * @param actor the actor that owns the session
      * @param tracing if tracing is enabled. An actor is required if this is {@code true}
+     * @param profiling if profiling is enabled
      */
     EditSession(EventBus eventBus, World world, int maxBlocks, @Nullable BlockBag blockBag,
                 @Nullable Actor actor,
-                boolean tracing) {
+                boolean tracing, boolean profiling) {
         checkNotNull(eventBus);
         checkArgument(maxBlocks >= -1, "maxBlocks >= -1 required");
 
@@ -237,6 +342,7 @@ public String getDisplayName() {
         } else {
             this.tracingExtents = null;
         }
+        this.profiler = profiling ? new ExtentProfiler() : null;
 
         this.world = world;
         this.actor = actor;
@@ -245,19 +351,21 @@ public String getDisplayName() {
             EditSessionEvent event = new EditSessionEvent(world, actor, maxBlocks, null);
             Watchdog watchdog = WorldEdit.getInstance().getPlatformManager()
                 .queryCapability(Capability.GAME_HOOKS).getWatchdog();
+            long tickInterval = TimeUnit.MILLISECONDS.toNanos(
+                WorldEdit.getInstance().getConfiguration().watchdogTickInterval);
             Extent extent;
 
             // These extents are ALWAYS used
             extent = traceIfNeeded(sideEffectExtent = new SideEffectExtent(world));
             if (watchdog != null) {
                 // Reset watchdog before world placement
-                WatchdogTickingExtent watchdogExtent = new WatchdogTickingExtent(extent, watchdog);
-                extent = traceIfNeeded(watchdogExtent);
-                watchdogExtents.add(watchdogExtent);
+                WatchdogTickingExtent watchdogExtent = new WatchdogTickingExtent(extent, watchdog, tickInterval);
+                extent = traceIfNeeded(watchdogExtent, "placement");
+                watchdogExtents.put("placement", watchdogExtent);
             }
             extent = traceIfNeeded(survivalExtent = new SurvivalModeExtent(extent, world));
             extent = traceIfNeeded(new BiomeQuirkExtent(extent));
-            extent = traceIfNeeded(new ChunkLoadingExtent(extent, world));
+            extent = traceIfNeeded(chunkLoadingExtent = new ChunkLoadingExtent(extent, world));
             extent = traceIfNeeded(new LastAccessExtentCache(extent));
             extent = traceIfNeeded(blockBagExtent = new BlockBagExtent(extent, blockBag));
             extent = wrapExtent(extent, eventBus, event, Stage.BEFORE_CHANGE);
@@ -270,16 +378,18 @@ public String getDisplayName() {
             if (watchdog != null) {
                 // reset before buffering extents, since they may buffer all changes
                 // before the world-placement reset can happen, and still cause halts
-                WatchdogTickingExtent watchdogExtent = new WatchdogTickingExtent(extent, watchdog);
-                extent = traceIfNeeded(watchdogExtent);
-                watchdogExtents.add(watchdogExtent);
+                WatchdogTickingExtent watchdogExtent = new WatchdogTickingExtent(extent, watchdog, tickInterval);
+                extent = traceIfNeeded(watchdogExtent, "reorder");
+                watchdogExtents.put("reorder", watchdogExtent);
             }
             this.bypassHistory = traceIfNeeded(new DataValidatorExtent(extent, world));
 
             // These extents can be skipped by calling smartSetBlock()
-            extent = traceIfNeeded(new ChangeSetExtent(extent, changeSet));
-            extent = traceIfNeeded(maskingExtent = new MaskingExtent(extent, Masks.alwaysTrue()));
+            // The limiter sits below the history, so that writes skipped as unchanged are not counted
             extent = traceIfNeeded(changeLimiter = new BlockChangeLimiter(extent, maxBlocks));
+            extent = traceIfNeeded(changeSetExtent = new ChangeSetExtent(extent, changeSet,
+                WorldEdit.getInstance().getConfiguration().skipUnchangedBlocks));
+            extent = traceIfNeeded(maskingExtent = new MaskingExtent(extent, Masks.alwaysTrue()));
             extent = wrapExtent(extent, eventBus, event, Stage.BEFORE_HISTORY);
             this.bypassNone = traceIfNeeded(new DataValidatorExtent(extent, world));
         } else {
@@ -298,12 +408,19 @@ public String getDisplayName() {
     }
 
     private Extent traceIfNeeded(Extent input) {
+        return traceIfNeeded(input, null);
+    }
+
+    private Extent traceIfNeeded(Extent input, @Nullable String stage) {
         Extent output = input;
         if (tracingExtents != null) {
             TracingExtent newExtent = new TracingExtent(input);
             output = newExtent;
             tracingExtents.add(newExtent);
         }
+        if (profiler != null) {
+            output = profiler.wrap(output, stage);
+        }
         return output;
     }
 
@@ -313,6 +430,7 @@ private Extent wrapExtent(Extent extent, EventBus eventBus, EditSessionEvent eve
         event.setExtent(extent);
         boolean tracing = tracingExtents != null;
         event.setTracing(tracing);
+        event.setProfiler(profiler);
         eventBus.post(event);
         if (tracing) {
             tracingExtents.addAll(event.getTracingExtents());
@@ -636,18 +754,61 @@ public void disableBuffering() {
      * @return {@code true} if any watchdog extent is enabled
      */
     public boolean isTickingWatchdog() {
-        return watchdogExtents.stream().anyMatch(WatchdogTickingExtent::isEnabled);
+        return watchdogExtents.values().stream().anyMatch(WatchdogTickingExtent::isEnabled);
     }
 
     /**
      * Set all watchdog extents to the given mode.
      */
     public void setTickingWatchdog(boolean active) {
-        for (WatchdogTickingExtent extent : watchdogExtents) {
+        for (WatchdogTickingExtent extent : watchdogExtents.values()) {
             extent.setEnabled(active);
         }
     }
 
+    /**
+     * Check if this session times the stages of its extent chain.
+     *
+     * @return {@code true} if any stage is timed
+     */
+    public boolean isTimingStages() {
+        return watchdogExtents.values().stream().anyMatch(WatchdogTickingExtent::isTiming);
+    }
+
+    /**
+     * Set whether this session times the stages of its extent chain.
+     *
+     * <p>If enabled, the time spent in each stage is reported to the actor
+     * when this session is closed.</p>
+     *
+     * @param timing {@code true} to time stages
+     */
+    public void setTimingStages(boolean timing) {
+        for (WatchdogTickingExtent extent : watchdogExtents.values()) {
+            extent.setTiming(timing);
+        }
+    }
+
+    /**
+     * Get the time spent so far in each timed stage of the extent chain,
+     * from the stage closest to the world upwards.
+     *
+     * <p>The time of a stage includes the time spent in the stages below
+     * it, for operations that are passed through rather than buffered.</p>
+     *
+     * @return the stage timings
+     * @see #setTimingStages(boolean)
+     */
+    public List<StageTiming> getStageTimings() {
+        List<StageTiming> timings = new ArrayList<>(watchdogExtents.size());
+        watchdogExtents.forEach((name, extent) -> {
+            if (extent.isTiming()) {
+                timings.add(new StageTiming(name, extent.getOperationCount(), extent.getBlockCount(), extent.getTimeSpent()));
+            }
+        });
+        return timings;
+    }
+
     /**
      * Get the number of blocks changed, including repeated block changes.
      *
@@ -659,6 +820,16 @@ public int getBlockChangeCount() {
         return changeSet.size();
     }
 
+    /**
+     * Get the number of block changes that were skipped because the block
+     * was already present.
+     *
+     * @return the number of skipped block changes
+     */
+    public int getSkippedBlockChangeCount() {
+        return changeSetExtent != null ? changeSetExtent.getSkippedCount() : 0;
+    }
+
     @Override
     public boolean fullySupports3DBiomes() {
         return bypassNone.fullySupports3DBiomes();
@@ -676,14 +847,36 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
+        if (chunkLoadingExtent != null) {
+            chunkLoadingExtent.touch(position.getBlockX(), position.getBlockZ());
+        }
         return world.getBlock(position);
     }
 
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        if (chunkLoadingExtent != null) {
+            chunkLoadingExtent.touch(x, z);
+        }
+        return world.getBlock(x, y, z);
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
+        if (chunkLoadingExtent != null) {
+            chunkLoadingExtent.touch(position.getBlockX(), position.getBlockZ());
+        }
         return world.getFullBlock(position);
     }
 
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        if (chunkLoadingExtent != null) {
+            chunkLoadingExtent.touch(x, z);
+        }
+        return world.getFullBlock(x, y, z);
+    }
+
     /**
      * Returns the highest solid 'terrain' block.
      *
@@ -700,6 +893,9 @@ public int getHighestTerrainBlock(int x, int z, int minY, int maxY) {
     /**
      * Returns the highest solid 'terrain' block.
      *
+     * <p>Without a mask, the height of each column is remembered until a
+     * block in it is set through this session.</p>
+     *
      * @param x the X coordinate
      * @param z the Z coordinate
      * @param minY minimal height
@@ -708,16 +904,64 @@ public int getHighestTerrainBlock(int x, int z, int minY, int maxY) {
      * @return height of highest block found or 'minY'
      */
     public int getHighestTerrainBlock(int x, int z, int minY, int maxY, Mask filter) {
-        for (int y = maxY; y >= minY; --y) {
-            BlockVector3 pt = BlockVector3.at(x, y, z);
-            if (filter == null
-                    ? getBlock(pt).getBlockType().getMaterial().isMovementBlocker()
-                    : filter.test(pt)) {
+        if (filter != null) {
+            // A mask may match air, so it is tested all the way from the top
+            for (int y = maxY; y >= minY; --y) {
+                if (filter.test(BlockVector3.at(x, y, z))) {
+                    return y;
+                }
+            }
+            return minY;
+        }
+
+        long column = columnKey(x, z);
+        int top = columnHeights.getOrDefault(column, Integer.MIN_VALUE);
+        if (top != Integer.MIN_VALUE) {
+            if (top <= maxY) {
+                return Math.max(top, minY);
+            }
+            // The highest block is above the range asked for, so look below it
+            return Math.max(findMovementBlocker(x, z, maxY, minY), minY);
+        }
+
+        if (chunkLoadingExtent != null) {
+            chunkLoadingExtent.touch(x, z);
+        }
+        // Nothing above the world's highest block can block movement, but blocks set through
+        // this session may not be in the world's height map yet, such as in fast mode
+        int bound = Math.min(Math.max(world.getHighestBlockYBound(x, z), maxChangedY), world.getMaxY());
+        int found = findMovementBlocker(x, z, Math.min(maxY, bound), minY);
+        if (found >= minY && maxY >= bound) {
+            // The scan started above everything in the column, so this is its highest block
+            columnHeights.put(column, found);
+        }
+        return Math.max(found, minY);
+    }
+
+    private int findMovementBlocker(int x, int z, int startY, int minY) {
+        for (int y = startY; y >= minY; --y) {
+            if (getBlock(x, y, z).getBlockType().getMaterial().isMovementBlocker()) {
                 return y;
             }
         }
+        return minY - 1;
+    }
+
+    private static long columnKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
 
-        return minY;
+    /**
+     * Note that a block is being set through this session, so that terrain
+     * height lookups see it before the world's height map does.
+     */
+    private void blockChanging(int x, int y, int z) {
+        if (y > maxChangedY) {
+            maxChangedY = y;
+        }
+        if (!columnHeights.isEmpty()) {
+            columnHeights.remove(columnKey(x, z));
+        }
     }
 
     /**
@@ -730,6 +974,7 @@ public int getHighestTerrainBlock(int x, int z, int minY, int maxY, Mask filter)
      * @throws WorldEditException thrown on a set error
      */
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block, Stage stage) throws WorldEditException {
+        blockChanging(position.getX(), position.getY(), position.getZ());
         switch (stage) {
             case BEFORE_HISTORY:
                 return bypassNone.setBlock(position, block);
@@ -783,6 +1028,18 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
         }
     }
 
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws MaxChangedBlocksException {
+        blockChanging(x, y, z);
+        try {
+            return bypassNone.setBlock(x, y, z, block);
+        } catch (MaxChangedBlocksException e) {
+            throw e;
+        } catch (WorldEditException e) {
+            throw new RuntimeException("Unexpected exception", e);
+        }
+    }
+
     /**
      * Sets the block at a position, subject to both history and block re-ordering.
      *
@@ -879,6 +1136,90 @@ public List<? extends Entity> getEntities() {
     public void close() {
         internalFlushSession();
         dumpTracingInformation();
+        dumpTimingInformation();
+        dumpProfilingInformation();
+        releaseChunks();
+    }
+
+    /**
+     * Close this EditSession, flushing its buffers to the world a slice at a
+     * time with the given scheduler.
+     *
+     * <p>Until the returned future completes, the world may not yet contain
+     * all of the changes made in this EditSession.</p>
+     *
+     * @param scheduler the scheduler to flush with
+     * @param description a short description of the edit
+     * @return a future that completes once the buffers have been flushed
+     */
+    public CompletableFuture<Void> closeLater(OperationScheduler scheduler, String description) {
+        Operation commit = commit();
+        if (commit == null) {
+            dumpTracingInformation();
+            dumpTimingInformation();
+            dumpProfilingInformation();
+            releaseChunks();
+            return CompletableFuture.completedFuture(null);
+        }
+        OperationScheduler.ScheduledOperation scheduled = scheduler.submit(actor, description, commit);
+        pendingClose = scheduled;
+        CompletableFuture<Void> future = scheduled.getFuture();
+        future.whenComplete((ignored, error) -> {
+            pendingClose = null;
+            dumpTracingInformation();
+            dumpTimingInformation();
+            dumpProfilingInformation();
+            releaseChunks();
+        });
+        return future;
+    }
+
+    /**
+     * Finish flushing the buffers of this EditSession to the world right
+     * away if it was closed with {@link #closeLater(OperationScheduler, String)}
+     * and the flush has not completed yet.
+     *
+     * <p>This must be called from the server thread.</p>
+     */
+    public void completeClose() {
+        OperationScheduler.ScheduledOperation scheduled = pendingClose;
+        if (scheduled != null) {
+            scheduled.completeNow();
+        }
+    }
+
+    /**
+     * Start loading the chunks of a region ahead of an operation on it.
+     *
+     * <p>Chunks are loaded asynchronously where the platform supports it,
+     * and if configured, held loaded until this session is closed. Regions
+     * that span more chunks than the configured limit are not preloaded at
+     * once, but prefetched the configured number of chunks ahead of the
+     * blocks being accessed instead.</p>
+     *
+     * @param region the region that will be operated on
+     */
+    public void preloadChunks(Region region) {
+        checkNotNull(region);
+        if (chunkLoadingExtent == null) {
+            return;
+        }
+        LocalConfiguration config = WorldEdit.getInstance().getConfiguration();
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        long chunks = (long) ((max.getBlockX() >> 4) - (min.getBlockX() >> 4) + 1)
+                * ((max.getBlockZ() >> 4) - (min.getBlockZ() >> 4) + 1);
+        if (chunks <= config.chunkPreloadLimit) {
+            chunkLoadingExtent.preload(region, config.chunkPreloadHold);
+        } else if (config.chunkPrefetchDistance > 0) {
+            chunkLoadingExtent.prefetch(region, config.chunkPrefetchDistance);
+        }
+    }
+
+    private void releaseChunks() {
+        if (chunkLoadingExtent != null) {
+            chunkLoadingExtent.release();
+        }
     }
 
     private void dumpTracingInformation() {
@@ -921,6 +1262,59 @@ private void dumpTracingInformation() {
         });
     }
 
+    private void dumpTimingInformation() {
+        if (actor == null) {
+            return;
+        }
+        for (StageTiming timing : getStageTimings()) {
+            actor.printDebug(TranslatableComponent.of("worldedit.timings.stage",
+                TextComponent.of(timing.getName()),
+                TextComponent.of(TimeUnit.NANOSECONDS.toMillis(timing.getTimeSpent())),
+                TextComponent.of(timing.getOperationCount()),
+                TextComponent.of(timing.getOperationsPerSecond()),
+                TextComponent.of(timing.getBlockCount()),
+                TextComponent.of(timing.getBlocksPerSecond())
+            ));
+        }
+    }
+
+    /**
+     * Get the profiler of this session's extent chain.
+     *
+     * @return the profiler, or null if profiling is not enabled
+     */
+    public @Nullable ExtentProfiler getProfiler() {
+        return profiler;
+    }
+
+    private void dumpProfilingInformation() {
+        if (profiler == null || actor == null) {
+            return;
+        }
+        List<ProfilingExtent> topExtents = profiler.getTopExtents(PROFILE_REPORT_SIZE);
+        if (topExtents.isEmpty()) {
+            actor.printError(TranslatableComponent.of("worldedit.profile.no-profiling-extents"));
+            return;
+        }
+        for (ProfilingExtent extent : topExtents) {
+            actor.printDebug(TranslatableComponent.of("worldedit.profile.extent",
+                TextComponent.of(extent.getExtent().getClass().getName()),
+                TextComponent.of(TimeUnit.NANOSECONDS.toMillis(extent.getSelfTime())),
+                TextComponent.of(extent.getCount(ProfilingExtent.Action.GET_BLOCK)),
+                TextComponent.of(extent.getCount(ProfilingExtent.Action.GET_FULL_BLOCK)),
+                TextComponent.of(extent.getCount(ProfilingExtent.Action.SET_BLOCK)),
+                TextComponent.of(TimeUnit.NANOSECONDS.toMillis(extent.getSelfTime(ProfilingExtent.Action.COMMIT)))
+            ));
+        }
+        for (ProfilingExtent stage : profiler.getStages()) {
+            actor.printDebug(TranslatableComponent.of("worldedit.profile.stage",
+                TextComponent.of(stage.getStage()),
+                TextComponent.of(TimeUnit.NANOSECONDS.toMillis(stage.getTotalTime())),
+                TextComponent.of(stage.getCount())
+            ));
+        }
+    }
+
     /**
      * Communicate to the EditSession that all block changes are complete,
      * and that it should apply them to the world.
@@ -963,7 +1357,7 @@ public int countBlocks(Region region, Set<BaseBlock> searchBlocks) {
     public int countBlocks(Region region, Mask searchMask) {
         Counter count = new Counter();
         RegionMaskingFilter filter = new RegionMaskingFilter(searchMask, count);
-        RegionVisitor visitor = new RegionVisitor(region, filter);
+        RegionVisitor visitor = new RegionVisitor(region, filter, true);
         Operations.completeBlindly(visitor); // We can't throw exceptions, nor do we expect any
         return count.getCount();
     }
@@ -1114,8 +1508,9 @@ public int setBlocks(Region region, Pattern pattern) throws MaxChangedBlocksExce
         checkNotNull(region);
         checkNotNull(pattern);
 
+        preloadChunks(region);
         BlockReplace replace = new BlockReplace(this, pattern);
-        RegionVisitor visitor = new RegionVisitor(region, replace);
+        RegionVisitor visitor = new RegionVisitor(region, replace, true);
         Operations.completeLegacy(visitor);
         return visitor.getAffected();
     }
@@ -1164,9 +1559,10 @@ public int replaceBlocks(Region region, Mask mask, Pattern pattern) throws MaxCh
         checkNotNull(mask);
         checkNotNull(pattern);
 
+        preloadChunks(region);
         BlockReplace replace = new BlockReplace(this, pattern);
         RegionMaskingFilter filter = new RegionMaskingFilter(mask, replace);
-        RegionVisitor visitor = new RegionVisitor(region, filter);
+        RegionVisitor visitor = new RegionVisitor(region, filter, true);
         Operations.completeLegacy(visitor);
         return visitor.getAffected();
     }
@@ -1629,11 +2025,6 @@ public int makeCylinder(BlockVector3 pos, Pattern block, double radius, int heig
      * @throws MaxChangedBlocksException thrown if too many blocks are changed
      */
     public int makeCylinder(BlockVector3 pos, Pattern block, double radiusX, double radiusZ, int height, boolean filled) throws MaxChangedBlocksException {
-        int affected = 0;
-
-        radiusX += 0.5;
-        radiusZ += 0.5;
-
         if (height == 0) {
             return 0;
         } else if (height < 0) {
@@ -1647,53 +2038,18 @@ public int makeCylinder(BlockVector3 pos, Pattern block, double radiusX, double
             height = world.getMaxY() - pos.getBlockY() + 1;
         }
 
-        final double invRadiusX = 1 / radiusX;
-        final double invRadiusZ = 1 / radiusZ;
-
-        final int ceilRadiusX = (int) Math.ceil(radiusX);
-        final int ceilRadiusZ = (int) Math.ceil(radiusZ);
-
-        double nextXn = 0;
-        forX: for (int x = 0; x <= ceilRadiusX; ++x) {
-            final double xn = nextXn;
-            nextXn = (x + 1) * invRadiusX;
-            double nextZn = 0;
-            forZ: for (int z = 0; z <= ceilRadiusZ; ++z) {
-                final double zn = nextZn;
-                nextZn = (z + 1) * invRadiusZ;
-
-                double distanceSq = lengthSq(xn, zn);
-                if (distanceSq > 1) {
-                    if (z == 0) {
-                        break forX;
-                    }
-                    break forZ;
-                }
-
-                if (!filled) {
-                    if (lengthSq(nextXn, zn) <= 1 && lengthSq(xn, nextZn) <= 1) {
-                        continue;
-                    }
-                }
-
-                for (int y = 0; y < height; ++y) {
-                    if (setBlock(pos.add(x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, -z), block)) {
-                        ++affected;
-                    }
+        // Every run of a cylinder stencil is one block at Y offset 0
+        final BlockVector3 base = pos;
+        final int top = height - 1;
+        return Stencil.cylinder(radiusX, radiusZ, filled).forEachRun((x, z, minY, maxY) -> {
+            int affected = 0;
+            for (int y = top; y >= 0; --y) {
+                if (setBlock(base.add(x, y, z), block)) {
+                    ++affected;
                 }
             }
-        }
-
-        return affected;
+            return affected;
+        });
     }
 
     /**
@@ -1723,79 +2079,15 @@ public int makeSphere(BlockVector3 pos, Pattern block, double radius, boolean fi
      * @throws MaxChangedBlocksException thrown if too many blocks are changed
      */
     public int makeSphere(BlockVector3 pos, Pattern block, double radiusX, double radiusY, double radiusZ, boolean filled) throws MaxChangedBlocksException {
-        int affected = 0;
-
-        radiusX += 0.5;
-        radiusY += 0.5;
-        radiusZ += 0.5;
-
-        final double invRadiusX = 1 / radiusX;
-        final double invRadiusY = 1 / radiusY;
-        final double invRadiusZ = 1 / radiusZ;
-
-        final int ceilRadiusX = (int) Math.ceil(radiusX);
-        final int ceilRadiusY = (int) Math.ceil(radiusY);
-        final int ceilRadiusZ = (int) Math.ceil(radiusZ);
-
-        double nextXn = 0;
-        forX: for (int x = 0; x <= ceilRadiusX; ++x) {
-            final double xn = nextXn;
-            nextXn = (x + 1) * invRadiusX;
-            double nextYn = 0;
-            forY: for (int y = 0; y <= ceilRadiusY; ++y) {
-                final double yn = nextYn;
-                nextYn = (y + 1) * invRadiusY;
-                double nextZn = 0;
-                forZ: for (int z = 0; z <= ceilRadiusZ; ++z) {
-                    final double zn = nextZn;
-                    nextZn = (z + 1) * invRadiusZ;
-
-                    double distanceSq = lengthSq(xn, yn, zn);
-                    if (distanceSq > 1) {
-                        if (z == 0) {
-                            if (y == 0) {
-                                break forX;
-                            }
-                            break forY;
-                        }
-                        break forZ;
-                    }
-
-                    if (!filled) {
-                        if (lengthSq(nextXn, yn, zn) <= 1 && lengthSq(xn, nextYn, zn) <= 1 && lengthSq(xn, yn, nextZn) <= 1) {
-                            continue;
-                        }
-                    }
-
-                    if (setBlock(pos.add(x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, -y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, -y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, -y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, -y, -z), block)) {
-                        ++affected;
-                    }
+        return Stencil.ellipsoid(radiusX, radiusY, radiusZ, filled).forEachRun((x, z, minY, maxY) -> {
+            int affected = 0;
+            for (int y = maxY; y >= minY; --y) {
+                if (setBlock(pos.add(x, y, z), block)) {
+                    ++affected;
                 }
             }
-        }
-
-        return affected;
+            return affected;
+        });
     }
 
     /**
@@ -1809,35 +2101,15 @@ public int makeSphere(BlockVector3 pos, Pattern block, double radiusX, double ra
      * @throws MaxChangedBlocksException thrown if too many blocks are changed
      */
     public int makePyramid(BlockVector3 position, Pattern block, int size, boolean filled) throws MaxChangedBlocksException {
-        int affected = 0;
-
-        int height = size;
-
-        for (int y = 0; y <= height; ++y) {
-            size--;
-            for (int x = 0; x <= size; ++x) {
-                for (int z = 0; z <= size; ++z) {
-
-                    if ((filled && z <= size && x <= size) || z == size || x == size) {
-
-                        if (setBlock(position.add(x, y, z), block)) {
-                            ++affected;
-                        }
-                        if (setBlock(position.add(-x, y, z), block)) {
-                            ++affected;
-                        }
-                        if (setBlock(position.add(x, y, -z), block)) {
-                            ++affected;
-                        }
-                        if (setBlock(position.add(-x, y, -z), block)) {
-                            ++affected;
-                        }
-                    }
+        return Stencil.pyramid(size, filled).forEachRun((x, z, minY, maxY) -> {
+            int affected = 0;
+            for (int y = maxY; y >= minY; --y) {
+                if (setBlock(position.add(x, y, z), block)) {
+                    ++affected;
                 }
             }
-        }
-
-        return affected;
+            return affected;
+        });
     }
 
     /**
@@ -2099,7 +2371,7 @@ public int makeForest(Region region, double density, TreeGenerator.TreeType tree
      */
     public List<Countable<BlockState>> getBlockDistribution(Region region, boolean separateStates) {
         BlockDistributionCounter count = new BlockDistributionCounter(this, separateStates);
-        RegionVisitor visitor = new RegionVisitor(region, count);
+        RegionVisitor visitor = new RegionVisitor(region, count, true);
         Operations.completeBlindly(visitor);
         return count.getDistribution();
     }
@@ -2662,12 +2934,4 @@ protected BiomeType getBiome(int x, int y, int z, BiomeType defaultBiomeType) {
             Direction.DOWN.toBlockVector(),
     };
 
-    private static double lengthSq(double x, double y, double z) {
-        return (x * x) + (y * y) + (z * z);
-    }
-
-    private static double lengthSq(double x, double z) {
-        return (x * x) + (z * z);
-    }
-
 }
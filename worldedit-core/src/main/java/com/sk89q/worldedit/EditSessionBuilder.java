@@ -40,6 +40,7 @@ public final class EditSessionBuilder {
     private @Nullable Actor actor;
     private @Nullable BlockBag blockBag;
     private boolean tracing;
+    private boolean profiling;
 
     EditSessionBuilder(EventBus eventBus) {
         this.eventBus = eventBus;
@@ -124,6 +125,30 @@ public EditSessionBuilder tracing(boolean tracing) {
         return this;
     }
 
+    /**
+     * Check if profiling is enabled.
+     *
+     * <em>Internal use only.</em>
+     */
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Set profiling enabled/disabled.
+     *
+     * <p>When profiling, every extent of the {@link EditSession}, including
+     * those added through the {@link com.sk89q.worldedit.event.extent.EditSessionEvent},
+     * is timed, and the extents that took the longest are reported to the
+     * actor when the session is closed.</p>
+     *
+     * <em>Internal use only.</em>
+     */
+    public EditSessionBuilder profiling(boolean profiling) {
+        this.profiling = profiling;
+        return this;
+    }
+
     // Extended methods
     public <A extends Actor & Locatable> EditSessionBuilder locatableActor(A locatable) {
         Extent extent = locatable.getExtent();
@@ -138,8 +163,8 @@ public <A extends Actor & Locatable> EditSessionBuilder locatableActor(A locatab
      */
     public EditSession build() {
         if (WorldEdit.getInstance().getConfiguration().traceUnflushedSessions) {
-            return new TracedEditSession(eventBus, world, maxBlocks, blockBag, actor, tracing);
+            return new TracedEditSession(eventBus, world, maxBlocks, blockBag, actor, tracing, profiling);
         }
-        return new EditSession(eventBus, world, maxBlocks, blockBag, actor, tracing);
+        return new EditSession(eventBus, world, maxBlocks, blockBag, actor, tracing, profiling);
     }
 }
@@ -80,8 +80,20 @@ public abstract class LocalConfiguration {
     public String navigationWand = "minecraft:compass";
     public int navigationWandMaxDistance = 50;
     public int scriptTimeout = 3000;
+    public int scriptOptimizationLevel = -1;
     public int calculationTimeout = 100;
     public int maxCalculationTimeout = 300;
+    public boolean smoothParallel = true;
+    public int chunkPreloadLimit = 1024;
+    public boolean chunkPreloadHold = true;
+    public int chunkPrefetchDistance = 8;
+    public int watchdogTickInterval = 50;
+    public int schedulerTickBudget = 10;
+    public boolean schedulerDeferEdits = false;
+    public boolean journalHistory = false;
+    public int journalHistoryMaxAge = 7;
+    public int journalHistoryMaxSize = 64;
+    public boolean skipUnchangedBlocks = true;
     public Set<String> allowedDataCycleBlocks = new HashSet<>();
     public String saveDir = "schematics";
     public String scriptsDir = "craftscripts";
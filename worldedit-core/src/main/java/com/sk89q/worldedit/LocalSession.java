@@ -34,9 +34,12 @@
 import com.sk89q.worldedit.command.tool.Tool;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Locatable;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.history.journal.JournalRecord;
+import com.sk89q.worldedit.history.journal.UndoJournal;
 import com.sk89q.worldedit.internal.cui.CUIEvent;
 import com.sk89q.worldedit.internal.cui.CUIRegion;
 import com.sk89q.worldedit.internal.cui.SelectionShapeEvent;
@@ -50,6 +53,7 @@
 import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BaseBlock;
@@ -57,14 +61,20 @@
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -77,6 +87,7 @@
  */
 public class LocalSession {
 
+    private static final Logger log = LoggerFactory.getLogger(LocalSession.class);
     public static transient int MAX_HISTORY_SIZE = 15;
 
     // Non-session related fields
@@ -110,6 +121,10 @@ public class LocalSession {
     private transient boolean tickingWatchdog = true;
     private transient boolean hasBeenToldVersion;
     private transient boolean tracingActions;
+    private transient boolean timingEdits;
+    private transient boolean profilingEdits;
+    private transient UndoJournal undoJournal;
+    private final transient Map<EditSession, Long> journalSequences = new IdentityHashMap<>();
 
     // Saved properties
     private String lastScript;
@@ -205,8 +220,34 @@ public void setTimezone(ZoneId timezone) {
      * Clear history.
      */
     public void clearHistory() {
+        completePendingCloses();
         history.clear();
         historyPointer = 0;
+        releaseJournal();
+    }
+
+    /**
+     * Get the journal that this session's history is also written to.
+     *
+     * @return the undo journal, or {@code null} if history is kept in memory only
+     */
+    @Nullable
+    public UndoJournal getUndoJournal() {
+        return undoJournal;
+    }
+
+    /**
+     * Set the journal that this session's history is also written to.
+     *
+     * <p>Once the in-memory history has been undone completely, further
+     * undos are taken from the journal. Undos from the journal can't be
+     * redone.</p>
+     *
+     * @param undoJournal the undo journal, or {@code null} to keep history in memory only
+     */
+    public void setUndoJournal(@Nullable UndoJournal undoJournal) {
+        releaseJournal();
+        this.undoJournal = undoJournal;
     }
 
     /**
@@ -228,12 +269,51 @@ public void remember(EditSession editSession) {
             history.remove(historyPointer);
         }
         history.add(editSession);
+        journal(editSession);
         while (history.size() > MAX_HISTORY_SIZE) {
-            history.remove(0);
+            EditSession oldest = history.remove(0);
+            // Later edits can no longer wait for it once it's out of memory
+            oldest.completeClose();
+            // The journal keeps a copy for undoing once it's out of memory
+            releaseJournal(oldest);
         }
         historyPointer = history.size();
     }
 
+    private void journal(EditSession editSession) {
+        if (undoJournal != null && editSession.getWorld() != null) {
+            journalSequences.put(editSession, undoJournal.append(editSession.getWorld(), editSession.getChangeSet()));
+        }
+    }
+
+    private void forgetJournal(EditSession editSession) {
+        Long sequence = journalSequences.remove(editSession);
+        if (undoJournal != null && sequence != null) {
+            undoJournal.delete(sequence);
+        }
+    }
+
+    private void releaseJournal(EditSession editSession) {
+        Long sequence = journalSequences.remove(editSession);
+        if (undoJournal != null && sequence != null) {
+            undoJournal.release(sequence);
+        }
+    }
+
+    private void releaseJournal() {
+        if (undoJournal != null) {
+            for (long sequence : journalSequences.values()) {
+                undoJournal.release(sequence);
+            }
+        }
+        journalSequences.clear();
+    }
+
+    private boolean isUndoneInJournal(EditSession editSession) {
+        Long sequence = journalSequences.get(editSession);
+        return undoJournal != null && sequence != null && undoJournal.isUndone(sequence);
+    }
+
     /**
      * Performs an undo.
      *
@@ -243,7 +323,13 @@ public void remember(EditSession editSession) {
      */
     public EditSession undo(@Nullable BlockBag newBlockBag, Actor actor) {
         checkNotNull(actor);
+        completePendingCloses();
         --historyPointer;
+        // Someone else may have undone an edit through the journal already
+        while (historyPointer >= 0 && isUndoneInJournal(history.get(historyPointer))) {
+            releaseJournal(history.remove(historyPointer));
+            --historyPointer;
+        }
         if (historyPointer >= 0) {
             EditSession editSession = history.get(historyPointer);
             try (EditSession newEditSession =
@@ -253,9 +339,79 @@ public EditSession undo(@Nullable BlockBag newBlockBag, Actor actor) {
                 prepareEditingExtents(newEditSession, actor);
                 editSession.undo(newEditSession);
             }
+            forgetJournal(editSession);
             return editSession;
         } else {
             historyPointer = 0;
+            return undoFromJournal(newBlockBag, actor);
+        }
+    }
+
+    /**
+     * Finish flushing remembered edits that are still being flushed to the
+     * world over several ticks, oldest first.
+     *
+     * <p>This is done before an undo, a redo or a new edit session, so that
+     * they see the blocks of earlier edits and do not get overwritten by the
+     * rest of their flush. This must be called from the server thread.</p>
+     */
+    public void completePendingCloses() {
+        for (EditSession editSession : history) {
+            editSession.completeClose();
+        }
+    }
+
+    /**
+     * Undo the newest edit in the undo journal, if there is one.
+     *
+     * <p>Edits in worlds that aren't loaded are skipped and reported to the
+     * actor, and kept for later.</p>
+     *
+     * @param newBlockBag a new block bag
+     * @param actor the actor
+     * @return the edit session the undo was made in, or {@code null} if nothing was undone
+     */
+    @Nullable
+    private EditSession undoFromJournal(@Nullable BlockBag newBlockBag, Actor actor) {
+        if (undoJournal == null) {
+            return null;
+        }
+
+        try {
+            List<JournalRecord> records = undoJournal.getRecords();
+            if (records.isEmpty()) {
+                return null;
+            }
+            Map<String, World> worlds = new HashMap<>();
+            for (World world : WorldEdit.getInstance().getPlatformManager()
+                    .queryCapability(Capability.GAME_HOOKS).getWorlds()) {
+                worlds.put(world.getId(), world);
+            }
+
+            Set<String> skippedWorlds = new HashSet<>();
+            for (JournalRecord record : records) {
+                World world = worlds.get(record.getWorldId());
+                if (world == null) {
+                    if (skippedWorlds.add(record.getWorldId())) {
+                        actor.printError(TranslatableComponent.of("worldedit.undo.world-not-loaded",
+                                TextComponent.of(record.getWorldId())));
+                    }
+                    continue;
+                }
+
+                try (EditSession newEditSession =
+                         WorldEdit.getInstance().newEditSessionBuilder()
+                             .world(world).blockBag(newBlockBag).actor(actor)
+                             .build()) {
+                    prepareEditingExtents(newEditSession, actor);
+                    record.undo(newEditSession, null);
+                    undoJournal.delete(record.getSequence());
+                    return newEditSession;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to undo from the undo journal", e);
             return null;
         }
     }
@@ -269,6 +425,7 @@ public EditSession undo(@Nullable BlockBag newBlockBag, Actor actor) {
      */
     public EditSession redo(@Nullable BlockBag newBlockBag, Actor actor) {
         checkNotNull(actor);
+        completePendingCloses();
         if (historyPointer < history.size()) {
             EditSession editSession = history.get(historyPointer);
             try (EditSession newEditSession =
@@ -278,6 +435,7 @@ public EditSession redo(@Nullable BlockBag newBlockBag, Actor actor) {
                 prepareEditingExtents(newEditSession, actor);
                 editSession.redo(newEditSession);
             }
+            journal(editSession);
             ++historyPointer;
             return editSession;
         }
@@ -314,6 +472,22 @@ public void setTracingActions(boolean tracingActions) {
         this.tracingActions = tracingActions;
     }
 
+    public boolean isTimingEdits() {
+        return timingEdits;
+    }
+
+    public void setTimingEdits(boolean timingEdits) {
+        this.timingEdits = timingEdits;
+    }
+
+    public boolean isProfilingEdits() {
+        return profilingEdits;
+    }
+
+    public void setProfilingEdits(boolean profilingEdits) {
+        this.profilingEdits = profilingEdits;
+    }
+
     /**
      * Get the default region selector.
      *
@@ -984,11 +1158,15 @@ public Calendar detectDate(String input) {
     /**
      * Construct a new edit session.
      *
+     * <p>Edits of this session that are still being flushed to the world are
+     * finished first.</p>
+     *
      * @param actor the actor
      * @return an edit session
      */
     public EditSession createEditSession(Actor actor) {
         checkNotNull(actor);
+        completePendingCloses();
 
         World world = null;
         if (hasWorldOverride()) {
@@ -1002,7 +1180,8 @@ public EditSession createEditSession(Actor actor) {
             .world(world)
             .actor(actor)
             .maxBlocks(getBlockChangeLimit())
-            .tracing(isTracingActions());
+            .tracing(isTracingActions())
+            .profiling(isProfilingEdits());
         if (actor.isPlayer() && actor instanceof Player) {
             builder.blockBag(getBlockBag((Player) actor));
         }
@@ -1022,6 +1201,9 @@ private void prepareEditingExtents(EditSession editSession, Actor actor) {
             editSession.getSurvivalExtent().setStripNbt(!actor.hasPermission("worldedit.setnbt"));
         }
         editSession.setTickingWatchdog(tickingWatchdog);
+        if (timingEdits) {
+            editSession.setTimingStages(true);
+        }
     }
 
     /**
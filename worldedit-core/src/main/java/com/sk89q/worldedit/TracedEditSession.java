@@ -21,9 +21,11 @@
 
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.util.eventbus.EventBus;
 import com.sk89q.worldedit.world.World;
 
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 
 /**
@@ -33,12 +35,36 @@ class TracedEditSession extends EditSession {
 
     TracedEditSession(EventBus eventBus, @Nullable World world, int maxBlocks, @Nullable BlockBag blockBag,
                       @Nullable Actor actor,
-                      boolean tracing) {
-        super(eventBus, world, maxBlocks, blockBag, actor, tracing);
+                      boolean tracing, boolean profiling) {
+        super(eventBus, world, maxBlocks, blockBag, actor, tracing, profiling);
+        if (WorldEdit.logger.isDebugEnabled()) {
+            setTimingStages(true);
+        }
     }
 
     private final Throwable stacktrace = new Throwable("Creation trace.");
 
+    @Override
+    public void close() {
+        super.close();
+        logStageTimings();
+    }
+
+    @Override
+    public CompletableFuture<Void> closeLater(OperationScheduler scheduler, String description) {
+        CompletableFuture<Void> future = super.closeLater(scheduler, description);
+        future.whenComplete((ignored, error) -> logStageTimings());
+        return future;
+    }
+
+    private void logStageTimings() {
+        if (WorldEdit.logger.isDebugEnabled()) {
+            for (StageTiming timing : getStageTimings()) {
+                WorldEdit.logger.debug("EditSession stage timing: {}", timing);
+            }
+        }
+    }
+
     @Override
     protected void finalize() throws Throwable {
         super.finalize();
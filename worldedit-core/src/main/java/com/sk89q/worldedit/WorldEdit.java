@@ -25,6 +25,7 @@
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
+import com.google.common.io.Resources;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.worldedit.blocks.BaseItem;
@@ -75,12 +76,11 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -700,30 +700,22 @@ public void runScript(Player player, File f, String[] args) throws WorldEditExce
             return;
         }
 
-        String script;
+        CraftScriptEngine.ScriptSource source;
+        long version;
 
-        try {
-            InputStream file;
-
-            if (!f.exists()) {
-                file = WorldEdit.class.getResourceAsStream("craftscripts/" + filename);
+        if (!f.exists()) {
+            URL resource = WorldEdit.class.getResource("craftscripts/" + filename);
 
-                if (file == null) {
-                    player.printError(TranslatableComponent.of("worldedit.script.file-not-found", TextComponent.of(filename)));
-                    return;
-                }
-            } else {
-                file = new FileInputStream(f);
+            if (resource == null) {
+                player.printError(TranslatableComponent.of("worldedit.script.file-not-found", TextComponent.of(filename)));
+                return;
             }
 
-            DataInputStream in = new DataInputStream(file);
-            byte[] data = new byte[in.available()];
-            in.readFully(data);
-            in.close();
-            script = new String(data, 0, data.length, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            player.printError(TranslatableComponent.of("worldedit.script.read-error", TextComponent.of(e.getMessage())));
-            return;
+            source = () -> Resources.toString(resource, StandardCharsets.UTF_8);
+            version = 0;
+        } else {
+            source = () -> new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+            version = f.lastModified();
         }
 
         LocalSession session = getSessionManager().get(player);
@@ -740,6 +732,9 @@ public void runScript(Player player, File f, String[] args) throws WorldEditExce
         }
 
         engine.setTimeLimit(getConfiguration().scriptTimeout);
+        if (engine instanceof RhinoCraftScriptEngine) {
+            ((RhinoCraftScriptEngine) engine).setOptimizationLevel(getConfiguration().scriptOptimizationLevel);
+        }
 
         Map<String, Object> vars = new HashMap<>();
         vars.put("argv", args);
@@ -747,7 +742,9 @@ public void runScript(Player player, File f, String[] args) throws WorldEditExce
         vars.put("player", player);
 
         try {
-            engine.evaluate(script, filename, vars);
+            engine.evaluate(source, filename, version, vars);
+        } catch (IOException e) {
+            player.printError(TranslatableComponent.of("worldedit.script.read-error", TextComponent.of(e.getMessage())));
         } catch (ScriptException e) {
             // non-exceptional return check
             if (!(Throwables.getRootCause(e) instanceof ReturnException)) {
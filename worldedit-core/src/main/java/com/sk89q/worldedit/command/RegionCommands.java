@@ -23,6 +23,7 @@
 import com.google.common.collect.Lists;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.command.util.CommandPermissions;
 import com.sk89q.worldedit.command.util.CommandPermissionsConditionGenerator;
@@ -105,6 +106,10 @@ public int set(Actor actor, EditSession editSession,
 
         Operations.completeBlindly(visitor);
         List<Component> messages = Lists.newArrayList(visitor.getStatusMessages());
+        int skipped = editSession.getSkippedBlockChangeCount();
+        if (skipped > 0) {
+            messages.add(TranslatableComponent.of("worldedit.set.skipped", TextComponent.of(skipped)));
+        }
         if (messages.isEmpty()) {
             actor.printInfo(TranslatableComponent.of("worldedit.set.done"));
         } else {
@@ -286,6 +291,7 @@ public int smooth(Actor actor, EditSession editSession, @Selection Region region
                           Mask mask) throws WorldEditException {
         HeightMap heightMap = new HeightMap(editSession, region, mask);
         HeightMapFilter filter = new HeightMapFilter(new GaussianKernel(5, 1.0));
+        filter.setParallel(WorldEdit.getInstance().getConfiguration().smoothParallel);
         int affected = heightMap.applyFilter(filter, iterations);
         actor.printInfo(TranslatableComponent.of("worldedit.smooth.changed", TextComponent.of(affected)));
         return affected;
@@ -33,6 +33,8 @@
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
 import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
+import com.sk89q.worldedit.function.operation.OperationScheduler.ScheduledOperation;
 import com.sk89q.worldedit.util.formatting.component.MessageBox;
 import com.sk89q.worldedit.util.formatting.component.TextComponentProducer;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
@@ -57,6 +59,7 @@
 import java.time.format.TextStyle;
 import java.time.zone.ZoneRulesException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @CommandContainer(superTypes = CommandPermissionsConditionGenerator.Registration.class)
 public class WorldEditCommands {
@@ -139,6 +142,34 @@ public void report(Actor actor,
         }
     }
 
+    @Command(
+        name = "queue",
+        desc = "List edits that are still being applied"
+    )
+    @CommandPermissions("worldedit.queue")
+    public void queue(Actor actor) {
+        OperationScheduler scheduler = we.getPlatformManager().getOperationScheduler();
+        List<ScheduledOperation> pending = scheduler.getPending();
+        if (pending.isEmpty()) {
+            actor.printInfo(TranslatableComponent.of("worldedit.queue.empty"));
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        TextComponentProducer producer = new TextComponentProducer();
+        for (ScheduledOperation operation : pending) {
+            producer.append(
+                    TextComponent.of(operation.getOwnerName(), TextColor.GRAY)
+                    .append(TextComponent.of(": "))
+                    .append(TextComponent.of(operation.getDescription(), TextColor.WHITE))
+                    .append(TranslatableComponent.of("worldedit.queue.entry",
+                            TextComponent.of(TimeUnit.NANOSECONDS.toMillis(operation.getTimeSpent())),
+                            TextComponent.of((now - operation.getSubmitTime()) / 1000)).color(TextColor.GRAY))
+            ).newline();
+        }
+        actor.print(new MessageBox("Queue", producer, TextColor.GRAY).create());
+    }
+
     @Command(
         name = "trace",
         desc = "Toggles trace hook"
@@ -161,6 +192,50 @@ void trace(Actor actor, LocalSession session,
         actor.printInfo(TranslatableComponent.of(newMode ? "worldedit.trace.active" : "worldedit.trace.inactive"));
     }
 
+    @Command(
+        name = "timings",
+        desc = "Toggles reporting the time spent in each stage of your edits"
+    )
+    void timings(Actor actor, LocalSession session,
+                 @Arg(desc = "The mode to set the timings hook to", def = "")
+                     HookMode hookMode) {
+        boolean previousMode = session.isTimingEdits();
+        boolean newMode;
+        if (hookMode != null) {
+            newMode = hookMode == HookMode.ACTIVE;
+            if (newMode == previousMode) {
+                actor.printError(TranslatableComponent.of(previousMode ? "worldedit.timings.active.already" : "worldedit.timings.inactive.already"));
+                return;
+            }
+        } else {
+            newMode = !previousMode;
+        }
+        session.setTimingEdits(newMode);
+        actor.printInfo(TranslatableComponent.of(newMode ? "worldedit.timings.active" : "worldedit.timings.inactive"));
+    }
+
+    @Command(
+        name = "profile",
+        desc = "Toggles reporting the slowest extents of your edits"
+    )
+    void profile(Actor actor, LocalSession session,
+                 @Arg(desc = "The mode to set the profile hook to", def = "")
+                     HookMode hookMode) {
+        boolean previousMode = session.isProfilingEdits();
+        boolean newMode;
+        if (hookMode != null) {
+            newMode = hookMode == HookMode.ACTIVE;
+            if (newMode == previousMode) {
+                actor.printError(TranslatableComponent.of(previousMode ? "worldedit.profile.active.already" : "worldedit.profile.inactive.already"));
+                return;
+            }
+        } else {
+            newMode = !previousMode;
+        }
+        session.setProfilingEdits(newMode);
+        actor.printInfo(TranslatableComponent.of(newMode ? "worldedit.profile.active" : "worldedit.profile.inactive"));
+    }
+
     @Command(
         name = "cui",
         desc = "Complete CUI handshake (internal usage)"
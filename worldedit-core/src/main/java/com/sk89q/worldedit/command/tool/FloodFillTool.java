@@ -30,12 +30,12 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.collection.BlockSet;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
 
-import java.util.HashSet;
 import java.util.Set;
 import javax.annotation.Nullable;
 
@@ -74,7 +74,7 @@ public boolean actPrimary(Platform server, LocalConfiguration config, Player pla
 
         try (EditSession editSession = session.createEditSession(player)) {
             try {
-                recurse(editSession, origin, origin, range, initialType, new HashSet<>());
+                recurse(editSession, origin, origin, range, initialType, new BlockSet());
             } catch (MaxChangedBlocksException e) {
                 player.printError(TranslatableComponent.of("worldedit.tool.max-block-changes"));
             } finally {
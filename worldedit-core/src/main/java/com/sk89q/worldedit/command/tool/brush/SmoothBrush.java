@@ -21,6 +21,7 @@
 
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -56,6 +57,7 @@ public void build(EditSession editSession, BlockVector3 position, Pattern patter
         Region region = new CuboidRegion(editSession.getWorld(), min.toVector().toBlockPoint(), max);
         HeightMap heightMap = new HeightMap(editSession, region, mask);
         HeightMapFilter filter = new HeightMapFilter(new GaussianKernel(5, 1.0));
+        filter.setParallel(WorldEdit.getInstance().getConfiguration().smoothParallel);
         heightMap.applyFilter(filter, iterations);
     }
 
@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.event.Event;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.ExtentProfiler;
 import com.sk89q.worldedit.extent.TracingExtent;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.World;
@@ -71,6 +72,7 @@ public class EditSessionEvent extends Event {
     private final List<TracingExtent> tracingExtents = new ArrayList<>();
     private Extent extent;
     private boolean tracing;
+    private @Nullable ExtentProfiler profiler;
 
     /**
      * Create a new event.
@@ -145,6 +147,9 @@ public void setExtent(Extent extent) {
             extent = tracingExtent;
             tracingExtents.add(tracingExtent);
         }
+        if (profiler != null && extent != this.extent) {
+            extent = profiler.wrap(extent);
+        }
         this.extent = extent;
     }
 
@@ -158,6 +163,17 @@ public void setTracing(boolean tracing) {
         this.tracing = tracing;
     }
 
+    /**
+     * Set the profiler to wrap new extents with, with the current extent as
+     * the "base".
+     *
+     * <em>Internal use only.</em>
+     * @param profiler the profiler, or null to not profile
+     */
+    public void setProfiler(@Nullable ExtentProfiler profiler) {
+        this.profiler = profiler;
+    }
+
     /**
      * Get the current list of tracing extents.
      *
@@ -37,10 +37,12 @@ public enum Capability {
         @Override
         void initialize(PlatformManager platformManager, Platform platform) {
             platform.registerGameHooks();
+            platformManager.getOperationScheduler().start(platform);
         }
 
         @Override
         void unload(PlatformManager platformManager, Platform platform) {
+            platformManager.getOperationScheduler().stop();
         }
     },
 
@@ -93,6 +93,16 @@ public interface Platform {
      */
     int schedule(long delay, long period, Runnable task);
 
+    /**
+     * Cancels a task scheduled with {@link #schedule(long, long, Runnable)}.
+     *
+     * <p>Platforms that cannot cancel tasks ignore this.</p>
+     *
+     * @param taskId the task id
+     */
+    default void cancelTask(int taskId) {
+    }
+
     /**
      * Get the watchdog service.
      *
@@ -91,6 +91,7 @@
 import com.sk89q.worldedit.event.platform.CommandEvent;
 import com.sk89q.worldedit.event.platform.CommandSuggestionEvent;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.internal.annotation.OptionalArg;
 import com.sk89q.worldedit.internal.annotation.Selection;
 import com.sk89q.worldedit.internal.command.CommandArgParser;
@@ -533,23 +534,22 @@ public void handleCommand(CommandEvent event) {
 
             if (editSessionOpt.isPresent()) {
                 EditSession editSession = editSessionOpt.get();
+                // The next edit, undo or redo finishes a pending flush first, see LocalSession#completePendingCloses
                 session.remember(editSession);
-                editSession.close();
-
-                if (config.profile) {
-                    long time = System.currentTimeMillis() - start;
-                    double timeS = (time / 1000.0);
-                    int changed = editSession.getBlockChangeCount();
-                    double throughput = timeS == 0 ? changed : changed / timeS;
-                    actor.printDebug(TranslatableComponent.of(
-                            "worldedit.command.time-elapsed",
-                            TextComponent.of(timeS),
-                            TextComponent.of(changed),
-                            TextComponent.of(Math.round(throughput))
-                    ));
-                }
 
-                worldEdit.flushBlockBag(actor, editSession);
+                OperationScheduler scheduler = platformManager.getOperationScheduler();
+                if (config.schedulerDeferEdits && scheduler.isRunning()) {
+                    editSession.closeLater(scheduler, event.getArguments()).whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            actor.printError(TranslatableComponent.of("worldedit.queue.failed",
+                                TextComponent.of(String.valueOf(error.getMessage()))));
+                        }
+                        finishEditSession(actor, config, start, editSession);
+                    });
+                } else {
+                    editSession.close();
+                    finishEditSession(actor, config, start, editSession);
+                }
             }
             Request.reset();
         }
@@ -557,6 +557,23 @@ public void handleCommand(CommandEvent event) {
         event.setCancelled(true);
     }
 
+    private void finishEditSession(Actor actor, LocalConfiguration config, long start, EditSession editSession) {
+        if (config.profile) {
+            long time = System.currentTimeMillis() - start;
+            double timeS = (time / 1000.0);
+            int changed = editSession.getBlockChangeCount();
+            double throughput = timeS == 0 ? changed : changed / timeS;
+            actor.printDebug(TranslatableComponent.of(
+                    "worldedit.command.time-elapsed",
+                    TextComponent.of(timeS),
+                    TextComponent.of(changed),
+                    TextComponent.of(Math.round(throughput))
+            ));
+        }
+
+        worldEdit.flushBlockBag(actor, editSession);
+    }
+
     private MemoizingValueAccess initializeInjectedValues(Arguments arguments, Actor actor) {
         InjectedValueStore store = MapBackedValueStore.create();
         store.injectValue(Key.of(Actor.class), ValueProvider.constant(actor));
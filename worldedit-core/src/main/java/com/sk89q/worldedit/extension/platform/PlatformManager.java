@@ -34,6 +34,7 @@
 import com.sk89q.worldedit.event.platform.PlatformInitializeEvent;
 import com.sk89q.worldedit.event.platform.PlatformReadyEvent;
 import com.sk89q.worldedit.event.platform.PlayerInputEvent;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.util.HandSide;
 import com.sk89q.worldedit.util.Location;
@@ -67,6 +68,7 @@ public class PlatformManager {
 
     private final WorldEdit worldEdit;
     private final PlatformCommandManager platformCommandManager;
+    private final OperationScheduler operationScheduler;
     private final List<Platform> platforms = new ArrayList<>();
     private final Map<Capability, Platform> preferences = new EnumMap<>(Capability.class);
     private @Nullable String firstSeenVersion;
@@ -82,6 +84,7 @@ public PlatformManager(WorldEdit worldEdit) {
         checkNotNull(worldEdit);
         this.worldEdit = worldEdit;
         this.platformCommandManager = new PlatformCommandManager(worldEdit, this);
+        this.operationScheduler = new OperationScheduler(() -> worldEdit.getConfiguration().schedulerTickBudget);
 
         // Register this instance for events
         worldEdit.getEventBus().register(this);
@@ -279,6 +282,18 @@ public PlatformCommandManager getPlatformCommandManager() {
         return platformCommandManager;
     }
 
+    /**
+     * Get the scheduler that runs operations over several server ticks.
+     *
+     * <p>The scheduler is driven by the platform that provides
+     * {@link Capability#GAME_HOOKS}.</p>
+     *
+     * @return the operation scheduler
+     */
+    public OperationScheduler getOperationScheduler() {
+        return operationScheduler;
+    }
+
     /**
      * Get the current configuration.
      *
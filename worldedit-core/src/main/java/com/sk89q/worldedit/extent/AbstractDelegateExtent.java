@@ -39,10 +39,24 @@
 
 /**
  * A base class for {@link Extent}s that merely passes extents onto another.
+ *
+ * <p>The coordinate forms of {@code getBlock}, {@code getFullBlock} and
+ * {@code setBlock} are forwarded to the extent as they are, unless a subclass
+ * overrides only the {@link BlockVector3} form of the method. They are then
+ * passed to that form instead, so that such subclasses still see every
+ * call.</p>
  */
 public abstract class AbstractDelegateExtent implements Extent {
 
+    private static final ClassValue<VectorOnlyOverrides> VECTOR_ONLY_OVERRIDES = new ClassValue<VectorOnlyOverrides>() {
+        @Override
+        protected VectorOnlyOverrides computeValue(Class<?> type) {
+            return new VectorOnlyOverrides(type);
+        }
+    };
+
     private final Extent extent;
+    private final VectorOnlyOverrides vectorOnlyOverrides;
 
     /**
      * Create a new instance.
@@ -52,6 +66,7 @@ public abstract class AbstractDelegateExtent implements Extent {
     protected AbstractDelegateExtent(Extent extent) {
         checkNotNull(extent);
         this.extent = extent;
+        this.vectorOnlyOverrides = VECTOR_ONLY_OVERRIDES.get(getClass());
     }
 
     /**
@@ -68,16 +83,40 @@ public BlockState getBlock(BlockVector3 position) {
         return extent.getBlock(position);
     }
 
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        if (vectorOnlyOverrides.getBlock) {
+            return getBlock(BlockVector3.at(x, y, z));
+        }
+        return extent.getBlock(x, y, z);
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         return extent.getFullBlock(position);
     }
 
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        if (vectorOnlyOverrides.getFullBlock) {
+            return getFullBlock(BlockVector3.at(x, y, z));
+        }
+        return extent.getFullBlock(x, y, z);
+    }
+
     @Override
     public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
         return extent.setBlock(location, block);
     }
 
+    @Override
+    public <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T block) throws WorldEditException {
+        if (vectorOnlyOverrides.setBlock) {
+            return setBlock(BlockVector3.at(x, y, z), block);
+        }
+        return extent.setBlock(x, y, z, block);
+    }
+
     @Override
     @Nullable
     public Entity createEntity(Location location, BaseEntity entity) {
@@ -138,4 +177,39 @@ protected Operation commitBefore() {
         }
     }
 
+    /**
+     * Which of the block methods a subclass overrides in their
+     * {@link BlockVector3} form only.
+     */
+    private static final class VectorOnlyOverrides {
+
+        private final boolean getBlock;
+        private final boolean getFullBlock;
+        private final boolean setBlock;
+
+        private VectorOnlyOverrides(Class<?> type) {
+            getBlock = isVectorOnly(type, "getBlock");
+            getFullBlock = isVectorOnly(type, "getFullBlock");
+            setBlock = isVectorOnly(type, "setBlock", BlockStateHolder.class);
+        }
+
+        private static boolean isVectorOnly(Class<?> type, String name, Class<?>... extraParams) {
+            Class<?>[] vectorParams = new Class<?>[extraParams.length + 1];
+            vectorParams[0] = BlockVector3.class;
+            System.arraycopy(extraParams, 0, vectorParams, 1, extraParams.length);
+            Class<?>[] coordinateParams = new Class<?>[extraParams.length + 3];
+            coordinateParams[0] = int.class;
+            coordinateParams[1] = int.class;
+            coordinateParams[2] = int.class;
+            System.arraycopy(extraParams, 0, coordinateParams, 3, extraParams.length);
+            try {
+                return type.getMethod(name, vectorParams).getDeclaringClass() != AbstractDelegateExtent.class
+                    && type.getMethod(name, coordinateParams).getDeclaringClass() == AbstractDelegateExtent.class;
+            } catch (NoSuchMethodException e) {
+                throw new AssertionError("Missing block method " + name + " on " + type.getName(), e);
+            }
+        }
+
+    }
+
 }
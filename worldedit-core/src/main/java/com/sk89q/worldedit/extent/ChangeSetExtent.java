@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.extent;
 
+import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
@@ -30,6 +31,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.concurrency.LazyReference;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
@@ -42,10 +44,16 @@
 
 /**
  * Stores changes to a {@link ChangeSet}.
+ *
+ * <p>Optionally, writes of a block that is identical to the block already
+ * present can be dropped. They are then neither recorded nor passed on, so
+ * they do not count against a change limit placed below this extent.</p>
  */
 public class ChangeSetExtent extends AbstractDelegateExtent {
 
     private final ChangeSet changeSet;
+    private final boolean skipUnchanged;
+    private int skipped;
 
     /**
      * Create a new instance.
@@ -54,16 +62,80 @@ public class ChangeSetExtent extends AbstractDelegateExtent {
      * @param changeSet the change set
      */
     public ChangeSetExtent(Extent extent, ChangeSet changeSet) {
+        this(extent, changeSet, false);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent
+     * @param changeSet the change set
+     * @param skipUnchanged true to drop writes that would not change the block
+     */
+    public ChangeSetExtent(Extent extent, ChangeSet changeSet, boolean skipUnchanged) {
         super(extent);
         checkNotNull(changeSet);
         this.changeSet = changeSet;
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * Get the number of writes that were dropped because they would not
+     * have changed the block.
+     *
+     * @return the number of skipped writes
+     */
+    public int getSkippedCount() {
+        return skipped;
     }
 
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         BaseBlock previous = getFullBlock(location);
+        if (skipUnchanged && isUnchanged(previous, block)) {
+            skipped++;
+            return false;
+        }
+        // Record the change only once the extents below have accepted it,
+        // so that a write rejected by the change limiter is not undone later
+        boolean result = super.setBlock(location, block);
         changeSet.add(new BlockChange(location, previous, block));
-        return super.setBlock(location, block);
+        return result;
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws WorldEditException {
+        BaseBlock previous = getFullBlock(x, y, z);
+        if (skipUnchanged && isUnchanged(previous, block)) {
+            skipped++;
+            return false;
+        }
+        boolean result = super.setBlock(x, y, z, block);
+        changeSet.add(new BlockChange(BlockVector3.at(x, y, z), previous, block));
+        return result;
+    }
+
+    /**
+     * Checks whether writing the given block would leave the previous block
+     * as it is. States are compared first, so that NBT data is only looked
+     * at, and possibly converted, for blocks whose states already match.
+     */
+    private static boolean isUnchanged(BaseBlock previous, BlockStateHolder<?> block) {
+        if (!previous.toImmutableState().equals(block.toImmutableState())) {
+            return false;
+        }
+        if (!(block instanceof BaseBlock)) {
+            return !previous.hasNbtData();
+        }
+        LazyReference<CompoundTag> previousNbt = previous.getNbtReference();
+        LazyReference<CompoundTag> nbt = ((BaseBlock) block).getNbtReference();
+        if (previousNbt == nbt) {
+            return true;
+        }
+        if (previousNbt == null || nbt == null) {
+            return false;
+        }
+        return previousNbt.getValue().equals(nbt.getValue());
     }
 
     @Override
@@ -0,0 +1,162 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Collects the time spent in each extent of an extent chain, by wrapping
+ * every extent in a {@link ProfilingExtent}.
+ *
+ * <p>Each profiling extent records the <em>self time</em> of the extent
+ * it wraps: the time spent in calls to it, minus the time spent in profiled
+ * extents further down the chain during those calls. A profiler must only be
+ * used from one thread at a time.</p>
+ *
+ * <p>Some extents may be named as <em>stages</em> of the chain. For those,
+ * the total time spent in calls to them is also reported, including the
+ * time spent in the extents below them.</p>
+ *
+ * <em>Internal use only.</em>
+ */
+public class ExtentProfiler {
+
+    private final List<ProfilingExtent> extents = new ArrayList<>();
+    private final LongSupplier clock;
+    private long nestedTime;
+
+    /**
+     * Create a new profiler.
+     */
+    public ExtentProfiler() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Create a new profiler.
+     *
+     * @param clock the clock, in nanoseconds
+     */
+    ExtentProfiler(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Wrap an extent, so that the time spent in it is profiled.
+     *
+     * @param extent the extent
+     * @return the profiling extent
+     */
+    public ProfilingExtent wrap(Extent extent) {
+        return wrap(extent, null);
+    }
+
+    /**
+     * Wrap an extent, so that the time spent in it is profiled.
+     *
+     * @param extent the extent
+     * @param stage the name of the stage of the chain that starts at this extent, or null
+     * @return the profiling extent
+     */
+    public ProfilingExtent wrap(Extent extent, @Nullable String stage) {
+        ProfilingExtent profilingExtent = new ProfilingExtent(extent, this, stage);
+        extents.add(profilingExtent);
+        return profilingExtent;
+    }
+
+    /**
+     * Get all extents wrapped by this profiler, from the bottom of the
+     * chain upwards.
+     *
+     * @return the profiling extents
+     */
+    public List<ProfilingExtent> getExtents() {
+        return Collections.unmodifiableList(extents);
+    }
+
+    /**
+     * Get the extents that the most self time was spent in.
+     *
+     * @param limit the maximum number of extents to return
+     * @return the profiling extents, most self time first
+     */
+    public List<ProfilingExtent> getTopExtents(int limit) {
+        checkArgument(limit >= 0, "limit >= 0 required");
+        return extents.stream()
+            .filter(ProfilingExtent::isActive)
+            .sorted(Comparator.comparingLong((ProfilingExtent extent) -> extent.getSelfTime()).reversed())
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the extents that were named as stages, from the bottom of the
+     * chain upwards.
+     *
+     * @return the profiling extents of the stages
+     */
+    public List<ProfilingExtent> getStages() {
+        return extents.stream()
+            .filter(extent -> extent.getStage() != null)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Read the clock of this profiler.
+     *
+     * @return the time, in nanoseconds
+     */
+    long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Start timing a call, resetting the time spent in nested calls.
+     *
+     * @return the nested time of the enclosing call, to pass to {@link #exit(long, long)}
+     */
+    long enter() {
+        long enclosing = nestedTime;
+        nestedTime = 0;
+        return enclosing;
+    }
+
+    /**
+     * Finish timing a call.
+     *
+     * @param enclosing the value returned by {@link #enter()}
+     * @param elapsed the total time spent in the call
+     * @return the self time of the call
+     */
+    long exit(long enclosing, long elapsed) {
+        long selfTime = elapsed - nestedTime;
+        nestedTime = enclosing + elapsed;
+        return selfTime;
+    }
+
+}
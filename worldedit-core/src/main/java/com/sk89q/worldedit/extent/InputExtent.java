@@ -49,6 +49,23 @@ public interface InputExtent {
      */
     BlockState getBlock(BlockVector3 position);
 
+    /**
+     * Get a snapshot of the block at the given location.
+     *
+     * <p>This is the same as {@link #getBlock(BlockVector3)}, but does not require
+     * the caller to create a vector. Implementations that can read a block
+     * without one should override this, and must return the same result as
+     * {@link #getBlock(BlockVector3)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block
+     */
+    default BlockState getBlock(int x, int y, int z) {
+        return getBlock(BlockVector3.at(x, y, z));
+    }
+
     /**
      * Get a immutable snapshot of the block at the given location.
      *
@@ -57,6 +74,21 @@ public interface InputExtent {
      */
     BaseBlock getFullBlock(BlockVector3 position);
 
+    /**
+     * Get a immutable snapshot of the block at the given location.
+     *
+     * <p>This is the same as {@link #getFullBlock(BlockVector3)}, but does not
+     * require the caller to create a vector.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block
+     */
+    default BaseBlock getFullBlock(int x, int y, int z) {
+        return getFullBlock(BlockVector3.at(x, y, z));
+    }
+
     /**
      * Get the biome at the given location.
      *
@@ -21,6 +21,7 @@
 
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.Masks;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
@@ -69,4 +70,12 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         return mask.test(location) && super.setBlock(location, block);
     }
 
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws WorldEditException {
+        if (mask == Masks.alwaysTrue()) {
+            return getExtent().setBlock(x, y, z, block);
+        }
+        return setBlock(BlockVector3.at(x, y, z), block);
+    }
+
 }
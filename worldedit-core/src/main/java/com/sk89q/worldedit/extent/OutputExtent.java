@@ -54,6 +54,25 @@ public interface OutputExtent {
      */
     <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 position, T block) throws WorldEditException;
 
+    /**
+     * Change the block at the given location to the given block.
+     *
+     * <p>This is the same as {@link #setBlock(BlockVector3, BlockStateHolder)}, but
+     * does not require the caller to create a vector. Implementations that can
+     * place a block without one should override this, and must behave the same
+     * as {@link #setBlock(BlockVector3, BlockStateHolder)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @param block block to set
+     * @return true if the block was successfully set (return value may not be accurate)
+     * @throws WorldEditException thrown on an error
+     */
+    default <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T block) throws WorldEditException {
+        return setBlock(BlockVector3.at(x, y, z), block);
+    }
+
     /**
      * Check if this extent fully supports 3D biomes.
      *
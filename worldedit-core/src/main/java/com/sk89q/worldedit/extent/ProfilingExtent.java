@@ -0,0 +1,327 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.formatting.text.Component;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An extent that counts and times the calls made to the extent it wraps.
+ *
+ * <p>Unlike {@link AbstractDelegateExtent}, this extent wraps the
+ * {@link Operation} returned by {@link #commit()}, so that the time spent
+ * committing is profiled as well.</p>
+ *
+ * <em>Internal use only.</em>
+ *
+ * @see ExtentProfiler
+ */
+public class ProfilingExtent implements Extent {
+
+    public enum Action {
+        GET_BLOCK,
+        GET_FULL_BLOCK,
+        SET_BLOCK,
+        COMMIT,
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+
+    private final Extent extent;
+    private final ExtentProfiler profiler;
+    private final @Nullable String stage;
+    private final long[] counts = new long[ACTIONS.length];
+    private final long[] selfTimes = new long[ACTIONS.length];
+    private long totalTime;
+
+    ProfilingExtent(Extent extent, ExtentProfiler profiler, @Nullable String stage) {
+        checkNotNull(extent);
+        this.extent = extent;
+        this.profiler = profiler;
+        this.stage = stage;
+    }
+
+    /**
+     * Get the extent.
+     *
+     * @return the extent
+     */
+    public Extent getExtent() {
+        return extent;
+    }
+
+    /**
+     * Get the name of the stage of the chain that starts at this extent.
+     *
+     * @return the name of the stage, or null if this extent is not a stage
+     */
+    public @Nullable String getStage() {
+        return stage;
+    }
+
+    public boolean isActive() {
+        for (long count : counts) {
+            if (count != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of calls made for an action.
+     *
+     * @param action the action
+     * @return the number of calls
+     */
+    public long getCount(Action action) {
+        return counts[action.ordinal()];
+    }
+
+    /**
+     * Get the self time spent in the wrapped extent for an action.
+     *
+     * @param action the action
+     * @return the self time, in nanoseconds
+     */
+    public long getSelfTime(Action action) {
+        return selfTimes[action.ordinal()];
+    }
+
+    /**
+     * Get the self time spent in the wrapped extent for all actions.
+     *
+     * @return the self time, in nanoseconds
+     */
+    public long getSelfTime() {
+        long total = 0;
+        for (long selfTime : selfTimes) {
+            total += selfTime;
+        }
+        return total;
+    }
+
+    /**
+     * Get the total time spent in calls to the wrapped extent, including the
+     * time spent in the extents below it.
+     *
+     * @return the total time, in nanoseconds
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Get the total number of calls made, for all actions.
+     *
+     * @return the number of calls
+     */
+    public long getCount() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void record(Action action, long enclosing, long start) {
+        int index = action.ordinal();
+        long elapsed = profiler.now() - start;
+        counts[index]++;
+        selfTimes[index] += profiler.exit(enclosing, elapsed);
+        totalTime += elapsed;
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        long enclosing = profiler.enter();
+        long start = profiler.now();
+        try {
+            return extent.getBlock(position);
+        } finally {
+            record(Action.GET_BLOCK, enclosing, start);
+        }
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        long enclosing = profiler.enter();
+        long start = profiler.now();
+        try {
+            return extent.getBlock(x, y, z);
+        } finally {
+            record(Action.GET_BLOCK, enclosing, start);
+        }
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        long enclosing = profiler.enter();
+        long start = profiler.now();
+        try {
+            return extent.getFullBlock(position);
+        } finally {
+            record(Action.GET_FULL_BLOCK, enclosing, start);
+        }
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        long enclosing = profiler.enter();
+        long start = profiler.now();
+        try {
+            return extent.getFullBlock(x, y, z);
+        } finally {
+            record(Action.GET_FULL_BLOCK, enclosing, start);
+        }
+    }
+
+    @Override
+    public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+        long enclosing = profiler.enter();
+        long start = profiler.now();
+        try {
+            return extent.setBlock(location, block);
+        } finally {
+            record(Action.SET_BLOCK, enclosing, start);
+        }
+    }
+
+    @Override
+    public <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T block) throws WorldEditException {
+        long enclosing = profiler.enter();
+        long start = profiler.now();
+        try {
+            return extent.setBlock(x, y, z, block);
+        } finally {
+            record(Action.SET_BLOCK, enclosing, start);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Entity createEntity(Location location, BaseEntity entity) {
+        return extent.createEntity(location, entity);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return extent.getEntities();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        return extent.getEntities(region);
+    }
+
+    @Override
+    public boolean fullySupports3DBiomes() {
+        return extent.fullySupports3DBiomes();
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector3 position) {
+        return extent.getBiome(position);
+    }
+
+    @Override
+    public boolean setBiome(BlockVector3 position, BiomeType biome) {
+        return extent.setBiome(position, biome);
+    }
+
+    @Override
+    public BlockVector3 getMinimumPoint() {
+        return extent.getMinimumPoint();
+    }
+
+    @Override
+    public BlockVector3 getMaximumPoint() {
+        return extent.getMaximumPoint();
+    }
+
+    @Override
+    public @Nullable Operation commit() {
+        Operation operation;
+        long enclosing = profiler.enter();
+        long start = profiler.now();
+        try {
+            operation = extent.commit();
+        } finally {
+            record(Action.COMMIT, enclosing, start);
+        }
+        return operation == null ? null : new ProfilingOperation(operation);
+    }
+
+    @Override
+    public String toString() {
+        return "ProfilingExtent{delegate=" + extent + (stage == null ? "" : ", stage=" + stage) + "}";
+    }
+
+    private final class ProfilingOperation implements Operation {
+
+        private Operation delegate;
+
+        private ProfilingOperation(Operation delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Operation resume(RunContext run) throws WorldEditException {
+            long enclosing = profiler.enter();
+            long start = profiler.now();
+            try {
+                delegate = delegate.resume(run);
+            } finally {
+                // count each commit once, not once per step
+                int index = Action.COMMIT.ordinal();
+                long elapsed = profiler.now() - start;
+                selfTimes[index] += profiler.exit(enclosing, elapsed);
+                totalTime += elapsed;
+            }
+            return delegate != null ? this : null;
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public Iterable<Component> getStatusMessages() {
+            return delegate.getStatusMessages();
+        }
+    }
+}
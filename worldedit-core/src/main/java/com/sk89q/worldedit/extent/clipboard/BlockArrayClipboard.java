@@ -125,8 +125,8 @@ public Entity createEntity(Location location, BaseEntity entity) {
     @Override
     public BlockState getBlock(BlockVector3 position) {
         if (region.contains(position)) {
-            BlockVector3 v = position.subtract(region.getMinimumPoint());
-            BaseBlock block = blocks[v.getBlockX()][v.getBlockY()][v.getBlockZ()];
+            BlockVector3 min = region.getMinimumPoint();
+            BaseBlock block = blocks[position.getX() - min.getX()][position.getY() - min.getY()][position.getZ() - min.getZ()];
             if (block != null) {
                 return block.toImmutableState();
             }
@@ -138,8 +138,8 @@ public BlockState getBlock(BlockVector3 position) {
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         if (region.contains(position)) {
-            BlockVector3 v = position.subtract(region.getMinimumPoint());
-            BaseBlock block = blocks[v.getBlockX()][v.getBlockY()][v.getBlockZ()];
+            BlockVector3 min = region.getMinimumPoint();
+            BaseBlock block = blocks[position.getX() - min.getX()][position.getY() - min.getY()][position.getZ() - min.getZ()];
             if (block != null) {
                 return block;
             }
@@ -151,8 +151,8 @@ public BaseBlock getFullBlock(BlockVector3 position) {
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block) throws WorldEditException {
         if (region.contains(position)) {
-            BlockVector3 v = position.subtract(region.getMinimumPoint());
-            blocks[v.getBlockX()][v.getBlockY()][v.getBlockZ()] = block.toBaseBlock();
+            BlockVector3 min = region.getMinimumPoint();
+            blocks[position.getX() - min.getX()][position.getY() - min.getY()][position.getZ() - min.getZ()] = block.toBaseBlock();
             return true;
         } else {
             return false;
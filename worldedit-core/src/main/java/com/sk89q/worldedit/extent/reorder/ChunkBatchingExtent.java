@@ -39,11 +39,18 @@
  * improve the speed of setting the blocks, since chunks do not need to be
  * loaded repeatedly, however it does take more memory due to caching the
  * blocks.
+ *
+ * <p>Changes that already arrive in batch order, such as those made while
+ * visiting a region with {@link com.sk89q.worldedit.regions.Region#chunkOrderedIterator()},
+ * are passed straight through. Buffering only starts at the first change
+ * that is out of order, and lasts until the next commit.</p>
  */
 public class ChunkBatchingExtent extends AbstractBufferingExtent {
 
     private final BlockMap<BaseBlock> blockMap = BlockMap.createForBaseBlock();
     private boolean enabled;
+    private boolean buffering;
+    private long lastKey;
 
     public ChunkBatchingExtent(Extent extent) {
         this(extent, true);
@@ -71,6 +78,14 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         if (!enabled) {
             return setDelegateBlock(location, block);
         }
+        if (!buffering) {
+            long key = RegionOptimizedVectorSorter.key(location.getX(), location.getY(), location.getZ());
+            if (Long.compareUnsigned(key, lastKey) >= 0) {
+                lastKey = key;
+                return setDelegateBlock(location, block);
+            }
+            buffering = true;
+        }
         blockMap.put(location, block.toBaseBlock());
         return true;
     }
@@ -101,8 +116,17 @@ public Operation resume(RunContext run) throws WorldEditException {
                     BlockVector3 position = iterator.next();
                     BaseBlock block = blockMap.get(position);
                     getExtent().setBlock(position, block);
+                    if (!run.shouldContinue()) {
+                        break;
+                    }
                 }
+                return iterator.hasNext() ? this : finish();
+            }
+
+            private Operation finish() {
                 blockMap.clear();
+                buffering = false;
+                lastKey = 0;
                 return null;
             }
 
@@ -23,25 +23,31 @@
 import com.sk89q.worldedit.extent.AbstractBufferingExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.operation.Operation;
-import com.sk89q.worldedit.function.operation.OperationQueue;
 import com.sk89q.worldedit.function.operation.RunContext;
-import com.sk89q.worldedit.function.operation.SetBlockMap;
+import com.sk89q.worldedit.internal.util.RegionOptimizedVectorSorter;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.collection.BlockMap;
+import com.sk89q.worldedit.util.collection.BlockSet;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockCategories;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Re-orders blocks into several stages.
+ *
+ * <p>Each stage is written in the same chunk order as
+ * {@link ChunkBatchingExtent}, so the stages can be committed one after
+ * another without buffering again.</p>
  */
 public class MultiStageReorder extends AbstractBufferingExtent implements ReorderingExtent {
 
@@ -144,7 +150,30 @@ public class MultiStageReorder extends AbstractBufferingExtent implements Reorde
         priorityMap.put(BlockTypes.MOVING_PISTON, PlacementPriority.FINAL);
     }
 
-    private final Map<PlacementPriority, BlockMap<BaseBlock>> stages = new HashMap<>();
+    private static final PlacementPriority[] PRIORITIES = PlacementPriority.values();
+    private static final byte UNKNOWN_PRIORITY = -1;
+
+    /**
+     * The priority ordinal of each block state, indexed by internal ID and
+     * filled in from {@link #priorityMap} as states are first seen.
+     */
+    private static volatile byte[] statePriorities = new byte[0];
+
+    /*
+     * Every buffered position has its final block in `blocks`. Positions are
+     * also appended, packed, to the list of the stage they are placed in,
+     * and to the list of the clear stage for the block they replace. A
+     * position whose block changes stage is left behind in the old list and
+     * skipped when that stage is written. The few positions that change
+     * stage are kept in `movedStages`, with a bit set for every stage list
+     * that holds them, so that they are never listed twice in one stage.
+     */
+    private final BlockMap<BaseBlock> blocks = BlockMap.createForBaseBlock();
+    private final BlockSet cleared = new BlockSet();
+    private final Long2ByteOpenHashMap movedStages = new Long2ByteOpenHashMap();
+    private final LongArrayList[] stages = new LongArrayList[PRIORITIES.length];
+    private final long[] lastKeys = new long[PRIORITIES.length];
+    private final boolean[] unsorted = new boolean[PRIORITIES.length];
 
     private boolean enabled;
 
@@ -177,8 +206,8 @@ public MultiStageReorder(Extent extent, boolean enabled) {
         super(extent);
         this.enabled = enabled;
 
-        for (PlacementPriority priority : PlacementPriority.values()) {
-            stages.put(priority, BlockMap.createForBaseBlock());
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LongArrayList();
         }
     }
 
@@ -210,55 +239,121 @@ public boolean commitRequired() {
      * @param block The block
      * @return The priority
      */
-    private <B extends BlockStateHolder<B>> PlacementPriority getPlacementPriority(B block) {
-        return priorityMap.getOrDefault(block.getBlockType(), PlacementPriority.FIRST);
+    private static PlacementPriority getPlacementPriority(BlockStateHolder<?> block) {
+        BlockState state = block.toImmutableState();
+        int id = state.getInternalId();
+        byte[] priorities = statePriorities;
+        if (id >= 0 && id < priorities.length && priorities[id] != UNKNOWN_PRIORITY) {
+            return PRIORITIES[priorities[id]];
+        }
+
+        PlacementPriority priority = priorityMap.getOrDefault(state.getBlockType(), PlacementPriority.FIRST);
+        if (id >= 0) {
+            // racing threads can only lose entries, which are then computed again
+            if (id >= priorities.length) {
+                int oldLength = priorities.length;
+                priorities = Arrays.copyOf(priorities, Math.max(id + 1, oldLength * 2));
+                Arrays.fill(priorities, oldLength, priorities.length, UNKNOWN_PRIORITY);
+            }
+            priorities[id] = (byte) priority.ordinal();
+            statePriorities = priorities;
+        }
+        return priority;
+    }
+
+    private static PlacementPriority getClearPriority(PlacementPriority srcPriority) {
+        switch (srcPriority) {
+            case FINAL:
+                return PlacementPriority.CLEAR_FINAL;
+            case LATE:
+                return PlacementPriority.CLEAR_LATE;
+            case LAST:
+                return PlacementPriority.CLEAR_LAST;
+            default:
+                return null;
+        }
+    }
+
+    private void addToStage(PlacementPriority priority, BlockVector3 location) {
+        int stage = priority.ordinal();
+        long key = RegionOptimizedVectorSorter.key(location.getX(), location.getY(), location.getZ());
+        if (Long.compareUnsigned(key, lastKeys[stage]) < 0) {
+            unsorted[stage] = true;
+        }
+        lastKeys[stage] = key;
+        stages[stage].add(location.toLongPackedForm());
     }
 
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
-        if (!enabled) {
+        if (!enabled || !BlockVector3.isLongPackable(location)) {
             return setDelegateBlock(location, block);
         }
 
         BlockState existing = getExtent().getBlock(location);
         PlacementPriority priority = getPlacementPriority(block);
-        PlacementPriority srcPriority = getPlacementPriority(existing);
-
-        if (srcPriority != PlacementPriority.FIRST) {
-            BaseBlock replacement = (block.getBlockType().getMaterial().isAir() ? block : BlockTypes.AIR.getDefaultState()).toBaseBlock();
-
-            switch (srcPriority) {
-                case FINAL:
-                    stages.get(PlacementPriority.CLEAR_FINAL).put(location, replacement);
-                    break;
-                case LATE:
-                    stages.get(PlacementPriority.CLEAR_LATE).put(location, replacement);
-                    break;
-                case LAST:
-                    stages.get(PlacementPriority.CLEAR_LAST).put(location, replacement);
-                    break;
-                default:
-                    break;
-            }
 
-            if (block.getBlockType().getMaterial().isAir()) {
-                return !existing.equalsFuzzy(block);
+        BaseBlock previous = blocks.put(location, block.toBaseBlock());
+        if (previous == null) {
+            PlacementPriority clearPriority = getClearPriority(getPlacementPriority(existing));
+            if (clearPriority != null) {
+                addToStage(clearPriority, location);
+                cleared.add(location);
+            }
+            addToStage(priority, location);
+        } else {
+            PlacementPriority previousPriority = getPlacementPriority(previous);
+            if (previousPriority != priority) {
+                long packed = location.toLongPackedForm();
+                byte listed = movedStages.get(packed);
+                if (listed == 0) {
+                    listed = stageBit(previousPriority);
+                }
+                if ((listed & stageBit(priority)) == 0) {
+                    addToStage(priority, location);
+                    listed |= stageBit(priority);
+                }
+                movedStages.put(packed, listed);
             }
         }
 
-        stages.get(priority).put(location, block.toBaseBlock());
         return !existing.equalsFuzzy(block);
     }
 
+    private static byte stageBit(PlacementPriority priority) {
+        return (byte) (1 << (priority.ordinal() - PlacementPriority.FIRST.ordinal()));
+    }
+
     @Override
     protected BaseBlock getBufferedFullBlock(BlockVector3 position) {
-        for (BlockMap<BaseBlock> blocks : stages.values()) {
-            BaseBlock baseBlock = blocks.get(position);
-            if (baseBlock != null) {
-                return baseBlock;
-            }
+        return blocks.get(position);
+    }
+
+    /**
+     * Get the block to write for a position in a stage.
+     *
+     * @return the block, or {@code null} if nothing should be written
+     */
+    @Nullable
+    private BaseBlock getStageBlock(PlacementPriority stage, BlockVector3 position) {
+        BaseBlock block = blocks.get(position);
+        boolean air = block.getBlockType().getMaterial().isAir();
+        switch (stage) {
+            case CLEAR_FINAL:
+            case CLEAR_LAST:
+            case CLEAR_LATE:
+                return air ? block : BlockTypes.AIR.getDefaultState().toBaseBlock();
+            default:
+                if (getPlacementPriority(block) != stage) {
+                    // moved to another stage
+                    return null;
+                }
+                if (air && cleared.contains(position)) {
+                    // already placed by the clear stage
+                    return null;
+                }
+                return block;
         }
-        return null;
     }
 
     @Override
@@ -266,21 +361,79 @@ public Operation commitBefore() {
         if (!commitRequired()) {
             return null;
         }
-        List<Operation> operations = new ArrayList<>();
-        for (PlacementPriority priority : PlacementPriority.values()) {
-            BlockMap<BaseBlock> blocks = stages.get(priority);
-            operations.add(new SetBlockMap(getExtent(), blocks) {
-                @Override
-                public Operation resume(RunContext run) throws WorldEditException {
-                    Operation operation = super.resume(run);
-                    if (operation == null) {
-                        blocks.clear();
+        return new Operation() {
+
+            private int stage = -1;
+            private long[] positions = new long[0];
+            private int size;
+            private int index;
+
+            @Override
+            public Operation resume(RunContext run) throws WorldEditException {
+                while (true) {
+                    while (index < size) {
+                        BlockVector3 position = BlockVector3.fromLongPackedForm(positions[index++]);
+                        BaseBlock block = getStageBlock(PRIORITIES[stage], position);
+                        if (block != null) {
+                            getExtent().setBlock(position, block);
+                        }
+                        if (!run.shouldContinue()) {
+                            return index < size || stage + 1 < stages.length ? this : finish();
+                        }
+                    }
+                    if (++stage == stages.length) {
+                        return finish();
                     }
-                    return operation;
+                    enterStage();
                 }
-            });
-        }
+            }
+
+            private void enterStage() {
+                LongArrayList list = stages[stage];
+                positions = list.elements();
+                size = list.size();
+                index = 0;
+                if (unsorted[stage]) {
+                    sortByChunk(positions, size);
+                }
+            }
+
+            private Operation finish() {
+                blocks.clear();
+                cleared.clear();
+                movedStages.clear();
+                for (int i = 0; i < stages.length; i++) {
+                    stages[i].clear();
+                    lastKeys[i] = 0;
+                    unsorted[i] = false;
+                }
+                return null;
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+    }
 
-        return new OperationQueue(operations);
+    /**
+     * Sort packed positions into the order used by {@link ChunkBatchingExtent}.
+     */
+    private static void sortByChunk(long[] positions, int size) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            BlockVector3 position = BlockVector3.fromLongPackedForm(positions[i]);
+            keys[i] = RegionOptimizedVectorSorter.key(position.getX(), position.getY(), position.getZ());
+        }
+        it.unimi.dsi.fastutil.Arrays.quickSort(0, size,
+            (a, b) -> Long.compareUnsigned(keys[a], keys[b]),
+            (a, b) -> {
+                long key = keys[a];
+                keys[a] = keys[b];
+                keys[b] = key;
+                long position = positions[a];
+                positions[a] = positions[b];
+                positions[b] = position;
+            });
     }
 }
@@ -78,12 +78,22 @@ public int getCount() {
 
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
+        countChange();
+        return super.setBlock(location, block);
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws WorldEditException {
+        countChange();
+        return super.setBlock(x, y, z, block);
+    }
+
+    private void countChange() throws MaxChangedBlocksException {
         if (limit >= 0) {
             if (count >= limit) {
                 throw new MaxChangedBlocksException(limit);
             }
             count++;
         }
-        return super.setBlock(location, block);
     }
 }
@@ -25,7 +25,6 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
-import com.sk89q.worldedit.world.block.BlockType;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -50,18 +49,21 @@ public DataValidatorExtent(Extent extent, World world) {
 
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
-        final int y = location.getBlockY();
-        final BlockType type = block.getBlockType();
+        return isValid(location.getBlockY(), block) && super.setBlock(location, block);
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws WorldEditException {
+        return isValid(y, block) && super.setBlock(x, y, z, block);
+    }
+
+    private boolean isValid(int y, BlockStateHolder<?> block) {
         if (y < world.getMinY() || y > world.getMaxY()) {
             return false;
         }
 
         // No invalid blocks
-        if (type == null) {
-            return false;
-        }
-
-        return super.setBlock(location, block);
+        return block.getBlockType() != null;
     }
 
 }
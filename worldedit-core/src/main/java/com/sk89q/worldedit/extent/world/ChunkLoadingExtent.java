@@ -22,20 +22,49 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Automatically loads chunks when blocks are accessed.
+ *
+ * <p>The last few chunks that were checked are remembered, and are not
+ * checked again. Chunks can also be {@linkplain #preload(Region, boolean)
+ * preloaded} ahead of an operation; once the world holds them loaded, they
+ * are not checked at all until they are {@linkplain #release() released}.
+ * Regions too large to preload at once can instead be
+ * {@linkplain #prefetch(Region, int) prefetched} a few chunks at a time.</p>
  */
 public class ChunkLoadingExtent extends AbstractDelegateExtent {
 
+    private static final int RECENT_CHUNKS = 16;
+    private static final long NO_CHUNK = Long.MIN_VALUE;
+
     private final World world;
     private final boolean enabled;
+    private final long[] recentChunks = new long[RECENT_CHUNKS];
+
+    // Chunks this session holds, which are released together once it has been committed
+    private final Set<BlockVector2> heldChunks = new HashSet<>();
+    // The held chunks that have finished loading, which are not checked again
+    private volatile LongSet loadedHeldChunks = LongSets.EMPTY_SET;
+    private @Nullable ChunkPrefetcher prefetcher;
 
     /**
      * Create a new instance.
@@ -49,6 +78,7 @@ public ChunkLoadingExtent(Extent extent, World world, boolean enabled) {
         checkNotNull(world);
         this.enabled = enabled;
         this.world = world;
+        Arrays.fill(recentChunks, NO_CHUNK);
     }
 
     /**
@@ -61,10 +91,132 @@ public ChunkLoadingExtent(Extent extent, World world) {
         this(extent, world, true);
     }
 
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Start loading the chunks of a region before they are used.
+     *
+     * <p>Chunks held by an earlier call stay held, as blocks written to them
+     * may still be buffered.</p>
+     *
+     * @param region the region
+     * @param hold true to ask the world to keep the chunks loaded until
+     *     {@link #release()} is called
+     */
+    public void preload(Region region, boolean hold) {
+        checkNotNull(region);
+        if (!enabled) {
+            return;
+        }
+        prefetcher = null;
+
+        Set<BlockVector2> chunks = region.getChunks();
+        if (!hold) {
+            world.loadChunksAsync(chunks, false);
+            return;
+        }
+
+        // Hold each chunk at most once per session
+        List<BlockVector2> newChunks = new ArrayList<>();
+        synchronized (heldChunks) {
+            for (BlockVector2 chunk : chunks) {
+                if (heldChunks.add(chunk)) {
+                    newChunks.add(chunk);
+                }
+            }
+        }
+        if (newChunks.isEmpty()) {
+            return;
+        }
+        world.loadChunksAsync(newChunks, true).thenAccept(held -> {
+            if (held) {
+                synchronized (heldChunks) {
+                    LongSet loaded = new LongOpenHashSet(loadedHeldChunks);
+                    for (BlockVector2 chunk : newChunks) {
+                        // Skip chunks released while they were loading
+                        if (heldChunks.contains(chunk)) {
+                            loaded.add(chunkKey(chunk.getBlockX(), chunk.getBlockZ()));
+                        }
+                    }
+                    loadedHeldChunks = loaded;
+                }
+            }
+        });
+    }
+
+    /**
+     * Start loading the chunks of a region a number of chunks ahead of the
+     * blocks being accessed, replacing any earlier prefetch.
+     *
+     * @param region the region
+     * @param distance the number of chunks to load ahead
+     * @see ChunkPrefetcher
+     */
+    public void prefetch(Region region, int distance) {
+        checkNotNull(region);
+        if (!enabled) {
+            return;
+        }
+        prefetcher = new ChunkPrefetcher(world, region, distance);
+    }
+
+    /**
+     * Note that a block is about to be accessed, so that chunks being
+     * {@linkplain #prefetch(Region, int) prefetched} keep ahead of it.
+     *
+     * @param x the X coordinate of the block
+     * @param z the Z coordinate of the block
+     */
+    public void touch(int x, int z) {
+        ChunkPrefetcher prefetcher = this.prefetcher;
+        if (prefetcher != null) {
+            prefetcher.touch(x, z);
+        }
+    }
+
+    /**
+     * Let the world unload the chunks held by {@link #preload(Region, boolean)},
+     * and stop any {@link #prefetch(Region, int)}.
+     *
+     * <p>This should only be called once every change made through this
+     * extent has been committed to the world.</p>
+     */
+    public void release() {
+        prefetcher = null;
+        List<BlockVector2> chunks;
+        synchronized (heldChunks) {
+            if (heldChunks.isEmpty()) {
+                return;
+            }
+            chunks = new ArrayList<>(heldChunks);
+            heldChunks.clear();
+            loadedHeldChunks = LongSets.EMPTY_SET;
+        }
+        world.releaseChunks(chunks);
+    }
+
+    private void checkLoadedChunk(BlockVector3 position) {
+        int chunkX = position.getBlockX() >> 4;
+        int chunkZ = position.getBlockZ() >> 4;
+        long key = chunkKey(chunkX, chunkZ);
+        int slot = (chunkX * 31 + chunkZ) & (RECENT_CHUNKS - 1);
+        if (recentChunks[slot] == key) {
+            return;
+        }
+        if (loadedHeldChunks.contains(key)) {
+            return;
+        }
+        touch(position.getBlockX(), position.getBlockZ());
+        world.checkLoadedChunk(position);
+        recentChunks[slot] = key;
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         if (enabled) {
-            world.checkLoadedChunk(location);
+            checkLoadedChunk(location);
         }
         return super.setBlock(location, block);
     }
@@ -72,7 +224,7 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
         if (enabled) {
-            world.checkLoadedChunk(position);
+            checkLoadedChunk(position);
         }
         return super.setBiome(position, biome);
     }
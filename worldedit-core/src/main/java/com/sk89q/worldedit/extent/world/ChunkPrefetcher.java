@@ -0,0 +1,117 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.world;
+
+import com.sk89q.worldedit.internal.util.RegionOptimizedVectorSorter;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.World;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Requests the chunks of a region from the world a fixed number of chunks
+ * ahead of the chunk currently being worked on.
+ *
+ * <p>Chunks are requested in the order that chunk-ordered region iteration
+ * and chunk batching visit them (see {@link RegionOptimizedVectorSorter}),
+ * so an operation walking the region finds the next chunks already loaded.
+ * The prefetcher only moves forward; positions outside of the region are
+ * ignored.</p>
+ */
+public class ChunkPrefetcher {
+
+    private final World world;
+    private final BlockVector2[] chunks;
+    private final Long2IntOpenHashMap indices;
+    private final int distance;
+
+    private int lastChunkX = Integer.MIN_VALUE;
+    private int lastChunkZ = Integer.MIN_VALUE;
+    private int requested;
+
+    /**
+     * Create a new instance, requesting the first chunks of the region
+     * straight away.
+     *
+     * @param world the world to request chunks from
+     * @param region the region that will be operated on
+     * @param distance the number of chunks to keep requested ahead
+     */
+    public ChunkPrefetcher(World world, Region region, int distance) {
+        checkNotNull(world);
+        checkNotNull(region);
+        checkArgument(distance > 0, "distance must be positive");
+        this.world = world;
+        this.distance = distance;
+        this.chunks = region.getChunks().toArray(new BlockVector2[0]);
+        Arrays.sort(chunks, (a, b) -> Long.compareUnsigned(sortKey(a), sortKey(b)));
+        this.indices = new Long2IntOpenHashMap(chunks.length);
+        this.indices.defaultReturnValue(-1);
+        for (int i = 0; i < chunks.length; i++) {
+            indices.put(chunkKey(chunks[i].getBlockX(), chunks[i].getBlockZ()), i);
+        }
+        request(0, Math.min(chunks.length, distance));
+    }
+
+    private static long sortKey(BlockVector2 chunk) {
+        return RegionOptimizedVectorSorter.key(chunk.getBlockX() << 4, 0, chunk.getBlockZ() << 4);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Note that a block is being worked on, requesting more chunks if it is
+     * in a chunk that was not worked on last.
+     *
+     * @param blockX the X coordinate of the block
+     * @param blockZ the Z coordinate of the block
+     */
+    public void touch(int blockX, int blockZ) {
+        int chunkX = blockX >> 4;
+        int chunkZ = blockZ >> 4;
+        if (chunkX == lastChunkX && chunkZ == lastChunkZ) {
+            return;
+        }
+        lastChunkX = chunkX;
+        lastChunkZ = chunkZ;
+
+        int index = indices.get(chunkKey(chunkX, chunkZ));
+        if (index < 0) {
+            return;
+        }
+        request(Math.max(requested, index + 1), (int) Math.min(chunks.length, (long) index + 1 + distance));
+    }
+
+    private void request(int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        world.loadChunksAsync(Arrays.asList(chunks).subList(start, end), false);
+        requested = end;
+    }
+
+}
@@ -29,13 +29,16 @@
 import com.sk89q.worldedit.util.SideEffectSet;
 import com.sk89q.worldedit.util.collection.BlockMap;
 import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -45,7 +48,12 @@
 public class SideEffectExtent extends AbstractDelegateExtent {
 
     private final World world;
-    private final Map<BlockVector3, BlockState> positions = BlockMap.create();
+    // chunk -> changed positions in that chunk -> the block that was there before the edit
+    private final Map<BlockVector2, Map<BlockVector3, BlockState>> positions = new LinkedHashMap<>();
+    @Nullable
+    private BlockVector2 lastChunk;
+    @Nullable
+    private Map<BlockVector3, BlockState> lastChunkPositions;
     private final Set<BlockVector2> dirtyChunks = new HashSet<>();
     private SideEffectSet sideEffectSet = SideEffectSet.defaults();
     private boolean postEditSimulation;
@@ -83,12 +91,32 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
             dirtyChunks.add(BlockVector2.at(location.getBlockX() >> 4, location.getBlockZ() >> 4));
         }
         if (postEditSimulation) {
-            positions.put(location, world.getBlock(location));
+            getChunkPositions(location).putIfAbsent(location, world.getBlock(location));
         }
 
         return world.setBlock(location, block, postEditSimulation ? SideEffectSet.none() : sideEffectSet);
     }
 
+    private Map<BlockVector3, BlockState> getChunkPositions(BlockVector3 location) {
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        if (lastChunk == null || lastChunk.getBlockX() != chunkX || lastChunk.getBlockZ() != chunkZ) {
+            lastChunk = BlockVector2.at(chunkX, chunkZ);
+            lastChunkPositions = positions.computeIfAbsent(lastChunk, chunk -> BlockMap.create());
+        }
+        return lastChunkPositions;
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        return world.getBlock(x, y, z);
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        return world.getFullBlock(x, y, z);
+    }
+
     public boolean commitRequired() {
         return postEditSimulation || !dirtyChunks.isEmpty();
     }
@@ -103,14 +131,21 @@ protected Operation commitBefore() {
             public Operation resume(RunContext run) throws WorldEditException {
                 if (!dirtyChunks.isEmpty()) {
                     world.fixAfterFastMode(dirtyChunks);
+                    dirtyChunks.clear();
                 }
 
                 if (postEditSimulation) {
-                    Iterator<Map.Entry<BlockVector3, BlockState>> positionIterator = positions.entrySet().iterator();
-                    while (run.shouldContinue() && positionIterator.hasNext()) {
-                        Map.Entry<BlockVector3, BlockState> position = positionIterator.next();
-                        world.applySideEffects(position.getKey(), position.getValue(), sideEffectSet);
-                        positionIterator.remove();
+                    // one chunk at a time, so the work can be spread over several ticks
+                    lastChunk = null;
+                    lastChunkPositions = null;
+                    Iterator<Map.Entry<BlockVector2, Map<BlockVector3, BlockState>>> chunkIterator = positions.entrySet().iterator();
+                    while (chunkIterator.hasNext()) {
+                        Map.Entry<BlockVector2, Map<BlockVector3, BlockState>> chunk = chunkIterator.next();
+                        world.applySideEffects(chunk.getKey(), chunk.getValue(), sideEffectSet);
+                        chunkIterator.remove();
+                        if (!run.shouldContinue()) {
+                            break;
+                        }
                     }
 
                     return !positions.isEmpty() ? this : null;
@@ -34,19 +34,39 @@
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import javax.annotation.Nullable;
 
 /**
- * Extent that ticks the watchdog before every world-affecting action.
+ * Extent that ticks the watchdog before world-affecting actions, whenever
+ * enough time has passed since the last tick.
+ *
+ * <p>To keep the cost per action low, the clock is only read every
+ * {@value #CLOCK_CHECK_INTERVAL} actions, so a tick may come up to that
+ * many actions late.</p>
+ *
+ * <p>The extent can also account for the time spent in the extents below
+ * it, see {@link #setTiming(boolean)}.</p>
  */
 public class WatchdogTickingExtent extends AbstractDelegateExtent {
 
-    // Number of operations we run per tick to the watchdog
-    private static final int OPS_PER_TICK = 100;
+    // Default time between ticks to the watchdog
+    private static final long DEFAULT_TICK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(50);
+    // Number of actions between reads of the clock
+    static final int CLOCK_CHECK_INTERVAL = 64;
 
     private final Watchdog watchdog;
+    private final long tickInterval;
+    private final LongSupplier clock;
     private boolean enabled;
-    private int ops;
+    private long lastTick;
+    private int untilClockCheck = CLOCK_CHECK_INTERVAL;
+
+    private boolean timing;
+    private long operationCount;
+    private long blockCount;
+    private long timeSpent;
 
     /**
      * Create a new instance.
@@ -55,8 +75,34 @@ public class WatchdogTickingExtent extends AbstractDelegateExtent {
      * @param watchdog the watchdog to reset
      */
     public WatchdogTickingExtent(Extent extent, Watchdog watchdog) {
+        this(extent, watchdog, DEFAULT_TICK_INTERVAL);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent
+     * @param watchdog the watchdog to reset
+     * @param tickInterval the minimum time between ticks, in nanoseconds
+     */
+    public WatchdogTickingExtent(Extent extent, Watchdog watchdog, long tickInterval) {
+        this(extent, watchdog, tickInterval, System::nanoTime);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent
+     * @param watchdog the watchdog to reset
+     * @param tickInterval the minimum time between ticks, in nanoseconds
+     * @param clock the clock, in nanoseconds
+     */
+    WatchdogTickingExtent(Extent extent, Watchdog watchdog, long tickInterval, LongSupplier clock) {
         super(extent);
         this.watchdog = watchdog;
+        this.tickInterval = tickInterval;
+        this.clock = clock;
+        this.lastTick = clock.getAsLong();
     }
 
     public boolean isEnabled() {
@@ -67,62 +113,196 @@ public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
 
-    private void onOperation() {
-        if (enabled) {
-            ops++;
-            if (ops == OPS_PER_TICK) {
-                watchdog.tick();
-                ops = 0;
+    /**
+     * Check if the operations passing through this extent are timed.
+     *
+     * @return true if timing
+     */
+    public boolean isTiming() {
+        return timing;
+    }
+
+    /**
+     * Set whether the operations passing through this extent are timed.
+     *
+     * @param timing true to time operations
+     */
+    public void setTiming(boolean timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * Get the number of operations timed so far.
+     *
+     * @return the number of operations
+     */
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * Get the number of block changes among the operations timed so far.
+     *
+     * @return the number of block changes
+     */
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get the time spent in the extents below this one by the operations
+     * timed so far.
+     *
+     * @return the time spent, in nanoseconds
+     */
+    public long getTimeSpent() {
+        return timeSpent;
+    }
+
+    private long beforeOperation() {
+        if (timing) {
+            long now = clock.getAsLong();
+            if (enabled) {
+                tickIfDue(now);
             }
+            return now;
+        }
+        if (enabled && --untilClockCheck <= 0) {
+            tickIfDue(clock.getAsLong());
         }
+        return 0;
+    }
+
+    private void tickIfDue(long now) {
+        untilClockCheck = CLOCK_CHECK_INTERVAL;
+        if (now - lastTick >= tickInterval) {
+            watchdog.tick();
+            lastTick = now;
+        }
+    }
+
+    private void afterOperation(long start) {
+        if (timing) {
+            operationCount++;
+            timeSpent += clock.getAsLong() - start;
+        }
+    }
+
+    private void afterBlockChange(long start) {
+        if (timing) {
+            blockCount++;
+        }
+        afterOperation(start);
     }
 
     @Override
     public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
-        onOperation();
-        return super.setBlock(location, block);
+        long start = beforeOperation();
+        try {
+            return super.setBlock(location, block);
+        } finally {
+            afterBlockChange(start);
+        }
+    }
+
+    @Override
+    public <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T block) throws WorldEditException {
+        long start = beforeOperation();
+        try {
+            return getExtent().setBlock(x, y, z, block);
+        } finally {
+            afterBlockChange(start);
+        }
     }
 
     @Nullable
     @Override
     public Entity createEntity(Location location, BaseEntity entity) {
-        onOperation();
-        return super.createEntity(location, entity);
+        long start = beforeOperation();
+        try {
+            return super.createEntity(location, entity);
+        } finally {
+            afterOperation(start);
+        }
     }
 
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
-        onOperation();
-        return super.setBiome(position, biome);
+        long start = beforeOperation();
+        try {
+            return super.setBiome(position, biome);
+        } finally {
+            afterOperation(start);
+        }
     }
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
-        onOperation();
-        return super.getBlock(position);
+        long start = beforeOperation();
+        try {
+            return super.getBlock(position);
+        } finally {
+            afterOperation(start);
+        }
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        long start = beforeOperation();
+        try {
+            return getExtent().getBlock(x, y, z);
+        } finally {
+            afterOperation(start);
+        }
     }
 
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
-        onOperation();
-        return super.getFullBlock(position);
+        long start = beforeOperation();
+        try {
+            return super.getFullBlock(position);
+        } finally {
+            afterOperation(start);
+        }
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        long start = beforeOperation();
+        try {
+            return getExtent().getFullBlock(x, y, z);
+        } finally {
+            afterOperation(start);
+        }
     }
 
     @Override
     public BiomeType getBiome(BlockVector3 position) {
-        onOperation();
-        return super.getBiome(position);
+        long start = beforeOperation();
+        try {
+            return super.getBiome(position);
+        } finally {
+            afterOperation(start);
+        }
     }
 
     @Override
     public List<? extends Entity> getEntities() {
-        onOperation();
-        return super.getEntities();
+        long start = beforeOperation();
+        try {
+            return super.getEntities();
+        } finally {
+            afterOperation(start);
+        }
     }
 
     @Override
     public List<? extends Entity> getEntities(Region region) {
-        onOperation();
-        return super.getEntities(region);
+        long start = beforeOperation();
+        try {
+            return super.getEntities(region);
+        } finally {
+            afterOperation(start);
+        }
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A run context that asks operations to pause once a time budget or a
+ * number of visited positions has been used up.
+ *
+ * <p>Operations call {@link #shouldContinue()} once for every position that
+ * they visit, so each call counts against the position budget. Operations
+ * that have been paused return themselves from
+ * {@link Operation#resume(RunContext)} and can be resumed with a new
+ * context later.</p>
+ */
+public class BudgetedRunContext extends RunContext {
+
+    private final LongSupplier clock;
+    private final long deadline;
+    private final long maxPositions;
+    private long positions;
+
+    /**
+     * Create a new context with only a time budget.
+     *
+     * @param time the time budget
+     * @param unit the unit of {@code time}
+     */
+    public BudgetedRunContext(long time, TimeUnit unit) {
+        this(time, unit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a new context.
+     *
+     * @param time the time budget
+     * @param unit the unit of {@code time}
+     * @param maxPositions the maximum number of positions to visit
+     */
+    public BudgetedRunContext(long time, TimeUnit unit, long maxPositions) {
+        this(time, unit, maxPositions, System::nanoTime);
+    }
+
+    /**
+     * Create a new context.
+     *
+     * @param time the time budget
+     * @param unit the unit of {@code time}
+     * @param maxPositions the maximum number of positions to visit
+     * @param clock supplies the current time, in nanoseconds
+     */
+    public BudgetedRunContext(long time, TimeUnit unit, long maxPositions, LongSupplier clock) {
+        checkArgument(time >= 0, "time >= 0 required");
+        checkArgument(maxPositions > 0, "maxPositions > 0 required");
+        this.clock = checkNotNull(clock);
+        this.deadline = clock.getAsLong() + unit.toNanos(time);
+        this.maxPositions = maxPositions;
+    }
+
+    /**
+     * Get the number of times that {@link #shouldContinue()} has been called.
+     *
+     * @return the number of visited positions
+     */
+    public long getVisitedPositions() {
+        return positions;
+    }
+
+    @Override
+    public boolean shouldContinue() {
+        return ++positions < maxPositions && clock.getAsLong() - deadline < 0;
+    }
+
+}
@@ -21,6 +21,7 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.entity.metadata.EntityProperties;
@@ -282,6 +283,10 @@ public Operation resume(RunContext run) throws WorldEditException {
 
             if (currentTransform == null) {
                 currentTransform = transform;
+                if (source instanceof EditSession) {
+                    // every repetition reads the same source blocks
+                    ((EditSession) source).preloadChunks(region);
+                }
             } else {
                 currentTransform = currentTransform.combine(transform);
             }
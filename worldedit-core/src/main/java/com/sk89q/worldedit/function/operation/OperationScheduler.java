@@ -0,0 +1,383 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.session.SessionKey;
+import com.sk89q.worldedit.session.SessionOwner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs operations on the server thread a slice at a time, spending at most a
+ * configurable amount of time on them in each server tick.
+ *
+ * <p>Operations submitted by the same owner run one after another in the
+ * order they were submitted. The time in each tick is shared equally between
+ * all owners with pending operations, so that one large edit does not hold
+ * up everyone else's.</p>
+ *
+ * <p>If the scheduler has not been started on a platform that can schedule
+ * tasks, operations are completed synchronously when they are submitted.</p>
+ */
+public class OperationScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationScheduler.class);
+    private static final UUID SERVER_OWNER = new UUID(0, 0);
+    private static final long MIN_SLICE = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private final IntSupplier tickBudget;
+    private final LongSupplier clock;
+    private final Queue<ScheduledOperation> submitted = new ConcurrentLinkedQueue<>();
+    private final Queue<ScheduledOperation> pending = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, OwnerQueue> owners = new HashMap<>();
+    private final ArrayDeque<OwnerQueue> ring = new ArrayDeque<>();
+    private int generation;
+    private boolean running;
+    @Nullable
+    private Platform platform;
+    private int taskId = -1;
+
+    /**
+     * Create a new scheduler.
+     *
+     * @param tickBudget supplies the time budget per tick, in milliseconds
+     */
+    public OperationScheduler(IntSupplier tickBudget) {
+        this(tickBudget, System::nanoTime);
+    }
+
+    /**
+     * Create a new scheduler.
+     *
+     * @param tickBudget supplies the time budget per tick, in milliseconds
+     * @param clock supplies the current time, in nanoseconds
+     */
+    public OperationScheduler(IntSupplier tickBudget, LongSupplier clock) {
+        this.tickBudget = checkNotNull(tickBudget);
+        this.clock = checkNotNull(clock);
+    }
+
+    /**
+     * Start running operations from the given platform's scheduler.
+     *
+     * @param platform the platform
+     * @return true if the platform scheduled the task
+     */
+    public synchronized boolean start(Platform platform) {
+        checkNotNull(platform);
+        cancelTask();
+        int current = ++generation;
+        taskId = platform.schedule(0, 1, () -> {
+            if (isGeneration(current)) {
+                tick();
+            }
+        });
+        running = taskId != -1;
+        if (running) {
+            this.platform = platform;
+        }
+        return running;
+    }
+
+    /**
+     * Stop running operations over ticks, and complete all pending
+     * operations synchronously.
+     */
+    public synchronized void stop() {
+        generation++;
+        running = false;
+        cancelTask();
+        drainSubmitted();
+        while (!ring.isEmpty()) {
+            OwnerQueue owner = ring.poll();
+            for (ScheduledOperation operation : owner.operations) {
+                operation.completeNow();
+            }
+        }
+        owners.clear();
+    }
+
+    /**
+     * Returns whether operations are currently run over several ticks.
+     *
+     * @return true if running
+     */
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    private void cancelTask() {
+        if (platform != null) {
+            platform.cancelTask(taskId);
+            platform = null;
+        }
+        taskId = -1;
+    }
+
+    private synchronized boolean isGeneration(int generation) {
+        return this.generation == generation;
+    }
+
+    /**
+     * Submit an operation.
+     *
+     * @param owner the owner to account the operation to, or {@code null} for the server
+     * @param description a short description of the operation
+     * @param operation the operation
+     * @return the scheduled operation
+     */
+    public ScheduledOperation submit(@Nullable SessionOwner owner, String description, Operation operation) {
+        checkNotNull(description);
+        checkNotNull(operation);
+
+        SessionKey key = owner != null ? owner.getSessionKey() : null;
+        UUID ownerId = key != null && key.getUniqueId() != null ? key.getUniqueId() : SERVER_OWNER;
+        String ownerName = key != null ? key.getName() : "Server";
+        ScheduledOperation scheduled = new ScheduledOperation(ownerId, ownerName, description, operation);
+
+        if (!isRunning()) {
+            scheduled.completeNow();
+            return scheduled;
+        }
+
+        pending.add(scheduled);
+        submitted.add(scheduled);
+        return scheduled;
+    }
+
+    /**
+     * Get a snapshot of the operations that have not yet completed, in the
+     * order that they were submitted.
+     *
+     * @return a list of operations
+     */
+    public List<ScheduledOperation> getPending() {
+        return ImmutableList.copyOf(pending);
+    }
+
+    /**
+     * Run operations for one tick. This must be called from the server thread.
+     */
+    public synchronized void tick() {
+        drainSubmitted();
+        if (ring.isEmpty()) {
+            return;
+        }
+
+        long deadline = clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickBudget.getAsInt()));
+        long remaining;
+        while (!ring.isEmpty() && (remaining = deadline - clock.getAsLong()) > 0) {
+            long slice = Math.max(MIN_SLICE, remaining / ring.size());
+            OwnerQueue owner = ring.poll();
+            ScheduledOperation head = owner.operations.peek();
+            if (head.tick(slice)) {
+                owner.operations.poll();
+            }
+            if (owner.operations.isEmpty()) {
+                owners.remove(owner.id);
+            } else {
+                ring.add(owner);
+            }
+        }
+    }
+
+    private void drainSubmitted() {
+        ScheduledOperation operation;
+        while ((operation = submitted.poll()) != null) {
+            OwnerQueue owner = owners.get(operation.ownerId);
+            if (owner == null) {
+                owner = new OwnerQueue(operation.ownerId);
+                owners.put(owner.id, owner);
+                ring.add(owner);
+            }
+            owner.operations.add(operation);
+        }
+    }
+
+    private static final class OwnerQueue {
+
+        private final UUID id;
+        private final ArrayDeque<ScheduledOperation> operations = new ArrayDeque<>();
+
+        private OwnerQueue(UUID id) {
+            this.id = id;
+        }
+
+    }
+
+    /**
+     * An operation that has been submitted to the scheduler.
+     */
+    public final class ScheduledOperation {
+
+        private final UUID ownerId;
+        private final String ownerName;
+        private final String description;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long submitTime = System.currentTimeMillis();
+        private volatile long timeSpent;
+        private Operation operation;
+
+        private ScheduledOperation(UUID ownerId, String ownerName, String description, Operation operation) {
+            this.ownerId = ownerId;
+            this.ownerName = ownerName;
+            this.description = description;
+            this.operation = operation;
+        }
+
+        /**
+         * Get the name of the owner of this operation.
+         *
+         * @return the owner name
+         */
+        public String getOwnerName() {
+            return ownerName;
+        }
+
+        /**
+         * Get the description of this operation.
+         *
+         * @return the description
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Get the time at which this operation was submitted.
+         *
+         * @return the time, in milliseconds since the epoch
+         */
+        public long getSubmitTime() {
+            return submitTime;
+        }
+
+        /**
+         * Get the time spent running this operation so far.
+         *
+         * @return the time, in nanoseconds
+         */
+        public long getTimeSpent() {
+            return timeSpent;
+        }
+
+        /**
+         * Get a future that completes once the operation has completed.
+         *
+         * <p>Cancelling the future cancels the operation before its next slice.</p>
+         *
+         * @return the future
+         */
+        public CompletableFuture<Void> getFuture() {
+            return future;
+        }
+
+        /**
+         * Run this operation for one slice.
+         *
+         * @param slice the time budget, in nanoseconds
+         * @return true if the operation is done
+         */
+        private boolean tick(long slice) {
+            if (operation == null) {
+                // Completed with completeNow()
+                return true;
+            }
+            if (future.isDone()) {
+                operation.cancel();
+                operation = null;
+                pending.remove(this);
+                return true;
+            }
+            long start = clock.getAsLong();
+            try {
+                RunContext run = new BudgetedRunContext(slice, TimeUnit.NANOSECONDS, Long.MAX_VALUE, clock);
+                while (operation != null) {
+                    operation = operation.resume(run);
+                    if (!run.shouldContinue()) {
+                        break;
+                    }
+                }
+            } catch (WorldEditException | RuntimeException e) {
+                logger.warn("Scheduled operation '{}' of {} failed", description, ownerName, e);
+                operation = null;
+                future.completeExceptionally(e);
+            } finally {
+                timeSpent += clock.getAsLong() - start;
+            }
+            if (operation == null) {
+                pending.remove(this);
+                future.complete(null);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Complete this operation right away, unless it has already
+         * completed. This must be called from the server thread.
+         */
+        public void completeNow() {
+            synchronized (OperationScheduler.this) {
+                if (operation != null) {
+                    runToCompletion();
+                }
+            }
+        }
+
+        private void runToCompletion() {
+            long start = clock.getAsLong();
+            try {
+                if (future.isDone()) {
+                    operation.cancel();
+                } else {
+                    Operations.complete(operation);
+                    future.complete(null);
+                }
+            } catch (WorldEditException | RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                timeSpent += clock.getAsLong() - start;
+                operation = null;
+                pending.remove(this);
+            }
+        }
+
+    }
+
+}
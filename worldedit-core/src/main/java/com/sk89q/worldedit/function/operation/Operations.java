@@ -22,6 +22,8 @@
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.WorldEditException;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Operation helper methods.
  */
@@ -78,4 +80,25 @@ public static void completeBlindly(Operation op) {
         }
     }
 
+    /**
+     * Resume a given operation until it completes or the given time budget
+     * has been used up.
+     *
+     * @param op operation to execute
+     * @param time the time budget
+     * @param unit the unit of {@code time}
+     * @return the operation to resume later, or {@code null} if it completed
+     * @throws WorldEditException WorldEdit exception
+     */
+    public static Operation resumeFor(Operation op, long time, TimeUnit unit) throws WorldEditException {
+        RunContext run = new BudgetedRunContext(time, unit);
+        while (op != null) {
+            op = op.resume(run);
+            if (!run.shouldContinue()) {
+                break;
+            }
+        }
+        return op;
+    }
+
 }
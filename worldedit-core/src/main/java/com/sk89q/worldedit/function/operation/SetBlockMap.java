@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.util.collection.BlockMap;
 import com.sk89q.worldedit.world.block.BaseBlock;
 
+import java.util.Iterator;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -33,6 +34,7 @@ public class SetBlockMap implements Operation {
 
     private final Extent extent;
     private final BlockMap<BaseBlock> blocks;
+    private Iterator<Map.Entry<BlockVector3, BaseBlock>> iterator;
 
     public SetBlockMap(Extent extent, BlockMap<BaseBlock> blocks) {
         this.extent = checkNotNull(extent);
@@ -41,10 +43,17 @@ public SetBlockMap(Extent extent, BlockMap<BaseBlock> blocks) {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (Map.Entry<BlockVector3, BaseBlock> entry : blocks.entrySet()) {
+        if (iterator == null) {
+            iterator = blocks.entrySet().iterator();
+        }
+        while (iterator.hasNext()) {
+            Map.Entry<BlockVector3, BaseBlock> entry = iterator.next();
             extent.setBlock(entry.getKey(), entry.getValue());
+            if (!run.shouldContinue()) {
+                break;
+            }
         }
-        return null;
+        return iterator.hasNext() ? this : null;
     }
 
     @Override
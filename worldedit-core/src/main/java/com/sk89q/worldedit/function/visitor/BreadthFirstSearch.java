@@ -26,20 +26,22 @@
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.Direction;
+import com.sk89q.worldedit.util.collection.BlockSet;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.sk89q.worldedit.math.BitMath.mask;
+import static com.sk89q.worldedit.math.BitMath.unpackX;
+import static com.sk89q.worldedit.math.BitMath.unpackY;
+import static com.sk89q.worldedit.math.BitMath.unpackZ;
 
 /**
  * Performs a breadth-first search starting from points added with
@@ -51,12 +53,30 @@
  * <p>As an abstract implementation, this class can be used to implement
  * functionality that starts at certain points and extends outward from
  * those points.</p>
+ *
+ * <p>The search pauses when {@link RunContext#shouldContinue()} returns
+ * {@code false} and can be resumed later, so a large search can be spread
+ * out over several ticks.</p>
  */
 public abstract class BreadthFirstSearch implements Operation {
 
+    // Queued positions are packed into longs: 26 bits each for x and z, 12 for y.
+    // Unlike BlockVector3#toLongPackedForm, y may be negative here.
+    private static final long BITS_26 = mask(26);
+    private static final long BITS_12 = mask(12);
+    private static final int MIN_Y = -(1 << 11);
+    private static final int MAX_Y = (1 << 11) - 1;
+
+    private static long pack(int x, int y, int z) {
+        if (y < MIN_Y || y > MAX_Y) {
+            throw new IllegalArgumentException("Y coordinate out of range for a search: " + y);
+        }
+        return (x & BITS_26) | ((z & BITS_26) << 26) | ((y & BITS_12) << (26 + 26));
+    }
+
     private final RegionFunction function;
-    private final Queue<BlockVector3> queue = new ArrayDeque<>();
-    private final Set<BlockVector3> visited = new HashSet<>();
+    private final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+    private final BlockSet visited = new BlockSet();
     private final List<BlockVector3> directions = new ArrayList<>();
     private int affected = 0;
 
@@ -124,9 +144,8 @@ protected void addDiagonal() {
      * @param position the position
      */
     public void visit(BlockVector3 position) {
-        if (!visited.contains(position)) {
-            queue.add(position);
-            visited.add(position);
+        if (visited.add(position)) {
+            queue.enqueue(pack(position.getX(), position.getY(), position.getZ()));
         }
     }
 
@@ -134,13 +153,14 @@ public void visit(BlockVector3 position) {
      * Try to visit the given 'to' location.
      *
      * @param from the origin block
-     * @param to the block under question
+     * @param x the X coordinate of the block under question
+     * @param y the Y coordinate of the block under question
+     * @param z the Z coordinate of the block under question
      */
-    private void visit(BlockVector3 from, BlockVector3 to) {
-        if (!visited.contains(to)) {
-            visited.add(to);
-            if (isVisitable(from, to)) {
-                queue.add(to);
+    private void visit(BlockVector3 from, int x, int y, int z) {
+        if (visited.add(x, y, z)) {
+            if (isVisitable(from, BlockVector3.at(x, y, z))) {
+                queue.enqueue(pack(x, y, z));
             }
         }
     }
@@ -166,19 +186,26 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        BlockVector3 position;
-
-        while ((position = queue.poll()) != null) {
+        while (!queue.isEmpty()) {
+            long packed = queue.dequeueLong();
+            BlockVector3 position = BlockVector3.at(unpackX(packed), unpackY(packed), unpackZ(packed));
             if (function.apply(position)) {
                 affected++;
             }
 
             for (BlockVector3 dir : directions) {
-                visit(position, position.add(dir));
+                visit(position,
+                    position.getX() + dir.getX(),
+                    position.getY() + dir.getY(),
+                    position.getZ() + dir.getZ());
+            }
+
+            if (!run.shouldContinue()) {
+                break;
             }
         }
 
-        return null;
+        return queue.isEmpty() ? null : this;
     }
 
     @Override
@@ -31,6 +31,8 @@
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
 
+import java.util.Iterator;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -40,6 +42,7 @@ public class FlatRegionVisitor implements Operation {
 
     private final FlatRegion flatRegion;
     private final FlatRegionFunction function;
+    private Iterator<BlockVector2> iterator;
     private int affected = 0;
 
     /**
@@ -67,13 +70,19 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector2 pt : flatRegion.asFlatRegion()) {
-            if (function.apply(pt)) {
+        if (iterator == null) {
+            iterator = flatRegion.asFlatRegion().iterator();
+        }
+        while (iterator.hasNext()) {
+            if (function.apply(iterator.next())) {
                 affected++;
             }
+            if (!run.shouldContinue()) {
+                break;
+            }
         }
 
-        return null;
+        return iterator.hasNext() ? this : null;
     }
 
     @Override
@@ -29,6 +29,8 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.FlatRegion;
 
+import java.util.Iterator;
+
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -47,6 +49,7 @@ public class LayerVisitor implements Operation {
     private Mask2D mask = Masks.alwaysTrue2D();
     private final int minY;
     private final int maxY;
+    private Iterator<BlockVector2> iterator;
 
     /**
      * Create a new visitor.
@@ -90,36 +93,45 @@ public void setMask(Mask2D mask) {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector2 column : flatRegion.asFlatRegion()) {
-            if (!mask.test(column)) {
-                continue;
+        if (iterator == null) {
+            iterator = flatRegion.asFlatRegion().iterator();
+        }
+        while (iterator.hasNext()) {
+            BlockVector2 column = iterator.next();
+            if (mask.test(column)) {
+                visitColumn(column);
             }
-
-            // Abort if we are underground
-            if (function.isGround(column.toBlockVector3(maxY + 1))) {
-                continue;
+            if (!run.shouldContinue()) {
+                break;
             }
+        }
+
+        return iterator.hasNext() ? this : null;
+    }
+
+    private void visitColumn(BlockVector2 column) throws WorldEditException {
+        // Abort if we are underground
+        if (function.isGround(column.toBlockVector3(maxY + 1))) {
+            return;
+        }
 
-            boolean found = false;
-            int groundY = 0;
-            for (int y = maxY; y >= minY; --y) {
-                BlockVector3 test = column.toBlockVector3(y);
-                if (!found) {
-                    if (function.isGround(test)) {
-                        found = true;
-                        groundY = y;
-                    }
+        boolean found = false;
+        int groundY = 0;
+        for (int y = maxY; y >= minY; --y) {
+            BlockVector3 test = column.toBlockVector3(y);
+            if (!found) {
+                if (function.isGround(test)) {
+                    found = true;
+                    groundY = y;
                 }
+            }
 
-                if (found) {
-                    if (!function.apply(test, groundY - y)) {
-                        break;
-                    }
+            if (found) {
+                if (!function.apply(test, groundY - y)) {
+                    break;
                 }
             }
         }
-
-        return null;
     }
 
     @Override
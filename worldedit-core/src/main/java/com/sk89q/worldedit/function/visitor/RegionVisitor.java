@@ -31,6 +31,8 @@
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
 
+import java.util.Iterator;
+
 /**
  * Utility class to apply region functions to {@link com.sk89q.worldedit.regions.Region}.
  */
@@ -38,11 +40,26 @@ public class RegionVisitor implements Operation {
 
     private final Region region;
     private final RegionFunction function;
+    private final boolean chunkOrdered;
+    private Iterator<BlockVector3> iterator;
     private int affected = 0;
 
     public RegionVisitor(Region region, RegionFunction function) {
+        this(region, function, false);
+    }
+
+    /**
+     * Create a new visitor.
+     *
+     * @param region the region to visit
+     * @param function the function to apply
+     * @param chunkOrdered {@code true} to visit the region one chunk section at a time,
+     *     see {@link Region#chunkOrderedIterator()}
+     */
+    public RegionVisitor(Region region, RegionFunction function, boolean chunkOrdered) {
         this.region = region;
         this.function = function;
+        this.chunkOrdered = chunkOrdered;
     }
 
     /**
@@ -56,13 +73,19 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector3 pt : region) {
-            if (function.apply(pt)) {
+        if (iterator == null) {
+            iterator = chunkOrdered ? region.chunkOrderedIterator() : region.iterator();
+        }
+        while (iterator.hasNext()) {
+            if (function.apply(iterator.next())) {
                 affected++;
             }
+            if (!run.shouldContinue()) {
+                break;
+            }
         }
 
-        return null;
+        return iterator.hasNext() ? this : null;
     }
 
     @Override
@@ -0,0 +1,556 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.journal;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.extension.input.ParserContext;
+import com.sk89q.worldedit.function.operation.ChangeSetExecutor;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.history.UndoContext;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.collection.BlockMap;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A single edit stored in an {@link UndoJournal}.
+ *
+ * <p>Only the header and chunk index of a record are kept in memory. The
+ * changes themselves are compressed one chunk at a time and are read back
+ * a chunk at a time when the record is undone, so a record never has to
+ * be loaded whole.</p>
+ *
+ * <p>Records hold block changes only. Entity and biome changes made by
+ * an edit are not journaled.</p>
+ */
+public final class JournalRecord {
+
+    private static final int MAGIC = 0x5745554A; // "WEUJ"
+    private static final byte VERSION = 1;
+
+    private static final int HAS_PREVIOUS_NBT = 1;
+    private static final int HAS_CURRENT_NBT = 2;
+
+    private final long sequence;
+    private final Path path;
+    private final long timestamp;
+    private final String worldId;
+    private final int size;
+    private final long fileSize;
+    private final int[] chunkX;
+    private final int[] chunkZ;
+    private final int[] chunkCounts;
+    private final int[] chunkLengths;
+
+    private JournalRecord(long sequence, Path path, long timestamp, String worldId, int size, long fileSize,
+                          int[] chunkX, int[] chunkZ, int[] chunkCounts, int[] chunkLengths) {
+        this.sequence = sequence;
+        this.path = path;
+        this.timestamp = timestamp;
+        this.worldId = worldId;
+        this.size = size;
+        this.fileSize = fileSize;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.chunkCounts = chunkCounts;
+        this.chunkLengths = chunkLengths;
+    }
+
+    /**
+     * Get the position of this record in its journal. Later edits have
+     * higher sequence numbers.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Get the file that this record is stored in.
+     *
+     * @return the path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the time that the edit was made, in milliseconds since the epoch.
+     *
+     * @return the timestamp
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Get the ID of the world that the edit was made in.
+     *
+     * @return the world ID
+     */
+    public String getWorldId() {
+        return worldId;
+    }
+
+    /**
+     * Get the number of blocks changed by the edit.
+     *
+     * @return the number of changed blocks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the size of the record on disk.
+     *
+     * @return the size in bytes
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Get a read-only change set that streams this record's changes from
+     * disk.
+     *
+     * <p>Errors reading the record are thrown from the change set's
+     * iterators as {@link UncheckedIOException}.</p>
+     *
+     * @param region if not {@code null}, only changes within this region are included
+     * @return the change set
+     */
+    public ChangeSet getChangeSet(@Nullable Region region) {
+        return new RecordChangeSet(region);
+    }
+
+    /**
+     * Undo this record into an edit session.
+     *
+     * @param editSession the edit session to make the changes in
+     * @param region if not {@code null}, only changes within this region are undone
+     * @throws IOException thrown on read error
+     */
+    public void undo(EditSession editSession, @Nullable Region region) throws IOException {
+        checkNotNull(editSession);
+        UndoContext context = new UndoContext();
+        context.setExtent(editSession);
+        try {
+            Operations.completeBlindly(ChangeSetExecutor.createUndo(getChangeSet(region), context));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write the block changes in a change set to a new record file.
+     *
+     * @param sequence the sequence number
+     * @param path the file to write
+     * @param worldId the ID of the world the changes were made in
+     * @param timestamp the time the changes were made, in milliseconds since the epoch
+     * @param changeSet the changes
+     * @return the record
+     * @throws IOException thrown on write error
+     */
+    static JournalRecord write(long sequence, Path path, String worldId, long timestamp,
+                               ChangeSet changeSet) throws IOException {
+        // The earliest previous block and latest current block for each position
+        BlockMap<BaseBlock> previous = BlockMap.createForBaseBlock();
+        BlockMap<BaseBlock> current = BlockMap.createForBaseBlock();
+        for (Iterator<Change> it = changeSet.backwardIterator(); it.hasNext(); ) {
+            Change change = it.next();
+            if (change instanceof BlockChange) {
+                previous.put(((BlockChange) change).getPosition(), ((BlockChange) change).getPrevious());
+            }
+        }
+        for (Iterator<Change> it = changeSet.forwardIterator(); it.hasNext(); ) {
+            Change change = it.next();
+            if (change instanceof BlockChange) {
+                current.put(((BlockChange) change).getPosition(), ((BlockChange) change).getCurrent());
+            }
+        }
+
+        Long2ObjectMap<List<BlockVector3>> chunks = new Long2ObjectOpenHashMap<>();
+        for (BlockVector3 position : previous.keySet()) {
+            long key = chunkKey(position.getBlockX() >> 4, position.getBlockZ() >> 4);
+            chunks.computeIfAbsent(key, k -> new ArrayList<>()).add(position);
+        }
+
+        Object2IntMap<BlockState> palette = new Object2IntOpenHashMap<>();
+        palette.defaultReturnValue(-1);
+        List<BlockState> paletteStates = new ArrayList<>();
+        int count = chunks.size();
+        int[] chunkX = new int[count];
+        int[] chunkZ = new int[count];
+        int[] chunkCounts = new int[count];
+        byte[][] chunkData = new byte[count][];
+        int index = 0;
+        for (Long2ObjectMap.Entry<List<BlockVector3>> entry : chunks.long2ObjectEntrySet()) {
+            List<BlockVector3> positions = entry.getValue();
+            chunkX[index] = (int) (entry.getLongKey() >> 32);
+            chunkZ[index] = (int) entry.getLongKey();
+            chunkCounts[index] = positions.size();
+            chunkData[index] = writeChunk(positions, previous, current, palette, paletteStates);
+            index++;
+        }
+
+        Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+        int[] chunkLengths = new int[count];
+        try (OutputStream os = Files.newOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(timestamp);
+            out.writeUTF(worldId);
+            out.writeInt(previous.size());
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                chunkLengths[i] = chunkData[i].length;
+                out.writeInt(chunkX[i]);
+                out.writeInt(chunkZ[i]);
+                out.writeInt(chunkCounts[i]);
+                out.writeInt(chunkLengths[i]);
+            }
+            out.writeInt(paletteStates.size());
+            for (BlockState state : paletteStates) {
+                out.writeUTF(state.getAsString());
+            }
+            for (byte[] data : chunkData) {
+                out.write(data);
+            }
+        }
+
+        try {
+            Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return new JournalRecord(sequence, path, timestamp, worldId, previous.size(), Files.size(path),
+                chunkX, chunkZ, chunkCounts, chunkLengths);
+    }
+
+    private static byte[] writeChunk(List<BlockVector3> positions, Map<BlockVector3, BaseBlock> previous,
+                                     Map<BlockVector3, BaseBlock> current, Object2IntMap<BlockState> palette,
+                                     List<BlockState> paletteStates) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            NBTOutputStream nbtOut = new NBTOutputStream(out);
+            for (BlockVector3 position : positions) {
+                BaseBlock from = previous.get(position);
+                BaseBlock to = current.getOrDefault(position, from);
+                CompoundTag fromNbt = from.getNbtData();
+                CompoundTag toNbt = to.getNbtData();
+
+                out.writeByte((position.getBlockX() & 15) << 4 | (position.getBlockZ() & 15));
+                out.writeInt(position.getBlockY());
+                out.writeInt(paletteId(palette, paletteStates, from.toImmutableState()));
+                out.writeInt(paletteId(palette, paletteStates, to.toImmutableState()));
+                out.writeByte((fromNbt != null ? HAS_PREVIOUS_NBT : 0) | (toNbt != null ? HAS_CURRENT_NBT : 0));
+                if (fromNbt != null) {
+                    nbtOut.writeNamedTag("", fromNbt);
+                }
+                if (toNbt != null) {
+                    nbtOut.writeNamedTag("", toNbt);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int paletteId(Object2IntMap<BlockState> palette, List<BlockState> paletteStates, BlockState state) {
+        int id = palette.getInt(state);
+        if (id == -1) {
+            id = paletteStates.size();
+            palette.put(state, id);
+            paletteStates.add(state);
+        }
+        return id;
+    }
+
+    /**
+     * Read the header and chunk index of a record file.
+     *
+     * @param sequence the sequence number
+     * @param path the file
+     * @return the record
+     * @throws IOException thrown on read error, or if the file is not a record
+     */
+    static JournalRecord read(long sequence, Path path) throws IOException {
+        try (InputStream is = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            readHeader(in);
+            long timestamp = in.readLong();
+            String worldId = in.readUTF();
+            int size = in.readInt();
+            int count = in.readInt();
+            int[] chunkX = new int[count];
+            int[] chunkZ = new int[count];
+            int[] chunkCounts = new int[count];
+            int[] chunkLengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                chunkX[i] = in.readInt();
+                chunkZ[i] = in.readInt();
+                chunkCounts[i] = in.readInt();
+                chunkLengths[i] = in.readInt();
+            }
+            return new JournalRecord(sequence, path, timestamp, worldId, size, Files.size(path),
+                    chunkX, chunkZ, chunkCounts, chunkLengths);
+        }
+    }
+
+    private static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Not an undo journal record");
+        }
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The block states used by a record, and where its chunk data starts.
+     */
+    private static final class Palette {
+        private final BlockState[] states;
+        private final long dataStart;
+
+        private Palette(BlockState[] states, long dataStart) {
+            this.states = states;
+            this.dataStart = dataStart;
+        }
+    }
+
+    private Palette readPalette() throws IOException {
+        try (InputStream is = Files.newInputStream(path)) {
+            CountingInputStream counter = new CountingInputStream(new BufferedInputStream(is));
+            DataInputStream in = new DataInputStream(counter);
+            readHeader(in);
+            in.readLong();
+            in.readUTF();
+            in.readInt();
+            int count = in.readInt();
+            ByteStreams.skipFully(in, (long) count * 4 * Integer.BYTES);
+
+            ParserContext parserContext = new ParserContext();
+            parserContext.setRestricted(false);
+            parserContext.setTryLegacy(false);
+            parserContext.setPreferringWildcard(false);
+
+            int paletteSize = in.readInt();
+            BlockState[] states = new BlockState[paletteSize];
+            for (int i = 0; i < paletteSize; i++) {
+                String input = in.readUTF();
+                try {
+                    states[i] = WorldEdit.getInstance().getBlockFactory().parseFromInput(input, parserContext).toImmutableState();
+                } catch (InputParseException e) {
+                    // Leave unknown states out, so that those blocks are skipped
+                    states[i] = null;
+                }
+            }
+            return new Palette(states, counter.getCount());
+        }
+    }
+
+    private List<BlockChange> readChunk(FileChannel channel, Palette palette, long offset, int index,
+                                        @Nullable Region region) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(chunkLengths[index]);
+        channel.position(palette.dataStart + offset);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Undo journal record is truncated");
+            }
+        }
+
+        int baseX = chunkX[index] << 4;
+        int baseZ = chunkZ[index] << 4;
+        List<BlockChange> changes = new ArrayList<>(chunkCounts[index]);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(buffer.array())))) {
+            NBTInputStream nbtIn = new NBTInputStream(in);
+            for (int i = 0; i < chunkCounts[index]; i++) {
+                int xz = in.readUnsignedByte();
+                BlockVector3 position = BlockVector3.at(baseX + (xz >> 4), in.readInt(), baseZ + (xz & 15));
+                BlockState from = paletteState(palette, in.readInt());
+                BlockState to = paletteState(palette, in.readInt());
+                int flags = in.readUnsignedByte();
+                CompoundTag fromNbt = (flags & HAS_PREVIOUS_NBT) != 0 ? readNbt(nbtIn) : null;
+                CompoundTag toNbt = (flags & HAS_CURRENT_NBT) != 0 ? readNbt(nbtIn) : null;
+
+                if (from == null || to == null || (region != null && !region.contains(position))) {
+                    continue;
+                }
+                changes.add(new BlockChange(position, from.toBaseBlock(fromNbt), to.toBaseBlock(toNbt)));
+            }
+        }
+        return changes;
+    }
+
+    @Nullable
+    private static BlockState paletteState(Palette palette, int id) throws IOException {
+        if (id < 0 || id >= palette.states.length) {
+            throw new IOException("Undo journal record refers to unknown block " + id);
+        }
+        return palette.states[id];
+    }
+
+    private static CompoundTag readNbt(NBTInputStream nbtIn) throws IOException {
+        Tag tag = nbtIn.readNamedTag().getTag();
+        if (!(tag instanceof CompoundTag)) {
+            throw new IOException("Undo journal record has a malformed block entity");
+        }
+        return (CompoundTag) tag;
+    }
+
+    private boolean intersects(int index, @Nullable Region region) {
+        if (region == null) {
+            return true;
+        }
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        int x = chunkX[index] << 4;
+        int z = chunkZ[index] << 4;
+        return x <= max.getBlockX() && x + 15 >= min.getBlockX()
+                && z <= max.getBlockZ() && z + 15 >= min.getBlockZ();
+    }
+
+    /**
+     * Streams the changes of the record, one chunk at a time.
+     */
+    private final class RecordChangeSet implements ChangeSet {
+
+        @Nullable
+        private final Region region;
+
+        private RecordChangeSet(@Nullable Region region) {
+            this.region = region;
+        }
+
+        @Override
+        public void add(Change change) {
+            throw new UnsupportedOperationException("Undo journal records are read-only");
+        }
+
+        @Override
+        public boolean isRecordingChanges() {
+            return false;
+        }
+
+        @Override
+        public void setRecordChanges(boolean recordChanges) {
+        }
+
+        @Override
+        public Iterator<Change> backwardIterator() {
+            return iterator();
+        }
+
+        @Override
+        public Iterator<Change> forwardIterator() {
+            return iterator();
+        }
+
+        private Iterator<Change> iterator() {
+            return new AbstractIterator<Change>() {
+                private Palette palette;
+                private int index;
+                private long offset;
+                private Iterator<BlockChange> chunk = Collections.emptyIterator();
+
+                @Override
+                protected Change computeNext() {
+                    while (!chunk.hasNext()) {
+                        if (index >= chunkCounts.length) {
+                            return endOfData();
+                        }
+                        int current = index++;
+                        long chunkOffset = offset;
+                        offset += chunkLengths[current];
+                        if (!intersects(current, region)) {
+                            continue;
+                        }
+                        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                            if (palette == null) {
+                                palette = readPalette();
+                            }
+                            chunk = readChunk(channel, palette, chunkOffset, current, region).iterator();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    return chunk.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+}
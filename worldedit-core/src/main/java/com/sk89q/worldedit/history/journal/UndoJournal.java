@@ -0,0 +1,377 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.journal;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.concurrency.EvenMoreExecutors;
+import com.sk89q.worldedit.world.World;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An on-disk journal of one player's edits, kept so that they can be
+ * undone after the edits have left memory, including across restarts.
+ *
+ * <p>Each edit is stored as a {@link JournalRecord} file in the journal's
+ * directory. Records are written and deleted in the background, in the
+ * order they were requested in, and old records are removed once they are
+ * older than the maximum age or the journal is larger than the maximum
+ * size.</p>
+ *
+ * <p>Records that are still in the in-memory history of their session are
+ * held until the session {@link #release(long) releases} them. When a held
+ * record is undone by {@link #undo(World, Region, Instant, EditSession)},
+ * the session is expected to check {@link #isUndone(long)} and drop the
+ * edit from its history instead of undoing it a second time.</p>
+ */
+public class UndoJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(UndoJournal.class);
+    private static final String EXTENSION = ".undo";
+    private static final ExecutorService defaultExecutor =
+            EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, 256, "WorldEdit Undo Journal - %s");
+
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final Path dir;
+    private final Duration maxAge;
+    private final long maxBytes;
+    private final NavigableMap<Long, JournalRecord> records = new TreeMap<>();
+    private final Set<Long> pending = new HashSet<>();
+    private final Set<Long> cancelled = new HashSet<>();
+    private final Set<Long> held = new HashSet<>();
+    private final Set<Long> undoneWhileHeld = new HashSet<>();
+    private long nextSequence = -1;
+    private boolean scanned;
+
+    /**
+     * Create a new journal.
+     *
+     * @param dir the directory to keep records in
+     * @param maxAge the age after which records are removed
+     * @param maxBytes the size after which the oldest records are removed
+     */
+    public UndoJournal(Path dir, Duration maxAge, long maxBytes) {
+        this(dir, maxAge, maxBytes, defaultExecutor, System::currentTimeMillis);
+    }
+
+    /**
+     * Create a new journal.
+     *
+     * @param dir the directory to keep records in
+     * @param maxAge the age after which records are removed
+     * @param maxBytes the size after which the oldest records are removed
+     * @param executor the executor that records are written and deleted on, in order
+     * @param clock the current time, in milliseconds since the epoch
+     */
+    UndoJournal(Path dir, Duration maxAge, long maxBytes, Executor executor, LongSupplier clock) {
+        checkNotNull(dir);
+        checkNotNull(maxAge);
+        checkArgument(maxBytes >= 0, "maxBytes must be non-negative");
+        checkNotNull(executor);
+        checkNotNull(clock);
+        this.executor = executor;
+        this.clock = clock;
+        this.dir = dir;
+        this.maxAge = maxAge;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the directory that records are kept in.
+     *
+     * @return the directory
+     */
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Queue the block changes of a change set to be written as a new
+     * record.
+     *
+     * <p>The change set must not be modified after it has been passed to
+     * this method. The record is held until it is released or deleted.</p>
+     *
+     * @param world the world the changes were made in
+     * @param changeSet the changes
+     * @return the sequence number of the new record
+     */
+    public synchronized long append(World world, ChangeSet changeSet) {
+        checkNotNull(world);
+        checkNotNull(changeSet);
+        if (nextSequence == -1) {
+            nextSequence = findNextSequence();
+        }
+        long sequence = nextSequence++;
+        pending.add(sequence);
+        held.add(sequence);
+        String worldId = world.getId();
+        submit(() -> write(sequence, worldId, changeSet));
+        return sequence;
+    }
+
+    /**
+     * Delete a record, or stop it from being written if it is still
+     * queued.
+     *
+     * @param sequence the sequence number of the record
+     */
+    public synchronized void delete(long sequence) {
+        release(sequence);
+        JournalRecord record = records.remove(sequence);
+        if (record != null) {
+            submit(() -> deleteFile(record.getPath()));
+        } else if (pending.contains(sequence)) {
+            cancelled.add(sequence);
+        }
+    }
+
+    /**
+     * Release a record that is no longer in the in-memory history of its
+     * session. The record itself is kept.
+     *
+     * @param sequence the sequence number of the record
+     */
+    public synchronized void release(long sequence) {
+        held.remove(sequence);
+        undoneWhileHeld.remove(sequence);
+    }
+
+    /**
+     * Check whether a held record has been undone entirely by
+     * {@link #undo(World, Region, Instant, EditSession)}.
+     *
+     * @param sequence the sequence number of the record
+     * @return {@code true} if the record was undone and deleted
+     */
+    public synchronized boolean isUndone(long sequence) {
+        return undoneWhileHeld.contains(sequence);
+    }
+
+    /**
+     * Get the records that have been written, newest first.
+     *
+     * @return a list of records
+     * @throws IOException thrown if the journal directory can't be read
+     */
+    public synchronized List<JournalRecord> getRecords() throws IOException {
+        scan();
+        return new ArrayList<>(records.descendingMap().values());
+    }
+
+    /**
+     * Undo every record made in a world since the given time, newest first.
+     *
+     * <p>This is meant for undoing another player's edits. Records that
+     * are undone entirely are removed from the journal, and if they are
+     * held, marked as undone for their session. When a region is given,
+     * the records are kept, as changes outside of the region have not been
+     * undone.</p>
+     *
+     * @param world the world
+     * @param region if not {@code null}, only changes within this region are undone
+     * @param since the time to undo back to
+     * @param editSession the edit session to make the changes in
+     * @return the number of records undone
+     * @throws IOException thrown on read error
+     */
+    public int undo(World world, @Nullable Region region, Instant since, EditSession editSession) throws IOException {
+        checkNotNull(world);
+        checkNotNull(since);
+        checkNotNull(editSession);
+
+        int undone = 0;
+        for (JournalRecord record : getRecords()) {
+            if (record.getTimestamp() < since.toEpochMilli()) {
+                break;
+            }
+            if (!record.getWorldId().equals(world.getId())) {
+                continue;
+            }
+            record.undo(editSession, region);
+            if (region == null) {
+                markUndone(record.getSequence());
+            }
+            undone++;
+        }
+        return undone;
+    }
+
+    private synchronized void markUndone(long sequence) {
+        boolean wasHeld = held.contains(sequence);
+        delete(sequence);
+        if (wasHeld) {
+            undoneWhileHeld.add(sequence);
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private void write(long sequence, String worldId, ChangeSet changeSet) {
+        JournalRecord record;
+        try {
+            Files.createDirectories(dir);
+            record = JournalRecord.write(sequence, dir.resolve(sequence + EXTENSION), worldId,
+                    clock.getAsLong(), changeSet);
+        } catch (IOException e) {
+            log.warn("Failed to write undo journal record to " + dir, e);
+            synchronized (this) {
+                pending.remove(sequence);
+                cancelled.remove(sequence);
+            }
+            return;
+        }
+
+        boolean keep;
+        synchronized (this) {
+            pending.remove(sequence);
+            keep = !cancelled.remove(sequence);
+            if (keep) {
+                records.put(sequence, record);
+            }
+        }
+        if (!keep) {
+            deleteFile(record.getPath());
+            return;
+        }
+        prune();
+    }
+
+    /**
+     * Remove records that are too old, or that take the journal over its
+     * maximum size.
+     */
+    private void prune() {
+        List<JournalRecord> expired = new ArrayList<>();
+        synchronized (this) {
+            try {
+                scan();
+            } catch (IOException e) {
+                log.warn("Failed to read undo journal " + dir, e);
+                return;
+            }
+
+            long oldest = clock.getAsLong() - maxAge.toMillis();
+            long total = 0;
+            for (JournalRecord record : records.values()) {
+                total += record.getFileSize();
+            }
+            Iterator<JournalRecord> it = records.values().iterator();
+            while (it.hasNext()) {
+                JournalRecord record = it.next();
+                if (record.getTimestamp() >= oldest && total <= maxBytes) {
+                    break;
+                }
+                total -= record.getFileSize();
+                expired.add(record);
+                it.remove();
+            }
+        }
+        for (JournalRecord record : expired) {
+            deleteFile(record.getPath());
+        }
+    }
+
+    private void scan() throws IOException {
+        if (scanned) {
+            return;
+        }
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+                for (Path path : stream) {
+                    long sequence = parseSequence(path);
+                    if (sequence < 0 || records.containsKey(sequence) || pending.contains(sequence)) {
+                        continue;
+                    }
+                    try {
+                        records.put(sequence, JournalRecord.read(sequence, path));
+                    } catch (IOException e) {
+                        log.warn("Ignoring unreadable undo journal record " + path, e);
+                    }
+                }
+            }
+        }
+        scanned = true;
+    }
+
+    private long findNextSequence() {
+        long max = -1;
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+                for (Path path : stream) {
+                    max = Math.max(max, parseSequence(path));
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read undo journal " + dir, e);
+            }
+        }
+        return max + 1;
+    }
+
+    private static long parseSequence(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Not static, so that a queued delete keeps this journal reachable
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete undo journal record " + path, e);
+        }
+    }
+
+}
@@ -21,24 +21,21 @@
 
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.registry.BlockRegistry;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.OptionalInt;
 import javax.annotation.Nullable;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 public final class BlockStateIdAccess {
 
     private static final int INVALID_ID = -1;
     private static final int EXPECTED_BLOCK_COUNT = 2 << 13;
-    private static final Int2ObjectOpenHashMap<BlockState> TO_STATE =
-        new Int2ObjectOpenHashMap<>(EXPECTED_BLOCK_COUNT);
-
-    static {
-        TO_STATE.defaultReturnValue(null);
-    }
+    // internal IDs are dense and start at zero, so they index straight into this array
+    private static BlockState[] toState = new BlockState[EXPECTED_BLOCK_COUNT];
 
     public interface BlockStateInternalId {
         int getInternalId(BlockState blockState);
@@ -65,11 +62,12 @@ public static boolean isValidInternalId(int internalId) {
     }
 
     public static int getBlockStateId(BlockState holder) {
-        return blockStateInternalId.getInternalId(holder);
+        return holder.getInternalId();
     }
 
     public static @Nullable BlockState getBlockStateById(int id) {
-        return TO_STATE.get(id);
+        BlockState[] states = toState;
+        return id >= 0 && id < states.length ? states[id] : null;
     }
 
     /**
@@ -88,20 +86,26 @@ private static int provideUnusedWorldEditId() {
 
     public static void register(BlockState blockState, int id) {
         int i = isValidInternalId(id) ? id : provideUnusedWorldEditId();
-        BlockState existing = getBlockStateById(id);
+        checkArgument(i >= 0, "Negative block ID (%s) for BlockState %s", i, blockState);
+        BlockState existing = getBlockStateById(i);
         checkState(existing == null || existing == blockState,
             "BlockState %s is using the same block ID (%s) as BlockState %s",
             blockState, i, existing);
         blockStateInternalId.setInternalId(blockState, i);
-        TO_STATE.put(i, blockState);
+        if (i >= toState.length) {
+            toState = Arrays.copyOf(toState, Math.max(i + 1, toState.length * 2));
+        }
+        toState[i] = blockState;
         usedIds.set(i);
     }
 
     public static void clear() {
-        for (BlockState value : TO_STATE.values()) {
-            blockStateInternalId.setInternalId(value, invalidId());
+        for (BlockState value : toState) {
+            if (value != null) {
+                blockStateInternalId.setInternalId(value, invalidId());
+            }
         }
-        TO_STATE.clear();
+        Arrays.fill(toState, null);
         usedIds.clear();
     }
 
@@ -0,0 +1,81 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.util;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+/**
+ * Counts the holds on each chunk of a world, for platforms whose chunk
+ * tickets are not counted.
+ *
+ * <p>Adding a ticket that a chunk already has does nothing, and removing it
+ * once removes it for every holder. Platforms add a ticket for the first hold
+ * on a chunk and remove it after the last, so that one edit session letting
+ * go of a chunk doesn't unload it while another still holds it.</p>
+ */
+public class ChunkHoldCounter {
+
+    private final Long2IntOpenHashMap holds = new Long2IntOpenHashMap();
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Add a hold on a chunk.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return true if this is the only hold on the chunk
+     */
+    public synchronized boolean hold(int chunkX, int chunkZ) {
+        return holds.addTo(chunkKey(chunkX, chunkZ), 1) == 0;
+    }
+
+    /**
+     * Remove a hold on a chunk.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return true if this was the last hold on the chunk
+     */
+    public synchronized boolean release(int chunkX, int chunkZ) {
+        long key = chunkKey(chunkX, chunkZ);
+        int count = holds.get(key);
+        if (count <= 1) {
+            holds.remove(key);
+            return count == 1;
+        }
+        holds.put(key, count - 1);
+        return false;
+    }
+
+    /**
+     * Get whether a chunk has any holds.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return true if held
+     */
+    public synchronized boolean isHeld(int chunkX, int chunkZ) {
+        return holds.containsKey(chunkKey(chunkX, chunkZ));
+    }
+
+}
@@ -62,13 +62,26 @@ public class RegionOptimizedVectorSorter {
     private static final long FLIP_REGION_Z_SIGN = 0x1_00_00L << REGION_Z_SHIFT;
 
     private static long key(BlockVector3 elem) {
-        long x = elem.getX();
-        long z = elem.getZ();
+        return key(elem.getX(), elem.getY(), elem.getZ());
+    }
+
+    /**
+     * Get the sort key for a position. Positions are sorted by comparing their keys
+     * as <em>unsigned</em> values, see {@link Long#compareUnsigned(long, long)}.
+     *
+     * @param blockX the X coordinate
+     * @param blockY the Y coordinate
+     * @param blockZ the Z coordinate
+     * @return the sort key
+     */
+    public static long key(int blockX, int blockY, int blockZ) {
+        long x = blockX;
+        long z = blockZ;
         return (((x << (REGION_X_SHIFT - 9)) & REGION_X_MASK) ^ FLIP_REGION_X_SIGN)
             | (((z << (REGION_Z_SHIFT - 9)) & REGION_Z_MASK) ^ FLIP_REGION_Z_SIGN)
             | ((x << (CHUNK_X_SHIFT - 4)) & CHUNK_X_MASK)
             | ((z << (CHUNK_Z_SHIFT - 4)) & CHUNK_Z_MASK)
-            | (Y_MAX - elem.getY());
+            | (Y_MAX - blockY);
     }
 
     private static final int NUMBER_OF_BITS = 64;
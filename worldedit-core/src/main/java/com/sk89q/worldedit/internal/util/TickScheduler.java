@@ -0,0 +1,138 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs tasks scheduled with
+ * {@link com.sk89q.worldedit.extension.platform.Platform#schedule(long, long, Runnable)}
+ * for platforms that have no scheduler of their own.
+ *
+ * <p>The platform must call {@link #tick()} once per server tick from the
+ * server thread. Tasks may be scheduled from any thread.</p>
+ */
+public class TickScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickScheduler.class);
+
+    private final List<ScheduledTask> tasks = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Schedule a task.
+     *
+     * @param delay delay in ticks before the first run
+     * @param period period in ticks between runs, or a negative number to run only once
+     * @param task the task
+     * @return the task id
+     */
+    public int schedule(long delay, long period, Runnable task) {
+        checkNotNull(task);
+        int id = nextId.getAndIncrement();
+        tasks.add(new ScheduledTask(id, Math.max(0, delay), period, task));
+        return id;
+    }
+
+    /**
+     * Cancel a scheduled task. A task that is running when it is cancelled
+     * finishes its current run, but does not run again.
+     *
+     * @param id the task id returned by {@link #schedule(long, long, Runnable)}
+     * @return true if a task was cancelled
+     */
+    public boolean cancel(int id) {
+        for (ScheduledTask task : tasks) {
+            if (task.id == id) {
+                task.cancelled = true;
+                return tasks.remove(task);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run all tasks that are due in this tick.
+     */
+    public void tick() {
+        for (ScheduledTask task : tasks) {
+            if (task.cancelled) {
+                continue;
+            }
+            boolean keep;
+            try {
+                keep = task.tick();
+            } catch (RuntimeException e) {
+                logger.error("Scheduled task threw an exception", e);
+                keep = task.period >= 0;
+            }
+            if (!keep) {
+                tasks.remove(task);
+            }
+        }
+    }
+
+    /**
+     * Forget all scheduled tasks.
+     */
+    public void clear() {
+        tasks.clear();
+    }
+
+    private static final class ScheduledTask {
+
+        private final int id;
+        private final long period;
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private long wait;
+
+        private ScheduledTask(int id, long delay, long period, Runnable task) {
+            this.id = id;
+            this.wait = delay;
+            this.period = period;
+            this.task = task;
+        }
+
+        /**
+         * Advance this task by one tick.
+         *
+         * @return false if the task will not run again
+         */
+        boolean tick() {
+            if (wait > 0) {
+                wait--;
+                return true;
+            }
+            wait = Math.max(0, period - 1);
+            task.run();
+            return period >= 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.wna;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.RegenOptions;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Copies a region out of freshly generated chunks into an extent.
+ *
+ * <p>Block states are copied on a worker thread as soon as a chunk and its
+ * neighbours inside the region have been generated, as generating features
+ * writes into the neighbouring chunks. Block entities and biomes are read
+ * on the calling thread once every chunk has been copied, and the result is
+ * written to the extent in a single copy operation.</p>
+ *
+ * @param <NC> the native chunk type
+ * @param <NS> the native chunk section type
+ */
+public abstract class ChunkRegenerator<NC, NS> {
+
+    private final Region region;
+    private final Executor workerExecutor;
+
+    /**
+     * Create a new instance.
+     *
+     * @param region the region to regenerate
+     * @param workerExecutor the executor to copy block states on
+     */
+    protected ChunkRegenerator(Region region, Executor workerExecutor) {
+        this.region = checkNotNull(region);
+        this.workerExecutor = checkNotNull(workerExecutor);
+    }
+
+    /**
+     * Generate the chunks of the region and copy them into the extent.
+     *
+     * <p>This must be called on the main thread.</p>
+     *
+     * @param extent the extent to write to
+     * @param options the regen options
+     * @throws WorldEditException if writing to the extent fails
+     */
+    public void regenerate(Extent extent, RegenOptions options) throws WorldEditException {
+        Map<BlockVector2, CompletableFuture<NC>> chunkLoadings = new LinkedHashMap<>();
+        for (BlockVector2 chunk : region.getChunks()) {
+            chunkLoadings.put(chunk, loadChunk(chunk.getX(), chunk.getZ()));
+        }
+
+        // every chunk only writes its own columns, and joining the copies publishes them
+        BlockArrayClipboard copy = new BlockArrayClipboard(region);
+        Map<BlockVector2, CompletableFuture<NC>> chunkCopies = new LinkedHashMap<>();
+        for (Map.Entry<BlockVector2, CompletableFuture<NC>> entry : chunkLoadings.entrySet()) {
+            BlockVector2 chunkPos = entry.getKey();
+            CompletableFuture<NC> chunkLoading = entry.getValue();
+            chunkCopies.put(chunkPos,
+                CompletableFuture.allOf(getNeighbourLoadings(chunkPos, chunkLoadings))
+                    .thenApplyAsync(ignored -> copyBlockStates(chunkPos, chunkLoading.join(), copy), workerExecutor)
+            );
+        }
+
+        // drive the main thread until copying finishes, or bail out early if a copy fails
+        driveMainThreadUntil(() -> chunkCopies.values().stream().anyMatch(CompletableFuture::isCompletedExceptionally)
+            || chunkCopies.values().stream().allMatch(CompletableFuture::isDone));
+
+        Map<BlockVector2, NC> chunks = new LinkedHashMap<>();
+        for (Map.Entry<BlockVector2, CompletableFuture<NC>> entry : chunkCopies.entrySet()) {
+            try {
+                chunks.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                chunkCopies.values().forEach(ftr -> ftr.cancel(false));
+                throw new IllegalStateException("Failed to generate a chunk, regen failed.", e.getCause());
+            }
+        }
+
+        // block entities and biomes are read on the main thread
+
+        for (NC chunk : chunks.values()) {
+            for (BlockVector3 position : getBlockEntityPositions(chunk)) {
+                if (region.contains(position)) {
+                    BaseBlock block = getFullBlock(chunk, position, copy.getBlock(position));
+                    if (block != null) {
+                        copy.setBlock(position, block);
+                    }
+                }
+            }
+        }
+
+        if (options.shouldRegenBiomes()) {
+            for (BlockVector3 position : region) {
+                NC chunk = chunks.get(BlockVector2.at(position.getX() >> 4, position.getZ() >> 4));
+                copy.setBiome(position, getBiome(chunk, position));
+            }
+        }
+
+        ForwardExtentCopy paste = new ForwardExtentCopy(copy, region, extent, region.getMinimumPoint());
+        paste.setCopyingEntities(false);
+        paste.setCopyingBiomes(options.shouldRegenBiomes());
+        Operations.complete(paste);
+    }
+
+    private static <NC> CompletableFuture<?>[] getNeighbourLoadings(BlockVector2 pos, Map<BlockVector2, CompletableFuture<NC>> chunkLoadings) {
+        // generating features writes into the neighbouring chunks as well
+        List<CompletableFuture<NC>> neighbours = new ArrayList<>(9);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                CompletableFuture<NC> neighbour = chunkLoadings.get(pos.add(dx, dz));
+                if (neighbour != null) {
+                    neighbours.add(neighbour);
+                }
+            }
+        }
+        return neighbours.toArray(new CompletableFuture<?>[0]);
+    }
+
+    /**
+     * Copy the block states of the region inside a chunk, section by section.
+     *
+     * <p>This is called off the main thread, and only reads the chunk's
+     * sections.</p>
+     */
+    private NC copyBlockStates(BlockVector2 chunkPos, @Nullable NC chunk, BlockArrayClipboard copy) {
+        checkState(chunk != null, "Failed to generate a chunk, regen failed.");
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        int minX = Math.max(min.getX(), chunkPos.getX() << 4);
+        int maxX = Math.min(max.getX(), (chunkPos.getX() << 4) + 15);
+        int minZ = Math.max(min.getZ(), chunkPos.getZ() << 4);
+        int maxZ = Math.min(max.getZ(), (chunkPos.getZ() << 4) + 15);
+
+        try {
+            for (int sectionY = min.getY() >> 4; sectionY <= max.getY() >> 4; sectionY++) {
+                NS section = getSection(chunk, sectionY);
+                if (section == null) {
+                    // the clipboard is already air
+                    continue;
+                }
+                int minY = Math.max(min.getY(), sectionY << 4);
+                int maxY = Math.min(max.getY(), (sectionY << 4) + 15);
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        for (int x = minX; x <= maxX; x++) {
+                            BlockVector3 position = BlockVector3.at(x, y, z);
+                            if (region.contains(position)) {
+                                copy.setBlock(position, getBlockState(section, x & 15, y & 15, z & 15));
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (WorldEditException e) {
+            throw new CompletionException(e);
+        }
+        return chunk;
+    }
+
+    // access functions
+
+    /**
+     * Start generating a chunk.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return the generated chunk, or {@code null} if generating it failed
+     */
+    protected abstract CompletableFuture<NC> loadChunk(int chunkX, int chunkZ);
+
+    /**
+     * Run main thread tasks until the condition is met.
+     *
+     * @param done the condition
+     */
+    protected abstract void driveMainThreadUntil(BooleanSupplier done);
+
+    /**
+     * Get a section of a chunk.
+     *
+     * @param chunk the chunk
+     * @param sectionY the section Y coordinate
+     * @return the section, or {@code null} if it is missing or only air
+     */
+    @Nullable
+    protected abstract NS getSection(NC chunk, int sectionY);
+
+    /**
+     * Get a block state from a section, off the main thread.
+     *
+     * @param section the section
+     * @param x the X coordinate inside the section
+     * @param y the Y coordinate inside the section
+     * @param z the Z coordinate inside the section
+     * @return the block state
+     */
+    protected abstract BlockState getBlockState(NS section, int x, int y, int z);
+
+    protected abstract Collection<BlockVector3> getBlockEntityPositions(NC chunk);
+
+    /**
+     * Get a block with the NBT data of its block entity.
+     *
+     * @param chunk the chunk
+     * @param position the position of the block entity
+     * @param state the copied block state
+     * @return the block, or {@code null} if there is no block entity
+     */
+    @Nullable
+    protected abstract BaseBlock getFullBlock(NC chunk, BlockVector3 position, BlockState state);
+
+    protected abstract BiomeType getBiome(NC chunk, BlockVector3 position);
+
+}
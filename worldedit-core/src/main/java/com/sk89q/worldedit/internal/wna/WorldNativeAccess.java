@@ -24,10 +24,15 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.util.collection.BlockMap;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -41,6 +46,21 @@
  */
 public interface WorldNativeAccess<NC, NBS, NP> {
 
+    // same order as Minecraft notifies neighbours in
+    BlockVector3[] NEIGHBOR_DIRECTIONS = {
+        BlockVector3.at(-1, 0, 0),
+        BlockVector3.at(1, 0, 0),
+        BlockVector3.at(0, -1, 0),
+        BlockVector3.at(0, 1, 0),
+        BlockVector3.at(0, 0, -1),
+        BlockVector3.at(0, 0, 1),
+    };
+
+    // ordering by Y first keeps the blocks of each chunk section together
+    Comparator<BlockVector3> SECTION_ORDER = Comparator.comparingInt(BlockVector3::getY)
+        .thenComparingInt(BlockVector3::getZ)
+        .thenComparingInt(BlockVector3::getX);
+
     default <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block, SideEffectSet sideEffects) throws WorldEditException {
         checkNotNull(position);
         checkNotNull(block);
@@ -66,16 +86,9 @@ default <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position,
         if (successful || old == newState) {
             if (block instanceof BaseBlock) {
                 BaseBlock baseBlock = (BaseBlock) block;
-                CompoundTag tag = baseBlock.getNbtData();
-                if (tag != null) {
-                    tag = tag.createBuilder()
-                        .putString("id", baseBlock.getNbtId())
-                        .putInt("x", position.getX())
-                        .putInt("y", position.getY())
-                        .putInt("z", position.getZ())
-                        .build();
+                if (baseBlock.hasNbtData()) {
                     // update if TE changed as well
-                    successful = updateTileEntity(pos, tag);
+                    successful = updateTileEntity(pos, position, baseBlock);
                 }
             }
         }
@@ -104,6 +117,72 @@ default void applySideEffects(BlockVector3 position, BlockState previousType, Si
         markAndNotifyBlock(pos, chunk, oldData, newData, sideEffectSet);
     }
 
+    /**
+     * Apply side effects to several changed blocks in the same chunk.
+     *
+     * <p>The chunk is only looked up once, blocks are handled section by
+     * section, and if {@link #canUpdateNeighborsIndividually()} is
+     * {@code true}, each neighbouring block is only notified once, no matter
+     * how many of its neighbours changed. As all the blocks have already
+     * been placed, every notification sees the final state anyway.</p>
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @param changes the changed positions, all inside the chunk, to the previous block at each
+     * @param sideEffectSet the side effects to apply
+     */
+    default void applySideEffects(int chunkX, int chunkZ, Map<BlockVector3, BlockState> changes, SideEffectSet sideEffectSet) {
+        setCurrentSideEffectSet(sideEffectSet);
+        NC chunk = getChunk(chunkX, chunkZ);
+
+        List<BlockVector3> positions = new ArrayList<>(changes.keySet());
+        positions.sort(SECTION_ORDER);
+
+        if (sideEffectSet.getState(SideEffect.LIGHTING) == SideEffect.State.ON) {
+            for (BlockVector3 position : positions) {
+                updateLightingForBlock(getPosition(position.getX(), position.getY(), position.getZ()));
+            }
+        }
+
+        boolean batchNeighbors = sideEffectSet.shouldApply(SideEffect.NEIGHBORS) && canUpdateNeighborsIndividually();
+        SideEffectSet blockSideEffects = batchNeighbors
+            ? sideEffectSet.with(SideEffect.NEIGHBORS, SideEffect.State.OFF)
+            : sideEffectSet;
+        // neighbour -> the first changed block next to it
+        Map<BlockVector3, BlockVector3> neighbors = batchNeighbors ? BlockMap.create() : null;
+
+        for (BlockVector3 position : positions) {
+            NP pos = getPosition(position.getX(), position.getY(), position.getZ());
+            NBS oldData = toNative(changes.get(position));
+            NBS newData = getBlockState(chunk, pos);
+            markAndNotifyBlock(pos, chunk, oldData, newData, blockSideEffects);
+
+            if (batchNeighbors) {
+                for (BlockVector3 direction : NEIGHBOR_DIRECTIONS) {
+                    neighbors.putIfAbsent(position.add(direction), position);
+                }
+            }
+        }
+
+        if (batchNeighbors) {
+            for (Map.Entry<BlockVector3, BlockVector3> entry : neighbors.entrySet()) {
+                BlockVector3 target = entry.getKey();
+                BlockVector3 source = entry.getValue();
+                NP sourcePos = getPosition(source.getX(), source.getY(), source.getZ());
+                updateNeighbor(
+                    getPosition(target.getX(), target.getY(), target.getZ()),
+                    sourcePos,
+                    toNative(changes.get(source)),
+                    getBlockState(chunk, sourcePos)
+                );
+            }
+            for (BlockVector3 position : positions) {
+                NP pos = getPosition(position.getX(), position.getY(), position.getZ());
+                updateComparators(pos, getBlockState(chunk, pos));
+            }
+        }
+    }
+
     // state-keeping functions for WNA
     // may be thread-unsafe, as this is single-threaded code
 
@@ -138,6 +217,32 @@ default void setCurrentSideEffectSet(SideEffectSet sideEffectSet) {
 
     boolean updateTileEntity(NP position, CompoundTag tag);
 
+    /**
+     * Update the tile entity at the given position from a block's NBT data.
+     *
+     * <p>Implementations may override this to copy native NBT data directly
+     * when the block was read from this platform, skipping the conversion
+     * to and from {@link CompoundTag}.</p>
+     *
+     * @param position the native position
+     * @param blockPosition the position of the block
+     * @param block the block, which has NBT data
+     * @return {@code true} if the tile entity was updated
+     */
+    default boolean updateTileEntity(NP position, BlockVector3 blockPosition, BaseBlock block) {
+        CompoundTag tag = block.getNbtData();
+        if (tag == null) {
+            return false;
+        }
+        tag = tag.createBuilder()
+            .putString("id", block.getNbtId())
+            .putInt("x", blockPosition.getX())
+            .putInt("y", blockPosition.getY())
+            .putInt("z", blockPosition.getZ())
+            .build();
+        return updateTileEntity(position, tag);
+    }
+
     void notifyBlockUpdate(NP position, NBS oldState, NBS newState);
 
     boolean isChunkTicking(NC chunk);
@@ -146,6 +251,48 @@ default void setCurrentSideEffectSet(SideEffectSet sideEffectSet) {
 
     void notifyNeighbors(NP pos, NBS oldState, NBS newState);
 
+    /**
+     * Whether {@link #updateNeighbor(Object, Object, Object, Object)} and
+     * {@link #updateComparators(Object, Object)} update single blocks, and
+     * should be used in place of {@link #notifyNeighbors(Object, Object, Object)}
+     * with the current side-effect set.
+     *
+     * @return {@code true} if single neighbours can be updated
+     */
+    default boolean canUpdateNeighborsIndividually() {
+        return false;
+    }
+
+    /**
+     * Notify one block that a neighbour changed.
+     *
+     * <p>By default, this notifies all neighbours of the changed block with
+     * {@link #notifyNeighbors(Object, Object, Object)}, which includes the
+     * target.</p>
+     *
+     * @param target the block to notify
+     * @param source the changed block
+     * @param sourceOldState the previous state of the changed block
+     * @param sourceNewState the new state of the changed block
+     */
+    default void updateNeighbor(NP target, NP source, NBS sourceOldState, NBS sourceNewState) {
+        notifyNeighbors(source, sourceOldState, sourceNewState);
+    }
+
+    /**
+     * Update comparators reading from a changed block.
+     *
+     * <p>By default, this does nothing, as the default
+     * {@link #updateNeighbor(Object, Object, Object, Object)} goes through
+     * {@link #notifyNeighbors(Object, Object, Object)}, which is expected to
+     * update comparators as well.</p>
+     *
+     * @param pos the changed block
+     * @param newState the new state of the changed block
+     */
+    default void updateComparators(NP pos, NBS newState) {
+    }
+
     void updateNeighbors(NP pos, NBS oldState, NBS newState, int recursionLimit);
 
     void onBlockStateChange(NP pos, NBS oldState, NBS newState);
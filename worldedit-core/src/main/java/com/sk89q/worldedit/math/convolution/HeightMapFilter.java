@@ -19,16 +19,33 @@
 
 package com.sk89q.worldedit.math.convolution;
 
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Allows applications of Kernels onto the region's height map.
  *
  * <p>Only used for smoothing (with a GaussianKernel).</p>
+ *
+ * <p>Kernels that are the product of a row and a column, such as
+ * {@link GaussianKernel} and {@link LinearKernel}, are applied as a row pass
+ * followed by a column pass, which is O(k) rather than O(k&sup2;) per cell.
+ * Large height maps are filtered on several threads in the common
+ * fork-join pool unless {@link #setParallel(boolean) disabled}.</p>
  */
 public class HeightMapFilter {
 
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final double SEPARABLE_TOLERANCE = 1e-5;
+
     private Kernel kernel;
+    private @Nullable double[] rowWeights;
+    private @Nullable double[] columnWeights;
+    private boolean parallel = true;
 
     /**
      * Construct the HeightMapFilter object.
@@ -36,8 +53,7 @@ public class HeightMapFilter {
      * @param kernel the kernel
      */
     public HeightMapFilter(Kernel kernel) {
-        checkNotNull(kernel);
-        this.kernel = kernel;
+        setKernel(kernel);
     }
 
     /**
@@ -49,7 +65,7 @@ public HeightMapFilter(Kernel kernel) {
      */
     public HeightMapFilter(int kernelWidth, int kernelHeight, float[] kernelData) {
         checkNotNull(kernelData);
-        this.kernel = new Kernel(kernelWidth, kernelHeight, kernelData);
+        setKernel(new Kernel(kernelWidth, kernelHeight, kernelData));
     }
 
     /**
@@ -68,6 +84,72 @@ public void setKernel(Kernel kernel) {
         checkNotNull(kernel);
 
         this.kernel = kernel;
+        factorKernel();
+    }
+
+    /**
+     * Get whether large height maps are filtered on several threads.
+     *
+     * @return true if parallel filtering is enabled
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Set whether large height maps are filtered on several threads.
+     *
+     * @param parallel true to enable parallel filtering
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Split the kernel into row and column weights if it is the product
+     * of the two.
+     */
+    private void factorKernel() {
+        rowWeights = null;
+        columnWeights = null;
+
+        int kw = kernel.getWidth();
+        int kh = kernel.getHeight();
+        float[] matrix = kernel.getKernelData(null);
+
+        int pivot = 0;
+        for (int i = 1; i < kw * kh; ++i) {
+            if (Math.abs(matrix[i]) > Math.abs(matrix[pivot])) {
+                pivot = i;
+            }
+        }
+        double pivotWeight = matrix[pivot];
+        if (pivotWeight == 0) {
+            return;
+        }
+
+        int pivotX = pivot % kw;
+        int pivotY = pivot / kw;
+        double[] row = new double[kw];
+        double[] column = new double[kh];
+        for (int kx = 0; kx < kw; ++kx) {
+            row[kx] = matrix[pivotY * kw + kx] / pivotWeight;
+        }
+        for (int ky = 0; ky < kh; ++ky) {
+            column[ky] = matrix[ky * kw + pivotX];
+        }
+
+        double tolerance = Math.abs(pivotWeight) * SEPARABLE_TOLERANCE;
+        for (int ky = 0; ky < kh; ++ky) {
+            for (int kx = 0; kx < kw; ++kx) {
+                if (Math.abs(column[ky] * row[kx] - matrix[ky * kw + kx]) > tolerance) {
+                    return;
+                }
+            }
+        }
+
+        rowWeights = row;
+        columnWeights = column;
     }
 
     /**
@@ -82,9 +164,96 @@ public void setKernel(Kernel kernel) {
     public int[] filter(int[] inData, int width, int height) {
         checkNotNull(inData);
 
+        int[] outData = new int[inData.length];
+        filter(inData, outData, width, height);
+        return outData;
+    }
+
+    /**
+     * Filter with a 2D kernel into an existing array.
+     *
+     * @param inData the data
+     * @param outData the array to write the modified height map to, which
+     *     must not be {@code inData}
+     * @param width the width
+     * @param height the height
+     */
+    public void filter(int[] inData, int[] outData, int width, int height) {
+        checkNotNull(inData);
+        checkNotNull(outData);
+        checkArgument(inData != outData, "outData must not be inData");
+        checkArgument(inData.length >= width * height && outData.length >= width * height, "data is too small");
+
+        if (rowWeights != null && columnWeights != null) {
+            filterSeparable(inData, outData, width, height, rowWeights, columnWeights);
+        } else {
+            filterFull(inData, outData, width, height);
+        }
+    }
+
+    private void filterSeparable(int[] inData, int[] outData, int width, int height, double[] rowWeights, double[] columnWeights) {
+        int area = width * height;
+        double[] rows = new double[area];
+
+        int kw = rowWeights.length;
+        int kh = columnWeights.length;
+        int kox = kernel.getXOrigin();
+        int koy = kernel.getYOrigin();
+
+        forEachRow(height, area, y -> {
+            int offset = y * width;
+            for (int x = 0; x < width; ++x) {
+                double z = 0;
+                for (int kx = 0; kx < kw; ++kx) {
+                    int offsetX = x + kx - kox;
+                    // Clamp coordinates inside data
+                    if (offsetX < 0 || offsetX >= width) {
+                        offsetX = x;
+                    }
+                    z += rowWeights[kx] * inData[offset + offsetX];
+                }
+                rows[offset + x] = z;
+            }
+        });
+
+        forEachRow(height, area, y -> {
+            double[] sums = new double[width];
+            for (int ky = 0; ky < kh; ++ky) {
+                double f = columnWeights[ky];
+                if (f == 0) {
+                    continue;
+                }
+
+                int offsetY = y + ky - koy;
+                // Clamp coordinates inside data
+                if (offsetY < 0 || offsetY >= height) {
+                    offsetY = y;
+                }
+
+                offsetY *= width;
+                for (int x = 0; x < width; ++x) {
+                    sums[x] += f * rows[offsetY + x];
+                }
+            }
+
+            int offset = y * width;
+            for (int x = 0; x < width; ++x) {
+                outData[offset + x] = (int) (sums[x] + 0.5);
+            }
+        });
+    }
+
+    private void forEachRow(int height, int area, IntConsumer action) {
+        IntStream rows = IntStream.range(0, height);
+        if (parallel && area >= PARALLEL_THRESHOLD) {
+            rows = rows.parallel();
+        }
+        rows.forEach(action);
+    }
+
+    private void filterFull(int[] inData, int[] outData, int width, int height) {
         int index = 0;
         float[] matrix = kernel.getKernelData(null);
-        int[] outData = new int[inData.length];
 
         int kh = kernel.getHeight();
         int kw = kernel.getWidth();
@@ -123,7 +292,6 @@ public int[] filter(int[] inData, int width, int height) {
                 outData[index++] = (int) (z + 0.5);
             }
         }
-        return outData;
     }
 
 }
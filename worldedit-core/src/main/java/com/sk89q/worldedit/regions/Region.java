@@ -24,8 +24,10 @@
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.iterator.ChunkOrderedRegionIterator;
 import com.sk89q.worldedit.world.World;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -139,6 +141,21 @@ default long getVolume() {
      */
     boolean contains(BlockVector3 position);
 
+    /**
+     * Get an iterator over the points in this region that visits them one
+     * 16x16x16 chunk section at a time, in the order that chunk batching
+     * would place them in.
+     *
+     * <p>Use this instead of {@link #iterator()} when the visiting order
+     * does not matter, so that reads and writes stay within one chunk for
+     * as long as possible.</p>
+     *
+     * @return an iterator of points inside the region
+     */
+    default Iterator<BlockVector3> chunkOrderedIterator() {
+        return new ChunkOrderedRegionIterator(this);
+    }
+
     /**
      * Get a list of chunks.
      *
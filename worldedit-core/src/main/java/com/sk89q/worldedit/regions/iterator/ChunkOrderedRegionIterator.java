@@ -0,0 +1,206 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+import com.sk89q.worldedit.internal.util.RegionOptimizedVectorSorter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Iterates over the points of a region one 16x16x16 chunk section at a time.
+ *
+ * <p>Chunk columns are visited in the same order that
+ * {@link RegionOptimizedVectorSorter} sorts positions in (region file, then chunk),
+ * and each column is visited from the top section down with Y descending. The
+ * positions returned are therefore already sorted for chunk batching.</p>
+ */
+public class ChunkOrderedRegionIterator implements Iterator<BlockVector3> {
+
+    private static final int CHUNK_SHIFT = 4;
+    private static final int REGION_SHIFT = 5;
+    private static final int CHUNKS_PER_REGION = 1 << REGION_SHIFT;
+
+    private final Region region;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int maxChunkX;
+    private final int maxChunkZ;
+
+    private int regionX;
+    private int regionZ;
+    private int chunkX;
+    private int chunkZ;
+
+    private int sectionMinX;
+    private int sectionMaxX;
+    private int sectionMinZ;
+    private int sectionMaxZ;
+    private int sectionMinY;
+
+    private int nextX;
+    private int nextY;
+    private int nextZ;
+    private boolean done;
+
+    public ChunkOrderedRegionIterator(Region region) {
+        checkNotNull(region);
+
+        this.region = region;
+
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        this.minX = min.getBlockX();
+        this.minY = min.getBlockY();
+        this.minZ = min.getBlockZ();
+        this.maxX = max.getBlockX();
+        this.maxY = max.getBlockY();
+        this.maxZ = max.getBlockZ();
+        this.minChunkX = minX >> CHUNK_SHIFT;
+        this.minChunkZ = minZ >> CHUNK_SHIFT;
+        this.maxChunkX = maxX >> CHUNK_SHIFT;
+        this.maxChunkZ = maxZ >> CHUNK_SHIFT;
+
+        this.regionX = minChunkX >> REGION_SHIFT;
+        this.regionZ = minChunkZ >> REGION_SHIFT;
+        this.chunkX = minChunkX;
+        this.chunkZ = minChunkZ;
+        this.done = minX > maxX || minY > maxY || minZ > maxZ;
+
+        if (!done) {
+            enterColumn();
+            forward();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !done;
+    }
+
+    @Override
+    public BlockVector3 next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        BlockVector3 answer = BlockVector3.at(nextX, nextY, nextZ);
+
+        forwardOne();
+        forward();
+
+        return answer;
+    }
+
+    private void forward() {
+        while (hasNext() && !region.contains(BlockVector3.at(nextX, nextY, nextZ))) {
+            forwardOne();
+        }
+    }
+
+    private void forwardOne() {
+        if (++nextX <= sectionMaxX) {
+            return;
+        }
+        nextX = sectionMinX;
+
+        if (++nextZ <= sectionMaxZ) {
+            return;
+        }
+        nextZ = sectionMinZ;
+
+        if (--nextY >= sectionMinY) {
+            return;
+        }
+
+        if (nextY >= minY) {
+            // move down to the next section in this column
+            sectionMinY = Math.max(minY, nextY & ~0xF);
+            return;
+        }
+
+        if (nextColumn()) {
+            enterColumn();
+        } else {
+            done = true;
+        }
+    }
+
+    private void enterColumn() {
+        int chunkMinX = chunkX << CHUNK_SHIFT;
+        int chunkMinZ = chunkZ << CHUNK_SHIFT;
+        sectionMinX = Math.max(minX, chunkMinX);
+        sectionMaxX = Math.min(maxX, chunkMinX + 15);
+        sectionMinZ = Math.max(minZ, chunkMinZ);
+        sectionMaxZ = Math.min(maxZ, chunkMinZ + 15);
+        sectionMinY = Math.max(minY, maxY & ~0xF);
+
+        nextX = sectionMinX;
+        nextY = maxY;
+        nextZ = sectionMinZ;
+    }
+
+    /**
+     * Advance to the next chunk column, in region X, region Z, chunk X,
+     * chunk Z order.
+     *
+     * @return {@code false} if there are no more columns
+     */
+    private boolean nextColumn() {
+        if (chunkZ < Math.min(maxChunkZ, (regionZ << REGION_SHIFT) + CHUNKS_PER_REGION - 1)) {
+            chunkZ++;
+            return true;
+        }
+        chunkZ = Math.max(minChunkZ, regionZ << REGION_SHIFT);
+
+        if (chunkX < Math.min(maxChunkX, (regionX << REGION_SHIFT) + CHUNKS_PER_REGION - 1)) {
+            chunkX++;
+            return true;
+        }
+
+        if (regionZ < maxChunkZ >> REGION_SHIFT) {
+            regionZ++;
+        } else if (regionX < maxChunkX >> REGION_SHIFT) {
+            regionX++;
+            regionZ = minChunkZ >> REGION_SHIFT;
+        } else {
+            return false;
+        }
+        chunkX = Math.max(minChunkX, regionX << REGION_SHIFT);
+        chunkZ = Math.max(minChunkZ, regionZ << REGION_SHIFT);
+        return true;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+}
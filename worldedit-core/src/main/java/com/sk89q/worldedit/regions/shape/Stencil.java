@@ -0,0 +1,455 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.shape;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * The offsets that make up a shape around its center, as vertical runs of
+ * blocks, one or more per column.
+ *
+ * <p>Shapes of up to {@link #MAX_PRECOMPUTED_COLUMNS} columns are
+ * precomputed, packed four ints to a run, and cached by their parameters,
+ * so repeatedly placing the same shape (such as with a brush) only computes
+ * it once. Their columns are sorted so that all the columns that fall into
+ * the same 16x16 tile are next to each other, which keeps writes within a
+ * chunk together when the stencil is replayed.</p>
+ *
+ * <p>Larger shapes are neither stored nor cached. Their runs are computed
+ * column by column each time the stencil is replayed, as the shape loops in
+ * {@code EditSession} used to do.</p>
+ */
+public final class Stencil {
+
+    /**
+     * The largest number of columns, within the bounds of a shape, that
+     * are precomputed.
+     */
+    static final int MAX_PRECOMPUTED_COLUMNS = 1 << 16;
+
+    private static final int RUN_SIZE = 4;
+    private static final long MAX_CACHED_RUNS = 1 << 20;
+
+    private static final LoadingCache<Key, Stencil> cache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_RUNS)
+            .weigher((Key key, Stencil stencil) -> stencil.runs.length / RUN_SIZE)
+            .build(CacheLoader.from(Stencil::precompute));
+
+    /**
+     * Get the stencil of an ellipsoid, matching the blocks that
+     * {@code EditSession#makeSphere} places.
+     *
+     * @param radiusX the radius on the X axis
+     * @param radiusY the radius on the Y axis
+     * @param radiusZ the radius on the Z axis
+     * @param filled false to only include the shell
+     * @return the stencil
+     */
+    public static Stencil ellipsoid(double radiusX, double radiusY, double radiusZ, boolean filled) {
+        return get(new Key(Shape.ELLIPSOID, radiusX, radiusY, radiusZ, filled));
+    }
+
+    /**
+     * Get the stencil of a single layer of a cylinder, matching the columns
+     * that {@code EditSession#makeCylinder} places. Every run in the returned
+     * stencil is at Y offset 0.
+     *
+     * @param radiusX the radius on the X axis
+     * @param radiusZ the radius on the Z axis
+     * @param filled false to only include the outline
+     * @return the stencil
+     */
+    public static Stencil cylinder(double radiusX, double radiusZ, boolean filled) {
+        return get(new Key(Shape.CYLINDER, radiusX, 0, radiusZ, filled));
+    }
+
+    /**
+     * Get the stencil of a pyramid with its base at Y offset 0, matching the
+     * blocks that {@code EditSession#makePyramid} places.
+     *
+     * @param size the size of the pyramid
+     * @param filled false to only include the sides
+     * @return the stencil
+     */
+    public static Stencil pyramid(int size, boolean filled) {
+        return get(new Key(Shape.PYRAMID, size, size, size, filled));
+    }
+
+    private static Stencil get(Key key) {
+        Walk walk = key.walk();
+        long columns = (2L * walk.maxX + 1) * (2L * walk.maxZ + 1);
+        if (columns > MAX_PRECOMPUTED_COLUMNS) {
+            return new Stencil(key, null);
+        }
+        return cache.getUnchecked(key);
+    }
+
+    /**
+     * Receives the runs of a stencil.
+     */
+    @FunctionalInterface
+    public interface RunConsumer {
+
+        /**
+         * Accept a run of offsets.
+         *
+         * @param x the X offset
+         * @param z the Z offset
+         * @param minY the lowest Y offset, inclusive
+         * @param maxY the highest Y offset, inclusive
+         * @return the number of blocks changed
+         * @throws MaxChangedBlocksException thrown if too many blocks are changed
+         */
+        int accept(int x, int z, int minY, int maxY) throws MaxChangedBlocksException;
+
+    }
+
+    private final Key key;
+    @Nullable
+    private final int[] runs;
+
+    private Stencil(Key key, @Nullable int[] runs) {
+        this.key = key;
+        this.runs = runs;
+    }
+
+    /**
+     * Get whether the runs of this stencil are precomputed, rather than
+     * computed each time they are replayed.
+     *
+     * @return true if precomputed
+     */
+    public boolean isPrecomputed() {
+        return runs != null;
+    }
+
+    /**
+     * Pass every run of this stencil to a consumer. Each offset is part of
+     * exactly one run.
+     *
+     * @param consumer the consumer
+     * @return the sum of the numbers returned by the consumer
+     * @throws MaxChangedBlocksException thrown by the consumer
+     */
+    public int forEachRun(RunConsumer consumer) throws MaxChangedBlocksException {
+        int affected = 0;
+        if (runs != null) {
+            for (int i = 0; i < runs.length; i += RUN_SIZE) {
+                affected += consumer.accept(runs[i], runs[i + 1], runs[i + 2], runs[i + 3]);
+            }
+            return affected;
+        }
+
+        Walk walk = key.walk();
+        IntArrayList columnRuns = new IntArrayList();
+        while (walk.next()) {
+            toRuns(walk.column, columnRuns);
+            for (int sx = 1; sx >= (walk.x == 0 ? 1 : -1); sx -= 2) {
+                for (int sz = 1; sz >= (walk.z == 0 ? 1 : -1); sz -= 2) {
+                    for (int i = 0; i < columnRuns.size(); i += 2) {
+                        affected += consumer.accept(sx * walk.x, sz * walk.z,
+                                columnRuns.getInt(i), columnRuns.getInt(i + 1));
+                    }
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Tests whether an offset in the positive octant is part of a shape.
+     */
+    @FunctionalInterface
+    private interface OctantTest {
+        boolean contains(int x, int y, int z);
+    }
+
+    private static double lengthSq(double x, double y, double z) {
+        return (x * x) + (y * y) + (z * z);
+    }
+
+    private static double lengthSq(double x, double z) {
+        return (x * x) + (z * z);
+    }
+
+    private static Walk walkEllipsoid(double radiusX, double radiusY, double radiusZ, boolean filled) {
+        radiusX += 0.5;
+        radiusY += 0.5;
+        radiusZ += 0.5;
+
+        final double invRadiusX = 1 / radiusX;
+        final double invRadiusY = 1 / radiusY;
+        final double invRadiusZ = 1 / radiusZ;
+
+        return new Walk((int) Math.ceil(radiusX), (int) Math.ceil(radiusY), (int) Math.ceil(radiusZ), true, (x, y, z) -> {
+            double xn = x * invRadiusX;
+            double yn = y * invRadiusY;
+            double zn = z * invRadiusZ;
+            if (lengthSq(xn, yn, zn) > 1) {
+                return false;
+            }
+            if (filled) {
+                return true;
+            }
+            double nextXn = (x + 1) * invRadiusX;
+            double nextYn = (y + 1) * invRadiusY;
+            double nextZn = (z + 1) * invRadiusZ;
+            return lengthSq(nextXn, yn, zn) > 1 || lengthSq(xn, nextYn, zn) > 1 || lengthSq(xn, yn, nextZn) > 1;
+        });
+    }
+
+    private static Walk walkCylinder(double radiusX, double radiusZ, boolean filled) {
+        radiusX += 0.5;
+        radiusZ += 0.5;
+
+        final double invRadiusX = 1 / radiusX;
+        final double invRadiusZ = 1 / radiusZ;
+
+        return new Walk((int) Math.ceil(radiusX), 0, (int) Math.ceil(radiusZ), false, (x, y, z) -> {
+            double xn = x * invRadiusX;
+            double zn = z * invRadiusZ;
+            if (lengthSq(xn, zn) > 1) {
+                return false;
+            }
+            if (filled) {
+                return true;
+            }
+            double nextXn = (x + 1) * invRadiusX;
+            double nextZn = (z + 1) * invRadiusZ;
+            return lengthSq(nextXn, zn) > 1 || lengthSq(xn, nextZn) > 1;
+        });
+    }
+
+    private static Walk walkPyramid(int size, boolean filled) {
+        return new Walk(size - 1, size - 1, size - 1, false, (x, y, z) -> {
+            int layer = size - 1 - y;
+            int ring = Math.max(x, z);
+            return filled ? ring <= layer : ring == layer;
+        });
+    }
+
+    /**
+     * Walks the columns of the positive quadrant of a shape that is
+     * symmetric around the X and Z axes, and optionally the Y axis.
+     */
+    private static final class Walk {
+        private final int maxX;
+        private final int maxY;
+        private final int maxZ;
+        private final boolean mirrorY;
+        private final OctantTest test;
+        private final IntArrayList column = new IntArrayList();
+        private int x;
+        private int z = -1;
+
+        /**
+         * Create a new walk.
+         *
+         * @param maxX the largest X offset to test
+         * @param maxY the largest Y offset to test
+         * @param maxZ the largest Z offset to test
+         * @param mirrorY true to mirror the shape below Y offset 0
+         * @param test the test for the positive octant
+         */
+        private Walk(int maxX, int maxY, int maxZ, boolean mirrorY, OctantTest test) {
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.mirrorY = mirrorY;
+            this.test = test;
+        }
+
+        /**
+         * Move to the next column that contains part of the shape, and fill
+         * {@link #column} with its Y offsets in ascending order.
+         *
+         * @return false if there are no more columns
+         */
+        private boolean next() {
+            while (true) {
+                if (++z > maxZ) {
+                    z = 0;
+                    if (++x > maxX) {
+                        return false;
+                    }
+                }
+                column.clear();
+                if (mirrorY) {
+                    for (int y = maxY; y > 0; --y) {
+                        if (test.contains(x, y, z)) {
+                            column.add(-y);
+                        }
+                    }
+                }
+                for (int y = 0; y <= maxY; ++y) {
+                    if (test.contains(x, y, z)) {
+                        column.add(y);
+                    }
+                }
+                if (!column.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Precompute a stencil, with its runs grouped by tile.
+     *
+     * @param key the key of the stencil
+     * @return the stencil
+     */
+    private static Stencil precompute(Key key) {
+        Walk walk = key.walk();
+        IntArrayList runs = new IntArrayList();
+        IntArrayList columnRuns = new IntArrayList();
+        while (walk.next()) {
+            toRuns(walk.column, columnRuns);
+            for (int sx = 1; sx >= (walk.x == 0 ? 1 : -1); sx -= 2) {
+                for (int sz = 1; sz >= (walk.z == 0 ? 1 : -1); sz -= 2) {
+                    for (int i = 0; i < columnRuns.size(); i += 2) {
+                        runs.add(sx * walk.x);
+                        runs.add(sz * walk.z);
+                        runs.add(columnRuns.getInt(i));
+                        runs.add(columnRuns.getInt(i + 1));
+                    }
+                }
+            }
+        }
+
+        int[] unsorted = runs.toIntArray();
+        int[] order = new int[unsorted.length / RUN_SIZE];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i * RUN_SIZE;
+        }
+        // group by 16x16 tile, then walk each tile row by row with the
+        // highest runs of a column first
+        IntArrays.quickSort(order, (a, b) -> {
+            int c = Integer.compare(unsorted[a] >> 4, unsorted[b] >> 4);
+            if (c == 0) {
+                c = Integer.compare(unsorted[a + 1] >> 4, unsorted[b + 1] >> 4);
+            }
+            if (c == 0) {
+                c = Integer.compare(unsorted[a + 1], unsorted[b + 1]);
+            }
+            if (c == 0) {
+                c = Integer.compare(unsorted[a], unsorted[b]);
+            }
+            if (c == 0) {
+                c = Integer.compare(unsorted[b + 3], unsorted[a + 3]);
+            }
+            return c;
+        });
+
+        int[] packed = new int[unsorted.length];
+        for (int i = 0; i < order.length; i++) {
+            System.arraycopy(unsorted, order[i], packed, i * RUN_SIZE, RUN_SIZE);
+        }
+        return new Stencil(key, packed);
+    }
+
+    /**
+     * Split the ascending Y offsets of a column into runs.
+     *
+     * @param column the Y offsets, which must not be empty
+     * @param runs the list to fill with the lowest and highest offset of each run
+     */
+    private static void toRuns(IntArrayList column, IntArrayList runs) {
+        runs.clear();
+        int start = column.getInt(0);
+        int end = start;
+        for (int i = 1; i < column.size(); i++) {
+            int y = column.getInt(i);
+            if (y != end + 1) {
+                runs.add(start);
+                runs.add(end);
+                start = y;
+            }
+            end = y;
+        }
+        runs.add(start);
+        runs.add(end);
+    }
+
+    private enum Shape {
+        ELLIPSOID,
+        CYLINDER,
+        PYRAMID
+    }
+
+    private static final class Key {
+        private final Shape shape;
+        private final double radiusX;
+        private final double radiusY;
+        private final double radiusZ;
+        private final boolean filled;
+
+        private Key(Shape shape, double radiusX, double radiusY, double radiusZ, boolean filled) {
+            this.shape = shape;
+            this.radiusX = radiusX;
+            this.radiusY = radiusY;
+            this.radiusZ = radiusZ;
+            this.filled = filled;
+        }
+
+        private Walk walk() {
+            switch (shape) {
+                case ELLIPSOID:
+                    return walkEllipsoid(radiusX, radiusY, radiusZ, filled);
+                case CYLINDER:
+                    return walkCylinder(radiusX, radiusZ, filled);
+                case PYRAMID:
+                    return walkPyramid((int) radiusX, filled);
+                default:
+                    throw new IllegalStateException("Unknown shape " + shape);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return shape == key.shape
+                    && Double.compare(key.radiusX, radiusX) == 0
+                    && Double.compare(key.radiusY, radiusY) == 0
+                    && Double.compare(key.radiusZ, radiusZ) == 0
+                    && filled == key.filled;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shape, radiusX, radiusY, radiusZ, filled);
+        }
+    }
+
+}
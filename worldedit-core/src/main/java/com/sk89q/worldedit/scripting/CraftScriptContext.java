@@ -66,6 +66,7 @@ public CraftScriptContext(WorldEdit controller,
      * @return an edit session
      */
     public EditSession remember() {
+        session.completePendingCloses();
         EditSession editSession = controller.newEditSessionBuilder()
             .locatableActor(player)
             .maxBlocks(session.getBlockChangeLimit())
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.scripting;
 
+import java.io.IOException;
 import java.util.Map;
 import javax.script.ScriptException;
 
@@ -29,4 +30,30 @@ public interface CraftScriptEngine {
 
     Object evaluate(String script, String filename, Map<String, Object> args)
             throws ScriptException, Throwable;
+
+    /**
+     * Evaluate a script that may have been run before.
+     *
+     * <p>Engines that cache compiled scripts reuse the compiled form from an
+     * earlier call with the same filename and version, and only read the
+     * source when it is not cached.</p>
+     *
+     * @param source reads the source of the script
+     * @param filename the filename of the script
+     * @param version the version of the source, such as its modification time
+     * @param args the variables to define for the script
+     * @return the result of the script
+     */
+    default Object evaluate(ScriptSource source, String filename, long version, Map<String, Object> args)
+            throws ScriptException, Throwable {
+        return evaluate(source.read(), filename, args);
+    }
+
+    /**
+     * Reads the source of a script.
+     */
+    @FunctionalInterface
+    interface ScriptSource {
+        String read() throws IOException;
+    }
 }
@@ -44,6 +44,8 @@ protected Context makeContext() {
             cx.setLanguageVersion(Context.VERSION_1_7);
         }
         cx.setInstructionObserverThreshold(10000);
+        // compiled scripts only count instructions (for the time limit) if asked to
+        cx.setGenerateObserverCount(true);
         return cx;
     }
 
@@ -23,16 +23,39 @@
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ImporterTopLevel;
 import org.mozilla.javascript.JavaScriptException;
+import org.mozilla.javascript.NativeObject;
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.WrappedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.script.ScriptException;
 
 public class RhinoCraftScriptEngine implements CraftScriptEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RhinoCraftScriptEngine.class);
+
+    /**
+     * Compiled scripts, by filename.
+     */
+    private static final ConcurrentMap<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
+
+    /**
+     * The sealed standard objects that every script's scope inherits from.
+     */
+    private static volatile Scriptable sharedScope;
+
     private int timeLimit;
+    private int optimizationLevel = -1;
 
     @Override
     public void setTimeLimit(int milliseconds) {
@@ -44,21 +67,61 @@ public int getTimeLimit() {
         return timeLimit;
     }
 
+    /**
+     * Set the Rhino optimization level to compile scripts with, from -1
+     * (interpreted) to 9.
+     *
+     * @param optimizationLevel the optimization level
+     */
+    public void setOptimizationLevel(int optimizationLevel) {
+        this.optimizationLevel = Math.max(-1, Math.min(9, optimizationLevel));
+    }
+
+    public int getOptimizationLevel() {
+        return optimizationLevel;
+    }
+
     @Override
     public Object evaluate(String script, String filename, Map<String, Object> args)
             throws ScriptException, Throwable {
+        return execute(filename, args, cx -> compile(cx, script, filename, 0));
+    }
+
+    @Override
+    public Object evaluate(ScriptSource source, String filename, long version, Map<String, Object> args)
+            throws ScriptException, Throwable {
+        return execute(filename, args, cx -> {
+            CompiledScript compiled = compiledScripts.get(filename);
+            if (compiled == null || compiled.version != version || compiled.optimizationLevel != optimizationLevel) {
+                compiled = compile(cx, source.read(), filename, version);
+                compiledScripts.put(filename, compiled);
+            }
+            return compiled;
+        });
+    }
+
+    private Object execute(String filename, Map<String, Object> args, ScriptLoader loader)
+            throws ScriptException, Throwable {
         RhinoContextFactory factory = new RhinoContextFactory(timeLimit);
         Context cx = factory.enterContext();
         cx.setClassShutter(new MinecraftHidingClassShutter());
-        ScriptableObject scriptable = new ImporterTopLevel(cx);
-        Scriptable scope = cx.initStandardObjects(scriptable);
+        cx.setOptimizationLevel(optimizationLevel);
 
-        for (Map.Entry<String, Object> entry : args.entrySet()) {
-            ScriptableObject.putProperty(scope, entry.getKey(),
-                    Context.javaToJS(entry.getValue(), scope));
-        }
         try {
-            return cx.evaluateString(scope, script, filename, 1, null);
+            CompiledScript compiled = loader.load(cx);
+            Scriptable scope = createScope(cx);
+
+            for (Map.Entry<String, Object> entry : args.entrySet()) {
+                ScriptableObject.putProperty(scope, entry.getKey(),
+                        Context.javaToJS(entry.getValue(), scope));
+            }
+
+            long start = System.nanoTime();
+            try {
+                return compiled.script.exec(cx, scope);
+            } finally {
+                compiled.recordRun(filename, System.nanoTime() - start);
+            }
         } catch (Error e) {
             throw new ScriptException(e.getMessage());
         } catch (RhinoException e) {
@@ -88,4 +151,87 @@ public Object evaluate(String script, String filename, Map<String, Object> args)
         }
     }
 
+    private CompiledScript compile(Context cx, String source, String filename, long version) {
+        long start = System.nanoTime();
+        Script script = cx.compileString(source, filename, 1, null);
+        long compileTime = System.nanoTime() - start;
+        logger.debug("Compiled script {} in {} ms (optimization level {})",
+                filename, TimeUnit.NANOSECONDS.toMillis(compileTime), optimizationLevel);
+        return new CompiledScript(script, version, optimizationLevel, compileTime);
+    }
+
+    /**
+     * Create a fresh top level scope for one run of a script.
+     *
+     * <p>The scope inherits the standard objects from a shared, sealed
+     * scope, so they are only initialized once. Variables and imports
+     * made by the script stay in its own scope.</p>
+     *
+     * @param cx the context
+     * @return the scope
+     */
+    private static Scriptable createScope(Context cx) {
+        ImporterTopLevel scope = new ImporterTopLevel();
+        scope.setPrototype(getSharedScope(cx));
+        scope.setParentScope(null);
+        return scope;
+    }
+
+    private static Scriptable getSharedScope(Context cx) {
+        Scriptable scope = sharedScope;
+        if (scope == null) {
+            synchronized (RhinoCraftScriptEngine.class) {
+                scope = sharedScope;
+                if (scope == null) {
+                    ScriptableObject standard = cx.initStandardObjects(null, true);
+
+                    // importPackage() and importClass() are borrowed from JavaImporter,
+                    // which applies them to the calling ImporterTopLevel rather than to
+                    // this shared scope
+                    Scriptable importerPrototype = ScriptableObject.getClassPrototype(standard, "JavaImporter");
+                    ScriptableObject importer = new NativeObject();
+                    importer.setPrototype(standard);
+                    importer.setParentScope(null);
+                    for (String name : new String[] { "importClass", "importPackage" }) {
+                        importer.defineProperty(name, ScriptableObject.getProperty(importerPrototype, name),
+                                ScriptableObject.DONTENUM);
+                    }
+                    importer.sealObject();
+
+                    sharedScope = scope = importer;
+                }
+            }
+        }
+        return scope;
+    }
+
+    @FunctionalInterface
+    private interface ScriptLoader {
+        CompiledScript load(Context cx) throws IOException;
+    }
+
+    private static final class CompiledScript {
+        private final Script script;
+        private final long version;
+        private final int optimizationLevel;
+        private final long compileTime;
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong totalRunTime = new AtomicLong();
+
+        private CompiledScript(Script script, long version, int optimizationLevel, long compileTime) {
+            this.script = script;
+            this.version = version;
+            this.optimizationLevel = optimizationLevel;
+            this.compileTime = compileTime;
+        }
+
+        private void recordRun(String filename, long runTime) {
+            long count = runs.incrementAndGet();
+            long total = totalRunTime.addAndGet(runTime);
+            logger.debug("Ran script {} in {} ms ({} runs, {} ms average, compiled in {} ms)",
+                    filename, TimeUnit.NANOSECONDS.toMillis(runTime), count,
+                    TimeUnit.NANOSECONDS.toMillis(total / count), TimeUnit.NANOSECONDS.toMillis(compileTime));
+        }
+    }
+
 }
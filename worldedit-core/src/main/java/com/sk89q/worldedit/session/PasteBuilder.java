@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.session;
 
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.transform.BlockTransformExtent;
@@ -30,6 +31,7 @@
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.regions.CuboidRegion;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -130,6 +132,11 @@ public PasteBuilder copyBiomes(boolean copyBiomes) {
      * @return the operation
      */
     public Operation build() {
+        if (targetExtent instanceof EditSession && transform.isIdentity()) {
+            BlockVector3 offset = to.subtract(clipboard.getOrigin());
+            ((EditSession) targetExtent).preloadChunks(new CuboidRegion(
+                    clipboard.getMinimumPoint().add(offset), clipboard.getMaximumPoint().add(offset)));
+        }
         BlockTransformExtent extent = new BlockTransformExtent(clipboard, transform);
         ForwardExtentCopy copy = new ForwardExtentCopy(extent, clipboard.getRegion(), clipboard.getOrigin(), targetExtent, to);
         copy.setTransform(transform);
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.session;
 
+import com.google.common.collect.MapMaker;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -33,8 +34,9 @@
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.event.platform.ConfigurationLoadEvent;
 import com.sk89q.worldedit.extension.platform.Locatable;
+import com.sk89q.worldedit.history.journal.UndoJournal;
 import com.sk89q.worldedit.session.request.Request;
-import com.sk89q.worldedit.session.storage.JsonFileSessionStore;
+import com.sk89q.worldedit.session.storage.BinaryFileSessionStore;
 import com.sk89q.worldedit.session.storage.SessionStore;
 import com.sk89q.worldedit.session.storage.VoidStore;
 import com.sk89q.worldedit.util.concurrency.EvenMoreExecutors;
@@ -45,8 +47,11 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -56,7 +61,11 @@
 import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -74,13 +83,19 @@ public class SessionManager {
     private static final int FLUSH_PERIOD = 1000 * 30;
     private static final ListeningExecutorService executorService = MoreExecutors.listeningDecorator(
             EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, 5, "WorldEdit Session Saver - %s"));
+    private static final ExecutorService loaderService =
+            EvenMoreExecutors.newBoundedCachedThreadPool(0, 4, 64, "WorldEdit Session Loader - %s");
     private static final Logger log = LoggerFactory.getLogger(SessionManager.class);
     private static final Set<String> warnedInvalidTool = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     private final Timer timer = new Timer("WorldEdit Session Manager");
     private final WorldEdit worldEdit;
-    private final Map<UUID, SessionHolder> sessions = new HashMap<>();
-    private SessionStore store = new VoidStore();
+    private final ConcurrentMap<UUID, SessionHolder> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, CompletableFuture<LocalSession>> loading = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UUID> names = new ConcurrentHashMap<>();
+    // Weak values, so that a journal stays in the map for as long as a session or a queued write still uses it
+    private final ConcurrentMap<UUID, UndoJournal> journals = new MapMaker().weakValues().makeMap();
+    private volatile SessionStore store = new VoidStore();
 
     /**
      * Create a new session manager.
@@ -101,7 +116,7 @@ public SessionManager(WorldEdit worldEdit) {
      * @param owner the owner
      * @return true if a session exists
      */
-    public synchronized boolean contains(SessionOwner owner) {
+    public boolean contains(SessionOwner owner) {
         checkNotNull(owner);
         return sessions.containsKey(getKey(owner));
     }
@@ -113,13 +128,15 @@ public synchronized boolean contains(SessionOwner owner) {
      * @return the session, if found, otherwise {@code null}
      */
     @Nullable
-    public synchronized LocalSession findByName(String name) {
+    public LocalSession findByName(String name) {
         checkNotNull(name);
-        for (SessionHolder holder : sessions.values()) {
-            String test = holder.key.getName();
-            if (name.equals(test)) {
-                return holder.session;
-            }
+        UUID key = names.get(name);
+        if (key == null) {
+            return null;
+        }
+        SessionHolder holder = sessions.get(key);
+        if (holder != null && name.equals(holder.key.getName())) {
+            return holder.session;
         }
 
         return null;
@@ -133,7 +150,7 @@ public synchronized LocalSession findByName(String name) {
      * @return the session for the owner, if it exists
      */
     @Nullable
-    public synchronized LocalSession getIfPresent(SessionOwner owner) {
+    public LocalSession getIfPresent(SessionOwner owner) {
         checkNotNull(owner);
         SessionHolder stored = sessions.get(getKey(owner));
         if (stored != null) {
@@ -149,46 +166,16 @@ public synchronized LocalSession getIfPresent(SessionOwner owner) {
      * @param owner the owner
      * @return a session
      */
-    public synchronized LocalSession get(SessionOwner owner) {
+    public LocalSession get(SessionOwner owner) {
         checkNotNull(owner);
 
         LocalSession session = getIfPresent(owner);
         LocalConfiguration config = worldEdit.getConfiguration();
-        SessionKey sessionKey = owner.getSessionKey();
 
-        // No session exists yet -- create one
+        // No session exists yet -- load or wait for one
         if (session == null) {
-            try {
-                session = store.load(getKey(sessionKey));
-                session.postLoad();
-            } catch (IOException e) {
-                log.warn("Failed to load saved session", e);
-                session = new LocalSession();
-            }
+            session = load(owner.getSessionKey());
             Request.request().setSession(session);
-
-            session.setConfiguration(config);
-            session.setBlockChangeLimit(config.defaultChangeLimit);
-            session.setTimeout(config.calculationTimeout);
-            try {
-                setDefaultWand(session.getWandItem(), config.wandItem, session, new SelectionWand());
-            } catch (InvalidToolBindException e) {
-                if (warnedInvalidTool.add("selwand")) {
-                    log.warn("Invalid selection wand tool set in config. Tool will not be assigned: " + e.getItemType());
-                }
-            }
-            try {
-                setDefaultWand(session.getNavWandItem(), config.navigationWand, session, new NavigationWand());
-            } catch (InvalidToolBindException e) {
-                if (warnedInvalidTool.add("navwand")) {
-                    log.warn("Invalid navigation wand tool set in config. Tool will not be assigned: " + e.getItemType());
-                }
-            }
-            session.compareAndResetDirty();
-
-            // Remember the session regardless of if it's currently active or not.
-            // And have the SessionTracker FLUSH inactive sessions.
-            sessions.put(getKey(owner), new SessionHolder(sessionKey, session));
         }
 
         if (shouldBoundLimit(owner, "worldedit.limit.unrestricted", session.getBlockChangeLimit(), config.maxChangeLimit)) {
@@ -213,6 +200,146 @@ public synchronized LocalSession get(SessionOwner owner) {
         return session;
     }
 
+    /**
+     * Start loading the session for an owner in the background, so that a
+     * later call to {@link #get(SessionOwner)} does not have to wait on
+     * the session store.
+     *
+     * <p>Nothing happens if the session is already loaded or loading, or
+     * if the loader is too busy to accept more work, in which case the
+     * session is loaded on first use instead.</p>
+     *
+     * @param owner the owner
+     */
+    public void prefetch(SessionOwner owner) {
+        checkNotNull(owner);
+        SessionKey sessionKey = owner.getSessionKey();
+        UUID key = getKey(sessionKey);
+        if (sessions.containsKey(key) || loading.containsKey(key)) {
+            return;
+        }
+
+        try {
+            loaderService.execute(() -> {
+                try {
+                    load(sessionKey);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to prefetch session for UUID " + key, e);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    /**
+     * Get the session for a key, loading it from the store if necessary.
+     *
+     * <p>Only one thread loads any given session. Other threads asking for
+     * the same session wait for that load to finish, while threads asking
+     * for other sessions are not held up at all.</p>
+     *
+     * @param sessionKey the session key
+     * @return the session
+     */
+    private LocalSession load(SessionKey sessionKey) {
+        UUID key = getKey(sessionKey);
+        SessionHolder holder = sessions.get(key);
+        if (holder != null) {
+            return holder.session;
+        }
+
+        CompletableFuture<LocalSession> future = new CompletableFuture<>();
+        CompletableFuture<LocalSession> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            // Another thread may have finished loading between our check and claiming the key
+            holder = sessions.get(key);
+            if (holder == null) {
+                holder = new SessionHolder(sessionKey, createSession(sessionKey));
+
+                // Remember the session regardless of if it's currently active or not.
+                // And have the SessionTracker FLUSH inactive sessions.
+                sessions.put(key, holder);
+                String name = sessionKey.getName();
+                if (name != null) {
+                    names.put(name, key);
+                }
+            }
+            future.complete(holder.session);
+            return holder.session;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private LocalSession createSession(SessionKey sessionKey) {
+        LocalConfiguration config = worldEdit.getConfiguration();
+        LocalSession session;
+        try {
+            session = store.load(getKey(sessionKey));
+            session.postLoad();
+        } catch (IOException e) {
+            log.warn("Failed to load saved session", e);
+            session = new LocalSession();
+        }
+
+        session.setConfiguration(config);
+        session.setBlockChangeLimit(config.defaultChangeLimit);
+        session.setTimeout(config.calculationTimeout);
+        try {
+            setDefaultWand(session.getWandItem(), config.wandItem, session, new SelectionWand());
+        } catch (InvalidToolBindException e) {
+            if (warnedInvalidTool.add("selwand")) {
+                log.warn("Invalid selection wand tool set in config. Tool will not be assigned: " + e.getItemType());
+            }
+        }
+        try {
+            setDefaultWand(session.getNavWandItem(), config.navigationWand, session, new NavigationWand());
+        } catch (InvalidToolBindException e) {
+            if (warnedInvalidTool.add("navwand")) {
+                log.warn("Invalid navigation wand tool set in config. Tool will not be assigned: " + e.getItemType());
+            }
+        }
+        session.setUndoJournal(getUndoJournal(sessionKey));
+        session.compareAndResetDirty();
+        return session;
+    }
+
+    /**
+     * Get the undo journal that history for a session key is written to.
+     *
+     * <p>The journal can be used to undo the edits of a player whether or
+     * not they are online.</p>
+     *
+     * @param sessionKey the session key
+     * @return the undo journal, or {@code null} if journaling is disabled or the key is not persistent
+     */
+    @Nullable
+    public UndoJournal getUndoJournal(SessionKey sessionKey) {
+        checkNotNull(sessionKey);
+        LocalConfiguration config = worldEdit.getConfiguration();
+        if (!config.journalHistory || !sessionKey.isPersistent()) {
+            return null;
+        }
+
+        return journals.computeIfAbsent(getKey(sessionKey), key -> {
+            Path dir = config.getWorkingDirectoryPath().resolve("history").resolve(key.toString());
+            Duration maxAge = config.journalHistoryMaxAge > 0
+                    ? Duration.ofDays(config.journalHistoryMaxAge)
+                    : Duration.ofMillis(Long.MAX_VALUE);
+            long maxBytes = config.journalHistoryMaxSize > 0
+                    ? config.journalHistoryMaxSize * 1024L * 1024L
+                    : Long.MAX_VALUE;
+            return new UndoJournal(dir, maxAge, maxBytes);
+        });
+    }
+
     private boolean shouldBoundLimit(SessionOwner owner, String permission, int currentLimit, int maxLimit) {
         if (maxLimit > -1) { // if max is finite
             return (currentLimit < 0 || currentLimit > maxLimit) // make sure current is finite and less than max
@@ -247,6 +374,7 @@ private ListenableFuture<?> commit(final Map<SessionKey, LocalSession> sessions)
             return Futures.immediateFuture(sessions);
         }
 
+        SessionStore store = this.store;
         return executorService.submit((Callable<Object>) () -> {
             Exception exception = null;
 
@@ -263,6 +391,13 @@ private ListenableFuture<?> commit(final Map<SessionKey, LocalSession> sessions)
                 }
             }
 
+            try {
+                store.flush();
+            } catch (IOException e) {
+                log.warn("Failed to flush session store", e);
+                exception = e;
+            }
+
             if (exception != null) {
                 throw exception;
             }
@@ -297,9 +432,19 @@ protected UUID getKey(SessionKey key) {
      *
      * @param owner the owner
      */
-    public synchronized void remove(SessionOwner owner) {
+    public void remove(SessionOwner owner) {
         checkNotNull(owner);
-        sessions.remove(getKey(owner));
+        SessionHolder holder = sessions.remove(getKey(owner));
+        if (holder != null) {
+            forgetName(holder);
+        }
+    }
+
+    private void forgetName(SessionHolder holder) {
+        String name = holder.key.getName();
+        if (name != null) {
+            names.remove(name, getKey(holder.key));
+        }
     }
 
     /**
@@ -308,6 +453,7 @@ public synchronized void remove(SessionOwner owner) {
     public synchronized void unload() {
         clear();
         timer.cancel();
+        close(store);
     }
 
     /**
@@ -316,6 +462,7 @@ public synchronized void unload() {
     public synchronized void clear() {
         saveChangedSessions();
         sessions.clear();
+        names.clear();
     }
 
     private synchronized void saveChangedSessions() {
@@ -338,6 +485,7 @@ private synchronized void saveChangedSessions() {
                     }
 
                     it.remove();
+                    forgetName(stored);
                 }
             }
         }
@@ -351,7 +499,31 @@ private synchronized void saveChangedSessions() {
     public void onConfigurationLoad(ConfigurationLoadEvent event) {
         LocalConfiguration config = event.getConfiguration();
         File dir = new File(config.getWorkingDirectory(), "sessions");
-        store = new JsonFileSessionStore(dir);
+        SessionStore previous = store;
+        store = new BinaryFileSessionStore(dir);
+        close(previous);
+    }
+
+    /**
+     * Close a session store once any saves already queued for it are done.
+     *
+     * @param store the store
+     */
+    private void close(SessionStore store) {
+        if (store instanceof Closeable) {
+            Runnable task = () -> {
+                try {
+                    ((Closeable) store).close();
+                } catch (IOException e) {
+                    log.warn("Failed to close session store", e);
+                }
+            };
+            try {
+                executorService.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
     }
 
     /**
@@ -360,7 +532,7 @@ public void onConfigurationLoad(ConfigurationLoadEvent event) {
     private static final class SessionHolder {
         private final SessionKey key;
         private final LocalSession session;
-        private long lastActive = System.currentTimeMillis();
+        private volatile long lastActive = System.currentTimeMillis();
 
         private SessionHolder(SessionKey key, LocalSession session) {
             this.key = key;
@@ -0,0 +1,821 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.session.storage;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.util.gson.GsonUtil;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Stores sessions in a single binary log file in a directory.
+ *
+ * <p>Sessions are kept as the fields that {@link Gson} would write for
+ * them, encoded in binary, and each save appends only the fields that
+ * changed since the session was last written. Only the offsets of each
+ * session's records are kept in memory, and a session is read back from
+ * its records when it is loaded. Saves are not synced to disk until
+ * {@link #flush()} is called, and the log is compacted down to one record
+ * per session once it has grown well past that.</p>
+ *
+ * <p>Loads only wait for saves and compaction, not for syncing to disk.
+ * A damaged record at the end of the file is discarded when the store is
+ * opened, while a damaged session record elsewhere fails the load of that
+ * session until it is saved again.</p>
+ *
+ * <p>Sessions saved as {@code <uuid>.json} files by
+ * {@link JsonFileSessionStore} are migrated into the log the first time
+ * they are loaded.</p>
+ */
+public class BinaryFileSessionStore implements SessionStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryFileSessionStore.class);
+
+    private static final String FILE_NAME = "sessions.dat";
+    private static final int MAGIC = 0x57455353; // "WESS"
+    private static final byte VERSION = 2;
+    private static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES;
+    private static final int RECORD_HEADER_BYTES = Byte.BYTES + Integer.BYTES;
+    private static final int SESSION_KEY_BYTES = Long.BYTES * 2 + Byte.BYTES;
+
+    private static final byte RECORD_FIELD = 1;
+    private static final byte RECORD_SESSION = 2;
+
+    private static final byte SESSION_CHANGES = 0;
+    private static final byte SESSION_FULL = 1;
+
+    private static final byte VALUE_REMOVED = 0;
+    private static final byte VALUE_FALSE = 1;
+    private static final byte VALUE_TRUE = 2;
+    private static final byte VALUE_STRING = 3;
+    private static final byte VALUE_NULL = 4;
+    private static final byte VALUE_LONG = 5;
+    private static final byte VALUE_DOUBLE = 6;
+    private static final byte VALUE_DECIMAL = 7;
+    private static final byte VALUE_ARRAY = 8;
+    private static final byte VALUE_OBJECT = 9;
+
+    private static final int MIN_COMPACT_RECORDS = 1024;
+    private static final int COMPACT_RATIO = 4;
+
+    private final Gson gson;
+    private final File dir;
+    private final Path file;
+    private final JsonFileSessionStore legacyStore;
+    // saves, compaction and opening take the write lock, everything else the read lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, LongList> index = new HashMap<>();
+    private final List<String> fieldNames = new ArrayList<>();
+    private final Object2IntMap<String> fieldIds = new Object2IntOpenHashMap<>();
+    @Nullable
+    private FileChannel channel;
+    private int records;
+    private volatile boolean needsSync;
+
+    /**
+     * Create a new session store.
+     *
+     * @param dir the directory
+     */
+    public BinaryFileSessionStore(File dir) {
+        checkNotNull(dir);
+
+        this.legacyStore = new JsonFileSessionStore(dir);
+        this.dir = dir;
+        this.file = dir.toPath().resolve(FILE_NAME);
+        this.gson = GsonUtil.createBuilder().create();
+        this.fieldIds.defaultReturnValue(-1);
+    }
+
+    @Override
+    public LocalSession load(UUID id) throws IOException {
+        checkNotNull(id);
+
+        Map<String, JsonElement> fields;
+        lockOpen();
+        try {
+            fields = readFields(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (fields == null) {
+            return migrate(id);
+        }
+        return toSession(fields);
+    }
+
+    private LocalSession toSession(Map<String, JsonElement> fields) throws IOException {
+        JsonObject object = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : fields.entrySet()) {
+            object.add(entry.getKey(), entry.getValue());
+        }
+        try {
+            LocalSession session = gson.fromJson(object, LocalSession.class);
+            return session != null ? session : new LocalSession();
+        } catch (JsonParseException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Load a session from its old JSON file, if there is one, and move it
+     * into this store.
+     *
+     * @param id the UUID
+     * @return the session
+     * @throws IOException thrown on read or write error
+     */
+    private LocalSession migrate(UUID id) throws IOException {
+        File legacyFile = new File(dir, id + ".json");
+        if (!legacyFile.exists()) {
+            return new LocalSession();
+        }
+
+        lock.writeLock().lock();
+        try {
+            open();
+            // another load may have migrated it first
+            Map<String, JsonElement> fields = readFields(id);
+            if (fields != null) {
+                return toSession(fields);
+            }
+
+            LocalSession session = legacyStore.load(id);
+            save(id, session);
+            // the old file may only go once its replacement is on disk
+            sync();
+            if (!legacyFile.delete()) {
+                log.warn("Failed to delete migrated session file {}", legacyFile);
+            }
+            return session;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void save(UUID id, LocalSession session) throws IOException {
+        checkNotNull(id);
+        checkNotNull(session);
+
+        JsonObject object = gson.toJsonTree(session).getAsJsonObject();
+        lock.writeLock().lock();
+        try {
+            open();
+
+            Map<String, JsonElement> previous;
+            try {
+                previous = readFields(id);
+            } catch (IOException e) {
+                log.warn("Rewriting damaged session " + id + " in " + file, e);
+                previous = null;
+            }
+            boolean full = previous == null;
+            if (previous == null) {
+                previous = Collections.emptyMap();
+            }
+            Map<String, JsonElement> changes = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                    changes.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (String name : previous.keySet()) {
+                if (!object.has(name)) {
+                    changes.put(name, null);
+                }
+            }
+            if (changes.isEmpty() && !full) {
+                return;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            List<String> newFields = new ArrayList<>();
+            for (String name : changes.keySet()) {
+                if (!fieldIds.containsKey(name)) {
+                    writeRecord(out, RECORD_FIELD, encodeField(fieldNames.size() + newFields.size(), name));
+                    newFields.add(name);
+                }
+            }
+            long offset = checkNotNull(channel).position() + out.size();
+            writeRecord(out, RECORD_SESSION, encodeSession(id, full, changes, newFields));
+            append(bytes.toByteArray());
+
+            for (String name : newFields) {
+                defineField(fieldNames.size(), name);
+            }
+            indexSession(id, full, offset);
+            records++;
+            needsSync = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sync any appended saves to disk, and compact the log if it has grown
+     * too large.
+     *
+     * @throws IOException thrown on write error
+     */
+    @Override
+    public void flush() throws IOException {
+        boolean compact;
+        lock.readLock().lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            sync();
+            compact = shouldCompact();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (compact) {
+            lock.writeLock().lock();
+            try {
+                if (channel != null && shouldCompact()) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private boolean shouldCompact() {
+        return records > Math.max(MIN_COMPACT_RECORDS, index.size() * COMPACT_RATIO);
+    }
+
+    private void sync() throws IOException {
+        if (needsSync) {
+            needsSync = false;
+            try {
+                checkNotNull(channel).force(false);
+            } catch (IOException e) {
+                needsSync = true;
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                try {
+                    sync();
+                    if (shouldCompact()) {
+                        compact();
+                    }
+                } finally {
+                    if (channel != null) {
+                        channel.close();
+                        channel = null;
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Take the read lock, opening the store first if it isn't open.
+     *
+     * @throws IOException thrown if opening the store fails
+     */
+    private void lockOpen() throws IOException {
+        lock.readLock().lock();
+        if (channel != null) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            open();
+            // downgrade, so the store can't be closed before the caller is done
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+
+        Files.createDirectories(dir.toPath());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long validLength = scan(channel);
+            if (validLength == 0) {
+                channel.truncate(0);
+                write(channel, header());
+            } else if (channel.size() > validLength) {
+                channel.truncate(validLength);
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.channel = channel;
+    }
+
+    /**
+     * Index the records in a store file.
+     *
+     * <p>Only the field records are read in full. Session records are
+     * indexed by the UUID at the start of their payload, and a full record
+     * replaces the earlier records of its session.</p>
+     *
+     * @param channel the file
+     * @return the length of the file that holds complete records, or
+     *     {@code 0} if the file should be started over
+     * @throws IOException thrown on read error
+     */
+    private long scan(FileChannel channel) throws IOException {
+        index.clear();
+        fieldNames.clear();
+        fieldIds.clear();
+        records = 0;
+
+        long size = channel.size();
+        if (size < FILE_HEADER_BYTES) {
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        readFully(channel, header, 0);
+        if (header.getInt() != MAGIC || header.get() != VERSION) {
+            log.warn("Ignoring unrecognised session store {}", file);
+            return 0;
+        }
+
+        long position = FILE_HEADER_BYTES;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES + SESSION_KEY_BYTES);
+        while (position < size) {
+            try {
+                if (size - position < RECORD_HEADER_BYTES) {
+                    throw new IOException("Truncated record");
+                }
+                recordHeader.clear();
+                recordHeader.limit((int) Math.min(recordHeader.capacity(), size - position));
+                readFully(channel, recordHeader, position);
+                byte type = recordHeader.get();
+                int length = recordHeader.getInt();
+                long next = position + RECORD_HEADER_BYTES + length + Integer.BYTES;
+                if (length < 0 || next > size) {
+                    throw new IOException("Truncated record");
+                }
+                switch (type) {
+                    case RECORD_FIELD:
+                        DataInputStream in = readRecord(channel, position, RECORD_FIELD);
+                        int id = in.readUnsignedShort();
+                        if (id != fieldNames.size()) {
+                            throw new IOException("Field " + id + " defined out of order");
+                        }
+                        defineField(id, in.readUTF());
+                        break;
+                    case RECORD_SESSION:
+                        if (length < SESSION_KEY_BYTES) {
+                            throw new IOException("Truncated record");
+                        }
+                        UUID sessionId = new UUID(recordHeader.getLong(), recordHeader.getLong());
+                        indexSession(sessionId, recordHeader.get() == SESSION_FULL, position);
+                        records++;
+                        break;
+                    default:
+                        throw new IOException("Unknown record type " + type);
+                }
+                position = next;
+            } catch (IOException e) {
+                log.warn("Discarding damaged session records at the end of {}", file);
+                return position;
+            }
+        }
+        return position;
+    }
+
+    private void indexSession(UUID id, boolean full, long offset) {
+        LongList offsets = full ? null : index.get(id);
+        if (offsets == null) {
+            offsets = new LongArrayList(1);
+            index.put(id, offsets);
+        }
+        offsets.add(offset);
+    }
+
+    /**
+     * Read the fields of a session from its records.
+     *
+     * @param id the UUID
+     * @return the fields, or {@code null} if the session isn't stored
+     * @throws IOException thrown on read error, or if a record is damaged
+     */
+    @Nullable
+    private Map<String, JsonElement> readFields(UUID id) throws IOException {
+        LongList offsets = index.get(id);
+        if (offsets == null) {
+            return null;
+        }
+        FileChannel channel = checkNotNull(this.channel);
+        Map<String, JsonElement> fields = new LinkedHashMap<>();
+        for (LongIterator it = offsets.iterator(); it.hasNext(); ) {
+            DataInputStream in = readRecord(channel, it.nextLong(), RECORD_SESSION);
+            if (!id.equals(new UUID(in.readLong(), in.readLong()))) {
+                throw new IOException("Session record indexed under the wrong UUID");
+            }
+            in.readByte();
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                int fieldId = in.readUnsignedShort();
+                if (fieldId >= fieldNames.size()) {
+                    throw new IOException("Undefined field " + fieldId);
+                }
+                String name = fieldNames.get(fieldId);
+                JsonElement value = readValue(in);
+                if (value == null) {
+                    fields.remove(name);
+                } else {
+                    fields.put(name, value);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private void compact() throws IOException {
+        Path tempFile = file.resolveSibling(FILE_NAME + ".tmp");
+        Map<UUID, LongList> compacted = new HashMap<>();
+        try (FileChannel tempChannel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.write(header());
+            for (int i = 0; i < fieldNames.size(); i++) {
+                writeRecord(out, RECORD_FIELD, encodeField(i, fieldNames.get(i)));
+            }
+            write(tempChannel, bytes.toByteArray());
+
+            // one session at a time, so only the index is ever held in memory
+            for (UUID id : index.keySet()) {
+                Map<String, JsonElement> fields = checkNotNull(readFields(id));
+                bytes.reset();
+                writeRecord(out, RECORD_SESSION, encodeSession(id, true, fields, Collections.emptyList()));
+                LongList offsets = new LongArrayList(1);
+                offsets.add(tempChannel.position());
+                compacted.put(id, offsets);
+                write(tempChannel, bytes.toByteArray());
+            }
+            tempChannel.force(true);
+        }
+
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        index.clear();
+        index.putAll(compacted);
+        records = index.size();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        this.channel = channel;
+    }
+
+    private void append(byte[] data) throws IOException {
+        FileChannel channel = this.channel;
+        checkNotNull(channel);
+        long position = channel.position();
+        try {
+            write(channel, data);
+        } catch (IOException e) {
+            // Don't leave half a record in front of the next one
+            try {
+                channel.truncate(position);
+                channel.position(position);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fill a buffer from a file, without moving the file's position, and
+     * flip it for reading.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+    }
+
+    private static byte[] header() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        return bytes.toByteArray();
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, 0, payload.length);
+        out.writeByte(type);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Read and check a record.
+     *
+     * @param channel the file
+     * @param position the position of the record
+     * @param expectedType the type the record should have
+     * @return the record payload
+     * @throws IOException thrown on read error, or if the record is damaged
+     */
+    private static DataInputStream readRecord(FileChannel channel, long position, byte expectedType) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        readFully(channel, header, position);
+        byte type = header.get();
+        int length = header.getInt();
+        if (type != expectedType || length < 0) {
+            throw new IOException("Unexpected record at " + position);
+        }
+        ByteBuffer record = ByteBuffer.allocate(length + Integer.BYTES);
+        readFully(channel, record, position + RECORD_HEADER_BYTES);
+        byte[] payload = new byte[length];
+        record.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, 0, payload.length);
+        if (record.getInt() != (int) crc.getValue()) {
+            throw new IOException("Record checksum mismatch");
+        }
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    private void defineField(int id, String name) {
+        fieldNames.add(name);
+        fieldIds.put(name, id);
+    }
+
+    private static byte[] encodeField(int id, String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(id);
+        out.writeUTF(name);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encode a session record.
+     *
+     * @param id the UUID
+     * @param full whether the record holds every field, replacing the earlier records
+     * @param changes the changed fields, with {@code null} for removed fields
+     * @param newFields fields that are being defined alongside this record
+     * @return the record payload
+     * @throws IOException never
+     */
+    private byte[] encodeSession(UUID id, boolean full, Map<String, JsonElement> changes, List<String> newFields) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+        out.writeByte(full ? SESSION_FULL : SESSION_CHANGES);
+        out.writeShort(changes.size());
+        for (Map.Entry<String, JsonElement> entry : changes.entrySet()) {
+            int fieldId = fieldIds.getInt(entry.getKey());
+            out.writeShort(fieldId != -1 ? fieldId : fieldNames.size() + newFields.indexOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+        }
+        return bytes.toByteArray();
+    }
+
+    @VisibleForTesting
+    static void writeValue(DataOutputStream out, @Nullable JsonElement value) throws IOException {
+        if (value == null) {
+            out.writeByte(VALUE_REMOVED);
+        } else if (value.isJsonNull()) {
+            out.writeByte(VALUE_NULL);
+        } else if (value.isJsonPrimitive()) {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.writeByte(primitive.getAsBoolean() ? VALUE_TRUE : VALUE_FALSE);
+            } else if (primitive.isString()) {
+                out.writeByte(VALUE_STRING);
+                writeString(out, primitive.getAsString());
+            } else {
+                Number number = primitive.getAsNumber();
+                if (number instanceof Integer || number instanceof Long
+                        || number instanceof Short || number instanceof Byte) {
+                    out.writeByte(VALUE_LONG);
+                    out.writeLong(number.longValue());
+                } else if (number instanceof Double || number instanceof Float) {
+                    out.writeByte(VALUE_DOUBLE);
+                    out.writeDouble(number.doubleValue());
+                } else {
+                    writeDecimal(out, primitive.getAsBigDecimal());
+                }
+            }
+        } else if (value.isJsonArray()) {
+            JsonArray array = value.getAsJsonArray();
+            out.writeByte(VALUE_ARRAY);
+            out.writeInt(array.size());
+            for (JsonElement element : array) {
+                writeValue(out, element);
+            }
+        } else {
+            JsonObject object = value.getAsJsonObject();
+            out.writeByte(VALUE_OBJECT);
+            out.writeInt(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                writeString(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal decimal) throws IOException {
+        // parsed numbers are only kept as text if they don't fit a long or double
+        if (decimal.scale() <= 0 && decimal.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) >= 0
+                && decimal.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong(decimal.longValueExact());
+        } else if (Double.isFinite(decimal.doubleValue())
+                && BigDecimal.valueOf(decimal.doubleValue()).compareTo(decimal) == 0) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble(decimal.doubleValue());
+        } else {
+            out.writeByte(VALUE_DECIMAL);
+            writeString(out, decimal.toString());
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static JsonElement readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case VALUE_REMOVED:
+                return null;
+            case VALUE_NULL:
+                return JsonNull.INSTANCE;
+            case VALUE_FALSE:
+                return new JsonPrimitive(false);
+            case VALUE_TRUE:
+                return new JsonPrimitive(true);
+            case VALUE_STRING:
+                return new JsonPrimitive(readString(in));
+            case VALUE_LONG:
+                return new JsonPrimitive(in.readLong());
+            case VALUE_DOUBLE:
+                return new JsonPrimitive(in.readDouble());
+            case VALUE_DECIMAL:
+                try {
+                    return new JsonPrimitive(new BigDecimal(readString(in)));
+                } catch (NumberFormatException e) {
+                    throw new IOException(e);
+                }
+            case VALUE_ARRAY: {
+                int size = readCount(in);
+                JsonArray array = new JsonArray();
+                for (int i = 0; i < size; i++) {
+                    array.add(readElement(in));
+                }
+                return array;
+            }
+            case VALUE_OBJECT: {
+                int size = readCount(in);
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    object.add(key, readElement(in));
+                }
+                return object;
+            }
+            default:
+                throw new IOException("Unknown value type " + tag);
+        }
+    }
+
+    private static JsonElement readElement(DataInputStream in) throws IOException {
+        JsonElement element = readValue(in);
+        if (element == null) {
+            throw new IOException("Removed value inside an array or object");
+        }
+        return element;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        // every element takes at least its type byte
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Truncated array or object");
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Truncated string");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
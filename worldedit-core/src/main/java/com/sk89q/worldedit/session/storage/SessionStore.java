@@ -54,4 +54,13 @@ public interface SessionStore {
      */
     void save(UUID id, LocalSession session) throws IOException;
 
+    /**
+     * Make sure that sessions passed to {@link #save(UUID, LocalSession)}
+     * have been written out. Called after each batch of saves.
+     *
+     * @throws IOException thrown on write error
+     */
+    default void flush() throws IOException {
+    }
+
 }
@@ -122,8 +122,16 @@ public void load() {
         navigationWandMaxDistance = getInt("nav-wand-distance", navigationWandMaxDistance);
         navigationUseGlass = getBool("nav-use-glass", navigationUseGlass);
         scriptTimeout = getInt("scripting-timeout", scriptTimeout);
+        scriptOptimizationLevel = getInt("scripting-optimization-level", scriptOptimizationLevel);
         calculationTimeout = getInt("calculation-timeout", calculationTimeout);
         maxCalculationTimeout = getInt("max-calculation-timeout", maxCalculationTimeout);
+        smoothParallel = getBool("smoothing-parallel", smoothParallel);
+        chunkPreloadLimit = getInt("chunk-preload-max-chunks", chunkPreloadLimit);
+        chunkPreloadHold = getBool("chunk-preload-hold", chunkPreloadHold);
+        chunkPrefetchDistance = getInt("chunk-preload-prefetch-distance", chunkPrefetchDistance);
+        watchdogTickInterval = getInt("watchdog-tick-interval", watchdogTickInterval);
+        schedulerTickBudget = getInt("scheduler-tick-budget", schedulerTickBudget);
+        schedulerDeferEdits = getBool("scheduler-defer-edits", schedulerDeferEdits);
         saveDir = getString("schematic-save-dir", saveDir);
         scriptsDir = getString("craftscript-dir", scriptsDir);
         butcherDefaultRadius = getInt("butcher-default-radius", butcherDefaultRadius);
@@ -134,6 +142,10 @@ public void load() {
         setDefaultLocaleName(getString("default-locale", defaultLocaleName));
 
         LocalSession.MAX_HISTORY_SIZE = Math.max(15, getInt("history-size", 15));
+        journalHistory = getBool("history-journal", journalHistory);
+        journalHistoryMaxAge = getInt("history-journal-max-age", journalHistoryMaxAge);
+        journalHistoryMaxSize = getInt("history-journal-max-size", journalHistoryMaxSize);
+        skipUnchangedBlocks = getBool("history-skip-unchanged", skipUnchangedBlocks);
 
         String snapshotsDir = getString("snapshots-dir", "");
         boolean experimentalSnapshots = getBool("snapshots-experimental", false);
@@ -104,16 +104,30 @@ public void load() {
         navigationUseGlass = config.getBoolean("navigation.use-glass", navigationUseGlass);
 
         scriptTimeout = config.getInt("scripting.timeout", scriptTimeout);
+        scriptOptimizationLevel = config.getInt("scripting.optimization-level", scriptOptimizationLevel);
         scriptsDir = config.getString("scripting.dir", scriptsDir);
 
         calculationTimeout = config.getInt("calculation.timeout", calculationTimeout);
         maxCalculationTimeout = config.getInt("calculation.max-timeout", maxCalculationTimeout);
 
+        smoothParallel = config.getBoolean("smoothing.parallel", smoothParallel);
+
+        chunkPreloadLimit = config.getInt("chunk-preload.max-chunks", chunkPreloadLimit);
+        chunkPreloadHold = config.getBoolean("chunk-preload.hold", chunkPreloadHold);
+        chunkPrefetchDistance = config.getInt("chunk-preload.prefetch-distance", chunkPrefetchDistance);
+        watchdogTickInterval = config.getInt("watchdog.tick-interval", watchdogTickInterval);
+        schedulerTickBudget = config.getInt("scheduler.tick-budget", schedulerTickBudget);
+        schedulerDeferEdits = config.getBoolean("scheduler.defer-edits", schedulerDeferEdits);
+
         saveDir = config.getString("saving.dir", saveDir);
 
         allowSymlinks = config.getBoolean("files.allow-symbolic-links", false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, config.getInt("history.size", 15));
         SessionManager.EXPIRATION_GRACE = config.getInt("history.expiration", 10) * 60 * 1000;
+        journalHistory = config.getBoolean("history.journal.enabled", journalHistory);
+        journalHistoryMaxAge = config.getInt("history.journal.max-age", journalHistoryMaxAge);
+        journalHistoryMaxSize = config.getInt("history.journal.max-size", journalHistoryMaxSize);
+        skipUnchangedBlocks = config.getBoolean("history.skip-unchanged", skipUnchangedBlocks);
 
         showHelpInfo = config.getBoolean("show-help-on-first-use", true);
         serverSideCUI = config.getBoolean("server-side-cui", true);
@@ -85,17 +85,30 @@ public static <V> BlockMap<V> copyOf(Map<? extends BlockVector3, ? extends V> so
     private static final int BITS_6 = mask(6);
 
     private static long toGroupKey(BlockVector3 location) {
-        return ((location.getX() >>> 6) & BITS_20)
-            | (((location.getZ() >>> 6) & BITS_20) << 20)
-            | (((location.getY() >>> 8) & BITS_24) << (20 + 20));
+        return toGroupKey(location.getX(), location.getY(), location.getZ());
+    }
+
+    // also used by BlockSet
+    static long toGroupKey(int x, int y, int z) {
+        return ((x >>> 6) & BITS_20)
+            | (((z >>> 6) & BITS_20) << 20)
+            | (((y >>> 8) & BITS_24) << (20 + 20));
     }
 
     private static int toInnerKey(BlockVector3 location) {
-        return (location.getX() & BITS_6)
-            | ((location.getZ() & BITS_6) << 6)
-            | ((location.getY() & BITS_8) << (6 + 6));
+        return toInnerKey(location.getX(), location.getY(), location.getZ());
     }
 
+    // also used by BlockSet
+    static int toInnerKey(int x, int y, int z) {
+        return (x & BITS_6)
+            | ((z & BITS_6) << 6)
+            | ((y & BITS_8) << (6 + 6));
+    }
+
+    // the number of distinct inner keys
+    static final int INNER_KEY_SPACE = 1 << (6 + 6 + 8);
+
     private static final long GROUP_X = BITS_20;
     private static final long GROUP_Z = BITS_20 << 20;
     private static final long GROUP_Y = BITS_24 << (20 + 20);
@@ -103,7 +116,7 @@ private static int toInnerKey(BlockVector3 location) {
     private static final int INNER_Z = BITS_6 << 6;
     private static final int INNER_Y = BITS_8 << (6 + 6);
 
-    private static BlockVector3 reconstructLocation(long group, int inner) {
+    static BlockVector3 reconstructLocation(long group, int inner) {
         int groupX = (int) ((group & GROUP_X) << 6);
         int x = fixSign(groupX | (inner & INNER_X), 26);
         int groupZ = (int) ((group & GROUP_Z) >>> (20 - 6));
@@ -0,0 +1,263 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A space-efficient set implementation for block locations.
+ *
+ * <p>Locations are grouped the same way as in {@link BlockMap}. Each group
+ * is split into 16x16x16 sections, and a section is stored as a bit set with
+ * one bit per location, allocated when a location in it is first added.
+ * Dense sets, such as the positions visited by a flood fill, take about one
+ * bit per location, while sparse sets only pay for the sections they touch.</p>
+ */
+public class BlockSet extends AbstractSet<BlockVector3> {
+
+    // A group is 4x4x16 sections (X, Z, Y) of 16x16x16 locations each
+    private static final int PAGES_PER_GROUP = BlockMap.INNER_KEY_SPACE >>> 12;
+    private static final int WORDS_PER_PAGE = (1 << 12) / Long.SIZE;
+
+    private final Long2ObjectMap<long[][]> groups = new Long2ObjectOpenHashMap<>(4, 0.75f);
+    private int size;
+
+    // Neighbouring locations are usually in the same group, so remember the last one
+    private long lastGroupKey;
+    private long[][] lastGroup;
+
+    private static int toPageIndex(int innerKey) {
+        return ((innerKey >>> 4) & 0x3)
+            | (((innerKey >>> 10) & 0x3) << 2)
+            | ((innerKey >>> 16) << 4);
+    }
+
+    private static int toPageBit(int innerKey) {
+        return (innerKey & 0xF)
+            | (((innerKey >>> 6) & 0xF) << 4)
+            | (((innerKey >>> 12) & 0xF) << 8);
+    }
+
+    private static int toInnerKey(int pageIndex, int pageBit) {
+        int x = ((pageIndex & 0x3) << 4) | (pageBit & 0xF);
+        int z = (((pageIndex >>> 2) & 0x3) << 4) | ((pageBit >>> 4) & 0xF);
+        int y = ((pageIndex >>> 4) << 4) | (pageBit >>> 8);
+        return x | (z << 6) | (y << 12);
+    }
+
+    private long[][] getGroup(long groupKey, boolean create) {
+        if (lastGroup != null && lastGroupKey == groupKey) {
+            return lastGroup;
+        }
+        long[][] group = groups.get(groupKey);
+        if (group == null) {
+            if (!create) {
+                return null;
+            }
+            group = new long[PAGES_PER_GROUP][];
+            groups.put(groupKey, group);
+        }
+        lastGroupKey = groupKey;
+        lastGroup = group;
+        return group;
+    }
+
+    private long[] getPage(int x, int y, int z, boolean create) {
+        long[][] group = getGroup(BlockMap.toGroupKey(x, y, z), create);
+        if (group == null) {
+            return null;
+        }
+        int pageIndex = toPageIndex(BlockMap.toInnerKey(x, y, z));
+        long[] page = group[pageIndex];
+        if (page == null && create) {
+            page = group[pageIndex] = new long[WORDS_PER_PAGE];
+        }
+        return page;
+    }
+
+    /**
+     * Add a location to this set.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return {@code true} if the location was not already in the set
+     */
+    public boolean add(int x, int y, int z) {
+        long[] page = getPage(x, y, z, true);
+        int pageBit = toPageBit(BlockMap.toInnerKey(x, y, z));
+        int word = pageBit >>> 6;
+        long bit = 1L << pageBit;
+        if ((page[word] & bit) != 0) {
+            return false;
+        }
+        page[word] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Check if a location is in this set.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return {@code true} if the location is in the set
+     */
+    public boolean contains(int x, int y, int z) {
+        long[] page = getPage(x, y, z, false);
+        if (page == null) {
+            return false;
+        }
+        int pageBit = toPageBit(BlockMap.toInnerKey(x, y, z));
+        return (page[pageBit >>> 6] & (1L << pageBit)) != 0;
+    }
+
+    /**
+     * Remove a location from this set.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return {@code true} if the location was in the set
+     */
+    public boolean remove(int x, int y, int z) {
+        long[] page = getPage(x, y, z, false);
+        if (page == null) {
+            return false;
+        }
+        int pageBit = toPageBit(BlockMap.toInnerKey(x, y, z));
+        int word = pageBit >>> 6;
+        long bit = 1L << pageBit;
+        if ((page[word] & bit) == 0) {
+            return false;
+        }
+        page[word] &= ~bit;
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean add(BlockVector3 location) {
+        return add(location.getX(), location.getY(), location.getZ());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof BlockVector3)) {
+            return false;
+        }
+        BlockVector3 location = (BlockVector3) o;
+        return contains(location.getX(), location.getY(), location.getZ());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof BlockVector3)) {
+            return false;
+        }
+        BlockVector3 location = (BlockVector3) o;
+        return remove(location.getX(), location.getY(), location.getZ());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        groups.clear();
+        size = 0;
+        lastGroup = null;
+    }
+
+    @Override
+    public Iterator<BlockVector3> iterator() {
+        return new Iterator<BlockVector3>() {
+
+            private final ObjectIterator<Long2ObjectMap.Entry<long[][]>> groupIterator
+                = Long2ObjectMaps.fastIterator(groups);
+            private long groupKey;
+            private long[][] group;
+            private int pageIndex;
+            private long[] page;
+            private int wordIndex;
+            private long word;
+            private int lastPageBit = -1;
+            private long[] lastPage;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (page != null && ++wordIndex < WORDS_PER_PAGE) {
+                        word = page[wordIndex];
+                        continue;
+                    }
+                    if (group != null && ++pageIndex < PAGES_PER_GROUP) {
+                        page = group[pageIndex];
+                        wordIndex = -1;
+                        continue;
+                    }
+                    if (!groupIterator.hasNext()) {
+                        return false;
+                    }
+                    Long2ObjectMap.Entry<long[][]> entry = groupIterator.next();
+                    groupKey = entry.getLongKey();
+                    group = entry.getValue();
+                    pageIndex = -1;
+                    page = null;
+                }
+                return true;
+            }
+
+            @Override
+            public BlockVector3 next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bitIndex = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                lastPageBit = (wordIndex << 6) | bitIndex;
+                lastPage = page;
+                return BlockMap.reconstructLocation(groupKey, toInnerKey(pageIndex, lastPageBit));
+            }
+
+            @Override
+            public void remove() {
+                checkState(lastPageBit != -1, "next() has not been called");
+                lastPage[lastPageBit >>> 6] &= ~(1L << lastPageBit);
+                lastPageBit = -1;
+                size--;
+            }
+        };
+    }
+
+}
@@ -29,7 +29,18 @@
 public class LazyReference<T> {
 
     public static <T> LazyReference<T> from(Supplier<T> valueComputation) {
-        return new LazyReference<>(valueComputation);
+        return new LazyReference<>(new RefInfo<>(valueComputation));
+    }
+
+    /**
+     * Create a reference to a value that has already been computed.
+     *
+     * @param value the value
+     * @param <T> the type of the value
+     * @return the reference
+     */
+    public static <T> LazyReference<T> computed(T value) {
+        return new LazyReference<>(value);
     }
 
     // Memory saving technique: hold the computation info in the same reference field that we'll
@@ -47,8 +58,17 @@ private RefInfo(Supplier<T> valueComputation) {
 
     private Object value;
 
-    private LazyReference(Supplier<T> valueComputation) {
-        this.value = new RefInfo<>(valueComputation);
+    private LazyReference(Object value) {
+        this.value = value;
+    }
+
+    /**
+     * Check if the value has been computed yet, without computing it.
+     *
+     * @return {@code true} if {@link #getValue()} will not block
+     */
+    public boolean isComputed() {
+        return !(value instanceof RefInfo);
     }
 
     // casts are safe, value is either RefInfo or T
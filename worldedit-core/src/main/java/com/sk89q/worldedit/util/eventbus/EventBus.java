@@ -20,6 +20,7 @@
 package com.sk89q.worldedit.util.eventbus;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import org.slf4j.Logger;
@@ -27,13 +28,12 @@
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -44,16 +44,24 @@
  * <p>This class is based on Guava's {@link EventBus} but priority is supported
  * and events are dispatched at the time of call, rather than being queued up.
  * This does allow dispatching during an in-progress dispatch.</p>
+ *
+ * <p>Posting does not lock. The sorted handlers for each event class are
+ * kept in a copy-on-write table, which is thrown away whenever a handler
+ * is added or removed.</p>
  */
 public final class EventBus {
 
     private final Logger logger = LoggerFactory.getLogger(EventBus.class);
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+
+    private final Object lock = new Object();
 
     private final SetMultimap<Class<?>, EventHandler> handlersByType =
         HashMultimap.create();
 
+    private volatile Map<Class<?>, EventHandler[]> dispatchTable = ImmutableMap.of();
+
     /**
      * Strategy for finding handler methods in registered objects.  Currently,
      * only the {@link AnnotatedSubscriberFinder} is supported, but this is
@@ -72,11 +80,9 @@ public final class EventBus {
     public void subscribe(Class<?> clazz, EventHandler handler) {
         checkNotNull(clazz);
         checkNotNull(handler);
-        lock.writeLock().lock();
-        try {
+        synchronized (lock) {
             handlersByType.put(clazz, handler);
-        } finally {
-            lock.writeLock().unlock();
+            dispatchTable = ImmutableMap.of();
         }
     }
 
@@ -87,11 +93,9 @@ public void subscribe(Class<?> clazz, EventHandler handler) {
      */
     public void subscribeAll(Multimap<Class<?>, EventHandler> handlers) {
         checkNotNull(handlers);
-        lock.writeLock().lock();
-        try {
+        synchronized (lock) {
             handlersByType.putAll(handlers);
-        } finally {
-            lock.writeLock().unlock();
+            dispatchTable = ImmutableMap.of();
         }
     }
 
@@ -104,11 +108,9 @@ public void subscribeAll(Multimap<Class<?>, EventHandler> handlers) {
     public void unsubscribe(Class<?> clazz, EventHandler handler) {
         checkNotNull(clazz);
         checkNotNull(handler);
-        lock.writeLock().lock();
-        try {
+        synchronized (lock) {
             handlersByType.remove(clazz, handler);
-        } finally {
-            lock.writeLock().unlock();
+            dispatchTable = ImmutableMap.of();
         }
     }
 
@@ -119,13 +121,11 @@ public void unsubscribe(Class<?> clazz, EventHandler handler) {
      */
     public void unsubscribeAll(Multimap<Class<?>, EventHandler> handlers) {
         checkNotNull(handlers);
-        lock.writeLock().lock();
-        try {
+        synchronized (lock) {
             for (Map.Entry<Class<?>, Collection<EventHandler>> entry : handlers.asMap().entrySet()) {
                 handlersByType.get(entry.getKey()).removeAll(entry.getValue());
             }
-        } finally {
-            lock.writeLock().unlock();
+            dispatchTable = ImmutableMap.of();
         }
     }
 
@@ -159,26 +159,40 @@ public void unregister(Object object) {
      * @param event  event to post.
      */
     public void post(Object event) {
-        List<EventHandler> dispatching = new ArrayList<>();
-
-        Set<Class<?>> dispatchTypes = flattenHierarchyCache.get(event.getClass());
-        lock.readLock().lock();
-        try {
-            for (Class<?> eventType : dispatchTypes) {
-                Set<EventHandler> wrappers = handlersByType.get(eventType);
+        for (EventHandler handler : getHandlers(event.getClass())) {
+            dispatch(event, handler);
+        }
+    }
 
-                if (wrappers != null && !wrappers.isEmpty()) {
-                    dispatching.addAll(wrappers);
-                }
-            }
-        } finally {
-            lock.readLock().unlock();
+    /**
+     * Get the handlers for an event class, in dispatch order.
+     *
+     * @param eventClass the event class
+     * @return the handlers
+     */
+    private EventHandler[] getHandlers(Class<?> eventClass) {
+        EventHandler[] handlers = dispatchTable.get(eventClass);
+        if (handlers != null) {
+            return handlers;
         }
 
-        Collections.sort(dispatching);
+        synchronized (lock) {
+            Map<Class<?>, EventHandler[]> table = dispatchTable;
+            handlers = table.get(eventClass);
+            if (handlers == null) {
+                List<EventHandler> dispatching = new ArrayList<>();
+                for (Class<?> eventType : flattenHierarchyCache.get(eventClass)) {
+                    dispatching.addAll(handlersByType.get(eventType));
+                }
+                handlers = dispatching.isEmpty() ? NO_HANDLERS : dispatching.toArray(NO_HANDLERS);
+                // stable, like Collections.sort
+                Arrays.sort(handlers);
 
-        for (EventHandler handler : dispatching) {
-            dispatch(event, handler);
+                Map<Class<?>, EventHandler[]> newTable = new HashMap<>(table);
+                newTable.put(eventClass, handlers);
+                dispatchTable = newTable;
+            }
+            return handlers;
         }
     }
 
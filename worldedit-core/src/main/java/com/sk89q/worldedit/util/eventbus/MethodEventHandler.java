@@ -19,17 +19,36 @@
 
 package com.sk89q.worldedit.util.eventbus;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Invokes a {@link Method} to dispatch an event.
+ *
+ * <p>The method is linked once, when the handler is created. A class
+ * implementing {@link Consumer} is generated for it where possible, and a
+ * {@link MethodHandle} is used otherwise, for example if the method's class
+ * is not visible to WorldEdit's class loader.</p>
  */
 public class MethodEventHandler extends EventHandler {
 
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(void.class, Object.class);
+
     private final Object object;
     private final Method method;
+    @Nullable
+    private final Consumer<Object> consumer;
+    private final MethodHandle handle;
 
     /**
      * Create a new event handler.
@@ -42,6 +61,53 @@ public MethodEventHandler(Priority priority, Object object, Method method) {
         checkNotNull(method);
         this.object = object;
         this.method = method;
+
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Method " + method + " is not accessible", e);
+        }
+        this.consumer = createConsumer(object, method, handle);
+        this.handle = (Modifier.isStatic(method.getModifiers()) ? handle : handle.bindTo(object))
+            .asType(DISPATCH_TYPE);
+    }
+
+    @Nullable
+    private static Consumer<Object> createConsumer(Object object, Method method, MethodHandle handle) {
+        Class<?> eventType = method.getParameterTypes()[0];
+        // the generated class is linked against ours, so it can only call what we can see
+        if (!Modifier.isPublic(method.getModifiers())
+            || !isLinkable(method.getDeclaringClass())
+            || !isLinkable(eventType)) {
+            return null;
+        }
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        try {
+            MethodType factoryType = isStatic
+                ? MethodType.methodType(Consumer.class)
+                : MethodType.methodType(Consumer.class, method.getDeclaringClass());
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", factoryType,
+                DISPATCH_TYPE, handle, MethodType.methodType(void.class, eventType));
+            @SuppressWarnings("unchecked")
+            Consumer<Object> consumer = (Consumer<Object>) (isStatic
+                ? site.getTarget().invoke()
+                : site.getTarget().invoke(object));
+            return consumer;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static boolean isLinkable(Class<?> clazz) {
+        if (!Modifier.isPublic(clazz.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, MethodEventHandler.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
     }
 
     /**
@@ -55,7 +121,17 @@ public Method getMethod() {
 
     @Override
     public void dispatch(Object event) throws Exception {
-        method.invoke(object, event);
+        if (consumer != null) {
+            consumer.accept(event);
+            return;
+        }
+        try {
+            handle.invokeExact(event);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
     }
 
     @Override
@@ -44,7 +44,10 @@
 import com.sk89q.worldedit.world.weather.WeatherType;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 
 /**
@@ -82,6 +85,21 @@ public interface World extends Extent, Keyed {
      */
     int getMaxY();
 
+    /**
+     * Get an upper bound for the Y of the highest non-air block in a column.
+     *
+     * <p>This is a hint used to skip empty space when scanning a column from
+     * the top down, such as from the platform's own height maps. Worlds that
+     * can't tell cheaply return {@link #getMaxY()}.</p>
+     *
+     * @param x the X coordinate
+     * @param z the Z coordinate
+     * @return the highest Y that may hold a non-air block
+     */
+    default int getHighestBlockYBound(int x, int z) {
+        return getMaxY();
+    }
+
     /**
      * Create a mask that matches all liquids.
      *
@@ -164,6 +182,22 @@ default boolean notifyAndLightBlock(BlockVector3 position, BlockState previousTy
      */
     Set<SideEffect> applySideEffects(BlockVector3 position, BlockState previousType, SideEffectSet sideEffectSet) throws WorldEditException;
 
+    /**
+     * Applies a set of side effects on several blocks in the same chunk.
+     *
+     * <p>Implementations may batch the work for the whole chunk, for example
+     * by only notifying each neighbouring block once.</p>
+     *
+     * @param chunk the position of the chunk containing every block
+     * @param changes the positions of the blocks, to the previous block at each
+     * @param sideEffectSet which side effects to perform
+     */
+    default void applySideEffects(BlockVector2 chunk, Map<BlockVector3, BlockState> changes, SideEffectSet sideEffectSet) throws WorldEditException {
+        for (Map.Entry<BlockVector3, BlockState> entry : changes.entrySet()) {
+            applySideEffects(entry.getKey(), entry.getValue(), sideEffectSet);
+        }
+    }
+
     /**
      * Get the light level at the given block.
      *
@@ -269,6 +303,37 @@ default boolean regenerate(Region region, Extent extent, RegenOptions options) {
      */
     void checkLoadedChunk(BlockVector3 position);
 
+    /**
+     * Start loading the given chunks without waiting for them, optionally
+     * keeping them loaded until {@link #releaseChunks(Collection)} is called.
+     *
+     * <p>Holds are counted per chunk and taken when this method is called,
+     * whether or not the chunks finish loading, so every call with
+     * {@code hold} must be matched by one call to
+     * {@link #releaseChunks(Collection)} with the same chunks. A chunk stays
+     * held until all of its holds have been released.</p>
+     *
+     * <p>Platforms that can't load chunks asynchronously do nothing, and
+     * chunks are loaded when they are first used instead.</p>
+     *
+     * @param chunks the chunks to load
+     * @param hold true to keep the chunks loaded
+     * @return a future that completes once the chunks are loaded, with
+     *     whether they are all loaded and being held
+     */
+    default CompletableFuture<Boolean> loadChunksAsync(Collection<BlockVector2> chunks, boolean hold) {
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * Release one hold on each of the given chunks, taken by
+     * {@link #loadChunksAsync(Collection, boolean)}.
+     *
+     * @param chunks the chunks
+     */
+    default void releaseChunks(Collection<BlockVector2> chunks) {
+    }
+
     /**
      * Fix the given chunks after fast mode was used.
      *
@@ -24,6 +24,7 @@
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.blocks.TileEntityBlock;
 import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.concurrency.LazyReference;
 
 import java.util.Map;
 import java.util.Objects;
@@ -39,12 +40,16 @@
  * made correctly. In some implementations, it may not be possible to get a
  * snapshot of blocks correctly, so, for example, the NBT data for a block
  * may be missing.</p>
+ *
+ * <p>The NBT data is held in a {@link LazyReference}, so that platforms can
+ * hand out blocks whose tile entity data is only converted to a
+ * {@link CompoundTag} if something actually asks for it.</p>
  */
 public class BaseBlock implements BlockStateHolder<BaseBlock>, TileEntityBlock {
 
     private final BlockState blockState;
     @Nullable
-    private final CompoundTag nbtData;
+    private final LazyReference<CompoundTag> nbtData;
 
     /**
      * Construct a block with a state.
@@ -63,6 +68,18 @@ protected BaseBlock(BlockState blockState) {
      * @param nbtData NBT data, which must be provided
      */
     protected BaseBlock(BlockState state, CompoundTag nbtData) {
+        checkNotNull(nbtData);
+        this.blockState = state;
+        this.nbtData = LazyReference.computed(nbtData);
+    }
+
+    /**
+     * Construct a block with the given state and lazily computed NBT data.
+     *
+     * @param state The block state
+     * @param nbtData reference to the NBT data, which must be provided
+     */
+    protected BaseBlock(BlockState state, LazyReference<CompoundTag> nbtData) {
         checkNotNull(nbtData);
         this.blockState = state;
         this.nbtData = nbtData;
@@ -85,7 +102,24 @@ public BlockType getBlockType() {
 
     @Override
     public <V> BaseBlock with(Property<V> property, V value) {
-        return this.blockState.with(property, value).toBaseBlock(getNbtData());
+        return withState(this.blockState.with(property, value));
+    }
+
+    /**
+     * Creates a copy of this block with another state and the same NBT data.
+     *
+     * <p>Subclasses that carry more than the NBT data, such as the native
+     * tile entity data of a platform, return an instance of their own type.</p>
+     *
+     * @param state the new state
+     * @return a block with the new state
+     */
+    protected BaseBlock withState(BlockState state) {
+        if (this.nbtData != null) {
+            // share the reference, so that the NBT data isn't computed just to be copied
+            return new BaseBlock(state, this.nbtData);
+        }
+        return state.toBaseBlock();
     }
 
     /**
@@ -101,7 +135,7 @@ public <V> V getState(Property<V> property) {
 
     @Override
     public boolean hasNbtData() {
-        return getNbtData() != null;
+        return this.nbtData != null;
     }
 
     @Override
@@ -121,6 +155,16 @@ public String getNbtId() {
     @Nullable
     @Override
     public CompoundTag getNbtData() {
+        return this.nbtData == null ? null : this.nbtData.getValue();
+    }
+
+    /**
+     * Gets the reference to the NBT data of this block, without computing it.
+     *
+     * @return the NBT data reference, or {@code null} if there is no NBT data
+     */
+    @Nullable
+    public LazyReference<CompoundTag> getNbtReference() {
         return this.nbtData;
     }
 
@@ -131,6 +175,10 @@ public void setNbtData(@Nullable CompoundTag nbtData) {
 
     /**
      * Checks whether the type ID and data value are equal.
+     *
+     * <p>The states are compared first, and NBT data that has not been
+     * computed yet is only computed if the states are equal and the two
+     * blocks do not share the same NBT data reference.</p>
      */
     @Override
     public boolean equals(Object o) {
@@ -143,7 +191,16 @@ public boolean equals(Object o) {
 
         final BaseBlock otherBlock = (BaseBlock) o;
 
-        return this.blockState.equalsFuzzy(otherBlock.blockState) && Objects.equals(getNbtData(), otherBlock.getNbtData());
+        if (!this.blockState.equalsFuzzy(otherBlock.blockState)) {
+            return false;
+        }
+        if (this.nbtData == otherBlock.nbtData) {
+            return true;
+        }
+        if (this.nbtData == null || otherBlock.nbtData == null) {
+            return false;
+        }
+        return Objects.equals(this.nbtData.getValue(), otherBlock.nbtData.getValue());
     }
 
     /**
@@ -171,7 +228,7 @@ public BaseBlock toBaseBlock() {
     public BaseBlock toBaseBlock(CompoundTag compoundTag) {
         if (compoundTag == null) {
             return this.blockState.toBaseBlock();
-        } else if (compoundTag == this.nbtData) {
+        } else if (this.nbtData != null && this.nbtData.isComputed() && compoundTag == this.nbtData.getValue()) {
             return this;
         } else {
             return new BaseBlock(this.blockState, compoundTag);
@@ -180,9 +237,10 @@ public BaseBlock toBaseBlock(CompoundTag compoundTag) {
 
     @Override
     public int hashCode() {
+        // The NBT data is left out, so that hashing does not compute it
         int ret = toImmutableState().hashCode() << 3;
         if (hasNbtData()) {
-            ret += getNbtData().hashCode();
+            ret += 1;
         }
         return ret;
     }
@@ -218,6 +218,17 @@ public BaseBlock toBaseBlock(CompoundTag compoundTag) {
         return new BaseBlock(this, compoundTag);
     }
 
+    /**
+     * Get the internal ID of this block state, as registered with
+     * {@link BlockStateIdAccess}.
+     *
+     * <em>Internal use only.</em>
+     * @return the internal ID
+     */
+    public int getInternalId() {
+        return internalId;
+    }
+
     /**
      * Internal method used for creating the initial BlockState.
      *
@@ -0,0 +1,123 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit;
+
+import com.sk89q.worldedit.function.mask.BoundedHeightMask;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.eventbus.EventBus;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("An edit session")
+class EditSessionTest {
+
+    private static BlockState air;
+    private static BlockState stone;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        air = TestPlatform.getBlockState("minecraft:air");
+        stone = TestPlatform.getBlockState("minecraft:stone");
+    }
+
+    private final World world = mock(World.class);
+    private EditSession editSession;
+
+    @BeforeEach
+    void setUp() {
+        when(world.getMinY()).thenReturn(0);
+        when(world.getMaxY()).thenReturn(255);
+        // Terrain up to Y 60, with the world's height map placing the highest block at Y 80
+        when(world.getBlock(anyInt(), anyInt(), anyInt())).thenAnswer(invocation ->
+            invocation.<Integer>getArgument(1) <= 60 ? stone : air);
+        when(world.getBlock(any(BlockVector3.class))).thenAnswer(invocation ->
+            invocation.<BlockVector3>getArgument(0).getY() <= 60 ? stone : air);
+        when(world.getFullBlock(any(BlockVector3.class))).thenAnswer(invocation ->
+            (invocation.<BlockVector3>getArgument(0).getY() <= 60 ? stone : air).toBaseBlock());
+        when(world.getHighestBlockYBound(anyInt(), anyInt())).thenReturn(80);
+        editSession = new EditSession(new EventBus(), world, -1, null, null, false, false);
+    }
+
+    @Test
+    @DisplayName("starts terrain height scans at the world's highest block")
+    void terrainScanStartsAtBound() {
+        assertEquals(60, editSession.getHighestTerrainBlock(3, 4, 0, 255));
+        verify(world, never()).getBlock(eq(3), intThat(y -> y > 80), eq(4));
+    }
+
+    @Test
+    @DisplayName("does not scan above the requested maximum")
+    void terrainScanStartsAtMaximum() {
+        assertEquals(50, editSession.getHighestTerrainBlock(3, 4, 0, 50));
+        verify(world, never()).getBlock(eq(3), intThat(y -> y > 50), eq(4));
+        assertEquals(70, editSession.getHighestTerrainBlock(3, 4, 70, 75));
+    }
+
+    @Test
+    @DisplayName("scans from the requested maximum when a mask is given")
+    void maskedScanIgnoresBound() {
+        Mask mask = new BoundedHeightMask(100, 100);
+        assertEquals(100, editSession.getHighestTerrainBlock(3, 4, 0, 255, mask));
+    }
+
+    @Test
+    @DisplayName("remembers the terrain height of a column")
+    void terrainHeightCached() {
+        assertEquals(60, editSession.getHighestTerrainBlock(3, 4, 0, 255));
+        clearInvocations(world);
+
+        assertEquals(60, editSession.getHighestTerrainBlock(3, 4, 0, 255));
+        assertEquals(60, editSession.getHighestTerrainBlock(3, 4, 0, 70));
+        verify(world, never()).getBlock(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("sees blocks set through it before the world's height map does")
+    void terrainHeightSeesChanges() throws WorldEditException {
+        // Fast mode sets blocks without updating the height map until the session is closed
+        editSession.setReorderMode(EditSession.ReorderMode.FAST);
+        assertEquals(60, editSession.getHighestTerrainBlock(3, 4, 0, 255));
+
+        editSession.setBlock(3, 90, 4, stone);
+        when(world.getBlock(3, 90, 4)).thenReturn(stone);
+
+        assertEquals(90, editSession.getHighestTerrainBlock(3, 4, 0, 255));
+        assertEquals(90, editSession.getHighestTerrainBlock(3, 4, 0, 255));
+        assertEquals(60, editSession.getHighestTerrainBlock(3, 4, 0, 89));
+    }
+
+}
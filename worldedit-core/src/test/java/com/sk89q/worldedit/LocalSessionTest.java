@@ -0,0 +1,197 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit;
+
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.changeset.ArrayListHistory;
+import com.sk89q.worldedit.history.journal.UndoJournal;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.formatting.text.Component;
+import com.sk89q.worldedit.util.formatting.text.TextComponent;
+import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A local session")
+class LocalSessionTest {
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        TestPlatform.register();
+    }
+
+    private final LocalSession session = new LocalSession();
+    private final Actor actor = mock(Actor.class);
+
+    @Test
+    @DisplayName("finishes a pending flush before undoing it")
+    void undoWhileFlushPending() {
+        EditSession older = rememberEdit();
+        EditSession newer = rememberEdit();
+
+        assertSame(newer, session.undo(null, actor));
+
+        InOrder order = inOrder(older, newer);
+        order.verify(older).completeClose();
+        order.verify(newer).completeClose();
+        order.verify(newer).undo(any());
+    }
+
+    @Test
+    @DisplayName("finishes a pending flush before redoing")
+    void redoWhileFlushPending() {
+        EditSession edit = rememberEdit();
+        session.undo(null, actor);
+
+        assertSame(edit, session.redo(null, actor));
+
+        InOrder order = inOrder(edit);
+        order.verify(edit).completeClose();
+        order.verify(edit).undo(any());
+        order.verify(edit).completeClose();
+        order.verify(edit).redo(any());
+    }
+
+    @Test
+    @DisplayName("finishes a pending flush before starting a new edit")
+    void editWhileFlushPending() {
+        EditSession older = rememberEdit();
+        EditSession newer = rememberEdit();
+
+        session.createEditSession(actor).close();
+
+        InOrder order = inOrder(older, newer);
+        order.verify(older).completeClose();
+        order.verify(newer).completeClose();
+    }
+
+    @Test
+    @DisplayName("finishes a pending flush before dropping it from the history")
+    void dropWhileFlushPending() {
+        EditSession oldest = rememberEdit();
+        for (int i = 0; i < LocalSession.MAX_HISTORY_SIZE; i++) {
+            rememberEdit();
+        }
+
+        verify(oldest).completeClose();
+    }
+
+    @Test
+    @DisplayName("drops edits that were already undone through the journal")
+    void undoneThroughJournal() {
+        UndoJournal journal = mock(UndoJournal.class);
+        when(journal.append(any(), any())).thenReturn(1L, 2L);
+        session.setUndoJournal(journal);
+        World world = mock(World.class);
+        EditSession older = rememberEdit(world);
+        EditSession newer = rememberEdit(world);
+        when(journal.isUndone(2L)).thenReturn(true);
+
+        assertSame(older, session.undo(null, actor));
+        verify(newer, never()).undo(any());
+        verify(older).undo(any());
+        verify(journal).release(2L);
+        verify(journal).delete(1L);
+
+        // the dropped edit can't be redone either
+        assertSame(older, session.redo(null, actor));
+        assertNull(session.redo(null, actor));
+    }
+
+    @Test
+    @DisplayName("skips and reports journal edits in worlds that aren't loaded")
+    void journalWorldNotLoaded(@TempDir Path dir) throws Exception {
+        UndoJournal journal = new UndoJournal(dir, Duration.ofDays(1), Long.MAX_VALUE);
+        journal.append(mockWorld("first"), singleChange());
+        journal.append(mockWorld("second"), singleChange());
+        journal.append(mockWorld("second"), singleChange());
+        for (int i = 0; i < 500 && journal.getRecords().size() < 3; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, journal.getRecords().size());
+        session.setUndoJournal(journal);
+
+        assertNull(session.undo(null, actor));
+
+        ArgumentCaptor<Component> messages = ArgumentCaptor.forClass(Component.class);
+        verify(actor, times(2)).printError(messages.capture());
+        List<String> worlds = messages.getAllValues().stream()
+            .map(message -> ((TextComponent) ((TranslatableComponent) message).args().get(0)).content())
+            .collect(Collectors.toList());
+        assertTrue(worlds.contains("first"));
+        assertTrue(worlds.contains("second"));
+        assertEquals(3, journal.getRecords().size());
+    }
+
+    private static World mockWorld(String id) {
+        World world = mock(World.class);
+        when(world.getId()).thenReturn(id);
+        return world;
+    }
+
+    private static ArrayListHistory singleChange() {
+        BlockState air = TestPlatform.getBlockState("minecraft:air");
+        BlockState stone = TestPlatform.getBlockState("minecraft:stone");
+        ArrayListHistory changeSet = new ArrayListHistory();
+        changeSet.add(new BlockChange(BlockVector3.ZERO, air.toBaseBlock(), stone.toBaseBlock()));
+        return changeSet;
+    }
+
+    private EditSession rememberEdit(World world) {
+        EditSession editSession = mock(EditSession.class);
+        when(editSession.size()).thenReturn(1);
+        when(editSession.getWorld()).thenReturn(world);
+        session.remember(editSession);
+        return editSession;
+    }
+
+    private EditSession rememberEdit() {
+        EditSession editSession = mock(EditSession.class);
+        when(editSession.size()).thenReturn(1);
+        session.remember(editSession);
+        return editSession;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("A delegate extent")
+class AbstractDelegateExtentTest {
+
+    private final Extent delegate = mock(Extent.class);
+    private final BlockState block = mock(BlockState.class);
+
+    @Test
+    @DisplayName("forwards coordinate forms as they are")
+    void forwardsCoordinates() throws WorldEditException {
+        Extent extent = new AbstractDelegateExtent(delegate) {
+        };
+
+        extent.getBlock(1, 2, 3);
+        extent.getFullBlock(1, 2, 3);
+        extent.setBlock(1, 2, 3, block);
+
+        verify(delegate).getBlock(1, 2, 3);
+        verify(delegate).getFullBlock(1, 2, 3);
+        verify(delegate).setBlock(1, 2, 3, block);
+        verify(delegate, never()).getBlock(any(BlockVector3.class));
+    }
+
+    @Test
+    @DisplayName("passes coordinate forms to overridden vector forms")
+    void respectsVectorOverrides() throws WorldEditException {
+        VectorOnlyExtent extent = new VectorOnlyExtent(delegate);
+
+        extent.getBlock(1, 2, 3);
+        extent.getFullBlock(1, 2, 3);
+        extent.setBlock(1, 2, 3, block);
+
+        BlockVector3 position = BlockVector3.at(1, 2, 3);
+        verify(delegate).getBlock(position);
+        verify(delegate).getFullBlock(position);
+        verify(delegate).setBlock(position, block);
+    }
+
+    private static final class VectorOnlyExtent extends AbstractDelegateExtent {
+
+        private VectorOnlyExtent(Extent extent) {
+            super(extent);
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            return getExtent().getBlock(position);
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            return getExtent().getFullBlock(position);
+        }
+
+        @Override
+        public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
+            return getExtent().setBlock(location, block);
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.validation.BlockChangeLimiter;
+import com.sk89q.worldedit.history.changeset.ArrayListHistory;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.concurrency.LazyReference;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A change set extent")
+class ChangeSetExtentTest {
+
+    private static BlockState air;
+    private static BlockState stone;
+    private static BlockState chest;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        air = TestPlatform.getBlockState("minecraft:air");
+        stone = TestPlatform.getBlockState("minecraft:stone");
+        chest = TestPlatform.getBlockState("minecraft:chest");
+    }
+
+    private final MemoryExtent world = new MemoryExtent();
+    private final ArrayListHistory changeSet = new ArrayListHistory();
+
+    @Test
+    @DisplayName("records and passes on changed blocks")
+    void recordsChanges() throws WorldEditException {
+        ChangeSetExtent extent = new ChangeSetExtent(world, changeSet, true);
+        assertTrue(extent.setBlock(BlockVector3.ZERO, stone));
+        assertEquals(1, changeSet.size());
+        assertEquals(stone, world.getBlock(BlockVector3.ZERO));
+        assertEquals(0, extent.getSkippedCount());
+    }
+
+    @Test
+    @DisplayName("skips blocks that are already present")
+    void skipsUnchanged() throws WorldEditException {
+        ChangeSetExtent extent = new ChangeSetExtent(world, changeSet, true);
+        extent.setBlock(BlockVector3.ZERO, stone);
+        assertFalse(extent.setBlock(BlockVector3.ZERO, stone));
+        assertFalse(extent.setBlock(BlockVector3.ZERO, stone.toBaseBlock()));
+        assertEquals(1, changeSet.size());
+        assertEquals(1, world.writes);
+        assertEquals(2, extent.getSkippedCount());
+    }
+
+    @Test
+    @DisplayName("passes on unchanged blocks when skipping is turned off")
+    void optOut() throws WorldEditException {
+        ChangeSetExtent extent = new ChangeSetExtent(world, changeSet, false);
+        extent.setBlock(BlockVector3.ZERO, stone);
+        assertTrue(extent.setBlock(BlockVector3.ZERO, stone));
+        assertEquals(2, changeSet.size());
+        assertEquals(2, world.writes);
+        assertEquals(0, extent.getSkippedCount());
+    }
+
+    @Test
+    @DisplayName("records and skips blocks set by coordinates")
+    void coordinateForm() throws WorldEditException {
+        ChangeSetExtent extent = new ChangeSetExtent(world, changeSet, true);
+        assertTrue(extent.setBlock(1, 2, 3, stone));
+        assertFalse(extent.setBlock(1, 2, 3, stone));
+        assertEquals(1, changeSet.size());
+        assertEquals(1, extent.getSkippedCount());
+        // The memory extent only overrides the vector forms, and still sees the write
+        assertEquals(stone, world.getBlock(BlockVector3.at(1, 2, 3)));
+    }
+
+    @Test
+    @DisplayName("does not count skipped blocks against the change limit")
+    void skippedBlocksNotLimited() throws WorldEditException {
+        BlockChangeLimiter limiter = new BlockChangeLimiter(world, 2);
+        ChangeSetExtent extent = new ChangeSetExtent(limiter, changeSet, true);
+        for (int i = 0; i < 10; i++) {
+            extent.setBlock(BlockVector3.ZERO, stone);
+        }
+        assertEquals(1, limiter.getCount());
+        extent.setBlock(BlockVector3.UNIT_X, stone);
+        assertThrows(MaxChangedBlocksException.class, () -> extent.setBlock(BlockVector3.UNIT_Y, stone));
+        // The rejected write is not recorded
+        assertEquals(2, changeSet.size());
+    }
+
+    @Test
+    @DisplayName("does not compute NBT data of blocks with different states")
+    void statesComparedBeforeNbt() throws WorldEditException {
+        ChangeSetExtent extent = new ChangeSetExtent(world, changeSet, true);
+        LazyReference<CompoundTag> previousNbt = LazyReference.from(() -> chestNbt("previous"));
+        world.blocks.put(BlockVector3.ZERO, lazyBlock(chest, previousNbt));
+        LazyReference<CompoundTag> nbt = LazyReference.from(() -> chestNbt("new"));
+
+        assertTrue(extent.setBlock(BlockVector3.ZERO, lazyBlock(stone, nbt)));
+        assertFalse(previousNbt.isComputed());
+        assertFalse(nbt.isComputed());
+    }
+
+    @Test
+    @DisplayName("does not compute NBT data of blocks sharing it")
+    void sharedNbtNotComputed() throws WorldEditException {
+        ChangeSetExtent extent = new ChangeSetExtent(world, changeSet, true);
+        LazyReference<CompoundTag> nbt = LazyReference.from(() -> chestNbt("shared"));
+        BaseBlock block = lazyBlock(chest, nbt);
+        world.blocks.put(BlockVector3.ZERO, block);
+
+        assertFalse(extent.setBlock(BlockVector3.ZERO, block));
+        assertFalse(nbt.isComputed());
+    }
+
+    @Test
+    @DisplayName("compares NBT data of blocks with the same state")
+    void nbtCompared() throws WorldEditException {
+        ChangeSetExtent extent = new ChangeSetExtent(world, changeSet, true);
+        CompoundTag previousNbt = chestNbt("previous");
+        world.blocks.put(BlockVector3.ZERO, chest.toBaseBlock(previousNbt));
+
+        assertFalse(extent.setBlock(BlockVector3.ZERO, chest.toBaseBlock(previousNbt)));
+        assertTrue(extent.setBlock(BlockVector3.ZERO, chest.toBaseBlock(chestNbt("new"))));
+        assertTrue(extent.setBlock(BlockVector3.ZERO, chest));
+        assertEquals(2, changeSet.size());
+    }
+
+    private static BaseBlock lazyBlock(BlockState state, LazyReference<CompoundTag> nbt) {
+        return new BaseBlock(state, nbt) {
+        };
+    }
+
+    private static CompoundTag chestNbt(String name) {
+        return new CompoundTag(ImmutableMap.<String, Tag>of(
+            "id", new StringTag("minecraft:chest"),
+            "CustomName", new StringTag(name)
+        ));
+    }
+
+    private static final class MemoryExtent extends AbstractDelegateExtent {
+
+        private final Map<BlockVector3, BaseBlock> blocks = new HashMap<>();
+        private int writes;
+
+        private MemoryExtent() {
+            super(new NullExtent());
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            return getFullBlock(position).toImmutableState();
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            return blocks.getOrDefault(position, air.toBaseBlock());
+        }
+
+        @Override
+        public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) {
+            writes++;
+            blocks.put(location, block.toBaseBlock());
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.formatting.text.Component;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("An extent profiler")
+class ExtentProfilerTest {
+
+    private final FakeClock clock = new FakeClock();
+    private final ExtentProfiler profiler = new ExtentProfiler(clock);
+
+    @SuppressWarnings("rawtypes")
+    private final BlockStateHolder block = mock(BlockStateHolder.class);
+
+    @Test
+    @DisplayName("subtracts the time spent in nested extents from self times")
+    @SuppressWarnings("unchecked")
+    void subtractsNestedTime() throws WorldEditException {
+        ProfilingExtent bottom = profiler.wrap(new SlowExtent(new NullExtent(), 2));
+        ProfilingExtent middle = profiler.wrap(new SlowExtent(bottom, 3), "middle");
+        ProfilingExtent top = profiler.wrap(new SlowExtent(middle, 5));
+
+        top.setBlock(BlockVector3.ZERO, block);
+        top.setBlock(BlockVector3.ZERO, block);
+
+        assertEquals(4, bottom.getSelfTime());
+        assertEquals(6, middle.getSelfTime());
+        assertEquals(10, top.getSelfTime());
+        assertEquals(4, bottom.getTotalTime());
+        assertEquals(10, middle.getTotalTime());
+        assertEquals(20, top.getTotalTime());
+        assertEquals(2, middle.getCount(ProfilingExtent.Action.SET_BLOCK));
+    }
+
+    @Test
+    @DisplayName("does not carry nested time over to the next call")
+    @SuppressWarnings("unchecked")
+    void resetsBetweenCalls() throws WorldEditException {
+        ProfilingExtent bottom = profiler.wrap(new SlowExtent(new NullExtent(), 7));
+        ProfilingExtent top = profiler.wrap(new SlowExtent(bottom, 1));
+
+        // a call straight to the bottom extent must not count against the next call to the top
+        bottom.setBlock(BlockVector3.ZERO, block);
+        top.setBlock(BlockVector3.ZERO, block);
+
+        assertEquals(14, bottom.getSelfTime());
+        assertEquals(1, top.getSelfTime());
+    }
+
+    @Test
+    @DisplayName("subtracts nested time from commits")
+    void subtractsNestedCommitTime() throws WorldEditException {
+        ProfilingExtent bottom = profiler.wrap(new SlowExtent(new NullExtent(), 2));
+        ProfilingExtent top = profiler.wrap(new SlowExtent(bottom, 5));
+
+        Operations.complete(top.commit());
+
+        assertEquals(2, bottom.getSelfTime(ProfilingExtent.Action.COMMIT));
+        assertEquals(5, top.getSelfTime(ProfilingExtent.Action.COMMIT));
+        assertEquals(1, top.getCount(ProfilingExtent.Action.COMMIT));
+    }
+
+    @Test
+    @DisplayName("ranks extents by self time and lists stages")
+    @SuppressWarnings("unchecked")
+    void ranksAndStages() throws WorldEditException {
+        ProfilingExtent bottom = profiler.wrap(new SlowExtent(new NullExtent(), 2), "placement");
+        ProfilingExtent middle = profiler.wrap(new SlowExtent(bottom, 9));
+        ProfilingExtent top = profiler.wrap(new SlowExtent(middle, 5), "reorder");
+        profiler.wrap(new NullExtent());
+
+        top.setBlock(BlockVector3.ZERO, block);
+
+        assertEquals(Arrays.asList(middle, top), profiler.getTopExtents(2));
+        assertEquals(Arrays.asList(bottom, top), profiler.getStages());
+        assertEquals(3, profiler.getTopExtents(5).size());
+    }
+
+    /**
+     * An extent that advances the clock on every call, before passing it on.
+     */
+    private final class SlowExtent extends AbstractDelegateExtent {
+
+        private final long cost;
+
+        private SlowExtent(Extent extent, long cost) {
+            super(extent);
+            this.cost = cost;
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+            clock.now += cost;
+            return super.setBlock(location, block);
+        }
+
+        @Override
+        protected Operation commitBefore() {
+            return new Operation() {
+                @Override
+                public Operation resume(RunContext run) {
+                    clock.now += cost;
+                    return null;
+                }
+
+                @Override
+                public void cancel() {
+                }
+
+                @Override
+                public Iterable<Component> getStatusMessages() {
+                    return Collections.emptyList();
+                }
+            };
+        }
+    }
+
+    private static final class FakeClock implements LongSupplier {
+
+        private long now;
+
+        @Override
+        public long getAsLong() {
+            return now;
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.reorder;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("A multi-stage reorder")
+class MultiStageReorderTest {
+
+    private static BlockState air;
+    private static BlockState stone;
+    private static BlockState sand;
+    private static BlockState torch;
+    private static BlockState cactus;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        air = TestPlatform.getBlockState("minecraft:air");
+        stone = TestPlatform.getBlockState("minecraft:stone");
+        sand = TestPlatform.getBlockState("minecraft:sand");
+        torch = TestPlatform.getBlockState("minecraft:torch");
+        cactus = TestPlatform.getBlockState("minecraft:cactus");
+    }
+
+    private final MemoryExtent world = new MemoryExtent();
+    private final MultiStageReorder reorder = new MultiStageReorder(world, true);
+
+    @Test
+    @DisplayName("places blocks stage by stage")
+    void placesInStageOrder() throws WorldEditException {
+        reorder.setBlock(BlockVector3.at(0, 0, 0), cactus);
+        reorder.setBlock(BlockVector3.at(1, 0, 0), torch);
+        reorder.setBlock(BlockVector3.at(2, 0, 0), sand);
+        reorder.setBlock(BlockVector3.at(3, 0, 0), stone);
+        assertEquals(0, world.writes.size());
+
+        Operations.complete(reorder.commit());
+
+        assertEquals(ImmutableList.of(
+            write(3, stone), write(2, sand), write(1, torch), write(0, cactus)
+        ), world.writes);
+    }
+
+    @Test
+    @DisplayName("clears attached blocks before placing others")
+    void clearsBeforePlacing() throws WorldEditException {
+        world.blocks.put(BlockVector3.at(0, 0, 0), torch.toBaseBlock());
+        reorder.setBlock(BlockVector3.at(0, 0, 0), stone);
+
+        Operations.complete(reorder.commit());
+
+        assertEquals(ImmutableList.of(write(0, air), write(0, stone)), world.writes);
+    }
+
+    @Test
+    @DisplayName("places air over an attached block only once")
+    void clearsThenPlacesAir() throws WorldEditException {
+        world.blocks.put(BlockVector3.at(0, 0, 0), torch.toBaseBlock());
+        reorder.setBlock(BlockVector3.at(0, 0, 0), air);
+
+        Operations.complete(reorder.commit());
+
+        assertEquals(ImmutableList.of(write(0, air)), world.writes);
+    }
+
+    @Test
+    @DisplayName("writes a block set again across stages only once")
+    void resetAcrossStages() throws WorldEditException {
+        reorder.setBlock(BlockVector3.at(0, 0, 0), torch);
+        reorder.setBlock(BlockVector3.at(0, 0, 0), stone);
+        reorder.setBlock(BlockVector3.at(0, 0, 0), torch);
+        reorder.setBlock(BlockVector3.at(0, 0, 0), stone);
+        reorder.setBlock(BlockVector3.at(0, 0, 0), torch);
+
+        Operations.complete(reorder.commit());
+
+        assertEquals(ImmutableList.of(write(0, torch)), world.writes);
+    }
+
+    @Test
+    @DisplayName("writes a block moved to another stage only in the new stage")
+    void movedToOtherStage() throws WorldEditException {
+        reorder.setBlock(BlockVector3.at(0, 0, 0), torch);
+        reorder.setBlock(BlockVector3.at(0, 0, 0), cactus);
+        reorder.setBlock(BlockVector3.at(1, 0, 0), stone);
+
+        Operations.complete(reorder.commit());
+
+        assertEquals(ImmutableList.of(write(1, stone), write(0, cactus)), world.writes);
+    }
+
+    private static String write(int x, BlockState block) {
+        return x + "=" + block.getBlockType().getId();
+    }
+
+    private static final class MemoryExtent extends AbstractDelegateExtent {
+
+        private final Map<BlockVector3, BaseBlock> blocks = new HashMap<>();
+        private final List<String> writes = new ArrayList<>();
+
+        private MemoryExtent() {
+            super(new NullExtent());
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            return getFullBlock(position).toImmutableState();
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            return blocks.getOrDefault(position, air.toBaseBlock());
+        }
+
+        @Override
+        public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) {
+            writes.add(write(location.getX(), block.toImmutableState()));
+            blocks.put(location, block.toBaseBlock());
+            return true;
+        }
+
+    }
+
+}
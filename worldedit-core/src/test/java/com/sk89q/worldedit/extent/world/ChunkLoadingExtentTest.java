@@ -0,0 +1,155 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.world;
+
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A chunk loading extent")
+class ChunkLoadingExtentTest {
+
+    private final World world = mock(World.class);
+    private final BlockState block = mock(BlockState.class);
+    private ChunkLoadingExtent extent;
+
+    @BeforeEach
+    void setUp() {
+        when(world.loadChunksAsync(anyCollection(), anyBoolean()))
+            .thenReturn(CompletableFuture.completedFuture(true));
+        extent = new ChunkLoadingExtent(new NullExtent(), world);
+    }
+
+    private static CuboidRegion chunks(int minX, int maxX) {
+        return new CuboidRegion(BlockVector3.at(minX << 4, 0, 0), BlockVector3.at((maxX << 4) + 15, 0, 15));
+    }
+
+    private static Set<BlockVector2> chunkSet(int minX, int maxX) {
+        Set<BlockVector2> chunks = new HashSet<>();
+        for (int x = minX; x <= maxX; x++) {
+            chunks.add(BlockVector2.at(x, 0));
+        }
+        return chunks;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<BlockVector2> released() {
+        ArgumentCaptor<Collection<BlockVector2>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(world).releaseChunks(captor.capture());
+        return new HashSet<>(captor.getValue());
+    }
+
+    @Test
+    @DisplayName("keeps earlier holds until it is released")
+    void preloadKeepsEarlierHolds() {
+        extent.preload(chunks(0, 2), true);
+        extent.preload(chunks(2, 4), true);
+        verify(world, never()).releaseChunks(anyCollection());
+
+        extent.release();
+        assertEquals(chunkSet(0, 4), released());
+    }
+
+    @Test
+    @DisplayName("holds each chunk once")
+    @SuppressWarnings("unchecked")
+    void holdsChunksOnce() {
+        extent.preload(chunks(0, 2), true);
+        extent.preload(chunks(1, 3), true);
+        extent.preload(chunks(1, 2), true);
+
+        ArgumentCaptor<Collection<BlockVector2>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(world, times(2)).loadChunksAsync(captor.capture(), eq(true));
+        assertEquals(chunkSet(0, 2), new HashSet<>(captor.getAllValues().get(0)));
+        assertEquals(ImmutableSet.of(BlockVector2.at(3, 0)), new HashSet<>(captor.getAllValues().get(1)));
+    }
+
+    @Test
+    @DisplayName("releases chunks that failed to load")
+    void releasesFailedLoads() {
+        CompletableFuture<Boolean> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("load failed"));
+        when(world.loadChunksAsync(anyCollection(), anyBoolean())).thenReturn(failed);
+
+        extent.preload(chunks(0, 1), true);
+        extent.release();
+        assertEquals(chunkSet(0, 1), released());
+
+        extent.release();
+        verify(world, times(1)).releaseChunks(anyCollection());
+    }
+
+    @Test
+    @DisplayName("does not release chunks that it does not hold")
+    void noHoldNoRelease() {
+        extent.preload(chunks(0, 1), false);
+        extent.prefetch(chunks(0, 100), 4);
+        extent.release();
+        verify(world, never()).releaseChunks(anyCollection());
+    }
+
+    @Test
+    @DisplayName("does not release holds when switching to prefetching")
+    void prefetchKeepsHolds() {
+        extent.preload(chunks(0, 1), true);
+        extent.prefetch(chunks(0, 100), 4);
+        verify(world, never()).releaseChunks(anyCollection());
+        extent.release();
+        assertEquals(chunkSet(0, 1), released());
+    }
+
+    @Test
+    @DisplayName("checks held chunks again once they are released")
+    void checksAfterRelease() throws WorldEditException {
+        extent.preload(chunks(0, 0), true);
+        extent.setBlock(BlockVector3.at(1, 0, 1), block);
+        verify(world, never()).checkLoadedChunk(any());
+
+        extent.release();
+        extent.setBlock(BlockVector3.at(1, 0, 1), block);
+        verify(world).checkLoadedChunk(BlockVector3.at(1, 0, 1));
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.world;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.platform.Watchdog;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("A watchdog ticking extent")
+class WatchdogTickingExtentTest {
+
+    private static final int INTERVAL = WatchdogTickingExtent.CLOCK_CHECK_INTERVAL;
+
+    private final Watchdog watchdog = mock(Watchdog.class);
+    private final BlockState block = mock(BlockState.class);
+    private final FakeClock clock = new FakeClock();
+    private final WatchdogTickingExtent extent = new WatchdogTickingExtent(new NullExtent(), watchdog, 100, clock);
+
+    @Test
+    @DisplayName("reads the clock once per interval of operations")
+    void readsClockPerInterval() throws WorldEditException {
+        extent.setEnabled(true);
+        int reads = clock.reads;
+        for (int i = 0; i < INTERVAL * 10; i++) {
+            extent.setBlock(BlockVector3.ZERO, block);
+            extent.getBiome(BlockVector3.ZERO);
+        }
+        assertEquals(20, clock.reads - reads);
+    }
+
+    @Test
+    @DisplayName("ticks once the tick interval has passed")
+    void ticksAfterInterval() throws WorldEditException {
+        extent.setEnabled(true);
+        for (int i = 0; i < INTERVAL; i++) {
+            extent.setBlock(BlockVector3.ZERO, block);
+        }
+        verify(watchdog, never()).tick();
+
+        clock.now += 100;
+        for (int i = 0; i < INTERVAL - 1; i++) {
+            extent.setBlock(BlockVector3.ZERO, block);
+        }
+        verify(watchdog, never()).tick();
+        extent.setBlock(BlockVector3.ZERO, block);
+        verify(watchdog, times(1)).tick();
+
+        for (int i = 0; i < INTERVAL; i++) {
+            extent.setBlock(BlockVector3.ZERO, block);
+        }
+        verify(watchdog, times(1)).tick();
+    }
+
+    @Test
+    @DisplayName("does not read the clock when disabled")
+    void disabled() throws WorldEditException {
+        int reads = clock.reads;
+        clock.now += 1000;
+        for (int i = 0; i < INTERVAL * 2; i++) {
+            extent.setBlock(BlockVector3.ZERO, block);
+        }
+        assertEquals(reads, clock.reads);
+        verify(watchdog, never()).tick();
+    }
+
+    @Test
+    @DisplayName("counts operations, block changes and the time spent below it when timing")
+    void timing() throws WorldEditException {
+        Extent slow = new AbstractDelegateExtent(new NullExtent()) {
+            @Override
+            public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+                clock.now += 10;
+                return super.setBlock(location, block);
+            }
+        };
+        WatchdogTickingExtent timed = new WatchdogTickingExtent(slow, watchdog, 100, clock);
+        timed.setTiming(true);
+        for (int i = 0; i < 3; i++) {
+            timed.setBlock(BlockVector3.ZERO, block);
+        }
+        timed.getBiome(BlockVector3.ZERO);
+
+        assertEquals(4, timed.getOperationCount());
+        assertEquals(3, timed.getBlockCount());
+        assertEquals(30, timed.getTimeSpent());
+    }
+
+    private static final class FakeClock implements LongSupplier {
+
+        private long now;
+        private int reads;
+
+        @Override
+        public long getAsLong() {
+            reads++;
+            return now;
+        }
+
+    }
+
+}
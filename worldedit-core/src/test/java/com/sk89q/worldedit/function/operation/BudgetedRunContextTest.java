@@ -0,0 +1,107 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A budgeted run context")
+class BudgetedRunContextTest {
+
+    @Test
+    @DisplayName("stops after the position budget")
+    void stopsAfterPositionBudget() {
+        BudgetedRunContext run = new BudgetedRunContext(1, TimeUnit.HOURS, 3);
+        assertTrue(run.shouldContinue());
+        assertTrue(run.shouldContinue());
+        assertFalse(run.shouldContinue());
+        assertEquals(3, run.getVisitedPositions());
+    }
+
+    @Test
+    @DisplayName("stops once the time budget is used up")
+    void stopsAfterTimeBudget() {
+        BudgetedRunContext run = new BudgetedRunContext(0, TimeUnit.NANOSECONDS);
+        assertFalse(run.shouldContinue());
+    }
+
+    @Test
+    @DisplayName("resumes a paused operation where it left off")
+    void resumesWhereItLeftOff() throws Exception {
+        CountingOperation operation = new CountingOperation(10);
+        assertSame(operation, operation.resume(new BudgetedRunContext(1, TimeUnit.HOURS, 4)));
+        assertEquals(4, operation.count);
+        assertSame(operation, operation.resume(new BudgetedRunContext(1, TimeUnit.HOURS, 4)));
+        assertEquals(8, operation.count);
+        assertNull(operation.resume(new BudgetedRunContext(1, TimeUnit.HOURS, 4)));
+        assertEquals(10, operation.count);
+    }
+
+    @Test
+    @DisplayName("returns the unfinished operation when the time budget runs out")
+    void resumeForReturnsUnfinished() throws Exception {
+        CountingOperation operation = new CountingOperation(Long.MAX_VALUE);
+        assertSame(operation, Operations.resumeFor(operation, 0, TimeUnit.NANOSECONDS));
+        assertEquals(1, operation.count);
+    }
+
+    @Test
+    @DisplayName("returns null when the operation completes within the budget")
+    void resumeForCompletes() throws Exception {
+        CountingOperation operation = new CountingOperation(100);
+        assertNull(Operations.resumeFor(operation, 1, TimeUnit.HOURS));
+        assertEquals(100, operation.count);
+    }
+
+    private static final class CountingOperation implements Operation {
+
+        private final long limit;
+        private long count;
+
+        private CountingOperation(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public Operation resume(RunContext run) {
+            while (count < limit) {
+                count++;
+                if (!run.shouldContinue()) {
+                    break;
+                }
+            }
+            return count < limit ? this : null;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A forward extent copy")
+class ForwardExtentCopyTest {
+
+    @BeforeAll
+    static void setUp() {
+        TestPlatform.register();
+    }
+
+    @Test
+    @DisplayName("preloads the chunks of an edit session it copies from once")
+    void preloadsSourceEditSession() throws WorldEditException {
+        Region region = new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(1, 1, 1));
+        BaseBlock stone = BlockTypes.STONE.getDefaultState().toBaseBlock();
+        EditSession source = mock(EditSession.class);
+        when(source.getFullBlock(any())).thenReturn(stone);
+        BlockArrayClipboard destination = new BlockArrayClipboard(new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(1, 1, 3)));
+
+        ForwardExtentCopy copy = new ForwardExtentCopy(source, region, destination, BlockVector3.at(0, 0, 2));
+        copy.setCopyingEntities(false);
+        copy.setRepetitions(2);
+        Operations.complete(copy);
+
+        verify(source, times(1)).preloadChunks(region);
+        assertEquals(stone, destination.getFullBlock(BlockVector3.at(1, 1, 3)));
+    }
+
+    @Test
+    @DisplayName("does not preload chunks when copying into an edit session")
+    void doesNotPreloadDestination() throws WorldEditException {
+        Region region = new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(1, 1, 1));
+        EditSession destination = mock(EditSession.class);
+
+        ForwardExtentCopy copy = new ForwardExtentCopy(new BlockArrayClipboard(region), region, destination, BlockVector3.at(0, 0, 2));
+        copy.setCopyingEntities(false);
+        Operations.complete(copy);
+
+        verify(destination, never()).preloadChunks(any());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.function.operation.OperationScheduler.ScheduledOperation;
+import com.sk89q.worldedit.session.SessionKey;
+import com.sk89q.worldedit.session.SessionOwner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("An operation scheduler")
+class OperationSchedulerTest {
+
+    /**
+     * The time that every visited position takes, in nanoseconds.
+     */
+    private static final long POSITION_TIME = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final Platform platform = mock(Platform.class);
+    private long now;
+    private final OperationScheduler scheduler = new OperationScheduler(() -> 5, () -> now);
+
+    @BeforeEach
+    void setUp() {
+        when(platform.schedule(anyLong(), anyLong(), any())).thenReturn(1);
+        assertTrue(scheduler.start(platform));
+    }
+
+    @Test
+    @DisplayName("cancels its platform task when stopped")
+    void cancelsTaskOnStop() {
+        scheduler.stop();
+        verify(platform).cancelTask(1);
+        assertFalse(scheduler.isRunning());
+    }
+
+    @Test
+    @DisplayName("spends the whole tick budget on a single owner")
+    void spendsTickBudget() {
+        CountingOperation operation = new CountingOperation(Long.MAX_VALUE);
+        ScheduledOperation scheduled = scheduler.submit(null, "test", operation);
+        scheduler.tick();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5) / POSITION_TIME, operation.count);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), scheduled.getTimeSpent());
+    }
+
+    @Test
+    @DisplayName("completes a pending operation on request")
+    void completesNowOnRequest() {
+        CountingOperation operation = new CountingOperation(100_000);
+        ScheduledOperation scheduled = scheduler.submit(null, "test", operation);
+        scheduler.tick();
+        assertFalse(scheduled.getFuture().isDone());
+
+        scheduled.completeNow();
+        assertTrue(scheduled.getFuture().isDone());
+        assertEquals(100_000, operation.count);
+        assertTrue(scheduler.getPending().isEmpty());
+
+        // The scheduler forgets the completed operation on its next tick
+        scheduler.tick();
+        assertEquals(100_000, operation.count);
+    }
+
+    @Test
+    @DisplayName("completes operations synchronously when stopped")
+    void synchronousWhenStopped() {
+        scheduler.stop();
+        CountingOperation operation = new CountingOperation(100);
+        ScheduledOperation scheduled = scheduler.submit(null, "test", operation);
+        assertTrue(scheduled.getFuture().isDone());
+        assertEquals(100, operation.count);
+    }
+
+    @Test
+    @DisplayName("completes pending operations when stopped")
+    void completesPendingOnStop() {
+        CountingOperation operation = new CountingOperation(Long.MAX_VALUE / 2);
+        CountingOperation next = new CountingOperation(100);
+        scheduler.submit(null, "first", operation).getFuture().cancel(false);
+        ScheduledOperation scheduled = scheduler.submit(null, "second", next);
+        assertFalse(scheduled.getFuture().isDone());
+        scheduler.stop();
+        assertTrue(scheduled.getFuture().isDone());
+        assertEquals(100, next.count);
+        assertTrue(scheduler.getPending().isEmpty());
+    }
+
+    @Test
+    @DisplayName("gives every owner time in a tick")
+    void fairAcrossOwners() {
+        CountingOperation first = new CountingOperation(Long.MAX_VALUE);
+        CountingOperation second = new CountingOperation(Long.MAX_VALUE);
+        scheduler.submit(owner("first"), "first", first);
+        scheduler.submit(owner("second"), "second", second);
+        scheduler.tick();
+        // The first owner starts with half of the tick, the second with half of the rest
+        assertTrue(first.count >= TimeUnit.MILLISECONDS.toNanos(5) / 2 / POSITION_TIME);
+        assertTrue(second.count >= TimeUnit.MILLISECONDS.toNanos(5) / 4 / POSITION_TIME);
+        assertEquals(2, scheduler.getPending().size());
+    }
+
+    @Test
+    @DisplayName("runs operations of one owner in order")
+    void orderedPerOwner() {
+        SessionOwner owner = owner("owner");
+        CountingOperation first = new CountingOperation(Long.MAX_VALUE);
+        CountingOperation second = new CountingOperation(Long.MAX_VALUE);
+        ScheduledOperation scheduled = scheduler.submit(owner, "first", first);
+        scheduler.submit(owner, "second", second);
+        scheduler.tick();
+        assertTrue(first.count > 0);
+        assertEquals(0, second.count);
+
+        scheduled.getFuture().cancel(false);
+        scheduler.tick();
+        assertTrue(second.count > 0);
+        assertEquals(1, scheduler.getPending().size());
+    }
+
+    private static SessionOwner owner(String name) {
+        SessionKey key = mock(SessionKey.class);
+        when(key.getName()).thenReturn(name);
+        when(key.getUniqueId()).thenReturn(UUID.randomUUID());
+        SessionOwner owner = mock(SessionOwner.class);
+        when(owner.getSessionKey()).thenReturn(key);
+        return owner;
+    }
+
+    private final class CountingOperation implements Operation {
+
+        private final long limit;
+        private long count;
+
+        private CountingOperation(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public Operation resume(RunContext run) {
+            while (count < limit) {
+                count++;
+                now += POSITION_TIME;
+                if (!run.shouldContinue()) {
+                    break;
+                }
+            }
+            return count < limit ? this : null;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+    }
+
+}
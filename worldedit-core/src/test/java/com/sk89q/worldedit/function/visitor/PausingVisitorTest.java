@@ -0,0 +1,122 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.visitor;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.LayerFunction;
+import com.sk89q.worldedit.function.mask.RegionMask;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("Visitors asked to stop")
+class PausingVisitorTest {
+
+    private static final CuboidRegion REGION = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(3, 3, 3));
+
+    /**
+     * A run context that asks for a stop after every position.
+     */
+    private static final RunContext STOP = new RunContext() {
+        @Override
+        public boolean shouldContinue() {
+            return false;
+        }
+    };
+
+    @Test
+    @DisplayName("pause a region visitor after one position")
+    void regionVisitor() throws WorldEditException {
+        Set<BlockVector3> visited = new HashSet<>();
+        RegionVisitor visitor = new RegionVisitor(REGION, visited::add);
+        assertPausesUntilDone(visitor, REGION.getVolume());
+        assertEquals(REGION.getVolume(), visited.size());
+        assertEquals(REGION.getVolume(), visitor.getAffected());
+    }
+
+    @Test
+    @DisplayName("pause a chunk-ordered region visitor after one position")
+    void chunkOrderedRegionVisitor() throws WorldEditException {
+        Set<BlockVector3> visited = new HashSet<>();
+        RegionVisitor visitor = new RegionVisitor(REGION, visited::add, true);
+        assertPausesUntilDone(visitor, REGION.getVolume());
+        assertEquals(REGION.getVolume(), visited.size());
+    }
+
+    @Test
+    @DisplayName("pause a flat region visitor after one column")
+    void flatRegionVisitor() throws WorldEditException {
+        Set<BlockVector2> visited = new HashSet<>();
+        FlatRegionVisitor visitor = new FlatRegionVisitor(REGION, visited::add);
+        assertPausesUntilDone(visitor, 16);
+        assertEquals(16, visited.size());
+        assertEquals(16, visitor.getAffected());
+    }
+
+    @Test
+    @DisplayName("pause a layer visitor after one column")
+    void layerVisitor() throws WorldEditException {
+        Set<BlockVector2> visited = new HashSet<>();
+        LayerVisitor visitor = new LayerVisitor(REGION, 0, 3, new LayerFunction() {
+            @Override
+            public boolean isGround(BlockVector3 position) {
+                return position.getY() == 3;
+            }
+
+            @Override
+            public boolean apply(BlockVector3 position, int depth) {
+                visited.add(position.toBlockVector2());
+                return false;
+            }
+        });
+        assertPausesUntilDone(visitor, 16);
+        assertEquals(16, visited.size());
+    }
+
+    @Test
+    @DisplayName("pause a breadth first search after one position")
+    void breadthFirstSearch() throws WorldEditException {
+        Set<BlockVector3> visited = new HashSet<>();
+        RecursiveVisitor visitor = new RecursiveVisitor(new RegionMask(REGION), visited::add);
+        visitor.visit(BlockVector3.ZERO);
+        assertPausesUntilDone(visitor, REGION.getVolume());
+        assertEquals(REGION.getVolume(), visited.size());
+        assertEquals(REGION.getVolume(), visitor.getAffected());
+    }
+
+    private static void assertPausesUntilDone(Operation operation, long positions) throws WorldEditException {
+        for (long i = 1; i < positions; i++) {
+            assertSame(operation, operation.resume(STOP), "paused operation should return itself");
+        }
+        assertNull(operation.resume(STOP));
+    }
+
+}
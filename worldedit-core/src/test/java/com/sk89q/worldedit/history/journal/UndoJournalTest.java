@@ -0,0 +1,324 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.journal;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.history.changeset.ArrayListHistory;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("An undo journal")
+class UndoJournalTest {
+
+    private static final Duration NO_MAX_AGE = Duration.ofMillis(Long.MAX_VALUE);
+    private static BlockState air;
+    private static BlockState stone;
+    private static BlockState chest;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        air = TestPlatform.getBlockState("minecraft:air");
+        stone = TestPlatform.getBlockState("minecraft:stone");
+        chest = TestPlatform.getBlockState("minecraft:chest");
+    }
+
+    @TempDir
+    Path dir;
+
+    private final World world = mockWorld("world");
+    private long now = 1000;
+
+    @Test
+    @DisplayName("writes records that can be read back by a new journal")
+    void roundTrip() throws IOException {
+        UndoJournal journal = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        ArrayListHistory changeSet = new ArrayListHistory();
+        changeSet.add(change(BlockVector3.at(1, 64, 1), air, stone));
+        changeSet.add(change(BlockVector3.at(40, 10, -20), stone, air));
+        // A position changed twice keeps its first previous and last current block
+        changeSet.add(change(BlockVector3.at(1, 64, 1), stone, chest));
+        long sequence = journal.append(world, changeSet);
+
+        List<JournalRecord> records = journal.getRecords();
+        assertEquals(1, records.size());
+        assertEquals(sequence, records.get(0).getSequence());
+
+        JournalRecord record = journal(NO_MAX_AGE, Long.MAX_VALUE).getRecords().get(0);
+        assertEquals(sequence, record.getSequence());
+        assertEquals(now, record.getTimestamp());
+        assertEquals("world", record.getWorldId());
+        assertEquals(2, record.size());
+        assertEquals(Files.size(record.getPath()), record.getFileSize());
+
+        Map<BlockVector3, BlockChange> changes = read(record.getChangeSet(null));
+        assertEquals(2, changes.size());
+        assertEquals(air, changes.get(BlockVector3.at(1, 64, 1)).getPrevious().toImmutableState());
+        assertEquals(chest, changes.get(BlockVector3.at(1, 64, 1)).getCurrent().toImmutableState());
+        assertEquals(stone, changes.get(BlockVector3.at(40, 10, -20)).getPrevious().toImmutableState());
+        assertEquals(air, changes.get(BlockVector3.at(40, 10, -20)).getCurrent().toImmutableState());
+    }
+
+    @Test
+    @DisplayName("continues numbering from the records already on disk")
+    void sequenceContinues() throws IOException {
+        long first = journal(NO_MAX_AGE, Long.MAX_VALUE).append(world, single(BlockVector3.ZERO, air, stone));
+        long second = journal(NO_MAX_AGE, Long.MAX_VALUE).append(world, single(BlockVector3.ZERO, stone, air));
+        assertTrue(second > first);
+        assertEquals(2, journal(NO_MAX_AGE, Long.MAX_VALUE).getRecords().size());
+    }
+
+    @Test
+    @DisplayName("undoes records with their block entities and removes them")
+    void undoWithNbt() throws Exception {
+        UndoJournal journal = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        BlockVector3 position = BlockVector3.at(3, 70, 3);
+        journal.append(world, single(position, chest.toBaseBlock(chestNbt("loot")), air.toBaseBlock()));
+        journal.append(mockWorld("other"), single(position, stone.toBaseBlock(), air.toBaseBlock()));
+        Path recordPath = journal.getRecords().get(1).getPath();
+
+        EditSession editSession = mock(EditSession.class);
+        assertEquals(1, journal.undo(world, null, Instant.ofEpochMilli(0), editSession));
+
+        ArgumentCaptor<BaseBlock> block = ArgumentCaptor.forClass(BaseBlock.class);
+        verify(editSession).setBlock(any(BlockVector3.class), block.capture());
+        assertEquals(chest, block.getValue().toImmutableState());
+        CompoundTag nbt = block.getValue().getNbtData();
+        assertEquals("loot", nbt.getString("CustomName"));
+        assertEquals(1, journal.getRecords().size());
+        assertFalse(Files.exists(recordPath));
+    }
+
+    @Test
+    @DisplayName("undoes only changes within a region, and keeps the record")
+    void regionFilter() throws Exception {
+        UndoJournal journal = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        ArrayListHistory changeSet = new ArrayListHistory();
+        changeSet.add(change(BlockVector3.at(0, 0, 0), air, stone));
+        changeSet.add(change(BlockVector3.at(5, 0, 5), air, stone));
+        changeSet.add(change(BlockVector3.at(100, 0, 100), air, stone));
+        journal.append(world, changeSet);
+        CuboidRegion region = new CuboidRegion(BlockVector3.at(4, 0, 4), BlockVector3.at(200, 0, 10));
+
+        JournalRecord record = journal.getRecords().get(0);
+        assertEquals(Lists.newArrayList(BlockVector3.at(5, 0, 5)),
+            Lists.newArrayList(read(record.getChangeSet(region)).keySet()));
+
+        EditSession editSession = mock(EditSession.class);
+        assertEquals(1, journal.undo(world, region, Instant.ofEpochMilli(0), editSession));
+        verify(editSession, times(1)).setBlock(any(BlockVector3.class), any(BaseBlock.class));
+        assertEquals(1, journal.getRecords().size());
+    }
+
+    @Test
+    @DisplayName("marks records still held by a session as undone")
+    void undoHeld() throws Exception {
+        UndoJournal journal = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        long released = journal.append(world, single(BlockVector3.ZERO, air, stone));
+        long held = journal.append(world, single(BlockVector3.ZERO, stone, chest));
+        journal.release(released);
+
+        assertEquals(2, journal.undo(world, null, Instant.ofEpochMilli(0), mock(EditSession.class)));
+        assertTrue(journal.getRecords().isEmpty());
+        assertFalse(journal.isUndone(released));
+        assertTrue(journal.isUndone(held));
+
+        journal.release(held);
+        assertFalse(journal.isUndone(held));
+    }
+
+    @Test
+    @DisplayName("stops at records older than the given time")
+    void undoSince() throws Exception {
+        UndoJournal journal = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        journal.append(world, single(BlockVector3.ZERO, air, stone));
+        now += 5000;
+        journal.append(world, single(BlockVector3.ZERO, stone, chest));
+
+        EditSession editSession = mock(EditSession.class);
+        assertEquals(1, journal.undo(world, null, Instant.ofEpochMilli(now), editSession));
+        assertEquals(1, journal.getRecords().size());
+    }
+
+    @Test
+    @DisplayName("reports truncated records as read errors")
+    void truncatedRecord() throws IOException {
+        UndoJournal journal = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        journal.append(world, single(BlockVector3.ZERO, air, stone));
+        Path path = journal.getRecords().get(0).getPath();
+        truncate(path, Files.size(path) - 4);
+
+        JournalRecord record = journal(NO_MAX_AGE, Long.MAX_VALUE).getRecords().get(0);
+        assertThrows(UncheckedIOException.class, () -> read(record.getChangeSet(null)));
+        assertThrows(IOException.class, () -> record.undo(mock(EditSession.class), null));
+    }
+
+    @Test
+    @DisplayName("ignores records with a truncated header")
+    void truncatedHeader() throws IOException {
+        UndoJournal journal = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        journal.append(world, single(BlockVector3.ZERO, air, stone));
+        journal.append(world, single(BlockVector3.ZERO, stone, air));
+        truncate(journal.getRecords().get(0).getPath(), 6);
+
+        List<JournalRecord> records = journal(NO_MAX_AGE, Long.MAX_VALUE).getRecords();
+        assertEquals(1, records.size());
+        assertEquals(journal.getRecords().get(1).getSequence(), records.get(0).getSequence());
+    }
+
+    @Test
+    @DisplayName("removes records older than the maximum age")
+    void pruneByAge() throws IOException {
+        UndoJournal journal = journal(Duration.ofMillis(1000), Long.MAX_VALUE);
+        long first = journal.append(world, single(BlockVector3.ZERO, air, stone));
+        now += 500;
+        long second = journal.append(world, single(BlockVector3.ZERO, stone, air));
+        assertEquals(2, journal.getRecords().size());
+
+        now += 700;
+        long third = journal.append(world, single(BlockVector3.ZERO, air, stone));
+        List<JournalRecord> records = journal.getRecords();
+        assertEquals(Lists.newArrayList(third, second), sequences(records));
+        assertFalse(Files.exists(dir.resolve(first + ".undo")));
+    }
+
+    @Test
+    @DisplayName("removes the oldest records once over the maximum size")
+    void pruneBySize() throws IOException {
+        UndoJournal unbounded = journal(NO_MAX_AGE, Long.MAX_VALUE);
+        unbounded.append(world, single(BlockVector3.ZERO, air, stone));
+        long recordSize = unbounded.getRecords().get(0).getFileSize();
+
+        UndoJournal journal = journal(NO_MAX_AGE, recordSize * 2);
+        long second = journal.append(world, single(BlockVector3.ZERO, stone, air));
+        assertEquals(2, journal.getRecords().size());
+        long third = journal.append(world, single(BlockVector3.ZERO, air, stone));
+        assertEquals(Lists.newArrayList(third, second), sequences(journal.getRecords()));
+    }
+
+    @Test
+    @DisplayName("does not write records deleted while still queued")
+    void deleteQueued() throws IOException {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        UndoJournal journal = new UndoJournal(dir, NO_MAX_AGE, Long.MAX_VALUE, tasks::add, () -> now);
+        long sequence = journal.append(world, single(BlockVector3.ZERO, air, stone));
+        journal.delete(sequence);
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+        assertTrue(journal.getRecords().isEmpty());
+        assertFalse(Files.exists(dir.resolve(sequence + ".undo")));
+    }
+
+    private UndoJournal journal(Duration maxAge, long maxBytes) {
+        Executor directExecutor = Runnable::run;
+        return new UndoJournal(dir, maxAge, maxBytes, directExecutor, () -> now);
+    }
+
+    private static World mockWorld(String id) {
+        World world = mock(World.class);
+        when(world.getId()).thenReturn(id);
+        return world;
+    }
+
+    private static BlockChange change(BlockVector3 position, BlockState previous, BlockState current) {
+        return new BlockChange(position, previous.toBaseBlock(), current.toBaseBlock());
+    }
+
+    private static ChangeSet single(BlockVector3 position, BlockState previous, BlockState current) {
+        return single(position, previous.toBaseBlock(), current.toBaseBlock());
+    }
+
+    private static ChangeSet single(BlockVector3 position, BaseBlock previous, BaseBlock current) {
+        ArrayListHistory changeSet = new ArrayListHistory();
+        changeSet.add(new BlockChange(position, previous, current));
+        return changeSet;
+    }
+
+    private static Map<BlockVector3, BlockChange> read(ChangeSet changeSet) {
+        Map<BlockVector3, BlockChange> changes = new HashMap<>();
+        for (Change change : Lists.newArrayList(changeSet.forwardIterator())) {
+            BlockChange blockChange = (BlockChange) change;
+            assertNull(changes.put(blockChange.getPosition(), blockChange));
+        }
+        return changes;
+    }
+
+    private static List<Long> sequences(List<JournalRecord> records) {
+        return Lists.transform(records, JournalRecord::getSequence);
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static CompoundTag chestNbt(String name) {
+        return new CompoundTag(ImmutableMap.<String, Tag>of(
+            "id", new StringTag("minecraft:chest"),
+            "CustomName", new StringTag(name)
+        ));
+    }
+
+}
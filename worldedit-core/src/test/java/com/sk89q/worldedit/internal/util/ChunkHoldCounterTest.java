@@ -0,0 +1,67 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A chunk hold counter")
+class ChunkHoldCounterTest {
+
+    private final ChunkHoldCounter holds = new ChunkHoldCounter();
+
+    @Test
+    @DisplayName("reports the first hold and the last release of a chunk")
+    void firstAndLast() {
+        assertTrue(holds.hold(1, -2));
+        assertFalse(holds.hold(1, -2));
+        assertTrue(holds.isHeld(1, -2));
+
+        assertFalse(holds.release(1, -2));
+        assertTrue(holds.isHeld(1, -2));
+        assertTrue(holds.release(1, -2));
+        assertFalse(holds.isHeld(1, -2));
+    }
+
+    @Test
+    @DisplayName("counts chunks separately")
+    void separateChunks() {
+        assertTrue(holds.hold(0, 0));
+        assertTrue(holds.hold(0, 1));
+        assertTrue(holds.hold(-1, 0));
+        assertTrue(holds.release(0, 1));
+        assertTrue(holds.isHeld(0, 0));
+        assertTrue(holds.isHeld(-1, 0));
+    }
+
+    @Test
+    @DisplayName("ignores releases of chunks that are not held")
+    void releaseUnheld() {
+        assertFalse(holds.release(5, 5));
+        assertTrue(holds.hold(5, 5));
+        assertTrue(holds.release(5, 5));
+        assertFalse(holds.release(5, 5));
+        assertTrue(holds.hold(5, 5));
+    }
+
+}
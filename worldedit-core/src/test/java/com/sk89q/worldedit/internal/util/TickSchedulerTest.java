@@ -0,0 +1,88 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A tick scheduler")
+class TickSchedulerTest {
+
+    private final TickScheduler scheduler = new TickScheduler();
+
+    @Test
+    @DisplayName("runs a repeating task after its delay")
+    void runsRepeatingTask() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.schedule(2, 1, runs::incrementAndGet);
+        scheduler.tick();
+        scheduler.tick();
+        assertEquals(0, runs.get());
+        scheduler.tick();
+        scheduler.tick();
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("runs a one-off task once")
+    void runsOnce() {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.schedule(0, -1, runs::incrementAndGet);
+        scheduler.tick();
+        scheduler.tick();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("does not run a cancelled task")
+    void cancelledTaskDoesNotRun() {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        int firstId = scheduler.schedule(0, 1, first::incrementAndGet);
+        int secondId = scheduler.schedule(0, 1, second::incrementAndGet);
+        assertNotEquals(firstId, secondId);
+        scheduler.tick();
+
+        assertTrue(scheduler.cancel(firstId));
+        assertFalse(scheduler.cancel(firstId));
+        scheduler.tick();
+        assertEquals(1, first.get());
+        assertEquals(2, second.get());
+    }
+
+    @Test
+    @DisplayName("does not run a task cancelled by an earlier task in the same tick")
+    void cancelledDuringTick() {
+        AtomicInteger runs = new AtomicInteger();
+        int[] id = new int[1];
+        scheduler.schedule(0, 1, () -> scheduler.cancel(id[0]));
+        id[0] = scheduler.schedule(0, 1, runs::incrementAndGet);
+        scheduler.tick();
+        assertEquals(0, runs.get());
+    }
+
+}
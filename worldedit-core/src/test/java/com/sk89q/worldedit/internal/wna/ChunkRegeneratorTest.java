@@ -0,0 +1,193 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.wna;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector2;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.CylinderRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.RegenOptions;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Copying regenerated chunks into an extent")
+class ChunkRegeneratorTest {
+
+    private static final BiomeType BIOME = new BiomeType("test:regenerated");
+    // a chest at the corner of chunk 1, 1
+    private static final BlockVector3 CHEST = BlockVector3.at(16, 2, 16);
+    private static final CompoundTag CHEST_NBT = new CompoundTag(ImmutableMap.of("CustomName", new StringTag("loot")));
+
+    @BeforeAll
+    static void setUp() {
+        TestPlatform.register();
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("copy block states off the main thread, and block entities and biomes on it")
+    void copiesOnTheRightThreads() throws WorldEditException {
+        Region region = new CuboidRegion(BlockVector3.at(-3, 0, -3), BlockVector3.at(20, 20, 20));
+        BlockArrayClipboard extent = new BlockArrayClipboard(region);
+        FakeRegenerator regenerator = new FakeRegenerator(region);
+
+        regenerator.regenerate(extent, RegenOptions.builder().regenBiomes(true).build());
+
+        assertFalse(regenerator.stateThreads.isEmpty());
+        assertFalse(regenerator.stateThreads.contains(Thread.currentThread()));
+        assertEquals(Collections.singleton(Thread.currentThread()), regenerator.mainThreadReads);
+
+        assertEquals(BlockTypes.STONE, extent.getBlock(BlockVector3.at(-3, 3, 7)).getBlockType());
+        assertEquals(BlockTypes.AIR, extent.getBlock(BlockVector3.at(-3, 4, 7)).getBlockType());
+        // an empty section is skipped
+        assertEquals(BlockTypes.AIR, extent.getBlock(BlockVector3.at(5, 18, 5)).getBlockType());
+        BaseBlock chest = extent.getFullBlock(CHEST);
+        assertEquals(BlockTypes.CHEST, chest.getBlockType());
+        assertEquals(CHEST_NBT, chest.getNbtData());
+        assertEquals(BIOME, extent.getBiome(BlockVector3.at(12, 7, -2)));
+    }
+
+    @Test
+    @DisplayName("only write blocks inside the region")
+    void onlyWritesInsideRegion() throws WorldEditException {
+        Region region = new CylinderRegion(BlockVector3.at(8, 0, 8), Vector2.at(6, 6), 0, 10);
+        BlockArrayClipboard extent = new BlockArrayClipboard(new CuboidRegion(region.getMinimumPoint(), region.getMaximumPoint()));
+
+        new FakeRegenerator(region).regenerate(extent, RegenOptions.builder().build());
+
+        for (BlockVector3 position : extent.getRegion()) {
+            BlockState expected = region.contains(position) && position.getY() < 4
+                ? BlockTypes.STONE.getDefaultState()
+                : BlockTypes.AIR.getDefaultState();
+            assertEquals(expected, extent.getBlock(position), position.toString());
+        }
+        assertFalse(extent.hasBiomes());
+    }
+
+    @Test
+    @DisplayName("fail when a chunk fails to generate")
+    void failedChunk() {
+        Region region = new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(40, 4, 40));
+        FakeRegenerator regenerator = new FakeRegenerator(region) {
+            @Override
+            protected CompletableFuture<BlockVector2> loadChunk(int chunkX, int chunkZ) {
+                return CompletableFuture.completedFuture(chunkX == 1 && chunkZ == 1 ? null : BlockVector2.at(chunkX, chunkZ));
+            }
+        };
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> regenerator.regenerate(new BlockArrayClipboard(region), RegenOptions.builder().build()));
+        assertNotNull(e.getCause());
+    }
+
+    private class FakeRegenerator extends ChunkRegenerator<BlockVector2, Integer> {
+
+        final Set<Thread> stateThreads = ConcurrentHashMap.newKeySet();
+        final Set<Thread> mainThreadReads = ConcurrentHashMap.newKeySet();
+
+        FakeRegenerator(Region region) {
+            super(region, worker);
+        }
+
+        @Override
+        protected CompletableFuture<BlockVector2> loadChunk(int chunkX, int chunkZ) {
+            return CompletableFuture.supplyAsync(() -> BlockVector2.at(chunkX, chunkZ), worker);
+        }
+
+        @Override
+        protected void driveMainThreadUntil(BooleanSupplier done) {
+            while (!done.getAsBoolean()) {
+                Thread.yield();
+            }
+        }
+
+        @Nullable
+        @Override
+        protected Integer getSection(BlockVector2 chunk, int sectionY) {
+            return sectionY == 0 ? sectionY : null;
+        }
+
+        @Override
+        protected BlockState getBlockState(Integer section, int x, int y, int z) {
+            stateThreads.add(Thread.currentThread());
+            if (y < 4) {
+                return BlockTypes.STONE.getDefaultState();
+            }
+            return BlockTypes.AIR.getDefaultState();
+        }
+
+        @Override
+        protected Collection<BlockVector3> getBlockEntityPositions(BlockVector2 chunk) {
+            mainThreadReads.add(Thread.currentThread());
+            return chunk.equals(BlockVector2.at(1, 1)) ? ImmutableList.of(CHEST) : ImmutableList.of();
+        }
+
+        @Nullable
+        @Override
+        protected BaseBlock getFullBlock(BlockVector2 chunk, BlockVector3 position, BlockState state) {
+            mainThreadReads.add(Thread.currentThread());
+            return BlockTypes.CHEST.getDefaultState().toBaseBlock(CHEST_NBT);
+        }
+
+        @Override
+        protected BiomeType getBiome(BlockVector2 chunk, BlockVector3 position) {
+            mainThreadReads.add(Thread.currentThread());
+            assertTrue(chunk.equals(BlockVector2.at(position.getX() >> 4, position.getZ() >> 4)));
+            return BIOME;
+        }
+    }
+}
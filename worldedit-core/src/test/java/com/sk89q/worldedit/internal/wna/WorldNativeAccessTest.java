@@ -0,0 +1,237 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.wna;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.SideEffect;
+import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Batched side effects of world native access")
+class WorldNativeAccessTest {
+
+    private static final BlockVector3 FIRST = BlockVector3.at(1, 5, 1);
+    private static final BlockVector3 SECOND = BlockVector3.at(2, 5, 1);
+    private static final BlockVector3 BELOW = BlockVector3.at(9, 4, 9);
+
+    private final Map<BlockVector3, BlockState> changes = new HashMap<>();
+
+    {
+        changes.put(FIRST, mock(BlockState.class));
+        changes.put(SECOND, mock(BlockState.class));
+        changes.put(BELOW, mock(BlockState.class));
+    }
+
+    @Test
+    @DisplayName("notify every neighbour once when neighbours can be updated individually")
+    void neighborsUpdatedOnce() {
+        IndividualAccess access = new IndividualAccess();
+        access.applySideEffects(0, 0, changes, SideEffectSet.defaults());
+
+        assertEquals(0, access.notified.size());
+        Set<BlockVector3> expected = new HashSet<>();
+        for (BlockVector3 position : changes.keySet()) {
+            for (BlockVector3 direction : WorldNativeAccess.NEIGHBOR_DIRECTIONS) {
+                expected.add(position.add(direction));
+            }
+        }
+        assertEquals(expected.size(), access.updatedNeighbors.size());
+        assertEquals(expected, new HashSet<>(access.updatedNeighbors));
+        assertEquals(changes.keySet(), new HashSet<>(access.comparators));
+    }
+
+    @Test
+    @DisplayName("notify the old state of the first changed block next to a neighbour")
+    void neighborSeesOldState() {
+        IndividualAccess access = new IndividualAccess();
+        access.applySideEffects(0, 0, changes, SideEffectSet.defaults());
+
+        int index = access.updatedNeighbors.indexOf(BlockVector3.at(1, 6, 1));
+        assertEquals(changes.get(FIRST), access.neighborSourceStates.get(index));
+    }
+
+    @Test
+    @DisplayName("notify neighbours block by block when they cannot be updated individually")
+    void neighborsNotifiedPerBlock() {
+        RecordingAccess access = new RecordingAccess();
+        access.applySideEffects(0, 0, changes, SideEffectSet.defaults());
+
+        assertEquals(changes.keySet(), new HashSet<>(access.notified));
+        assertEquals(3, access.notified.size());
+    }
+
+    @Test
+    @DisplayName("fall back to notifying all neighbours if single updates are not implemented")
+    void defaultsFallBack() {
+        RecordingAccess access = new RecordingAccess() {
+            @Override
+            public boolean canUpdateNeighborsIndividually() {
+                return true;
+            }
+        };
+        access.applySideEffects(0, 0, changes, SideEffectSet.defaults());
+
+        assertEquals(changes.keySet(), new HashSet<>(access.notified));
+    }
+
+    @Test
+    @DisplayName("do not notify neighbours if that side effect is off")
+    void neighborsOff() {
+        IndividualAccess access = new IndividualAccess();
+        access.applySideEffects(0, 0, changes,
+            SideEffectSet.defaults().with(SideEffect.NEIGHBORS, SideEffect.State.OFF));
+
+        assertEquals(0, access.notified.size());
+        assertEquals(0, access.updatedNeighbors.size());
+        assertEquals(0, access.comparators.size());
+    }
+
+    @Test
+    @DisplayName("handle blocks section by section")
+    void sectionOrder() {
+        RecordingAccess access = new RecordingAccess();
+        access.applySideEffects(0, 0, changes, SideEffectSet.defaults());
+
+        assertEquals(3, access.lit.size());
+        assertEquals(BELOW, access.lit.get(0));
+        assertEquals(BELOW, access.notified.get(0));
+        assertTrue(access.notified.indexOf(FIRST) < access.notified.indexOf(SECOND));
+    }
+
+    /**
+     * Records calls, and stores native states as the WorldEdit states.
+     */
+    private static class RecordingAccess implements WorldNativeAccess<Object, Object, BlockVector3> {
+
+        final List<BlockVector3> lit = new ArrayList<>();
+        final List<BlockVector3> notified = new ArrayList<>();
+        private final Object current = new Object();
+
+        @Override
+        public Object getChunk(int x, int z) {
+            return this;
+        }
+
+        @Override
+        public Object toNative(BlockState state) {
+            return state;
+        }
+
+        @Override
+        public Object getBlockState(Object chunk, BlockVector3 position) {
+            return current;
+        }
+
+        @Nullable
+        @Override
+        public Object setBlockState(Object chunk, BlockVector3 position, Object state) {
+            return current;
+        }
+
+        @Override
+        public Object getValidBlockForPosition(Object block, BlockVector3 position) {
+            return block;
+        }
+
+        @Override
+        public BlockVector3 getPosition(int x, int y, int z) {
+            return BlockVector3.at(x, y, z);
+        }
+
+        @Override
+        public void updateLightingForBlock(BlockVector3 position) {
+            lit.add(position);
+        }
+
+        @Override
+        public boolean updateTileEntity(BlockVector3 position, CompoundTag tag) {
+            return true;
+        }
+
+        @Override
+        public void notifyBlockUpdate(BlockVector3 position, Object oldState, Object newState) {
+        }
+
+        @Override
+        public boolean isChunkTicking(Object chunk) {
+            return true;
+        }
+
+        @Override
+        public void markBlockChanged(BlockVector3 position) {
+        }
+
+        @Override
+        public void notifyNeighbors(BlockVector3 pos, Object oldState, Object newState) {
+            if (!notified.contains(pos)) {
+                notified.add(pos);
+            }
+        }
+
+        @Override
+        public void updateNeighbors(BlockVector3 pos, Object oldState, Object newState, int recursionLimit) {
+        }
+
+        @Override
+        public void onBlockStateChange(BlockVector3 pos, Object oldState, Object newState) {
+        }
+
+    }
+
+    private static final class IndividualAccess extends RecordingAccess {
+
+        final List<BlockVector3> updatedNeighbors = new ArrayList<>();
+        final List<Object> neighborSourceStates = new ArrayList<>();
+        final List<BlockVector3> comparators = new ArrayList<>();
+
+        @Override
+        public boolean canUpdateNeighborsIndividually() {
+            return true;
+        }
+
+        @Override
+        public void updateNeighbor(BlockVector3 target, BlockVector3 source, Object sourceOldState, Object sourceNewState) {
+            updatedNeighbors.add(target);
+            neighborSourceStates.add(sourceOldState);
+        }
+
+        @Override
+        public void updateComparators(BlockVector3 pos, Object newState) {
+            comparators.add(pos);
+        }
+
+    }
+
+}
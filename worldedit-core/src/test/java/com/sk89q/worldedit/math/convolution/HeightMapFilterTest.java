@@ -0,0 +1,156 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.math.convolution;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that {@link HeightMapFilter} gives the same results for separable
+ * and non-separable kernels.
+ */
+public class HeightMapFilterTest {
+
+    private static int[] randomHeightMap(int width, int height) {
+        Random random = new Random(42);
+        int[] data = new int[width * height];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 60 + random.nextInt(20);
+        }
+        return data;
+    }
+
+    /**
+     * Apply a kernel cell by cell, clamping like the filter does.
+     */
+    private static int[] reference(Kernel kernel, int[] data, int width, int height) {
+        float[] matrix = kernel.getKernelData(null);
+        int[] out = new int[data.length];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                double z = 0;
+                for (int ky = 0; ky < kernel.getHeight(); ++ky) {
+                    int offsetY = y + ky - kernel.getYOrigin();
+                    if (offsetY < 0 || offsetY >= height) {
+                        offsetY = y;
+                    }
+                    for (int kx = 0; kx < kernel.getWidth(); ++kx) {
+                        int offsetX = x + kx - kernel.getXOrigin();
+                        if (offsetX < 0 || offsetX >= width) {
+                            offsetX = x;
+                        }
+                        z += matrix[ky * kernel.getWidth() + kx] * data[offsetY * width + offsetX];
+                    }
+                }
+                out[y * width + x] = (int) (z + 0.5);
+            }
+        }
+        return out;
+    }
+
+    @Test
+    @DisplayName("a separable kernel matches the full convolution")
+    void separableKernel() {
+        Kernel kernel = new LinearKernel(2);
+        int[] data = randomHeightMap(37, 23);
+        assertArrayEquals(reference(kernel, data, 37, 23), new HeightMapFilter(kernel).filter(data, 37, 23));
+    }
+
+    @Test
+    @DisplayName("a kernel that can't be separated is still applied")
+    void nonSeparableKernel() {
+        Kernel kernel = new Kernel(3, 3, new float[] {
+            0, 0.2f, 0,
+            0.2f, 0.2f, 0.2f,
+            0, 0.2f, 0
+        });
+        int[] data = randomHeightMap(19, 31);
+        assertArrayEquals(reference(kernel, data, 19, 31), new HeightMapFilter(kernel).filter(data, 19, 31));
+    }
+
+    @Test
+    @DisplayName("a height map filtered on several threads matches the full convolution")
+    void parallel() {
+        int width = 300;
+        int height = HeightMapFilter.PARALLEL_THRESHOLD / width + 1;
+        int[] data = randomHeightMap(width, height);
+        Kernel separable = new GaussianKernel(5, 1.0);
+        assertArrayEquals(reference(separable, data, width, height),
+            new HeightMapFilter(separable).filter(data, width, height));
+        Kernel nonSeparable = new Kernel(3, 3, new float[] {
+            0, 0.2f, 0,
+            0.2f, 0.2f, 0.2f,
+            0, 0.2f, 0
+        });
+        assertArrayEquals(reference(nonSeparable, data, width, height),
+            new HeightMapFilter(nonSeparable).filter(data, width, height));
+    }
+
+    @Test
+    @DisplayName("a large height map filtered on one thread matches the full convolution")
+    void sequential() {
+        int width = 300;
+        int height = HeightMapFilter.PARALLEL_THRESHOLD / width + 1;
+        int[] data = randomHeightMap(width, height);
+        Kernel kernel = new GaussianKernel(5, 1.0);
+        HeightMapFilter filter = new HeightMapFilter(kernel);
+        filter.setParallel(false);
+        assertArrayEquals(reference(kernel, data, width, height), filter.filter(data, width, height));
+    }
+
+    @Test
+    @DisplayName("a filter shared between threads gives the same results as one per thread")
+    void shared() {
+        Kernel kernel = new GaussianKernel(5, 1.0);
+        HeightMapFilter filter = new HeightMapFilter(kernel);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[16];
+            for (int i = 0; i < futures.length; i++) {
+                int width = 20 + i;
+                int height = 40 - i;
+                int[] data = randomHeightMap(width, height);
+                int[] expected = reference(kernel, data, width, height);
+                futures[i] = CompletableFuture.runAsync(
+                    () -> assertArrayEquals(expected, filter.filter(data, width, height)), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("filtering in place is rejected")
+    void inPlace() {
+        int[] data = randomHeightMap(4, 4);
+        HeightMapFilter filter = new HeightMapFilter(new GaussianKernel(1, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> filter.filter(data, data, 4, 4));
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.internal.util.RegionOptimizedVectorSorter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.EllipsoidRegion;
+import com.sk89q.worldedit.regions.Region;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that {@link ChunkOrderedRegionIterator} visits the right points in the right order.
+ */
+public class ChunkOrderedRegionIteratorTest {
+
+    private static void assertVisitsRegionInOrder(Region region) {
+        Set<BlockVector3> expected = ImmutableSet.copyOf(region);
+        Set<BlockVector3> visited = new HashSet<>();
+        long lastKey = 0;
+        Iterator<BlockVector3> iterator = region.chunkOrderedIterator();
+        while (iterator.hasNext()) {
+            BlockVector3 next = iterator.next();
+            assertTrue(visited.add(next), () -> next + " visited twice");
+            long key = RegionOptimizedVectorSorter.key(next.getX(), next.getY(), next.getZ());
+            assertTrue(Long.compareUnsigned(lastKey, key) <= 0, () -> next + " is out of order");
+            lastKey = key;
+        }
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    @DisplayName("visits a single block")
+    void singleBlock() {
+        assertVisitsRegionInOrder(new CuboidRegion(BlockVector3.at(3, 64, -7), BlockVector3.at(3, 64, -7)));
+    }
+
+    @Test
+    @DisplayName("visits a cuboid crossing region file boundaries in order")
+    void cuboidAcrossRegions() {
+        assertVisitsRegionInOrder(new CuboidRegion(BlockVector3.at(-530, 0, 490), BlockVector3.at(-490, 20, 530)));
+        assertVisitsRegionInOrder(new CuboidRegion(BlockVector3.at(-20, 0, -20), BlockVector3.at(20, 20, 20)));
+    }
+
+    @Test
+    @DisplayName("visits a cuboid that isn't aligned to sections in order")
+    void unalignedCuboid() {
+        assertVisitsRegionInOrder(new CuboidRegion(BlockVector3.at(5, 7, 9), BlockVector3.at(50, 70, 41)));
+    }
+
+    @Test
+    @DisplayName("visits only the points contained in a non-cuboid region")
+    void ellipsoid() {
+        assertVisitsRegionInOrder(new EllipsoidRegion(BlockVector3.at(-8, 64, 8), Vector3.at(20, 12, 30)));
+    }
+
+    @Test
+    @DisplayName("stops once exhausted")
+    void exhausted() {
+        Iterator<BlockVector3> iterator = new CuboidRegion(BlockVector3.ZERO, BlockVector3.ONE).chunkOrderedIterator();
+        for (int i = 0; i < 8; i++) {
+            iterator.next();
+        }
+        assertFalse(iterator.hasNext());
+    }
+}
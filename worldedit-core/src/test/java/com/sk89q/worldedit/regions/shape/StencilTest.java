@@ -0,0 +1,277 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.shape;
+
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.math.BlockVector3;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that {@link Stencil} covers each offset once, keeps tiles together,
+ * and matches the shape loops that {@code EditSession} used before stencils.
+ */
+public class StencilTest {
+
+    private static List<int[]> runs(Stencil stencil) throws MaxChangedBlocksException {
+        List<int[]> runs = new ArrayList<>();
+        stencil.forEachRun((x, z, minY, maxY) -> {
+            runs.add(new int[] { x, z, minY, maxY });
+            return 1;
+        });
+        return runs;
+    }
+
+    private static Set<BlockVector3> assertWellFormed(Stencil stencil) throws MaxChangedBlocksException {
+        Set<BlockVector3> offsets = new HashSet<>();
+        Set<Long> finishedTiles = new HashSet<>();
+        long currentTile = 0;
+        List<int[]> runs = runs(stencil);
+        for (int i = 0; i < runs.size(); i++) {
+            int[] run = runs.get(i);
+            if (stencil.isPrecomputed()) {
+                long tile = ((long) (run[0] >> 4) << 32) | ((run[1] >> 4) & 0xFFFFFFFFL);
+                if (i > 0 && tile != currentTile) {
+                    finishedTiles.add(currentTile);
+                    assertFalse(finishedTiles.contains(tile), () -> "tile of " + run[0] + ", " + run[1] + " visited twice");
+                }
+                currentTile = tile;
+            }
+            assertTrue(run[2] <= run[3]);
+            for (int y = run[2]; y <= run[3]; y++) {
+                BlockVector3 offset = BlockVector3.at(run[0], y, run[1]);
+                assertTrue(offsets.add(offset), () -> offset + " covered twice");
+            }
+        }
+        assertEquals(runs.size(), stencil.forEachRun((x, z, minY, maxY) -> 1));
+        return offsets;
+    }
+
+    private static double lengthSq(double x, double y, double z) {
+        return (x * x) + (y * y) + (z * z);
+    }
+
+    private static double lengthSq(double x, double z) {
+        return (x * x) + (z * z);
+    }
+
+    private static void addMirrored(Set<BlockVector3> offsets, int x, int y, int z, boolean mirrorY) {
+        for (int sy = 1; sy >= (mirrorY ? -1 : 1); sy -= 2) {
+            offsets.add(BlockVector3.at(x, sy * y, z));
+            offsets.add(BlockVector3.at(-x, sy * y, z));
+            offsets.add(BlockVector3.at(x, sy * y, -z));
+            offsets.add(BlockVector3.at(-x, sy * y, -z));
+        }
+    }
+
+    /**
+     * The octant loop that {@code EditSession#makeSphere} used before stencils.
+     */
+    private static Set<BlockVector3> octantEllipsoid(double radiusX, double radiusY, double radiusZ, boolean filled) {
+        Set<BlockVector3> offsets = new HashSet<>();
+        radiusX += 0.5;
+        radiusY += 0.5;
+        radiusZ += 0.5;
+
+        final double invRadiusX = 1 / radiusX;
+        final double invRadiusY = 1 / radiusY;
+        final double invRadiusZ = 1 / radiusZ;
+
+        final int ceilRadiusX = (int) Math.ceil(radiusX);
+        final int ceilRadiusY = (int) Math.ceil(radiusY);
+        final int ceilRadiusZ = (int) Math.ceil(radiusZ);
+
+        double nextXn = 0;
+        forX: for (int x = 0; x <= ceilRadiusX; ++x) {
+            final double xn = nextXn;
+            nextXn = (x + 1) * invRadiusX;
+            double nextYn = 0;
+            forY: for (int y = 0; y <= ceilRadiusY; ++y) {
+                final double yn = nextYn;
+                nextYn = (y + 1) * invRadiusY;
+                double nextZn = 0;
+                forZ: for (int z = 0; z <= ceilRadiusZ; ++z) {
+                    final double zn = nextZn;
+                    nextZn = (z + 1) * invRadiusZ;
+
+                    double distanceSq = lengthSq(xn, yn, zn);
+                    if (distanceSq > 1) {
+                        if (z == 0) {
+                            if (y == 0) {
+                                break forX;
+                            }
+                            break forY;
+                        }
+                        break forZ;
+                    }
+
+                    if (!filled) {
+                        if (lengthSq(nextXn, yn, zn) <= 1 && lengthSq(xn, nextYn, zn) <= 1 && lengthSq(xn, yn, nextZn) <= 1) {
+                            continue;
+                        }
+                    }
+
+                    addMirrored(offsets, x, y, z, true);
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * The quadrant loop that {@code EditSession#makeCylinder} used before
+     * stencils, for a single layer.
+     */
+    private static Set<BlockVector3> quadrantCylinder(double radiusX, double radiusZ, boolean filled) {
+        Set<BlockVector3> offsets = new HashSet<>();
+        radiusX += 0.5;
+        radiusZ += 0.5;
+
+        final double invRadiusX = 1 / radiusX;
+        final double invRadiusZ = 1 / radiusZ;
+
+        final int ceilRadiusX = (int) Math.ceil(radiusX);
+        final int ceilRadiusZ = (int) Math.ceil(radiusZ);
+
+        double nextXn = 0;
+        forX: for (int x = 0; x <= ceilRadiusX; ++x) {
+            final double xn = nextXn;
+            nextXn = (x + 1) * invRadiusX;
+            double nextZn = 0;
+            forZ: for (int z = 0; z <= ceilRadiusZ; ++z) {
+                final double zn = nextZn;
+                nextZn = (z + 1) * invRadiusZ;
+
+                double distanceSq = lengthSq(xn, zn);
+                if (distanceSq > 1) {
+                    if (z == 0) {
+                        break forX;
+                    }
+                    break forZ;
+                }
+
+                if (!filled) {
+                    if (lengthSq(nextXn, zn) <= 1 && lengthSq(xn, nextZn) <= 1) {
+                        continue;
+                    }
+                }
+
+                addMirrored(offsets, x, 0, z, false);
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * The quadrant loop that {@code EditSession#makePyramid} used before
+     * stencils.
+     */
+    private static Set<BlockVector3> quadrantPyramid(int size, boolean filled) {
+        Set<BlockVector3> offsets = new HashSet<>();
+        int height = size;
+
+        for (int y = 0; y <= height; ++y) {
+            size--;
+            for (int x = 0; x <= size; ++x) {
+                for (int z = 0; z <= size; ++z) {
+                    if ((filled && z <= size && x <= size) || z == size || x == size) {
+                        addMirrored(offsets, x, y, z, false);
+                    }
+                }
+            }
+        }
+        return offsets;
+    }
+
+    @Test
+    @DisplayName("spheres and ellipsoids match the octant loop")
+    void ellipsoidsMatchOctantLoop() throws MaxChangedBlocksException {
+        double[][] radii = { { 0, 0, 0 }, { 1, 1, 1 }, { 5, 5, 5 }, { 20, 20, 20 }, { 7.5, 4, 12 }, { 2.3, 9.9, 0.4 } };
+        for (double[] r : radii) {
+            for (boolean filled : new boolean[] { true, false }) {
+                Stencil stencil = Stencil.ellipsoid(r[0], r[1], r[2], filled);
+                assertTrue(stencil.isPrecomputed());
+                assertEquals(octantEllipsoid(r[0], r[1], r[2], filled), assertWellFormed(stencil),
+                    () -> "ellipsoid " + r[0] + ", " + r[1] + ", " + r[2] + (filled ? "" : " hollow"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("cylinders match the quadrant loop and stay at Y offset 0")
+    void cylindersMatchQuadrantLoop() throws MaxChangedBlocksException {
+        double[][] radii = { { 0, 0 }, { 3, 3 }, { 30, 18 }, { 4.5, 11.2 } };
+        for (double[] r : radii) {
+            for (boolean filled : new boolean[] { true, false }) {
+                Set<BlockVector3> offsets = assertWellFormed(Stencil.cylinder(r[0], r[1], filled));
+                assertEquals(quadrantCylinder(r[0], r[1], filled), offsets,
+                    () -> "cylinder " + r[0] + ", " + r[1] + (filled ? "" : " hollow"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("pyramids match the quadrant loop")
+    void pyramidsMatchQuadrantLoop() throws MaxChangedBlocksException {
+        for (int size : new int[] { 0, 1, 2, 5, 17 }) {
+            for (boolean filled : new boolean[] { true, false }) {
+                assertEquals(quadrantPyramid(size, filled), assertWellFormed(Stencil.pyramid(size, filled)),
+                    () -> "pyramid " + size + (filled ? "" : " hollow"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("large shapes are computed while they are replayed and match the loops")
+    void largeShapesStream() throws MaxChangedBlocksException {
+        int radius = (int) Math.sqrt(Stencil.MAX_PRECOMPUTED_COLUMNS) / 2 + 1;
+
+        Stencil sphere = Stencil.ellipsoid(radius, radius, radius, false);
+        assertFalse(sphere.isPrecomputed());
+        assertNotSame(sphere, Stencil.ellipsoid(radius, radius, radius, false));
+        assertEquals(octantEllipsoid(radius, radius, radius, false), assertWellFormed(sphere));
+
+        Stencil cylinder = Stencil.cylinder(radius, radius + 3.5, true);
+        assertFalse(cylinder.isPrecomputed());
+        assertEquals(quadrantCylinder(radius, radius + 3.5, true), assertWellFormed(cylinder));
+
+        Stencil pyramid = Stencil.pyramid(radius + 1, false);
+        assertFalse(pyramid.isPrecomputed());
+        assertEquals(quadrantPyramid(radius + 1, false), assertWellFormed(pyramid));
+    }
+
+    @Test
+    @DisplayName("stencils are cached by their parameters")
+    void cached() {
+        assertSame(Stencil.ellipsoid(5, 5, 5, true), Stencil.ellipsoid(5, 5, 5, true));
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.session.storage;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.sk89q.worldedit.LocalSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link BinaryFileSessionStore}.
+ */
+public class BinaryFileSessionStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            LocalSession session = store.load(id);
+            assertNull(session.getLastScript());
+            session.setLastScript("test.js");
+            session.setUseServerCUI(true);
+            store.save(id, session);
+            session.setLastScript(null);
+            store.save(id, session);
+        }
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            LocalSession session = store.load(id);
+            assertNull(session.getLastScript());
+            assertTrue(session.shouldUseServerCUI());
+        }
+    }
+
+    @Test
+    public void testUnchangedSaveWritesNothing() throws IOException {
+        UUID id = UUID.randomUUID();
+        Path file = dir.resolve("sessions.dat");
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            LocalSession session = store.load(id);
+            session.setLastScript("test.js");
+            store.save(id, session);
+            long size = Files.size(file);
+            store.save(id, session);
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    public void testMigratesJsonSessions() throws IOException {
+        UUID id = UUID.randomUUID();
+        Path legacyFile = dir.resolve(id + ".json");
+        Files.write(legacyFile, "{\"lastScript\":\"legacy.js\"}".getBytes(StandardCharsets.UTF_8));
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            assertEquals("legacy.js", store.load(id).getLastScript());
+        }
+        assertFalse(Files.exists(legacyFile));
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            assertEquals("legacy.js", store.load(id).getLastScript());
+        }
+    }
+
+    @Test
+    public void testDiscardsTruncatedRecord() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            LocalSession session = store.load(id);
+            session.setLastScript("test.js");
+            store.save(id, session);
+        }
+        Files.write(dir.resolve("sessions.dat"), new byte[] { 2, 0, 0, 0, 50, 1 }, StandardOpenOption.APPEND);
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            LocalSession session = store.load(id);
+            assertEquals("test.js", session.getLastScript());
+            session.setLastScript("other.js");
+            store.save(id, session);
+        }
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            assertEquals("other.js", store.load(id).getLastScript());
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        UUID id = UUID.randomUUID();
+        Path file = dir.resolve("sessions.dat");
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            LocalSession session = store.load(id);
+            for (int i = 0; i < 2000; i++) {
+                session.setLastScript("script" + i + ".js");
+                store.save(id, session);
+            }
+            long size = Files.size(file);
+            store.flush();
+            assertTrue(Files.size(file) < size);
+        }
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            assertEquals("script1999.js", store.load(id).getLastScript());
+        }
+    }
+
+    @Test
+    public void testDamagedRecordFailsUntilRewritten() throws IOException {
+        UUID damaged = UUID.randomUUID();
+        UUID intact = UUID.randomUUID();
+        Path file = dir.resolve("sessions.dat");
+        long damagedEnd;
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            LocalSession session = new LocalSession();
+            session.setLastScript("damaged.js");
+            store.save(damaged, session);
+            damagedEnd = Files.size(file);
+            session.setLastScript("intact.js");
+            store.save(intact, session);
+        }
+        // flip a byte of the damaged session's value, in front of its checksum
+        byte[] data = Files.readAllBytes(file);
+        data[(int) damagedEnd - Integer.BYTES - 1] ^= 1;
+        Files.write(file, data);
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            assertThrows(IOException.class, () -> store.load(damaged));
+            assertEquals("intact.js", store.load(intact).getLastScript());
+
+            // saving the session again replaces the damaged record
+            LocalSession session = new LocalSession();
+            session.setLastScript("rewritten.js");
+            store.save(damaged, session);
+            assertEquals("rewritten.js", store.load(damaged).getLastScript());
+        }
+
+        try (BinaryFileSessionStore store = new BinaryFileSessionStore(dir.toFile())) {
+            assertEquals("rewritten.js", store.load(damaged).getLastScript());
+        }
+    }
+
+    @Test
+    public void testValuesRoundTrip() throws IOException {
+        JsonElement value = new JsonParser().parse(
+            "{\"a\":[1,-2.5,\"text\",true,null,{\"b\":{}}],\"c\":12345678901234,\"d\":0.1,\"e\":1e400}");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryFileSessionStore.writeValue(new DataOutputStream(bytes), value);
+        JsonElement read = BinaryFileSessionStore.readValue(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(value, read);
+        assertFalse(new String(bytes.toByteArray(), StandardCharsets.UTF_8).contains("12345678901234"));
+    }
+
+}
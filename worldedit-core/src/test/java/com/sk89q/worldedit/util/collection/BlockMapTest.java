@@ -21,19 +21,12 @@
 
 import com.google.common.collect.ImmutableMap;
 import com.sk89q.worldedit.WorldEdit;
-import com.sk89q.worldedit.extension.platform.Capability;
-import com.sk89q.worldedit.extension.platform.Platform;
-import com.sk89q.worldedit.extension.platform.PlatformManager;
-import com.sk89q.worldedit.extension.platform.Preference;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.util.test.TestPlatform;
 import com.sk89q.worldedit.util.test.VariedVectorGenerator;
 import com.sk89q.worldedit.util.test.VariedVectors;
 import com.sk89q.worldedit.world.block.BaseBlock;
-import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
-import com.sk89q.worldedit.world.registry.BundledRegistries;
-import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,7 +36,6 @@
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.lang.reflect.Field;
 import java.util.AbstractMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -60,7 +52,6 @@
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeFalse;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -68,33 +59,9 @@
 @DisplayName("An ordered block map")
 class BlockMapTest {
 
-    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
-
     @BeforeAll
     static void setupFakePlatform() {
-        when(MOCKED_PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
-        });
-        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
-            Capability.WORLD_EDITING, Preference.PREFERRED,
-            Capability.GAME_HOOKS, Preference.PREFERRED
-        ));
-        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
-        platformManager.register(MOCKED_PLATFORM);
-
-        registerBlock("minecraft:air");
-        registerBlock("minecraft:oak_wood");
-    }
-
-    @AfterAll
-    static void tearDownFakePlatform() throws Exception {
-        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
-        Field map = Registry.class.getDeclaredField("map");
-        map.setAccessible(true);
-        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
-    }
-
-    private static void registerBlock(String id) {
-        BlockType.REGISTRY.register(id, new BlockType(id));
+        TestPlatform.register();
     }
 
     @Mock
@@ -0,0 +1,125 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.VariedVectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A block set")
+class BlockSetTest {
+
+    private final BlockSet set = new BlockSet();
+
+    @VariedVectors.Test
+    @DisplayName("contains a location after it is added")
+    void containsAfterAdd(BlockVector3 vec) {
+        assertTrue(set.add(vec));
+        assertTrue(set.contains(vec));
+        assertEquals(1, set.size());
+    }
+
+    @VariedVectors.Test
+    @DisplayName("does not add a location twice")
+    void addTwice(BlockVector3 vec) {
+        assertTrue(set.add(vec));
+        assertFalse(set.add(vec.getX(), vec.getY(), vec.getZ()));
+        assertEquals(1, set.size());
+    }
+
+    @VariedVectors.Test(provideNonMatching = true)
+    @DisplayName("does not contain other locations")
+    void doesNotContainOthers(BlockVector3 vec, BlockVector3 other) {
+        set.add(vec);
+        assertFalse(set.contains(other));
+    }
+
+    @VariedVectors.Test
+    @DisplayName("iterates over the added location")
+    void iterates(BlockVector3 vec) {
+        set.add(vec);
+        Iterator<BlockVector3> iterator = set.iterator();
+        assertTrue(iterator.hasNext());
+        assertEquals(vec, iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @VariedVectors.Test
+    @DisplayName("removes a location")
+    void removes(BlockVector3 vec) {
+        set.add(vec);
+        assertTrue(set.remove(vec));
+        assertFalse(set.contains(vec));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    @DisplayName("iterates over neighbouring locations across groups")
+    void neighbours() {
+        Set<BlockVector3> expected = ImmutableSet.of(
+            BlockVector3.at(63, 255, 63),
+            BlockVector3.at(64, 255, 63),
+            BlockVector3.at(63, 256, 63),
+            BlockVector3.at(63, 255, 64),
+            BlockVector3.at(-1, -1, -1),
+            BlockVector3.at(0, 0, 0)
+        );
+        set.addAll(expected);
+        assertEquals(expected, ImmutableSet.copyOf(set));
+        Iterator<BlockVector3> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    @DisplayName("matches a hash set for locations spread over many sections")
+    void matchesHashSet() {
+        Random random = new Random(42);
+        Set<BlockVector3> expected = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            BlockVector3 vec = BlockVector3.at(
+                random.nextInt(300) - 150, random.nextInt(600) - 300, random.nextInt(300) - 150
+            );
+            assertEquals(expected.add(vec), set.add(vec));
+        }
+        for (int i = 0; i < 1000; i++) {
+            BlockVector3 vec = BlockVector3.at(
+                random.nextInt(300) - 150, random.nextInt(600) - 300, random.nextInt(300) - 150
+            );
+            assertEquals(expected.remove(vec), set.remove(vec));
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected, ImmutableSet.copyOf(set));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.registry.state.BooleanProperty;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.registry.BlockMaterial;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledBlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A mock platform for the tests that need block types, shared by all of
+ * them and registered once per JVM.
+ *
+ * <p>Registering it also registers every block type named by a
+ * {@link BlockTypes} constant. Those constants are looked up once, the first
+ * time {@link BlockTypes} is used, and keep their value for the rest of the
+ * JVM, so tests must not unregister this platform or clear the block
+ * registry.</p>
+ *
+ * <p>Air, cave air and void air are air, and every other block is a
+ * movement blocker. Furnaces have the {@link #LIT} property.</p>
+ */
+public final class TestPlatform {
+
+    public static final BooleanProperty LIT = new BooleanProperty("lit", ImmutableList.of(true, false));
+
+    private static final Set<String> AIR_IDS = ImmutableSet.of("minecraft:air", "minecraft:cave_air", "minecraft:void_air");
+    private static final Platform PLATFORM = mock(Platform.class);
+    private static boolean registered;
+
+    /**
+     * Register the platform and the block types, unless that was already done.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        BlockRegistry blockRegistry = new BundledBlockRegistry() {
+            @Override
+            public BlockMaterial getMaterial(BlockType blockType) {
+                boolean air = AIR_IDS.contains(blockType.getId());
+                BlockMaterial material = mock(BlockMaterial.class);
+                when(material.isAir()).thenReturn(air);
+                when(material.isMovementBlocker()).thenReturn(!air);
+                return material;
+            }
+
+            @Override
+            public Map<String, ? extends Property<?>> getProperties(BlockType blockType) {
+                return blockType.getId().equals("minecraft:furnace")
+                    ? ImmutableMap.of(LIT.getName(), LIT)
+                    : ImmutableMap.of();
+            }
+        };
+        LocalConfiguration configuration = new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        };
+        when(PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
+            @Override
+            public BlockRegistry getBlockRegistry() {
+                return blockRegistry;
+            }
+        });
+        when(PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.CONFIGURATION, Preference.PREFERRED,
+            Capability.WORLD_EDITING, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED
+        ));
+        when(PLATFORM.getConfiguration()).thenReturn(configuration);
+        WorldEdit.getInstance().getPlatformManager().register(PLATFORM);
+
+        registerBlockTypes();
+        registered = true;
+    }
+
+    /**
+     * Get the default state of a registered block type, registering the
+     * platform first if needed.
+     *
+     * @param id the ID of the block type
+     * @return the default state
+     */
+    public static BlockState getBlockState(String id) {
+        register();
+        return checkNotNull(BlockType.REGISTRY.get(id), id).getDefaultState();
+    }
+
+    private static void registerBlockTypes() {
+        // Reading the fields does not initialize BlockTypes
+        for (Field field : BlockTypes.class.getDeclaredFields()) {
+            if (field.getType() != BlockType.class || !Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            String id = "minecraft:" + field.getName().toLowerCase(Locale.ROOT);
+            if (BlockType.REGISTRY.get(id) == null) {
+                BlockType.REGISTRY.register(id, new BlockType(id));
+            }
+        }
+    }
+
+    private TestPlatform() {
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.block;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.util.concurrency.LazyReference;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A base block")
+class BaseBlockTest {
+
+    private static BlockState furnace;
+    private static BlockState chest;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        furnace = TestPlatform.getBlockState("minecraft:furnace");
+        chest = TestPlatform.getBlockState("minecraft:chest");
+    }
+
+    @Test
+    @DisplayName("does not compute NBT data to compare blocks with different states")
+    void equalsComparesStatesFirst() {
+        LazyReference<CompoundTag> first = lazyNbt();
+        LazyReference<CompoundTag> second = lazyNbt();
+        assertNotEquals(new NativeBlock(furnace, first), new NativeBlock(chest, second));
+        assertFalse(first.isComputed());
+        assertFalse(second.isComputed());
+    }
+
+    @Test
+    @DisplayName("does not compute NBT data to compare blocks sharing it")
+    void equalsComparesReferences() {
+        LazyReference<CompoundTag> nbt = lazyNbt();
+        assertEquals(new NativeBlock(chest, nbt), new NativeBlock(chest, nbt));
+        assertFalse(nbt.isComputed());
+    }
+
+    @Test
+    @DisplayName("compares NBT data of blocks with equal states")
+    void equalsComparesNbt() {
+        CompoundTag nbt = new CompoundTag(new HashMap<>());
+        assertEquals(chest.toBaseBlock(nbt), chest.toBaseBlock(nbt));
+        assertNotEquals(chest.toBaseBlock(nbt), chest.toBaseBlock(new CompoundTag(new HashMap<>())));
+        assertNotEquals(chest.toBaseBlock(nbt), chest.toBaseBlock());
+    }
+
+    @Test
+    @DisplayName("does not compute NBT data for its hash code")
+    void hashCodeDoesNotComputeNbt() {
+        LazyReference<CompoundTag> nbt = lazyNbt();
+        NativeBlock block = new NativeBlock(chest, nbt);
+        assertEquals(block.hashCode(), new NativeBlock(chest, nbt).hashCode());
+        assertFalse(nbt.isComputed());
+    }
+
+    @Test
+    @DisplayName("keeps its type and NBT data reference when the state changes")
+    void withKeepsSubclass() {
+        LazyReference<CompoundTag> nbt = lazyNbt();
+        BaseBlock lit = new NativeBlock(furnace, nbt).with(TestPlatform.LIT, true);
+        assertTrue(lit instanceof NativeBlock);
+        assertEquals(true, lit.getState(TestPlatform.LIT));
+        assertSame(nbt, lit.getNbtReference());
+        assertFalse(nbt.isComputed());
+    }
+
+    @Test
+    @DisplayName("keeps the NBT data reference when the state changes")
+    void withKeepsNbtReference() {
+        CompoundTag nbt = new CompoundTag(new HashMap<>());
+        BaseBlock lit = furnace.toBaseBlock(nbt).with(TestPlatform.LIT, true);
+        assertEquals(true, lit.getState(TestPlatform.LIT));
+        assertSame(nbt, lit.getNbtData());
+    }
+
+    private static LazyReference<CompoundTag> lazyNbt() {
+        return LazyReference.from(() -> new CompoundTag(new HashMap<>()));
+    }
+
+    /**
+     * Stands in for the platform blocks that keep native tile entity data.
+     */
+    private static final class NativeBlock extends BaseBlock {
+
+        private NativeBlock(BlockState state, LazyReference<CompoundTag> nbtData) {
+            super(state, nbtData);
+        }
+
+        @Override
+        protected BaseBlock withState(BlockState state) {
+            return new NativeBlock(state, getNbtReference());
+        }
+
+    }
+
+}
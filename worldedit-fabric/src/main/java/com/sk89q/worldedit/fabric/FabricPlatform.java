@@ -29,6 +29,7 @@
 import com.sk89q.worldedit.extension.platform.MultiUserPlatform;
 import com.sk89q.worldedit.extension.platform.Preference;
 import com.sk89q.worldedit.extension.platform.Watchdog;
+import com.sk89q.worldedit.internal.util.TickScheduler;
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.world.DataFixer;
 import com.sk89q.worldedit.world.World;
@@ -63,6 +64,7 @@ class FabricPlatform extends AbstractPlatform implements MultiUserPlatform {
     private final MinecraftServer server;
     private final FabricDataFixer dataFixer;
     private final @Nullable Watchdog watchdog;
+    private final TickScheduler scheduler = new TickScheduler();
     private boolean hookingEvents = false;
     private CommandDispatcher<ServerCommandSource> nativeDispatcher;
 
@@ -106,7 +108,16 @@ public void reload() {
 
     @Override
     public int schedule(long delay, long period, Runnable task) {
-        return -1;
+        return scheduler.schedule(delay, period, task);
+    }
+
+    @Override
+    public void cancelTask(int taskId) {
+        scheduler.cancel(taskId);
+    }
+
+    void tick() {
+        scheduler.tick();
     }
 
     @Override
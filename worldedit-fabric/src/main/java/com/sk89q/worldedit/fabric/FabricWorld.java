@@ -22,11 +22,12 @@
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.Futures;
 import com.mojang.serialization.Dynamic;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.EditSession;
@@ -37,12 +38,15 @@
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.fabric.internal.ExtendedMinecraftServer;
+import com.sk89q.worldedit.fabric.internal.FabricBaseBlock;
 import com.sk89q.worldedit.fabric.internal.FabricWorldNativeAccess;
 import com.sk89q.worldedit.fabric.internal.NBTConverter;
 import com.sk89q.worldedit.fabric.mixin.AccessorLevelProperties;
 import com.sk89q.worldedit.fabric.mixin.AccessorServerChunkManager;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.internal.util.ChunkHoldCounter;
+import com.sk89q.worldedit.internal.wna.ChunkRegenerator;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
@@ -71,6 +75,7 @@
 import net.minecraft.nbt.NbtOps;
 import net.minecraft.nbt.Tag;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ChunkTicketType;
 import net.minecraft.server.world.ServerChunkManager;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.ActionResult;
@@ -85,6 +90,7 @@
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.registry.DynamicRegistryManager;
 import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.Heightmap;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldProperties;
 import net.minecraft.world.biome.source.BiomeAccessType;
@@ -92,6 +98,7 @@
 import net.minecraft.world.biome.source.HorizontalVoronoiBiomeAccessType;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.ChunkManager;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.chunk.WorldChunk;
 import net.minecraft.world.dimension.DimensionOptions;
@@ -104,9 +111,9 @@
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -117,6 +124,7 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -128,6 +136,15 @@
 public class FabricWorld extends AbstractWorld {
 
     private static final Random random = new Random();
+    private static final ChunkTicketType<ChunkPos> WORLDEDIT_TICKET =
+        ChunkTicketType.create("worldedit", Comparator.comparingLong(ChunkPos::toLong));
+
+    // Tickets with the same argument aren't counted, so holds are counted here, by world
+    private static final Map<ServerWorld, ChunkHoldCounter> chunkHolds = new MapMaker().weakKeys().makeMap();
+
+    private static ChunkHoldCounter getChunkHolds(ServerWorld world) {
+        return chunkHolds.computeIfAbsent(world, w -> new ChunkHoldCounter());
+    }
 
     private static Identifier getDimensionRegistryKey(World world) {
         return Objects.requireNonNull(world.getServer(), "server cannot be null")
@@ -196,6 +213,11 @@ public Set<SideEffect> applySideEffects(BlockVector3 position, BlockState previo
         return Sets.intersection(FabricWorldEdit.inst.getPlatform().getSupportedSideEffects(), sideEffectSet.getSideEffectsToApply());
     }
 
+    @Override
+    public void applySideEffects(BlockVector2 chunk, Map<BlockVector3, BlockState> changes, SideEffectSet sideEffectSet) {
+        worldNativeAccess.applySideEffects(chunk.getBlockX(), chunk.getBlockZ(), changes, sideEffectSet);
+    }
+
     @Override
     public int getBlockLightLevel(BlockVector3 position) {
         checkNotNull(position);
@@ -391,58 +413,65 @@ private Dynamic<Tag> recursivelySetSeed(Dynamic<Tag> dynamic, long seed, Set<Dyn
 
     private void regenForWorld(Region region, Extent extent, ServerWorld serverWorld,
                                RegenOptions options) throws WorldEditException {
-        List<CompletableFuture<Chunk>> chunkLoadings = submitChunkLoadTasks(region, serverWorld);
-
-        // drive executor until loading finishes
-        ((AccessorServerChunkManager) serverWorld.getChunkManager()).getMainThreadExecutor()
-            .runTasks(() -> {
-                // bail out early if a future fails
-                if (chunkLoadings.stream().anyMatch(ftr ->
-                    ftr.isDone() && Futures.getUnchecked(ftr) == null
-                )) {
-                    return false;
-                }
-                return chunkLoadings.stream().allMatch(CompletableFuture::isDone);
-            });
-
-        Map<ChunkPos, Chunk> chunks = new HashMap<>();
-        for (CompletableFuture<Chunk> future : chunkLoadings) {
-            @Nullable
-            Chunk chunk = future.getNow(null);
-            checkState(chunk != null, "Failed to generate a chunk, regen failed.");
-            chunks.put(chunk.getPos(), chunk);
-        }
-
-        for (BlockVector3 vec : region) {
-            BlockPos pos = FabricAdapter.toBlockPos(vec);
-            Chunk chunk = chunks.get(new ChunkPos(pos));
-            BlockStateHolder<?> state = FabricAdapter.adapt(chunk.getBlockState(pos));
-            BlockEntity blockEntity = chunk.getBlockEntity(pos);
-            if (blockEntity != null) {
-                net.minecraft.nbt.CompoundTag tag = new net.minecraft.nbt.CompoundTag();
-                blockEntity.toTag(tag);
-                state = state.toBaseBlock(NBTConverter.fromNative(tag));
-            }
-            extent.setBlock(vec, state.toBaseBlock());
+        new FabricChunkRegenerator(region, serverWorld).regenerate(extent, options);
+    }
+
+    private class FabricChunkRegenerator extends ChunkRegenerator<Chunk, ChunkSection> {
+
+        private final ServerWorld serverWorld;
+
+        FabricChunkRegenerator(Region region, ServerWorld serverWorld) {
+            super(region, Util.getMainWorkerExecutor());
+            this.serverWorld = serverWorld;
+        }
 
-            if (options.shouldRegenBiomes()) {
-                BiomeType biome = getBiomeInChunk(vec, chunk);
-                extent.setBiome(vec, biome);
+        @Override
+        protected CompletableFuture<Chunk> loadChunk(int chunkX, int chunkZ) {
+            AccessorServerChunkManager chunkManager = (AccessorServerChunkManager) serverWorld.getChunkManager();
+            return chunkManager.callGetChunkFuture(chunkX, chunkZ, ChunkStatus.FEATURES, true)
+                .thenApply(either -> either.left().orElse(null));
+        }
+
+        @Override
+        protected void driveMainThreadUntil(BooleanSupplier done) {
+            ((AccessorServerChunkManager) serverWorld.getChunkManager()).getMainThreadExecutor()
+                .runTasks(done);
+        }
+
+        @Nullable
+        @Override
+        protected ChunkSection getSection(Chunk chunk, int sectionY) {
+            ChunkSection[] sections = chunk.getSectionArray();
+            ChunkSection section = sectionY >= 0 && sectionY < sections.length ? sections[sectionY] : null;
+            return ChunkSection.isEmpty(section) ? null : section;
+        }
+
+        @Override
+        protected BlockState getBlockState(ChunkSection section, int x, int y, int z) {
+            return adaptState(section.getBlockState(x, y, z));
+        }
+
+        @Override
+        protected Collection<BlockVector3> getBlockEntityPositions(Chunk chunk) {
+            return Collections2.transform(chunk.getBlockEntityPositions(), FabricAdapter::adapt);
+        }
+
+        @Nullable
+        @Override
+        protected BaseBlock getFullBlock(Chunk chunk, BlockVector3 position, BlockState state) {
+            BlockEntity blockEntity = chunk.getBlockEntity(FabricAdapter.toBlockPos(position));
+            if (blockEntity == null) {
+                return null;
             }
+            net.minecraft.nbt.CompoundTag tag = new net.minecraft.nbt.CompoundTag();
+            blockEntity.toTag(tag);
+            return new FabricBaseBlock(state, tag);
         }
-    }
 
-    private List<CompletableFuture<Chunk>> submitChunkLoadTasks(Region region, ServerWorld world) {
-        AccessorServerChunkManager chunkManager = (AccessorServerChunkManager) world.getChunkManager();
-        List<CompletableFuture<Chunk>> chunkLoadings = new ArrayList<>();
-        // Pre-gen all the chunks
-        for (BlockVector2 chunk : region.getChunks()) {
-            chunkLoadings.add(
-                chunkManager.callGetChunkFuture(chunk.getX(), chunk.getZ(), ChunkStatus.FEATURES, true)
-                    .thenApply(either -> either.left().orElse(null))
-            );
+        @Override
+        protected BiomeType getBiome(Chunk chunk, BlockVector3 position) {
+            return getBiomeInChunk(position, chunk);
         }
-        return chunkLoadings;
     }
 
     @Nullable
@@ -490,6 +519,37 @@ public void checkLoadedChunk(BlockVector3 pt) {
         getWorld().getChunk(FabricAdapter.toBlockPos(pt));
     }
 
+    @Override
+    public CompletableFuture<Boolean> loadChunksAsync(Collection<BlockVector2> chunks, boolean hold) {
+        ServerWorld world = (ServerWorld) getWorld();
+        ServerChunkManager chunkManager = world.getChunkManager();
+        ChunkHoldCounter holds = getChunkHolds(world);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        int i = 0;
+        for (BlockVector2 chunk : chunks) {
+            if (hold && holds.hold(chunk.getBlockX(), chunk.getBlockZ())) {
+                ChunkPos pos = new ChunkPos(chunk.getBlockX(), chunk.getBlockZ());
+                chunkManager.addTicket(WORLDEDIT_TICKET, pos, 0, pos);
+            }
+            futures[i++] = ((AccessorServerChunkManager) chunkManager)
+                .callGetChunkFuture(chunk.getBlockX(), chunk.getBlockZ(), ChunkStatus.FULL, true);
+        }
+        return CompletableFuture.allOf(futures).handle((ignored, error) -> hold && error == null);
+    }
+
+    @Override
+    public void releaseChunks(Collection<BlockVector2> chunks) {
+        ServerWorld world = (ServerWorld) getWorld();
+        ServerChunkManager chunkManager = world.getChunkManager();
+        ChunkHoldCounter holds = getChunkHolds(world);
+        for (BlockVector2 chunk : chunks) {
+            if (holds.release(chunk.getBlockX(), chunk.getBlockZ())) {
+                ChunkPos pos = new ChunkPos(chunk.getBlockX(), chunk.getBlockZ());
+                chunkManager.removeTicket(WORLDEDIT_TICKET, pos, 0, pos);
+            }
+        }
+    }
+
     @Override
     public void fixAfterFastMode(Iterable<BlockVector2> chunks) {
         fixLighting(chunks);
@@ -564,6 +624,12 @@ public int getMaxY() {
         return getWorld().getHeight() - 1;
     }
 
+    @Override
+    public int getHighestBlockYBound(int x, int z) {
+        // The height map holds the Y just above the highest non-air block
+        return getWorld().getTopY(Heightmap.Type.WORLD_SURFACE, x, z) - 1;
+    }
+
     @Override
     public BlockVector3 getSpawnPosition() {
         WorldProperties worldProps = getWorld().getLevelProperties();
@@ -576,10 +642,19 @@ public BlockVector3 getSpawnPosition() {
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
         net.minecraft.block.BlockState mcState = getWorld()
-                .getChunk(position.getBlockX() >> 4, position.getBlockZ() >> 4)
-                .getBlockState(FabricAdapter.toBlockPos(position));
+                .getChunk(x >> 4, z >> 4)
+                .getBlockState(new BlockPos(x, y, z));
+
+        return adaptState(mcState);
+    }
 
+    private static BlockState adaptState(net.minecraft.block.BlockState mcState) {
         BlockState matchingBlock = BlockStateIdAccess.getBlockStateById(Block.getRawIdFromState(mcState));
         if (matchingBlock != null) {
             return matchingBlock;
@@ -597,7 +672,7 @@ public BaseBlock getFullBlock(BlockVector3 position) {
         if (tile != null) {
             net.minecraft.nbt.CompoundTag tag = new net.minecraft.nbt.CompoundTag();
             tile.toTag(tag);
-            return getBlock(position).toBaseBlock(NBTConverter.fromNative(tag));
+            return new FabricBaseBlock(getBlock(position), tag);
         } else {
             return getBlock(position).toBaseBlock();
         }
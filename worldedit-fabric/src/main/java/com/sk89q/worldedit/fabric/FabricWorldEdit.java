@@ -113,6 +113,7 @@ public void onInitialize() {
         WECUIPacketHandler.init();
 
         ServerTickEvents.END_SERVER_TICK.register(ThreadSafeCache.getInstance());
+        ServerTickEvents.END_SERVER_TICK.register(this::onEndServerTick);
         CommandRegistrationCallback.EVENT.register(this::registerCommands);
         ServerLifecycleEvents.SERVER_STARTED.register(this::onStartServer);
         ServerLifecycleEvents.SERVER_STOPPING.register(this::onStopServer);
@@ -206,6 +207,12 @@ private void onStopServer(MinecraftServer minecraftServer) {
         worldEdit.getPlatformManager().unregister(platform);
     }
 
+    private void onEndServerTick(MinecraftServer minecraftServer) {
+        if (platform != null) {
+            platform.tick();
+        }
+    }
+
     private boolean shouldSkip() {
         if (platform == null) {
             return true;
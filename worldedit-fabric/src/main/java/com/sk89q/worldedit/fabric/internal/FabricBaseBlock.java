@@ -0,0 +1,66 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.fabric.internal;
+
+import com.sk89q.worldedit.util.concurrency.LazyReference;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import net.minecraft.nbt.CompoundTag;
+
+/**
+ * A {@link BaseBlock} read from a Fabric world, which keeps the native tile
+ * entity data and only converts it to a {@link com.sk89q.jnbt.CompoundTag}
+ * when it is requested.
+ */
+public class FabricBaseBlock extends BaseBlock {
+
+    private final CompoundTag nativeTag;
+
+    public FabricBaseBlock(BlockState state, CompoundTag nativeTag) {
+        super(state, LazyReference.from(() -> NBTConverter.fromNative(nativeTag)));
+        this.nativeTag = nativeTag;
+    }
+
+    private FabricBaseBlock(BlockState state, CompoundTag nativeTag, LazyReference<com.sk89q.jnbt.CompoundTag> nbtData) {
+        super(state, nbtData);
+        this.nativeTag = nativeTag;
+    }
+
+    /**
+     * Get a copy of the native tile entity data.
+     *
+     * @return a copy of the native tag
+     */
+    public CompoundTag getNativeTag() {
+        return nativeTag.copy();
+    }
+
+    @Override
+    protected BaseBlock withState(BlockState state) {
+        return new FabricBaseBlock(state, nativeTag, getNbtReference());
+    }
+
+    @Override
+    public String getNbtId() {
+        return nativeTag.getString("id");
+    }
+
+}
@@ -22,6 +22,8 @@
 import com.sk89q.worldedit.fabric.FabricAdapter;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
 import com.sk89q.worldedit.internal.wna.WorldNativeAccess;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
@@ -101,6 +103,24 @@ public boolean updateTileEntity(BlockPos position, com.sk89q.jnbt.CompoundTag ta
         return true;
     }
 
+    @Override
+    public boolean updateTileEntity(BlockPos position, BlockVector3 blockPosition, BaseBlock block) {
+        if (!(block instanceof FabricBaseBlock)) {
+            return WorldNativeAccess.super.updateTileEntity(position, blockPosition, block);
+        }
+        BlockEntity tileEntity = getWorld().getWorldChunk(position).getBlockEntity(position);
+        if (tileEntity == null) {
+            return false;
+        }
+        CompoundTag nativeTag = ((FabricBaseBlock) block).getNativeTag();
+        nativeTag.putInt("x", position.getX());
+        nativeTag.putInt("y", position.getY());
+        nativeTag.putInt("z", position.getZ());
+        tileEntity.setLocation(getWorld(), position);
+        tileEntity.fromTag(getWorld().getBlockState(position), nativeTag);
+        return true;
+    }
+
     @Override
     public void notifyBlockUpdate(BlockPos position, BlockState oldState, BlockState newState) {
         getWorld().updateListeners(position, oldState, newState, UPDATE | NOTIFY);
@@ -119,6 +139,21 @@ public void markBlockChanged(BlockPos position) {
     @Override
     public void notifyNeighbors(BlockPos pos, BlockState oldState, BlockState newState) {
         getWorld().updateNeighbors(pos, oldState.getBlock());
+        updateComparators(pos, newState);
+    }
+
+    @Override
+    public boolean canUpdateNeighborsIndividually() {
+        return true;
+    }
+
+    @Override
+    public void updateNeighbor(BlockPos target, BlockPos source, BlockState sourceOldState, BlockState sourceNewState) {
+        getWorld().updateNeighbor(target, sourceOldState.getBlock(), source);
+    }
+
+    @Override
+    public void updateComparators(BlockPos pos, BlockState newState) {
         if (newState.hasComparatorOutput()) {
             getWorld().updateComparators(pos, newState.getBlock());
         }
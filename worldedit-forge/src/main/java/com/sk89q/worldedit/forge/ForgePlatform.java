@@ -28,6 +28,7 @@
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.MultiUserPlatform;
 import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.internal.util.TickScheduler;
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.util.io.ResourceLoader;
 import com.sk89q.worldedit.world.DataFixer;
@@ -63,6 +64,7 @@ class ForgePlatform extends AbstractPlatform implements MultiUserPlatform {
     private final MinecraftServer server;
     private final ForgeDataFixer dataFixer;
     private final @Nullable ForgeWatchdog watchdog;
+    private final TickScheduler scheduler = new TickScheduler();
     private boolean hookingEvents = false;
     private final ResourceLoader resourceLoader = new ForgeResourceLoader(WorldEdit.getInstance());
 
@@ -110,7 +112,16 @@ public void reload() {
 
     @Override
     public int schedule(long delay, long period, Runnable task) {
-        return -1;
+        return scheduler.schedule(delay, period, task);
+    }
+
+    @Override
+    public void cancelTask(int taskId) {
+        scheduler.cancel(taskId);
+    }
+
+    void tick() {
+        scheduler.tick();
     }
 
     @Override
@@ -22,11 +22,12 @@
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.Futures;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.Dynamic;
 import com.sk89q.jnbt.CompoundTag;
@@ -37,12 +38,15 @@
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.forge.internal.ForgeBaseBlock;
 import com.sk89q.worldedit.forge.internal.ForgeWorldNativeAccess;
 import com.sk89q.worldedit.forge.internal.NBTConverter;
 import com.sk89q.worldedit.forge.internal.TileEntityUtils;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
 import com.sk89q.worldedit.internal.util.BiomeMath;
+import com.sk89q.worldedit.internal.util.ChunkHoldCounter;
+import com.sk89q.worldedit.internal.wna.ChunkRegenerator;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
@@ -90,13 +94,16 @@
 import net.minecraft.world.biome.ColumnFuzzedBiomeMagnifier;
 import net.minecraft.world.biome.IBiomeMagnifier;
 import net.minecraft.world.chunk.AbstractChunkProvider;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.gen.Heightmap;
 import net.minecraft.world.gen.feature.ConfiguredFeature;
 import net.minecraft.world.gen.feature.Features;
 import net.minecraft.world.gen.settings.DimensionGeneratorSettings;
 import net.minecraft.world.server.ServerChunkProvider;
 import net.minecraft.world.server.ServerWorld;
+import net.minecraft.world.server.TicketType;
 import net.minecraft.world.storage.IServerWorldInfo;
 import net.minecraft.world.storage.IWorldInfo;
 import net.minecraft.world.storage.SaveFormat;
@@ -105,9 +112,9 @@
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -118,10 +125,10 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 
 /**
  * An adapter to Minecraft worlds for WorldEdit.
@@ -129,6 +136,15 @@
 public class ForgeWorld extends AbstractWorld {
 
     private static final Random random = new Random();
+    private static final TicketType<ChunkPos> WORLDEDIT_TICKET =
+        TicketType.create("worldedit", Comparator.comparingLong(ChunkPos::asLong));
+
+    // Tickets with the same argument aren't counted, so holds are counted here, by world
+    private static final Map<ServerWorld, ChunkHoldCounter> chunkHolds = new MapMaker().weakKeys().makeMap();
+
+    private static ChunkHoldCounter getChunkHolds(ServerWorld world) {
+        return chunkHolds.computeIfAbsent(world, w -> new ChunkHoldCounter());
+    }
 
     private static ResourceLocation getDimensionRegistryKey(World world) {
         return Objects.requireNonNull(world.getServer(), "server cannot be null")
@@ -199,6 +215,11 @@ public Set<SideEffect> applySideEffects(BlockVector3 position, BlockState previo
         return Sets.intersection(ForgeWorldEdit.inst.getPlatform().getSupportedSideEffects(), sideEffectSet.getSideEffectsToApply());
     }
 
+    @Override
+    public void applySideEffects(BlockVector2 chunk, Map<BlockVector3, BlockState> changes, SideEffectSet sideEffectSet) {
+        nativeAccess.applySideEffects(chunk.getBlockX(), chunk.getBlockZ(), changes, sideEffectSet);
+    }
+
     @Override
     public int getBlockLightLevel(BlockVector3 position) {
         checkNotNull(position);
@@ -402,57 +423,64 @@ private Dynamic<INBT> recursivelySetSeed(Dynamic<INBT> dynamic, long seed, Set<D
 
     private void regenForWorld(Region region, Extent extent, ServerWorld serverWorld,
                                RegenOptions options) throws WorldEditException {
-        List<CompletableFuture<IChunk>> chunkLoadings = submitChunkLoadTasks(region, serverWorld);
-
-        // drive executor until loading finishes
-        ThreadTaskExecutor<Runnable> executor = serverWorld.getChunkProvider().executor;
-        executor.driveUntil(() -> {
-            // bail out early if a future fails
-            if (chunkLoadings.stream().anyMatch(ftr ->
-                ftr.isDone() && Futures.getUnchecked(ftr) == null
-            )) {
-                return false;
-            }
-            return chunkLoadings.stream().allMatch(CompletableFuture::isDone);
-        });
+        new ForgeChunkRegenerator(region, serverWorld).regenerate(extent, options);
+    }
 
-        Map<ChunkPos, IChunk> chunks = new HashMap<>();
-        for (CompletableFuture<IChunk> future : chunkLoadings) {
-            @Nullable
-            IChunk chunk = future.getNow(null);
-            checkState(chunk != null, "Failed to generate a chunk, regen failed.");
-            chunks.put(chunk.getPos(), chunk);
-        }
-
-        for (BlockVector3 vec : region) {
-            BlockPos pos = ForgeAdapter.toBlockPos(vec);
-            IChunk chunk = chunks.get(new ChunkPos(pos));
-            BlockStateHolder<?> state = ForgeAdapter.adapt(chunk.getBlockState(pos));
-            TileEntity blockEntity = chunk.getTileEntity(pos);
-            if (blockEntity != null) {
-                CompoundNBT tag = new CompoundNBT();
-                blockEntity.write(tag);
-                state = state.toBaseBlock(NBTConverter.fromNative(tag));
-            }
-            extent.setBlock(vec, state.toBaseBlock());
+    private class ForgeChunkRegenerator extends ChunkRegenerator<IChunk, ChunkSection> {
+
+        private final ServerWorld serverWorld;
 
-            if (options.shouldRegenBiomes()) {
-                BiomeType biome = getBiomeInChunk(vec, chunk);
-                extent.setBiome(vec, biome);
+        ForgeChunkRegenerator(Region region, ServerWorld serverWorld) {
+            super(region, Util.getServerExecutor());
+            this.serverWorld = serverWorld;
+        }
+
+        @Override
+        protected CompletableFuture<IChunk> loadChunk(int chunkX, int chunkZ) {
+            return serverWorld.getChunkProvider().func_217233_c(chunkX, chunkZ, ChunkStatus.FEATURES, true)
+                .thenApply(either -> either.left().orElse(null));
+        }
+
+        @Override
+        protected void driveMainThreadUntil(BooleanSupplier done) {
+            ThreadTaskExecutor<Runnable> executor = serverWorld.getChunkProvider().executor;
+            executor.driveUntil(done);
+        }
+
+        @Nullable
+        @Override
+        protected ChunkSection getSection(IChunk chunk, int sectionY) {
+            ChunkSection[] sections = chunk.getSections();
+            ChunkSection section = sectionY >= 0 && sectionY < sections.length ? sections[sectionY] : null;
+            return ChunkSection.isEmpty(section) ? null : section;
+        }
+
+        @Override
+        protected BlockState getBlockState(ChunkSection section, int x, int y, int z) {
+            return adaptState(section.getBlockState(x, y, z));
+        }
+
+        @Override
+        protected Collection<BlockVector3> getBlockEntityPositions(IChunk chunk) {
+            return Collections2.transform(chunk.getTileEntitiesPos(), ForgeAdapter::adapt);
+        }
+
+        @Nullable
+        @Override
+        protected BaseBlock getFullBlock(IChunk chunk, BlockVector3 position, BlockState state) {
+            TileEntity blockEntity = chunk.getTileEntity(ForgeAdapter.toBlockPos(position));
+            if (blockEntity == null) {
+                return null;
             }
+            CompoundNBT tag = new CompoundNBT();
+            blockEntity.write(tag);
+            return new ForgeBaseBlock(state, tag);
         }
-    }
 
-    private List<CompletableFuture<IChunk>> submitChunkLoadTasks(Region region, ServerWorld world) {
-        List<CompletableFuture<IChunk>> chunkLoadings = new ArrayList<>();
-        // Pre-gen all the chunks
-        for (BlockVector2 chunk : region.getChunks()) {
-            chunkLoadings.add(
-                world.getChunkProvider().func_217233_c(chunk.getX(), chunk.getZ(), ChunkStatus.FEATURES, true)
-                    .thenApply(either -> either.left().orElse(null))
-            );
+        @Override
+        protected BiomeType getBiome(IChunk chunk, BlockVector3 position) {
+            return getBiomeInChunk(position, chunk);
         }
-        return chunkLoadings;
     }
 
     @Nullable
@@ -498,6 +526,36 @@ public void checkLoadedChunk(BlockVector3 pt) {
         getWorld().getChunk(ForgeAdapter.toBlockPos(pt));
     }
 
+    @Override
+    public CompletableFuture<Boolean> loadChunksAsync(Collection<BlockVector2> chunks, boolean hold) {
+        ServerWorld world = (ServerWorld) getWorld();
+        ServerChunkProvider chunkProvider = world.getChunkProvider();
+        ChunkHoldCounter holds = getChunkHolds(world);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        int i = 0;
+        for (BlockVector2 chunk : chunks) {
+            if (hold && holds.hold(chunk.getBlockX(), chunk.getBlockZ())) {
+                ChunkPos pos = new ChunkPos(chunk.getBlockX(), chunk.getBlockZ());
+                chunkProvider.registerTicket(WORLDEDIT_TICKET, pos, 0, pos);
+            }
+            futures[i++] = chunkProvider.func_217233_c(chunk.getBlockX(), chunk.getBlockZ(), ChunkStatus.FULL, true);
+        }
+        return CompletableFuture.allOf(futures).handle((ignored, error) -> hold && error == null);
+    }
+
+    @Override
+    public void releaseChunks(Collection<BlockVector2> chunks) {
+        ServerWorld world = (ServerWorld) getWorld();
+        ServerChunkProvider chunkProvider = world.getChunkProvider();
+        ChunkHoldCounter holds = getChunkHolds(world);
+        for (BlockVector2 chunk : chunks) {
+            if (holds.release(chunk.getBlockX(), chunk.getBlockZ())) {
+                ChunkPos pos = new ChunkPos(chunk.getBlockX(), chunk.getBlockZ());
+                chunkProvider.releaseTicket(WORLDEDIT_TICKET, pos, 0, pos);
+            }
+        }
+    }
+
     @Override
     public void fixAfterFastMode(Iterable<BlockVector2> chunks) {
         fixLighting(chunks);
@@ -575,6 +633,12 @@ public int getMaxY() {
         return getWorld().getHeight() - 1;
     }
 
+    @Override
+    public int getHighestBlockYBound(int x, int z) {
+        // The height map holds the Y just above the highest non-air block
+        return getWorld().getHeight(Heightmap.Type.WORLD_SURFACE, x, z) - 1;
+    }
+
     @Override
     public BlockVector3 getSpawnPosition() {
         IWorldInfo worldInfo = getWorld().getWorldInfo();
@@ -587,10 +651,19 @@ public BlockVector3 getSpawnPosition() {
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
         net.minecraft.block.BlockState mcState = getWorld()
-                .getChunk(position.getBlockX() >> 4, position.getBlockZ() >> 4)
-                .getBlockState(ForgeAdapter.toBlockPos(position));
+                .getChunk(x >> 4, z >> 4)
+                .getBlockState(new BlockPos(x, y, z));
+
+        return adaptState(mcState);
+    }
 
+    private static BlockState adaptState(net.minecraft.block.BlockState mcState) {
         BlockState matchingBlock = BlockStateIdAccess.getBlockStateById(Block.getStateId(mcState));
         if (matchingBlock != null) {
             return matchingBlock;
@@ -605,7 +678,7 @@ public BaseBlock getFullBlock(BlockVector3 position) {
         TileEntity tile = getWorld().getChunk(pos).getTileEntity(pos);
 
         if (tile != null) {
-            return getBlock(position).toBaseBlock(NBTConverter.fromNative(TileEntityUtils.copyNbtData(tile)));
+            return new ForgeBaseBlock(getBlock(position), TileEntityUtils.copyNbtData(tile));
         } else {
             return getBlock(position).toBaseBlock();
         }
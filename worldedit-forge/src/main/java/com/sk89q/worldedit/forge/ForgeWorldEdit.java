@@ -48,6 +48,8 @@
 import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.CommandEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent.LeftClickEmpty;
 import net.minecraftforge.eventbus.api.Event;
@@ -212,6 +214,23 @@ public void serverStarted(FMLServerStartedEvent event) {
         WorldEdit.getInstance().getEventBus().post(new PlatformReadyEvent());
     }
 
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (platform != null && event.phase == TickEvent.Phase.END) {
+            platform.tick();
+        }
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (platform == null || !(event.getPlayer() instanceof ServerPlayerEntity)) {
+            return;
+        }
+
+        // load the session off the main thread before the player needs it
+        WorldEdit.getInstance().getSessionManager().prefetch(adaptPlayer((ServerPlayerEntity) event.getPlayer()));
+    }
+
     @SubscribeEvent
     public void onPlayerInteract(PlayerInteractEvent event) {
         if (platform == null) {
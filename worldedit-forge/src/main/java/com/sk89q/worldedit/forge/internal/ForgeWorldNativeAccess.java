@@ -23,8 +23,10 @@
 import com.sk89q.worldedit.forge.ForgeAdapter;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
 import com.sk89q.worldedit.internal.wna.WorldNativeAccess;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.world.block.BaseBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.nbt.CompoundNBT;
@@ -103,6 +105,18 @@ public boolean updateTileEntity(BlockPos position, CompoundTag tag) {
         return TileEntityUtils.setTileEntity(getWorld(), position, nativeTag);
     }
 
+    @Override
+    public boolean updateTileEntity(BlockPos position, BlockVector3 blockPosition, BaseBlock block) {
+        if (!(block instanceof ForgeBaseBlock)) {
+            return WorldNativeAccess.super.updateTileEntity(position, blockPosition, block);
+        }
+        CompoundNBT nativeTag = ((ForgeBaseBlock) block).getNativeTag();
+        nativeTag.putInt("x", position.getX());
+        nativeTag.putInt("y", position.getY());
+        nativeTag.putInt("z", position.getZ());
+        return TileEntityUtils.setTileEntity(getWorld(), position, nativeTag);
+    }
+
     @Override
     public void notifyBlockUpdate(BlockPos position, BlockState oldState, BlockState newState) {
         getWorld().notifyBlockUpdate(position, oldState, newState, UPDATE | NOTIFY);
@@ -133,8 +147,24 @@ public void notifyNeighbors(BlockPos pos, BlockState oldState, BlockState newSta
             world.neighborChanged(pos.north(), block, pos);
             world.neighborChanged(pos.south(), block, pos);
         }
+        updateComparators(pos, newState);
+    }
+
+    @Override
+    public boolean canUpdateNeighborsIndividually() {
+        // the neighbour notify event is only fired for all sides at once
+        return !sideEffectSet.shouldApply(SideEffect.EVENTS);
+    }
+
+    @Override
+    public void updateNeighbor(BlockPos target, BlockPos source, BlockState sourceOldState, BlockState sourceNewState) {
+        getWorld().neighborChanged(target, sourceOldState.getBlock(), source);
+    }
+
+    @Override
+    public void updateComparators(BlockPos pos, BlockState newState) {
         if (newState.hasComparatorInputOverride()) {
-            world.updateComparatorOutputLevel(pos, newState.getBlock());
+            getWorld().updateComparatorOutputLevel(pos, newState.getBlock());
         }
     }
 
@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.regions.Region;
@@ -59,10 +60,12 @@
 import java.lang.ref.WeakReference;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -187,6 +190,11 @@ public boolean regenerate(Region region, Extent extent, RegenOptions options) {
         return false;
     }
 
+    @Override
+    public int getHighestBlockYBound(int x, int z) {
+        return SpongeWorldEdit.inst().getAdapter().getHighestBlockYBound(getWorld(), x, z);
+    }
+
     @Override
     public int getBlockLightLevel(BlockVector3 position) {
         checkNotNull(position);
@@ -243,6 +251,18 @@ public void simulateBlockMine(BlockVector3 position) {
         // TODO
     }
 
+    @Override
+    public CompletableFuture<Boolean> loadChunksAsync(Collection<BlockVector2> chunks, boolean hold) {
+        World world = getWorld();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        int i = 0;
+        for (BlockVector2 chunk : chunks) {
+            futures[i++] = world.loadChunkAsync(new Vector3i(chunk.getBlockX(), 0, chunk.getBlockZ()), true);
+        }
+        // Sponge has no API to keep chunks loaded, so they are never held
+        return CompletableFuture.allOf(futures).thenApply(ignored -> false);
+    }
+
     @Override
     public int hashCode() {
         return getWorld().hashCode();
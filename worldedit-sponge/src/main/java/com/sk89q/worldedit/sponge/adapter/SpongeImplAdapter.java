@@ -40,6 +40,24 @@ public interface SpongeImplAdapter {
 
     SpongeWorld getWorld(World world);
 
+    /**
+     * Get an upper bound for the Y of the highest non-air block in a column.
+     *
+     * <p>The Sponge API only exposes the height of the highest opaque block,
+     * which misses transparent blocks such as glass, so this returns the
+     * world's maximum height unless the adapter can read the chunk's own
+     * height map.</p>
+     *
+     * @param world the world
+     * @param x the X coordinate
+     * @param z the Z coordinate
+     * @return the highest Y that may hold a non-air block
+     * @see com.sk89q.worldedit.world.World#getHighestBlockYBound(int, int)
+     */
+    default int getHighestBlockYBound(World world, int x, int z) {
+        return world.getBlockMax().getY();
+    }
+
     default boolean isBest() {
         return true;
     }
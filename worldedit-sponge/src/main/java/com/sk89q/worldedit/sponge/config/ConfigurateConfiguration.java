@@ -112,13 +112,27 @@ public void load() {
         navigationUseGlass = node.getNode("navigation", "use-glass").getBoolean(navigationUseGlass);
 
         scriptTimeout = node.getNode("scripting", "timeout").getInt(scriptTimeout);
+        scriptOptimizationLevel = node.getNode("scripting", "optimization-level").getInt(scriptOptimizationLevel);
         scriptsDir = node.getNode("scripting", "dir").getString(scriptsDir);
 
         saveDir = node.getNode("saving", "dir").getString(saveDir);
 
+        smoothParallel = node.getNode("smoothing", "parallel").getBoolean(smoothParallel);
+
+        chunkPreloadLimit = node.getNode("chunk-preload", "max-chunks").getInt(chunkPreloadLimit);
+        chunkPreloadHold = node.getNode("chunk-preload", "hold").getBoolean(chunkPreloadHold);
+        chunkPrefetchDistance = node.getNode("chunk-preload", "prefetch-distance").getInt(chunkPrefetchDistance);
+        watchdogTickInterval = node.getNode("watchdog", "tick-interval").getInt(watchdogTickInterval);
+        schedulerTickBudget = node.getNode("scheduler", "tick-budget").getInt(schedulerTickBudget);
+        schedulerDeferEdits = node.getNode("scheduler", "defer-edits").getBoolean(schedulerDeferEdits);
+
         allowSymlinks = node.getNode("files", "allow-symbolic-links").getBoolean(false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, node.getNode("history", "size").getInt(15));
         SessionManager.EXPIRATION_GRACE = node.getNode("history", "expiration").getInt(10) * 60 * 1000;
+        journalHistory = node.getNode("history", "journal", "enabled").getBoolean(journalHistory);
+        journalHistoryMaxAge = node.getNode("history", "journal", "max-age").getInt(journalHistoryMaxAge);
+        journalHistoryMaxSize = node.getNode("history", "journal", "max-size").getInt(journalHistoryMaxSize);
+        skipUnchangedBlocks = node.getNode("history", "skip-unchanged").getBoolean(skipUnchangedBlocks);
 
         showHelpInfo = node.getNode("show-help-on-first-use").getBoolean(true);
         serverSideCUI = node.getNode("server-side-cui").getBoolean(true);